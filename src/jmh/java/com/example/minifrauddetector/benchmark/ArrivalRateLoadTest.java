@@ -0,0 +1,315 @@
+package com.example.minifrauddetector.benchmark;
+
+import com.example.minifrauddetector.MiniFraudDetectorApplication;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Open-model load test of the check endpoints. Requests are scheduled at a constant arrival rate whether or
+ * not earlier ones have completed, and each latency is measured from the time the request was scheduled to
+ * go out, not from when it was actually sent. A stalled server therefore shows up as the queueing delay its
+ * callers would see, instead of pausing the generator and hiding the stall (coordinated omission). The
+ * service time, measured from the actual send, is reported next to it.
+ *
+ * <p>Starts the app on a random port unless {@code load.base-url} names a running instance, then runs each
+ * mode in {@code load.modes} ({@code check}, {@code batch}, {@code stream}): a warmup that is not recorded,
+ * then {@code load.duration} at {@code load.rate} HTTP requests per second. Batch and stream requests carry
+ * {@code load.batch-size} transactions each. Transactions come from {@link BenchmarkFixtures#requests} with a
+ * fresh id per send, so the idempotency cache never answers for the app.
+ *
+ * <p>Exits with status 1 when a mode misses an SLO: {@code load.slo.p99-ms}, {@code load.slo.p999-ms}, or
+ * {@code load.slo.error-rate}, the share of scheduled requests that failed, timed out or were dropped
+ * because {@code load.max-in-flight} requests were already outstanding. With {@code load.report-dir} set,
+ * the full latency distribution of each mode is written there as an HdrHistogram {@code .hgrm} file.
+ */
+public final class ArrivalRateLoadTest {
+
+    private static final String TRANSACTION_ID_PLACEHOLDER = "LOAD_TRANSACTION_ID";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private ArrivalRateLoadTest() {
+    }
+
+    private enum Mode {
+        CHECK("/api/v1/fraud/check", "application/json"),
+        BATCH("/api/v1/fraud/check/batch", "application/json"),
+        STREAM("/api/v1/fraud/check/stream", "application/x-ndjson");
+
+        private final String path;
+        private final String contentType;
+
+        Mode(String path, String contentType) {
+            this.path = path;
+            this.contentType = contentType;
+        }
+    }
+
+    private record Settings(
+            String baseUrl,
+            List<Mode> modes,
+            int rate,
+            Duration warmup,
+            Duration duration,
+            int batchSize,
+            int maxInFlight,
+            double sloP99Millis,
+            double sloP999Millis,
+            double sloErrorRate,
+            String reportDir) {
+
+        static Settings fromSystemProperties() {
+            List<Mode> modes = new ArrayList<>();
+            for (String mode : System.getProperty("load.modes", "check,batch,stream").split(",")) {
+                if (!mode.isBlank()) {
+                    modes.add(Mode.valueOf(mode.strip().toUpperCase(Locale.ROOT)));
+                }
+            }
+            return new Settings(
+                System.getProperty("load.base-url", ""),
+                modes,
+                Integer.getInteger("load.rate", 500),
+                DurationStyle.detectAndParse(System.getProperty("load.warmup", "10s")),
+                DurationStyle.detectAndParse(System.getProperty("load.duration", "30s")),
+                Integer.getInteger("load.batch-size", 50),
+                Integer.getInteger("load.max-in-flight", 10_000),
+                Double.parseDouble(System.getProperty("load.slo.p99-ms", "50")),
+                Double.parseDouble(System.getProperty("load.slo.p999-ms", "200")),
+                Double.parseDouble(System.getProperty("load.slo.error-rate", "0.001")),
+                System.getProperty("load.report-dir", "")
+            );
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = Settings.fromSystemProperties();
+        if (settings.rate() < 1 || settings.batchSize() < 1 || settings.maxInFlight() < 1) {
+            throw new IllegalArgumentException("load.rate, load.batch-size and load.max-in-flight must be positive");
+        }
+        Payloads payloads = new Payloads(BenchmarkFixtures.objectMapper(), BenchmarkFixtures.requests(23));
+
+        List<String> violations = new ArrayList<>();
+        try (ConfigurableApplicationContext app = settings.baseUrl().isEmpty() ? start() : null;
+             HttpClient client = HttpClient.newBuilder()
+                 .version(HttpClient.Version.HTTP_1_1)
+                 .connectTimeout(REQUEST_TIMEOUT)
+                 .build()) {
+            String baseUrl = app == null
+                ? settings.baseUrl()
+                : "http://127.0.0.1:" + ((WebServerApplicationContext) app).getWebServer().getPort();
+            System.out.printf("Target %s at %,d requests/s for %s per mode (warmup %s), batch size %d%n%n",
+                baseUrl, settings.rate(), settings.duration(), settings.warmup(), settings.batchSize());
+            System.out.printf("%-7s %9s %9s %9s %9s %9s %9s %9s %9s %7s %7s%n",
+                "mode", "req/s", "tx/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "svc p99", "svc max", "errors", "dropped");
+
+            for (Mode mode : settings.modes()) {
+                URI uri = URI.create(baseUrl + mode.path);
+                run(client, uri, mode, payloads, settings, settings.warmup());
+                Result result = run(client, uri, mode, payloads, settings, settings.duration());
+                result.print(mode);
+                violations.addAll(result.violations(mode, settings));
+                if (!settings.reportDir().isEmpty()) {
+                    result.writeDistribution(Path.of(settings.reportDir()), mode);
+                }
+            }
+        }
+
+        System.out.println();
+        if (violations.isEmpty()) {
+            System.out.printf("All SLOs met (p99 <= %s ms, p99.9 <= %s ms, error rate <= %s)%n",
+                settings.sloP99Millis(), settings.sloP999Millis(), settings.sloErrorRate());
+            return;
+        }
+        violations.forEach(violation -> System.out.println("SLO violated: " + violation));
+        System.exit(1);
+    }
+
+    private static ConfigurableApplicationContext start() {
+        // Command-line arguments, unlike default properties, take precedence over application.yml.
+        return new SpringApplicationBuilder(MiniFraudDetectorApplication.class)
+            .run("--server.port=0", "--server.address=127.0.0.1", "--logging.level.root=WARN");
+    }
+
+    /**
+     * Schedules {@code rate * duration} requests at evenly spaced intended start times and waits for all of
+     * them. Each request runs on its own virtual thread, so a slow response never delays the next send.
+     */
+    private static Result run(HttpClient client, URI uri, Mode mode, Payloads payloads, Settings settings,
+            Duration duration) throws InterruptedException {
+        long scheduled = Math.max(1, duration.toNanos() * settings.rate() / 1_000_000_000L);
+        double intervalNanos = 1e9 / settings.rate();
+        int itemsPerRequest = mode == Mode.CHECK ? 1 : settings.batchSize();
+        String runTag = Long.toString(System.nanoTime(), Character.MAX_RADIX);
+        Recorder responseTimes = new Recorder(3);
+        Recorder serviceTimes = new Recorder(3);
+        AtomicLong errors = new AtomicLong();
+        AtomicLong dropped = new AtomicLong();
+        Semaphore inFlight = new Semaphore(settings.maxInFlight());
+
+        long start = System.nanoTime();
+        try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < scheduled; i++) {
+                long intended = start + (long) (i * intervalNanos);
+                long wait;
+                while ((wait = intended - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                if (!inFlight.tryAcquire()) {
+                    dropped.incrementAndGet();
+                    continue;
+                }
+                long sequence = i;
+                senders.execute(() -> {
+                    try {
+                        byte[] body = payloads.body(mode, runTag, sequence, itemsPerRequest);
+                        HttpRequest request = HttpRequest.newBuilder(uri)
+                            .header("Content-Type", mode.contentType)
+                            .timeout(REQUEST_TIMEOUT)
+                            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                            .build();
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException exception) {
+                            errors.incrementAndGet();
+                        } catch (InterruptedException exception) {
+                            Thread.currentThread().interrupt();
+                            errors.incrementAndGet();
+                        }
+                        long done = System.nanoTime();
+                        responseTimes.recordValue(done - intended);
+                        serviceTimes.recordValue(done - sent);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        return new Result(responseTimes.getIntervalHistogram(), serviceTimes.getIntervalHistogram(), scheduled,
+            itemsPerRequest, errors.get(), dropped.get(), elapsed);
+    }
+
+    private record Result(
+            Histogram responseTimes,
+            Histogram serviceTimes,
+            long scheduled,
+            int itemsPerRequest,
+            long errors,
+            long dropped,
+            long elapsedNanos) {
+
+        void print(Mode mode) {
+            long completed = responseTimes.getTotalCount() - errors;
+            double seconds = elapsedNanos / 1e9;
+            System.out.printf("%-7s %9.0f %9.0f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f %7d %7d%n",
+                mode.name().toLowerCase(Locale.ROOT),
+                completed / seconds,
+                completed * itemsPerRequest / seconds,
+                millis(responseTimes, 50),
+                millis(responseTimes, 99),
+                millis(responseTimes, 99.9),
+                responseTimes.getMaxValue() / NANOS_PER_MILLI,
+                millis(serviceTimes, 99),
+                serviceTimes.getMaxValue() / NANOS_PER_MILLI,
+                errors,
+                dropped);
+        }
+
+        List<String> violations(Mode mode, Settings settings) {
+            String name = mode.name().toLowerCase(Locale.ROOT);
+            List<String> violations = new ArrayList<>();
+            if (millis(responseTimes, 99) > settings.sloP99Millis()) {
+                violations.add(String.format("%s p99 %.2f ms > %s ms", name, millis(responseTimes, 99), settings.sloP99Millis()));
+            }
+            if (millis(responseTimes, 99.9) > settings.sloP999Millis()) {
+                violations.add(String.format("%s p99.9 %.2f ms > %s ms",
+                    name, millis(responseTimes, 99.9), settings.sloP999Millis()));
+            }
+            double errorRate = (double) (errors + dropped) / scheduled;
+            if (errorRate > settings.sloErrorRate()) {
+                violations.add(String.format("%s error rate %.4f (%d errors, %d dropped of %d) > %s",
+                    name, errorRate, errors, dropped, scheduled, settings.sloErrorRate()));
+            }
+            return violations;
+        }
+
+        void writeDistribution(Path directory, Mode mode) throws IOException {
+            Files.createDirectories(directory);
+            Path file = directory.resolve("load-" + mode.name().toLowerCase(Locale.ROOT) + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, StandardCharsets.UTF_8)) {
+                responseTimes.outputPercentileDistribution(out, NANOS_PER_MILLI);
+            }
+        }
+
+        private static double millis(Histogram histogram, double percentile) {
+            return histogram.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+        }
+    }
+
+    /**
+     * Request bodies built from serialized fixtures, with a fresh transaction id spliced into each item.
+     */
+    private static final class Payloads {
+
+        private final String[] prefixes;
+        private final String[] suffixes;
+
+        Payloads(ObjectMapper objectMapper, FraudCheckRequest[] requests) throws IOException {
+            prefixes = new String[requests.length];
+            suffixes = new String[requests.length];
+            for (int i = 0; i < requests.length; i++) {
+                requests[i].setTransactionId(TRANSACTION_ID_PLACEHOLDER);
+                String json = objectMapper.writeValueAsString(requests[i]);
+                int at = json.indexOf(TRANSACTION_ID_PLACEHOLDER);
+                prefixes[i] = json.substring(0, at);
+                suffixes[i] = json.substring(at + TRANSACTION_ID_PLACEHOLDER.length());
+            }
+        }
+
+        byte[] body(Mode mode, String runTag, long sequence, int items) {
+            StringBuilder body = new StringBuilder(items * (prefixes[0].length() + suffixes[0].length() + 32));
+            if (mode == Mode.BATCH) {
+                body.append('[');
+            }
+            for (int item = 0; item < items; item++) {
+                if (item > 0) {
+                    body.append(mode == Mode.STREAM ? "\n" : ",");
+                }
+                int fixture = (int) ((sequence * items + item) & (BenchmarkFixtures.REQUEST_COUNT - 1));
+                body.append(prefixes[fixture])
+                    .append("load-").append(runTag).append('-').append(sequence).append('-').append(item)
+                    .append(suffixes[fixture]);
+            }
+            body.append(mode == Mode.BATCH ? "]" : mode == Mode.STREAM ? "\n" : "");
+            return body.toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.minifrauddetector.benchmark;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.SplittableRandom;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySource;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Shared, seeded request distributions so that every benchmark (and every run) scores the same traffic mix.
+ */
+final class BenchmarkFixtures {
+
+    static final int REQUEST_COUNT = 4096;
+
+    private static final String[] LOW_RISK_COUNTRIES = {"US", "GB", "DE", "FR", "CA", "NL", "SE", "JP", "AU", "ES"};
+    private static final String[] HIGH_RISK_COUNTRIES = {"MM", "GH", "KE", "ZA", "BR", "CY"};
+    private static final String[] MERCHANT_CATEGORIES = {"5411", "5812", "5999", "4829", "7995", "5732"};
+    private static final String[] PAYMENT_METHODS = {"CARD", "WALLET", "BANK_TRANSFER"};
+    private static final long DAY_SECONDS = 86_400;
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Generates requests with a long-tailed amount distribution (most under 300, a few above 2000),
+     * about 15% untrusted devices, 10% high-risk countries, uniform time of day over a week and
+     * 10,000 distinct users.
+     */
+    static FraudCheckRequest[] requests(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        FraudCheckRequest[] requests = new FraudCheckRequest[REQUEST_COUNT];
+        for (int i = 0; i < requests.length; i++) {
+            FraudCheckRequest request = new FraudCheckRequest();
+            request.setTransactionId("tx-" + seed + "-" + i);
+            request.setUserId("user-" + random.nextInt(10_000));
+            request.setAmount(BigDecimal.valueOf(Math.exp(random.nextGaussian() * 1.4 + 4.2))
+                .setScale(2, RoundingMode.HALF_UP)
+                .max(new BigDecimal("0.01")));
+            request.setCurrency("USD");
+            request.setMerchantCategory(MERCHANT_CATEGORIES[random.nextInt(MERCHANT_CATEGORIES.length)]);
+            request.setCountry(random.nextInt(10) == 0
+                ? HIGH_RISK_COUNTRIES[random.nextInt(HIGH_RISK_COUNTRIES.length)]
+                : LOW_RISK_COUNTRIES[random.nextInt(LOW_RISK_COUNTRIES.length)]);
+            request.setTimestamp(START.plusSeconds(random.nextLong(7 * DAY_SECONDS)));
+            request.setDeviceTrusted(random.nextInt(100) >= 15);
+            request.setPaymentMethod(PAYMENT_METHODS[random.nextInt(PAYMENT_METHODS.length)]);
+            request.setIpAddress("203.0." + random.nextInt(256) + "." + random.nextInt(256));
+            requests[i] = request;
+        }
+        return requests;
+    }
+
+    /**
+     * The {@code fraud.*} configuration shipped in {@code application.yml}.
+     */
+    static FraudRulesProperties shippedProperties() {
+        try {
+            ConfigurationPropertySource source = ConfigurationPropertySource.from(new YamlPropertySourceLoader()
+                .load("application", new ClassPathResource("application.yml"))
+                .get(0));
+            FraudRulesProperties properties = new Binder(source)
+                .bind("fraud", FraudRulesProperties.class)
+                .orElseGet(FraudRulesProperties::new);
+            properties.setWatchRulesFile(false);
+            return properties;
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * An {@link ObjectMapper} configured the way Spring Boot configures the one used by Spring MVC.
+     */
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    }
+
+    /**
+     * The CBOR counterpart of {@link #objectMapper()}, configured like the app's CBOR message converter.
+     */
+    static ObjectMapper cborMapper() {
+        return Jackson2ObjectMapperBuilder.cbor()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    }
+}
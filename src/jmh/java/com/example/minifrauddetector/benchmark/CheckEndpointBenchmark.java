@@ -0,0 +1,97 @@
+package com.example.minifrauddetector.benchmark;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import com.example.minifrauddetector.MiniFraudDetectorApplication;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Full {@code POST /api/v1/fraud/check} round trip through the Spring MVC stack (binding, validation,
+ * scoring and response serialization) without the network, once for JSON and once for CBOR.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 12, time = 3)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckEndpointBenchmark {
+
+    @Param({"json", "cbor"})
+    private String format;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private MediaType mediaType;
+    private byte[][] payloads;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(MiniFraudDetectorApplication.class)
+            .properties("server.port=0", "logging.level.root=WARN")
+            .run();
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+
+        ObjectMapper objectMapper;
+        if ("cbor".equals(format)) {
+            objectMapper = BenchmarkFixtures.cborMapper();
+            mediaType = MediaType.APPLICATION_CBOR;
+        } else {
+            objectMapper = BenchmarkFixtures.objectMapper();
+            mediaType = MediaType.APPLICATION_JSON;
+        }
+        FraudCheckRequest[] requests = BenchmarkFixtures.requests(11);
+        payloads = new byte[requests.length][];
+        for (int i = 0; i < requests.length; i++) {
+            payloads[i] = objectMapper.writeValueAsBytes(requests[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+
+        int advance() {
+            int index = next;
+            next = (next + 1) & (BenchmarkFixtures.REQUEST_COUNT - 1);
+            return index;
+        }
+    }
+
+    @Benchmark
+    public MvcResult check(Cursor cursor) throws Exception {
+        return mockMvc.perform(post("/api/v1/fraud/check")
+                .contentType(mediaType)
+                .accept(mediaType)
+                .content(payloads[cursor.advance()]))
+            .andReturn();
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.minifrauddetector.benchmark;
+
+import com.example.minifrauddetector.MiniFraudDetectorApplication;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Throughput of {@code POST /api/v1/fraud/check} against clusters of 1, 2 and 3 nodes. The client sends every
+ * request to the next node in turn, as a round-robin load balancer would, so with N nodes about (N-1)/N of the
+ * requests arrive at a node that does not own the user and are forwarded. Each cluster is started in this JVM on
+ * free ports with a static member list; the closed-loop client runs {@code cluster.clients} concurrent requests
+ * for {@code cluster.duration-seconds} after {@code cluster.warmup-seconds}.
+ *
+ * <p>Nodes started here share the machine's cores, so on one host the numbers show the cost of forwarding rather
+ * than how far throughput scales. For scaling, start the nodes on separate machines with the same
+ * {@code fraud.cluster.members} and pass their base URLs as {@code cluster.targets}; the run then measures that
+ * cluster only. The idempotency cache is switched off on nodes started here so that replayed transactions are
+ * scored again; turn it off on external nodes too.
+ *
+ * <p>System properties: {@code cluster.nodes} (default {@code 1,2,3}), {@code cluster.clients} (default 64),
+ * {@code cluster.warmup-seconds} (default 5), {@code cluster.duration-seconds} (default 20) and
+ * {@code cluster.targets}.
+ */
+public final class ClusterScalingBenchmark {
+
+    private static final String CHECK_PATH = "/api/v1/fraud/check";
+    private static final String CLUSTER_PATH = "/api/v1/admin/cluster";
+
+    private ClusterScalingBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = Integer.getInteger("cluster.clients", 64);
+        int warmupSeconds = Integer.getInteger("cluster.warmup-seconds", 5);
+        int durationSeconds = Integer.getInteger("cluster.duration-seconds", 20);
+        String targets = System.getProperty("cluster.targets", "");
+
+        ObjectMapper objectMapper = BenchmarkFixtures.objectMapper();
+        FraudCheckRequest[] requests = BenchmarkFixtures.requests(17);
+        byte[][] payloads = new byte[requests.length][];
+        for (int i = 0; i < requests.length; i++) {
+            payloads[i] = objectMapper.writeValueAsBytes(requests[i]);
+        }
+
+        System.out.printf("%-6s %9s %9s %9s %9s %10s %9s %7s%n",
+            "nodes", "req/s", "p50 ms", "p99 ms", "max ms", "forwarded", "fallback", "errors");
+        try (HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build()) {
+            if (!targets.isBlank()) {
+                List<String> urls = Arrays.stream(targets.split(",")).map(String::trim).toList();
+                measure(client, objectMapper, urls, payloads, clients, warmupSeconds, durationSeconds);
+                return;
+            }
+            for (String nodes : System.getProperty("cluster.nodes", "1,2,3").split(",")) {
+                List<String> urls = freeUrls(Integer.parseInt(nodes.trim()));
+                List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+                try {
+                    for (String url : urls) {
+                        contexts.add(start(url, urls));
+                    }
+                    measure(client, objectMapper, urls, payloads, clients, warmupSeconds, durationSeconds);
+                } finally {
+                    contexts.forEach(ConfigurableApplicationContext::close);
+                }
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String self, List<String> members) {
+        return new SpringApplicationBuilder(MiniFraudDetectorApplication.class)
+            .run(
+                "--server.port=" + URI.create(self).getPort(),
+                "--server.address=127.0.0.1",
+                "--fraud.cluster.enabled=true",
+                "--fraud.cluster.self=" + self,
+                "--fraud.cluster.members=" + String.join(",", members),
+                "--fraud.idempotency.enabled=false",
+                "--logging.level.root=WARN");
+    }
+
+    private static void measure(HttpClient client, ObjectMapper objectMapper, List<String> urls, byte[][] payloads,
+            int clients, int warmupSeconds, int durationSeconds) throws Exception {
+        List<URI> checks = urls.stream().map(url -> URI.create(url + CHECK_PATH)).toList();
+        run(client, checks, payloads, clients, warmupSeconds);
+        long[] before = forwards(client, objectMapper, urls);
+        Result result = run(client, checks, payloads, clients, durationSeconds);
+        long[] after = forwards(client, objectMapper, urls);
+        result.print(urls.size(), after[0] - before[0], after[1] - before[1]);
+    }
+
+    /**
+     * Runs {@code clients} request loops for {@code seconds}, each sending to the next node in turn.
+     */
+    private static Result run(HttpClient client, List<URI> checks, byte[][] payloads, int clients, int seconds)
+            throws InterruptedException {
+        long endNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicLong errors = new AtomicLong();
+        long[][] latencies = new long[clients][];
+        int[] counts = new int[clients];
+
+        long begin = System.nanoTime();
+        try (ExecutorService loops = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int loop = c;
+                loops.execute(() -> {
+                    long[] own = new long[1024];
+                    int count = 0;
+                    for (int i = loop; System.nanoTime() < endNanos; i += clients) {
+                        HttpRequest request = HttpRequest.newBuilder(checks.get(i % checks.size()))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofByteArray(payloads[i & (BenchmarkFixtures.REQUEST_COUNT - 1)]))
+                            .build();
+                        long start = System.nanoTime();
+                        try {
+                            if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException exception) {
+                            errors.incrementAndGet();
+                        } catch (InterruptedException exception) {
+                            Thread.currentThread().interrupt();
+                            break;
+                        }
+                        if (count == own.length) {
+                            own = Arrays.copyOf(own, count * 2);
+                        }
+                        own[count++] = System.nanoTime() - start;
+                    }
+                    latencies[loop] = own;
+                    counts[loop] = count;
+                });
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int next = 0;
+        for (int c = 0; c < clients; c++) {
+            System.arraycopy(latencies[c], 0, all, next, counts[c]);
+            next += counts[c];
+        }
+        return new Result(all, errors.get(), elapsed);
+    }
+
+    // Forwarded and fallen-back transactions so far, summed over the nodes.
+    private static long[] forwards(HttpClient client, ObjectMapper objectMapper, List<String> urls) throws Exception {
+        long[] totals = new long[2];
+        for (String url : urls) {
+            HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(URI.create(url + CLUSTER_PATH)).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+            JsonNode forwards = objectMapper.readTree(response.body()).path("forwards");
+            totals[0] += forwards.path("ok").asLong() + forwards.path("rejected").asLong();
+            totals[1] += forwards.path("failed").asLong();
+        }
+        return totals;
+    }
+
+    private static List<String> freeUrls(int count) throws IOException {
+        List<ServerSocket> sockets = new ArrayList<>();
+        List<String> urls = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                ServerSocket socket = new ServerSocket(0);
+                sockets.add(socket);
+                urls.add("http://127.0.0.1:" + socket.getLocalPort());
+            }
+        } finally {
+            for (ServerSocket socket : sockets) {
+                socket.close();
+            }
+        }
+        return urls;
+    }
+
+    private record Result(long[] latencies, long errors, long elapsedNanos) {
+
+        void print(int nodes, long forwarded, long fallback) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            System.out.printf("%-6d %9.0f %9.2f %9.2f %9.2f %9.1f%% %9d %7d%n",
+                nodes,
+                sorted.length / (elapsedNanos / 1e9),
+                percentile(sorted, 0.50),
+                percentile(sorted, 0.99),
+                sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6,
+                sorted.length == 0 ? 0 : 100.0 * forwarded / sorted.length,
+                fallback,
+                errors);
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
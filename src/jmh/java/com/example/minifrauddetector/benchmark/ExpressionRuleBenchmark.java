@@ -0,0 +1,74 @@
+package com.example.minifrauddetector.benchmark;
+
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.expression.ExpressionCompiler;
+import com.example.minifrauddetector.expression.ExpressionRule;
+import com.example.minifrauddetector.rules.Rule;
+import com.example.minifrauddetector.rules.ScoringContext;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Matching one request against a set of custom rules, compiled to bytecode ({@code mode=compiled}) or evaluated
+ * by walking the parsed tree ({@code mode=interpreted}). The rules are called through the {@link Rule} interface
+ * in a loop, as {@code RulePlan.score} does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ExpressionRuleBenchmark {
+
+    private static final String[] EXPRESSIONS = {
+        "amount > 500 && country in [GH, KE, ZA] && !deviceTrusted",
+        "(amount >= 1000 || hour < 5) && paymentMethod in [WALLET, BANK_TRANSFER] && currency != EUR",
+        "merchantCategory in [5732, 7995, 4829] && amount > 250.50 && country not in [US, GB, DE, FR, CA]",
+        "!deviceTrusted && (hour >= 22 || hour < 6) && paymentMethod == CARD && amount < 50",
+    };
+
+    @Param({"compiled", "interpreted"})
+    private String mode;
+
+    private Rule[] rules;
+    private ScoringContext[] contexts;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        rules = new Rule[EXPRESSIONS.length];
+        for (int i = 0; i < rules.length; i++) {
+            ExpressionRule rule = mode.equals("compiled")
+                ? ExpressionCompiler.compile("custom" + i, 10, EXPRESSIONS[i])
+                : ExpressionCompiler.interpret("custom" + i, 10, EXPRESSIONS[i]);
+            rules[i] = rule;
+        }
+        FraudCheckRequest[] requests = BenchmarkFixtures.requests(11);
+        contexts = new ScoringContext[requests.length];
+        for (int i = 0; i < requests.length; i++) {
+            contexts[i] = new ScoringContext(requests[i]);
+        }
+    }
+
+    @Benchmark
+    public int match() {
+        ScoringContext context = contexts[next];
+        next = (next + 1) & (BenchmarkFixtures.REQUEST_COUNT - 1);
+        int matched = 0;
+        for (Rule rule : rules) {
+            matched += rule.match(context) + 1;
+        }
+        return matched;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.minifrauddetector.benchmark;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.ipreputation.IpReputationHolder;
+import com.example.minifrauddetector.ipreputation.IpReputationTable;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Longest-prefix match of a textual address against IP lists at production size, parsing included. Half of
+ * the probed addresses fall inside a listed range. The list files are generated and loaded through
+ * {@link IpReputationHolder} during setup, which prints the load time and trie size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Xmx3g")
+public class IpReputationBenchmark {
+
+    private static final int ADDRESS_COUNT = 4096;
+
+    @Param({"4000000"})
+    private int ipv4Ranges;
+
+    @Param({"1000000"})
+    private int ipv6Ranges;
+
+    private IpReputationTable table;
+    private String[] ipv4Addresses;
+    private String[] ipv6Addresses;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        Path directory = Files.createTempDirectory("ip-lists");
+        int[] ipv4Prefixes = new int[ipv4Ranges];
+        long[] ipv6Prefixes = new long[ipv6Ranges];
+
+        Path ipv4File = directory.resolve("blocklist.txt");
+        try (BufferedWriter writer = Files.newBufferedWriter(ipv4File)) {
+            for (int i = 0; i < ipv4Ranges; i++) {
+                int length = 16 + random.nextInt(17);
+                ipv4Prefixes[i] = random.nextInt() & (int) (-1L << (32 - length));
+                writer.write(ipv4(ipv4Prefixes[i]) + "/" + length + "\n");
+            }
+        }
+        Path ipv6File = directory.resolve("risky-asn.txt");
+        try (BufferedWriter writer = Files.newBufferedWriter(ipv6File)) {
+            for (int i = 0; i < ipv6Ranges; i++) {
+                int length = 32 + random.nextInt(33);
+                ipv6Prefixes[i] = (0x2000_0000_0000_0000L | (random.nextLong() >>> 4)) & (-1L << (64 - length));
+                writer.write(ipv6(ipv6Prefixes[i], 0) + "/" + length + "\n");
+            }
+        }
+
+        FraudRulesProperties properties = new FraudRulesProperties();
+        properties.getIpReputation().setEnabled(true);
+        properties.getIpReputation().setWatchFiles(false);
+        properties.getIpReputation().setLists(List.of(list("blocklist", ipv4File), list("risky-asn", ipv6File)));
+        long startNanos = System.nanoTime();
+        table = new IpReputationHolder(properties).current();
+        System.out.printf("%nLoaded %,d ranges into %,d trie nodes in %d ms%n",
+            table.getPrefixCount(), table.getNodeCount(), (System.nanoTime() - startNanos) / 1_000_000);
+        Files.delete(ipv4File);
+        Files.delete(ipv6File);
+        Files.delete(directory);
+
+        ipv4Addresses = new String[ADDRESS_COUNT];
+        ipv6Addresses = new String[ADDRESS_COUNT];
+        for (int i = 0; i < ADDRESS_COUNT; i++) {
+            boolean listed = (i & 1) == 0;
+            int address = random.nextInt();
+            long high = 0x2000_0000_0000_0000L | (random.nextLong() >>> 4);
+            if (listed) {
+                address = ipv4Prefixes[random.nextInt(ipv4Ranges)] | (address & 0xFFFF);
+                high = ipv6Prefixes[random.nextInt(ipv6Ranges)] | (high & 0xFFFF_FFFFL);
+            }
+            ipv4Addresses[i] = ipv4(address);
+            ipv6Addresses[i] = ipv6(high, random.nextLong());
+        }
+    }
+
+    @Benchmark
+    public int lookupIpv4() {
+        String address = ipv4Addresses[next];
+        next = (next + 1) & (ADDRESS_COUNT - 1);
+        return table.lookup(address);
+    }
+
+    @Benchmark
+    public int lookupIpv6() {
+        String address = ipv6Addresses[next];
+        next = (next + 1) & (ADDRESS_COUNT - 1);
+        return table.lookup(address);
+    }
+
+    private static FraudRulesProperties.IpList list(String name, Path file) {
+        FraudRulesProperties.IpList list = new FraudRulesProperties.IpList();
+        list.setName(name);
+        list.setFile(file);
+        list.setPoints(10);
+        return list;
+    }
+
+    private static String ipv4(int address) {
+        return (address >>> 24) + "." + ((address >>> 16) & 0xFF) + "." + ((address >>> 8) & 0xFF) + "." + (address & 0xFF);
+    }
+
+    private static String ipv6(long high, long low) {
+        StringBuilder text = new StringBuilder(39);
+        for (int group = 0; group < 8; group++) {
+            long word = group < 4 ? high : low;
+            if (group > 0) {
+                text.append(':');
+            }
+            text.append(Long.toHexString((word >>> (48 - 16 * (group & 3))) & 0xFFFF));
+        }
+        return text.toString();
+    }
+}
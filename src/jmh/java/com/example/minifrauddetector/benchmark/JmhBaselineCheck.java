@@ -0,0 +1,122 @@
+package com.example.minifrauddetector.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Compares a JMH JSON result file against the committed baseline and fails when a benchmark got slower
+ * (throughput down, average time up) or allocates more per operation than the configured tolerance, or when
+ * it has no baseline entry at all.
+ *
+ * <p>Usage: {@code JmhBaselineCheck <result.json> <baseline.json>}. With {@code -Djmh.baseline.update=true}
+ * the runs in the result replace their entries in the baseline instead; runs of benchmarks that were not
+ * selected this time are kept.
+ */
+public final class JmhBaselineCheck {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    private JmhBaselineCheck() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path resultFile = Path.of(args[0]);
+        Path baselineFile = Path.of(args[1]);
+        double tolerance = Double.parseDouble(System.getProperty("jmh.regression.tolerance", "0.10"));
+
+        if (Boolean.getBoolean("jmh.baseline.update")) {
+            update(resultFile, baselineFile);
+            System.out.println("Baseline updated from " + resultFile);
+            return;
+        }
+
+        Map<String, Measurement> results = read(resultFile);
+        Map<String, Measurement> baseline = Files.exists(baselineFile) ? read(baselineFile) : Map.of();
+
+        int regressions = 0;
+        int missing = 0;
+        System.out.printf("%-70s %14s %14s %8s%n", "benchmark", "baseline", "current", "change");
+        for (Map.Entry<String, Measurement> entry : results.entrySet()) {
+            Measurement current = entry.getValue();
+            Measurement previous = baseline.get(entry.getKey());
+            if (previous == null) {
+                System.out.printf("%-70s %14s %14.3f %8s%n", entry.getKey(), "-", current.score(), "MISSING");
+                missing++;
+                continue;
+            }
+
+            double change = previous.score() == 0
+                ? (current.score() == 0 ? 0 : Double.POSITIVE_INFINITY)
+                : (current.score() - previous.score()) / previous.score();
+            boolean regressed = current.higherIsBetter() ? change < -tolerance : change > tolerance;
+            regressions += regressed ? 1 : 0;
+            System.out.printf("%-70s %14.3f %14.3f %+7.1f%%%s%n", entry.getKey(), previous.score(), current.score(),
+                change * 100, regressed ? "  REGRESSION" : "");
+        }
+
+        if (regressions > 0) {
+            System.err.println(regressions + " benchmark(s) regressed by more than " + Math.round(tolerance * 100) + "%");
+        }
+        if (missing > 0) {
+            System.err.println(missing + " result(s) have no baseline entry, record them with -Djmh.baseline.update=true");
+        }
+        if (regressions > 0 || missing > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void update(Path resultFile, Path baselineFile) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        Map<String, JsonNode> runs = new LinkedHashMap<>();
+        if (Files.exists(baselineFile)) {
+            for (JsonNode run : objectMapper.readTree(baselineFile.toFile())) {
+                runs.put(runKey(run), run);
+            }
+        }
+        for (JsonNode run : objectMapper.readTree(resultFile.toFile())) {
+            runs.put(runKey(run), run);
+        }
+        objectMapper.writeValue(baselineFile.toFile(), runs.values());
+    }
+
+    private static String runKey(JsonNode run) {
+        return run.path("benchmark").asText() + params(run.path("params")) + " [" + run.path("mode").asText() + "]";
+    }
+
+    private static Map<String, Measurement> read(Path file) throws IOException {
+        Map<String, Measurement> measurements = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file.toFile())) {
+            String mode = run.path("mode").asText();
+            String key = runKey(run);
+            JsonNode primary = run.path("primaryMetric");
+            measurements.put(key, new Measurement(primary.path("score").asDouble(), "thrpt".equals(mode)));
+
+            run.path("secondaryMetrics").fields().forEachRemaining(metric -> {
+                String name = metric.getKey().replace("·", "");
+                if (ALLOCATION_METRIC.equals(name)) {
+                    measurements.put(key + " " + name, new Measurement(metric.getValue().path("score").asDouble(), false));
+                }
+            });
+        }
+        return measurements;
+    }
+
+    private static String params(JsonNode params) {
+        if (params.isMissingNode() || params.isEmpty()) {
+            return "";
+        }
+        StringJoiner joiner = new StringJoiner(",", "(", ")");
+        params.fields().forEachRemaining(param -> joiner.add(param.getKey() + "=" + param.getValue().asText()));
+        return joiner.toString();
+    }
+
+    private record Measurement(double score, boolean higherIsBetter) {
+    }
+}
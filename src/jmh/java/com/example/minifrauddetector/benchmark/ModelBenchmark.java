@@ -0,0 +1,115 @@
+package com.example.minifrauddetector.benchmark;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.model.ModelHolder;
+import com.example.minifrauddetector.model.ScoringModel;
+import com.example.minifrauddetector.rules.ScoringContext;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-request inference of a generated gradient-boosted model: {@code trees} complete trees of depth
+ * {@code depth} over the features below, loaded through {@link ModelHolder} during setup. {@code score}
+ * includes building the feature vector from the request; {@code predict} walks the trees for a prebuilt one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ModelBenchmark {
+
+    private static final String[] FEATURES = {
+        "logAmount", "hourUtc", "dayOfWeekUtc", "deviceTrusted", "merchantCategory", "ipAddressPresent",
+        "velocityCount.1m", "velocityCount.1h", "velocityCount.24h", "velocityAmount.1h", "velocityAmount.24h",
+        "country=GH", "currency=USD", "paymentMethod=CARD"
+    };
+    // Split points drawn per feature, roughly within the range each feature takes on.
+    private static final float[] SCALES = {9, 24, 7, 1, 9999, 1, 6, 25, 60, 5000, 10000, 1, 1, 1};
+
+    @Param({"300"})
+    private int trees;
+
+    @Param({"6"})
+    private int depth;
+
+    private ScoringModel model;
+    private ScoringContext[] contexts;
+    private float[][] vectors;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        Path file = Files.createTempFile("model", ".txt");
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("model gbtree\nfeatures " + String.join(" ", FEATURES) + "\nbase-margin -2.5\n");
+            for (int tree = 0; tree < trees; tree++) {
+                writer.write("booster[" + tree + "]:\n");
+                int splits = (1 << depth) - 1;
+                for (int node = 0; node < 2 * splits + 1; node++) {
+                    if (node < splits) {
+                        int feature = random.nextInt(FEATURES.length);
+                        int missing = 2 * node + 1 + random.nextInt(2);
+                        writer.write(node + ":[f" + feature + "<" + (float) (random.nextDouble() * SCALES[feature])
+                            + "] yes=" + (2 * node + 1) + ",no=" + (2 * node + 2) + ",missing=" + missing + "\n");
+                    } else {
+                        writer.write(node + ":leaf=" + (float) (random.nextGaussian() * 0.05) + "\n");
+                    }
+                }
+            }
+        }
+
+        FraudRulesProperties properties = BenchmarkFixtures.shippedProperties();
+        properties.getModel().setEnabled(true);
+        properties.getModel().setFile(file);
+        properties.getModel().setWatchFile(false);
+        model = new ModelHolder(properties).current();
+        System.out.printf("%nLoaded %s%n", model.describe());
+        Files.delete(file);
+
+        FraudCheckRequest[] requests = BenchmarkFixtures.requests(7);
+        contexts = new ScoringContext[requests.length];
+        vectors = new float[requests.length][FEATURES.length];
+        for (int i = 0; i < requests.length; i++) {
+            contexts[i] = new ScoringContext(requests[i]);
+            long count = random.nextInt(5);
+            contexts[i].setVelocity(
+                new long[] {count, count * 4, count * 10},
+                new long[] {count * 8_000, count * 30_000, count * 90_000}
+            );
+            model.getFeatures().extract(contexts[i], vectors[i]);
+        }
+    }
+
+    @Benchmark
+    public int score() {
+        ScoringContext context = contexts[next];
+        next = (next + 1) & (BenchmarkFixtures.REQUEST_COUNT - 1);
+        return model.score(context);
+    }
+
+    @Benchmark
+    public int predict() {
+        float[] vector = vectors[next];
+        next = (next + 1) & (BenchmarkFixtures.REQUEST_COUNT - 1);
+        return model.score(vector);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.minifrauddetector.benchmark;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.dto.FraudCheckResponse;
+import com.example.minifrauddetector.pipeline.ScoringPipeline;
+import com.example.minifrauddetector.service.FraudScoringService;
+import com.example.minifrauddetector.service.FraudScoringServiceBuilder;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@code FraudScoringService.evaluateHereAsync} called from 8 threads that stand in for Tomcat's request
+ * threads, each waiting for its answer: scored on the calling thread ({@code mode=inline}) or handed to the
+ * scoring pipeline ({@code mode=pipeline}). Throughput is for all threads together; sample time gives the
+ * latency percentiles of one call, hand-off and wake-up included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@Threads(8)
+public class PipelineBenchmark {
+
+    @Param({"inline", "pipeline"})
+    private String mode;
+
+    private FraudScoringService service;
+    private FraudCheckRequest[] requests;
+
+    @Setup
+    public void setUp() {
+        FraudRulesProperties properties = BenchmarkFixtures.shippedProperties();
+        properties.getIdempotency().setEnabled(false);
+        properties.getPipeline().setEnabled(mode.equals("pipeline"));
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        service = new FraudScoringServiceBuilder(properties)
+            .meterRegistry(registry)
+            .scoringPipeline(new ScoringPipeline(properties, registry))
+            .build();
+        service.start();
+        requests = BenchmarkFixtures.requests(23);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next = ThreadLocalRandom.current().nextInt(BenchmarkFixtures.REQUEST_COUNT);
+
+        int advance() {
+            int index = next;
+            next = (next + 1) & (BenchmarkFixtures.REQUEST_COUNT - 1);
+            return index;
+        }
+    }
+
+    @Benchmark
+    public FraudCheckResponse evaluate(Cursor cursor) {
+        return service.evaluateHereAsync(requests[cursor.advance()]).join();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.minifrauddetector.benchmark;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.replay.ReplayFilter;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Replay filter sized for {@code insertionsPerDay} transactions over a 24 hour window. Setup fills every slice
+ * to its expected load, then prints the memory held by the bitsets and the false-positive rate measured on
+ * fresh fingerprints. {@code checkAndRecord} adds fresh fingerprints and moves the clock on by one slice after
+ * each slice's share of the day, so the cost of clearing the oldest slice is included. {@code fingerprint}
+ * measures hashing a request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ReplayFilterBenchmark {
+
+    private static final int SLICES = 8;
+    private static final int PROBES = 1_000_000;
+
+    @Param({"100000000"})
+    private long insertionsPerDay;
+
+    @Param({"0.001"})
+    private double falsePositiveRate;
+
+    private final AtomicLong clockMillis = new AtomicLong();
+    private final SplittableRandom random = new SplittableRandom(42);
+    private ReplayFilter filter;
+    private FraudCheckRequest[] requests;
+    private long sliceMillis;
+    private long perSlice;
+    private long inSlice;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        FraudRulesProperties.ReplayDetection replayDetection = new FraudRulesProperties().getReplayDetection();
+        replayDetection.setEnabled(true);
+        replayDetection.setWindow(Duration.ofHours(24));
+        replayDetection.setSlices(SLICES);
+        replayDetection.setExpectedInsertions(insertionsPerDay);
+        replayDetection.setFalsePositiveRate(falsePositiveRate);
+        filter = new ReplayFilter(replayDetection, clockMillis::get);
+        sliceMillis = replayDetection.getWindow().toMillis() / SLICES;
+        perSlice = insertionsPerDay / SLICES;
+
+        long startNanos = System.nanoTime();
+        for (int slice = 0; slice < SLICES; slice++) {
+            for (long i = 0; i < perSlice; i++) {
+                filter.checkAndRecord(random.nextLong());
+            }
+            clockMillis.addAndGet(sliceMillis);
+        }
+        long fillMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        int falsePositives = 0;
+        for (int i = 0; i < PROBES; i++) {
+            if (filter.checkAndRecord(random.nextLong())) {
+                falsePositives++;
+            }
+        }
+        inSlice = PROBES;
+        System.out.printf("%nFilled %,d fingerprints in %d ms; %,d bytes in %d slices, %d hashes;"
+                + " false positives %.5f (configured %.5f)%n",
+            perSlice * SLICES, fillMillis, filter.memoryBytes(), SLICES + 2, filter.getHashes(),
+            (double) falsePositives / PROBES, falsePositiveRate);
+
+        requests = BenchmarkFixtures.requests(42);
+    }
+
+    @Benchmark
+    public boolean checkAndRecord() {
+        if (++inSlice == perSlice) {
+            inSlice = 0;
+            clockMillis.addAndGet(sliceMillis);
+        }
+        return filter.checkAndRecord(random.nextLong());
+    }
+
+    @Benchmark
+    public long fingerprint() {
+        FraudCheckRequest request = requests[next];
+        next = (next + 1) & (BenchmarkFixtures.REQUEST_COUNT - 1);
+        return ReplayFilter.fingerprint(request, 10_000, 3600);
+    }
+}
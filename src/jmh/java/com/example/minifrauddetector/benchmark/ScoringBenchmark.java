@@ -0,0 +1,61 @@
+package com.example.minifrauddetector.benchmark;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.dto.FraudCheckResponse;
+import com.example.minifrauddetector.service.FraudScoringService;
+import com.example.minifrauddetector.service.FraudScoringServiceBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class ScoringBenchmark {
+
+    /**
+     * {@code prometheus} records into the registry the app ships with; {@code none} uses an empty composite
+     * registry whose meters are no-ops, giving the cost of scoring without instrumentation.
+     */
+    @Param({"prometheus", "none"})
+    private String meters;
+
+    private FraudScoringService service;
+    private FraudCheckRequest[] requests;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        FraudRulesProperties properties = BenchmarkFixtures.shippedProperties();
+        properties.getIdempotency().setEnabled(false);
+        MeterRegistry registry = "none".equals(meters)
+            ? new CompositeMeterRegistry()
+            : new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        service = new FraudScoringServiceBuilder(properties).meterRegistry(registry).build();
+        requests = BenchmarkFixtures.requests(42);
+    }
+
+    @Benchmark
+    public FraudCheckResponse evaluate() {
+        FraudCheckRequest request = requests[next];
+        next = (next + 1) & (BenchmarkFixtures.REQUEST_COUNT - 1);
+        return service.evaluate(request);
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.minifrauddetector.benchmark;
+
+import com.example.minifrauddetector.MiniFraudDetectorApplication;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Tail latency of {@code POST /api/v1/fraud/check} over real sockets, at a fixed number of concurrent
+ * connections, for each of the modes in {@code load.modes}: {@code platform} (Tomcat on platform threads, scoring
+ * on the request thread), {@code virtual} (the same on virtual threads, {@code spring.threads.virtual.enabled})
+ * and {@code pipeline} (platform threads handing each request to the scoring pipeline, {@code fraud.pipeline}).
+ * This is a plain main rather than a JMH benchmark because it needs thousands of open connections against a
+ * running server, not the cost of one operation.
+ *
+ * <p>System properties: {@code load.modes} (default {@code platform,virtual}), {@code load.connections}
+ * (default 10000), {@code load.requests} per connection (default 20) and {@code load.warmup.requests} per
+ * connection (default 5). Each connection needs a file descriptor on both sides, so raise {@code ulimit -n}
+ * first.
+ */
+public final class ThreadModeLoadBenchmark {
+
+    private static final String CHECK_PATH = "/api/v1/fraud/check";
+
+    private ThreadModeLoadBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String[] modes = System.getProperty("load.modes", "platform,virtual").split(",");
+        int connections = Integer.getInteger("load.connections", 10_000);
+        int requestsPerConnection = Integer.getInteger("load.requests", 20);
+        int warmupRequests = Integer.getInteger("load.warmup.requests", 5);
+
+        ObjectMapper objectMapper = BenchmarkFixtures.objectMapper();
+        FraudCheckRequest[] requests = BenchmarkFixtures.requests(17);
+        byte[][] payloads = new byte[requests.length][];
+        for (int i = 0; i < requests.length; i++) {
+            payloads[i] = objectMapper.writeValueAsBytes(requests[i]);
+        }
+
+        System.out.printf("%-9s %8s %9s %9s %9s %9s %9s %7s%n",
+            "mode", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+        for (String mode : modes) {
+            try (ConfigurableApplicationContext context = start(mode.trim(), connections)) {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                URI uri = URI.create("http://127.0.0.1:" + port + CHECK_PATH);
+                run(uri, payloads, connections, warmupRequests);
+                Result result = run(uri, payloads, connections, requestsPerConnection);
+                result.print(mode.trim());
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String mode, int connections) {
+        if (!mode.equals("platform") && !mode.equals("virtual") && !mode.equals("pipeline")) {
+            throw new IllegalArgumentException("load.modes may contain platform, virtual and pipeline, not " + mode);
+        }
+        // Command-line arguments, unlike default properties, take precedence over application.yml.
+        return new SpringApplicationBuilder(MiniFraudDetectorApplication.class)
+            .run(
+                "--server.port=0",
+                "--server.address=127.0.0.1",
+                "--server.tomcat.max-connections=" + (connections + 1_000),
+                "--server.tomcat.accept-count=" + connections,
+                "--spring.threads.virtual.enabled=" + mode.equals("virtual"),
+                "--fraud.pipeline.enabled=" + mode.equals("pipeline"),
+                "--logging.level.root=WARN");
+    }
+
+    /**
+     * Opens {@code connections} client connections at once, each sending {@code requestsPerConnection}
+     * requests back to back, and records the latency of every request.
+     */
+    private static Result run(URI uri, byte[][] payloads, int connections, int requestsPerConnection)
+            throws InterruptedException {
+        long[] latencies = new long[connections * requestsPerConnection];
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+
+        long elapsed;
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder()
+                 .version(HttpClient.Version.HTTP_1_1)
+                 .connectTimeout(Duration.ofSeconds(30))
+                 .build()) {
+            for (int c = 0; c < connections; c++) {
+                int connection = c;
+                clients.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < requestsPerConnection; i++) {
+                        int slot = connection * requestsPerConnection + i;
+                        byte[] payload = payloads[slot & (BenchmarkFixtures.REQUEST_COUNT - 1)];
+                        HttpRequest request = HttpRequest.newBuilder(uri)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofByteArray(payload))
+                            .build();
+                        long begin = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception exception) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[slot] = System.nanoTime() - begin;
+                    }
+                });
+            }
+
+            long begin = System.nanoTime();
+            start.countDown();
+            clients.shutdown();
+            clients.awaitTermination(1, TimeUnit.HOURS);
+            elapsed = System.nanoTime() - begin;
+        }
+        return new Result(latencies, errors.get(), elapsed);
+    }
+
+    private record Result(long[] latencies, long errors, long elapsedNanos) {
+
+        void print(String mode) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            System.out.printf("%-9s %8.0f %9.2f %9.2f %9.2f %9.2f %9.2f %7d%n",
+                mode,
+                sorted.length / (elapsedNanos / 1e9),
+                percentile(sorted, 0.50),
+                percentile(sorted, 0.90),
+                percentile(sorted, 0.99),
+                percentile(sorted, 0.999),
+                sorted[sorted.length - 1] / 1e6,
+                errors);
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.minifrauddetector.benchmark;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.dto.FraudCheckResponse;
+import com.example.minifrauddetector.idempotency.IdempotencyCache;
+import com.example.minifrauddetector.service.FraudScoringService;
+import com.example.minifrauddetector.service.FraudScoringServiceBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Binding cost per message for each wire format {@code /check} accepts. The average encoded size of the
+ * request and response is printed once per fork.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class WireFormatBenchmark {
+
+    @Param({"json", "cbor"})
+    private String format;
+
+    private ObjectReader requestReader;
+    private ObjectWriter responseWriter;
+    private byte[][] requestPayloads;
+    private FraudCheckResponse[] responses;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = "cbor".equals(format)
+            ? BenchmarkFixtures.cborMapper()
+            : BenchmarkFixtures.objectMapper();
+        requestReader = objectMapper.readerFor(FraudCheckRequest.class);
+        responseWriter = objectMapper.writerFor(FraudCheckResponse.class);
+
+        FraudRulesProperties properties = BenchmarkFixtures.shippedProperties();
+        FraudScoringService service = new FraudScoringServiceBuilder(properties)
+            .idempotencyCache(IdempotencyCache.disabled())
+            .build();
+        FraudCheckRequest[] requests = BenchmarkFixtures.requests(7);
+        requestPayloads = new byte[requests.length][];
+        responses = new FraudCheckResponse[requests.length];
+        long requestBytes = 0;
+        long responseBytes = 0;
+        for (int i = 0; i < requests.length; i++) {
+            requestPayloads[i] = objectMapper.writeValueAsBytes(requests[i]);
+            responses[i] = service.evaluate(requests[i]);
+            requestBytes += requestPayloads[i].length;
+            responseBytes += responseWriter.writeValueAsBytes(responses[i]).length;
+        }
+        System.out.printf("%s: %.1f bytes per request, %.1f bytes per response%n",
+            format, (double) requestBytes / requests.length, (double) responseBytes / requests.length);
+    }
+
+    @Benchmark
+    public FraudCheckRequest deserializeRequest() throws IOException {
+        return requestReader.readValue(requestPayloads[advance()]);
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() throws IOException {
+        return responseWriter.writeValueAsBytes(responses[advance()]);
+    }
+
+    private int advance() {
+        int index = next;
+        next = (next + 1) & (BenchmarkFixtures.REQUEST_COUNT - 1);
+        return index;
+    }
+}
@@ -0,0 +1,298 @@
+package com.example.minifrauddetector.audit;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.dto.FraudCheckResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Write-behind record of every scoring decision: the request, the score, the reason codes and the rule
+ * version. {@link #append} puts the decision on a lock-free queue and returns; one writer thread drains the
+ * queue in batches of up to {@code fraud.audit.batch-size}, encodes each decision as JSON and appends it to
+ * memory-mapped segments in {@code fraud.audit.directory} (see {@link AuditSegmentReader} for the layout). A
+ * segment is closed and a new one started when the next record does not fit in {@code fraud.audit.segment-size}.
+ *
+ * <p>With {@code fraud.audit.fsync=batch} every batch is forced to disk before the next one is taken, so the
+ * more decisions arrive, the more one force covers. {@code interval} forces at most once per
+ * {@code fraud.audit.fsync-interval} and may lose that much on a crash. What a request thread does when the
+ * queue is full is {@code fraud.audit.overflow}.
+ */
+@Component
+public class AuditLog {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+
+    private static final int SPINS_BEFORE_PARKING = 64;
+    private static final long BLOCKED_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long STOP_TIMEOUT_MILLIS = 10_000;
+
+    private final MpscRingBuffer<Decision> queue;
+    private final Path directory;
+    private final int segmentBytes;
+    private final int batchSize;
+    private final FraudRulesProperties.Audit.Overflow overflow;
+    private final int sampleEvery;
+    private final FraudRulesProperties.Audit.Fsync fsync;
+    private final long fsyncIntervalNanos;
+    private final ObjectMapper objectMapper;
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicLong overflowed = new AtomicLong();
+    private final Scratch scratch = new Scratch();
+    private volatile boolean writerIdle;
+    private volatile boolean stopping;
+    private SegmentWriter segments;
+    private Thread writer;
+
+    public AuditLog(FraudRulesProperties fraudRulesProperties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        FraudRulesProperties.Audit audit = fraudRulesProperties.getAudit();
+        this.overflow = audit.getOverflow();
+        this.fsync = audit.getFsync();
+        this.objectMapper = objectMapper;
+        if (!audit.isEnabled()) {
+            this.queue = null;
+            this.directory = null;
+            this.segmentBytes = 0;
+            this.batchSize = 0;
+            this.sampleEvery = 0;
+            this.fsyncIntervalNanos = 0;
+            return;
+        }
+        if (audit.getDirectory() == null) {
+            throw new IllegalArgumentException("fraud.audit.directory is required when the audit log is enabled");
+        }
+        long segmentSize = audit.getSegmentSize().toBytes();
+        if (segmentSize < 64 * 1024 || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("fraud.audit.segment-size must be between 64KB and 2GB");
+        }
+        if (audit.getQueueCapacity() < 1 || audit.getBatchSize() < 1 || audit.getSampleEvery() < 1) {
+            throw new IllegalArgumentException(
+                "fraud.audit.queue-capacity, fraud.audit.batch-size and fraud.audit.sample-every must be positive");
+        }
+        if (audit.getFsyncInterval().isNegative() || audit.getFsyncInterval().isZero()) {
+            throw new IllegalArgumentException("fraud.audit.fsync-interval must be positive");
+        }
+        this.queue = new MpscRingBuffer<>(audit.getQueueCapacity());
+        this.directory = audit.getDirectory();
+        this.segmentBytes = (int) segmentSize;
+        this.batchSize = audit.getBatchSize();
+        this.sampleEvery = audit.getSampleEvery();
+        this.fsyncIntervalNanos = audit.getFsyncInterval().toNanos();
+
+        register(meterRegistry, "written", written);
+        register(meterRegistry, "dropped", dropped);
+        register(meterRegistry, "failed", failed);
+        Gauge.builder("fraud.audit.queue", queue, MpscRingBuffer::size)
+            .description("Decisions waiting for the audit writer")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Log that records nothing.
+     */
+    public static AuditLog disabled() {
+        return new AuditLog(new FraudRulesProperties(), null, null);
+    }
+
+    public boolean isEnabled() {
+        return queue != null;
+    }
+
+    /**
+     * Queues a decision for the writer. Returns once it is queued, or when it was dropped under
+     * {@code fraud.audit.overflow}; neither object may change afterwards.
+     */
+    public void append(FraudCheckRequest request, FraudCheckResponse decision) {
+        if (queue == null) {
+            return;
+        }
+        Decision entry = new Decision(request, decision);
+        if (stopping || !queue.offer(entry) && !overflow(entry)) {
+            dropped.increment();
+            return;
+        }
+        if (writerIdle) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        if (queue == null) {
+            return;
+        }
+        Files.createDirectories(directory);
+        segments = SegmentWriter.open(directory, segmentBytes);
+        writer = Thread.ofPlatform().name("audit-writer").daemon(true).start(this::run);
+        log.info("Audit log enabled in {} (fsync {}, overflow {})", directory, fsync, overflow);
+    }
+
+    /**
+     * Stops taking decisions, writes the ones already queued and closes the current segment.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        stopping = true;
+        LockSupport.unpark(writer);
+        writer.join(STOP_TIMEOUT_MILLIS);
+        if (writer.isAlive()) {
+            log.warn("Audit writer did not finish within {} ms; {} decisions were not written",
+                STOP_TIMEOUT_MILLIS, queue.size());
+        }
+    }
+
+    private boolean overflow(Decision entry) {
+        return switch (overflow) {
+            case BLOCK -> awaitRoom(entry);
+            case DROP -> false;
+            case SAMPLE -> overflowed.getAndIncrement() % sampleEvery == 0 && awaitRoom(entry);
+        };
+    }
+
+    private boolean awaitRoom(Decision entry) {
+        for (int attempt = 0; !queue.offer(entry); attempt++) {
+            if (stopping) {
+                return false;
+            }
+            if (attempt < SPINS_BEFORE_PARKING) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.unpark(writer);
+                LockSupport.parkNanos(BLOCKED_PARK_NANOS);
+            }
+        }
+        return true;
+    }
+
+    private void run() {
+        long lastSyncNanos = System.nanoTime();
+        while (true) {
+            int count = 0;
+            Decision entry;
+            while (count < batchSize && (entry = queue.poll()) != null) {
+                write(entry);
+                count++;
+            }
+            if (fsync == FraudRulesProperties.Audit.Fsync.BATCH
+                || System.nanoTime() - lastSyncNanos >= fsyncIntervalNanos) {
+                sync();
+                lastSyncNanos = System.nanoTime();
+            }
+            if (count > 0 || queue.hasPending()) {
+                // A producer may have claimed a slot without publishing it yet; it will in a moment.
+                if (count == 0) {
+                    Thread.onSpinWait();
+                }
+                continue;
+            }
+            if (stopping) {
+                break;
+            }
+            writerIdle = true;
+            if (!queue.hasPending() && !stopping) {
+                long parkNanos = segments.hasUnsynced()
+                    ? fsyncIntervalNanos - (System.nanoTime() - lastSyncNanos)
+                    : IDLE_PARK_NANOS;
+                LockSupport.parkNanos(Math.max(parkNanos, 1));
+            }
+            writerIdle = false;
+        }
+        try {
+            segments.close();
+        } catch (IOException | RuntimeException exception) {
+            log.error("Could not close audit segment", exception);
+        }
+    }
+
+    private void write(Decision entry) {
+        try {
+            encode(segments.nextSequence(), entry);
+            segments.append(scratch.array(), scratch.size());
+            written.increment();
+        } catch (IOException | RuntimeException exception) {
+            failed.increment();
+            log.error("Could not write the audit record of transaction {}", entry.request().getTransactionId(), exception);
+            if (exception instanceof IOException) {
+                segments.abandon();
+            }
+        }
+    }
+
+    private void sync() {
+        try {
+            segments.sync();
+        } catch (RuntimeException exception) {
+            log.error("Could not force audit records to disk", exception);
+            segments.abandon();
+        }
+    }
+
+    private void encode(long sequence, Decision entry) throws IOException {
+        FraudCheckResponse decision = entry.decision();
+        scratch.reset();
+        try (JsonGenerator generator = objectMapper.createGenerator(scratch)) {
+            generator.writeStartObject();
+            generator.writeNumberField("sequence", sequence);
+            generator.writePOJOField("request", entry.request());
+            generator.writeNumberField("riskScore", decision.getRiskScore());
+            generator.writeStringField("riskLevel", decision.getRiskLevel().name());
+            if (decision.getModelScore() != null) {
+                generator.writeNumberField("modelScore", decision.getModelScore());
+            }
+            generator.writeArrayFieldStart("reasonCodes");
+            for (String code : decision.getReasonCodes()) {
+                generator.writeString(code);
+            }
+            generator.writeEndArray();
+            generator.writeNumberField("ruleVersion", decision.getRuleVersion());
+            generator.writeStringField("evaluatedAt", decision.getEvaluatedAt().toString());
+            if (decision.isDegraded()) {
+                generator.writeBooleanField("degraded", true);
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private static void register(MeterRegistry meterRegistry, String outcome, LongAdder count) {
+        FunctionCounter.builder("fraud.audit.records", count, LongAdder::sum)
+            .description("Scoring decisions handed to the audit log")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    private record Decision(FraudCheckRequest request, FraudCheckResponse decision) {
+    }
+
+    private static final class Scratch extends ByteArrayOutputStream {
+
+        Scratch() {
+            super(1024);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
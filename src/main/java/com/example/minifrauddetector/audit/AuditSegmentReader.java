@@ -0,0 +1,206 @@
+package com.example.minifrauddetector.audit;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads the audit segments written by {@link AuditLog}. Also a command line tool that prints the records of
+ * a directory or of single segments as NDJSON and checks them:
+ *
+ * <pre>
+ * java -cp target/classes com.example.minifrauddetector.audit.AuditSegmentReader [--verify] &lt;directory|segment&gt;...
+ * </pre>
+ *
+ * <p>A segment is named {@code audit-<index>.seg}, {@code index} counting up from 1. It starts with a
+ * {@value #HEADER_BYTES}-byte header: the magic number, the format version and the sequence number of its first
+ * record. Records follow back to back, each a {@value #RECORD_HEADER_BYTES}-byte frame header (payload length,
+ * CRC-32C of the sequence number and payload, sequence number) and a UTF-8 JSON payload. A length of 0 ends the
+ * segment: segments are preallocated with zeros, and one that was closed cleanly is truncated after its last
+ * record. Sequence numbers go up by one across segments.
+ */
+public final class AuditSegmentReader {
+
+    static final int MAGIC = 0x46444155;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_HEADER_BYTES = 16;
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("audit-(\\d+)\\.seg");
+
+    private AuditSegmentReader() {
+    }
+
+    /**
+     * One record; {@code payload} is its JSON text.
+     */
+    public record Entry(long sequence, byte[] payload) {
+
+        public String json() {
+            return new String(payload, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Outcome of reading one segment. {@code firstSequence} is {@code -1} when the header could not be read;
+     * {@code error} describes where reading stopped early, and is {@code null} for a segment that ended cleanly.
+     */
+    public record Scan(Path segment, long firstSequence, long records, String error) {
+
+        public boolean isClean() {
+            return error == null;
+        }
+
+        /**
+         * The sequence number the record after the last valid one gets.
+         */
+        public long nextSequence() {
+            return firstSequence + records;
+        }
+    }
+
+    /**
+     * The segment files in {@code directory}, oldest first.
+     */
+    public static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> index(file) > 0)
+                .sorted(Comparator.comparingLong(AuditSegmentReader::index))
+                .toList();
+        }
+    }
+
+    /**
+     * Hands every valid record of {@code segment} to {@code consumer}, in order, and stops at the end of the
+     * segment or at the first record that is torn, fails its checksum or is out of sequence.
+     */
+    public static Scan scan(Path segment, Consumer<Entry> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                return new Scan(segment, -1, 0, "truncated header");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC) {
+                return new Scan(segment, -1, 0, "not an audit segment");
+            }
+            if (buffer.getInt(4) != VERSION) {
+                return new Scan(segment, -1, 0, "unsupported format version " + buffer.getInt(4));
+            }
+            long firstSequence = buffer.getLong(8);
+            long records = 0;
+            CRC32C crc = new CRC32C();
+            int offset = HEADER_BYTES;
+            while (offset <= size - RECORD_HEADER_BYTES) {
+                int length = buffer.getInt(offset);
+                if (length == 0) {
+                    break;
+                }
+                if (length < 0 || length > size - offset - RECORD_HEADER_BYTES) {
+                    return new Scan(segment, firstSequence, records,
+                        "record at offset " + offset + " runs past the end of the segment");
+                }
+                crc.reset();
+                crc.update(buffer.slice(offset + 8, length + 8));
+                if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                    return new Scan(segment, firstSequence, records, "checksum mismatch at offset " + offset);
+                }
+                long sequence = buffer.getLong(offset + 8);
+                if (sequence != firstSequence + records) {
+                    return new Scan(segment, firstSequence, records, "sequence " + sequence + " at offset " + offset
+                        + ", expected " + (firstSequence + records));
+                }
+                byte[] payload = new byte[length];
+                buffer.get(offset + RECORD_HEADER_BYTES, payload);
+                consumer.accept(new Entry(sequence, payload));
+                records++;
+                offset += RECORD_HEADER_BYTES + length;
+            }
+            return new Scan(segment, firstSequence, records, null);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean verify = false;
+        List<Path> segments = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--verify")) {
+                verify = true;
+            } else if (Files.isDirectory(Path.of(arg))) {
+                segments.addAll(segments(Path.of(arg)));
+            } else {
+                segments.add(Path.of(arg));
+            }
+        }
+        if (segments.isEmpty()) {
+            System.err.println("usage: AuditSegmentReader [--verify] <directory|segment>...");
+            System.exit(2);
+        }
+
+        PrintStream report = System.err;
+        boolean failed = false;
+        long expected = -1;
+        long total = 0;
+        try (OutputStream out = new BufferedOutputStream(System.out, 1 << 16)) {
+            Consumer<Entry> printer = verify ? entry -> { } : entry -> {
+                try {
+                    out.write(entry.payload());
+                    out.write('\n');
+                } catch (IOException exception) {
+                    throw new IllegalStateException(exception);
+                }
+            };
+            for (Path segment : segments) {
+                Scan scan = scan(segment, printer);
+                total += scan.records();
+                if (scan.firstSequence() >= 0 && expected >= 0 && scan.firstSequence() != expected) {
+                    report.printf("%s: sequences %d to %d are missing%n", segment, expected, scan.firstSequence() - 1);
+                    failed = true;
+                }
+                if (scan.isClean()) {
+                    report.printf("%s: %,d records%s%n", segment, scan.records(), scan.records() == 0 ? ""
+                        : ", sequences " + scan.firstSequence() + " to " + (scan.nextSequence() - 1));
+                } else {
+                    report.printf("%s: %s after %,d records%n", segment, scan.error(), scan.records());
+                    failed = true;
+                }
+                if (scan.firstSequence() >= 0) {
+                    expected = scan.nextSequence();
+                }
+            }
+        }
+        report.printf("%,d records in %d segments%n", total, segments.size());
+        System.exit(failed ? 1 : 0);
+    }
+
+    static String fileName(long index) {
+        return String.format("audit-%010d.seg", index);
+    }
+
+    /**
+     * The index in a segment file name, or {@code -1} for any other file.
+     */
+    static long index(Path file) {
+        Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    static void writeHeader(ByteBuffer buffer, long firstSequence) {
+        buffer.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, firstSequence);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.minifrauddetector.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded queue for many producers and one consumer. Every slot carries a sequence number: a producer claims a
+ * position with one CAS on the tail, stores the element and publishes the slot by advancing its sequence; the
+ * consumer reads slots in order without any atomic read-modify-write. Neither side takes a lock, and a full
+ * queue fails the offer instead of waiting.
+ */
+final class MpscRingBuffer<E> {
+
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Written by the consumer only; atomic so that size() can read it from other threads.
+    private final AtomicLong head = new AtomicLong();
+
+    MpscRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.elements = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int slot = 0; slot < size; slot++) {
+            sequences.set(slot, slot);
+        }
+    }
+
+    /**
+     * Adds {@code element}, or returns {@code false} when the queue is full.
+     */
+    boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int slot = (int) position & mask;
+            long difference = sequences.getAcquire(slot) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements[slot] = element;
+                    sequences.setRelease(slot, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest element, or returns {@code null} when there is none or it is still being published.
+     * Consumer thread only.
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        long position = head.getPlain();
+        int slot = (int) position & mask;
+        if (sequences.getAcquire(slot) != position + 1) {
+            return null;
+        }
+        E element = (E) elements[slot];
+        elements[slot] = null;
+        sequences.setRelease(slot, position + elements.length);
+        head.setRelease(position + 1);
+        return element;
+    }
+
+    /**
+     * Whether a producer has claimed a position the consumer has not taken yet, published or not. Consumer
+     * thread only.
+     */
+    boolean hasPending() {
+        return tail.get() != head.getPlain();
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head.getAcquire());
+    }
+
+    int capacity() {
+        return elements.length;
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.minifrauddetector.audit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32C;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Appends framed records to memory-mapped segments in the layout described on {@link AuditSegmentReader}. A
+ * segment is mapped at its full size when it is created, so appending is a copy into memory, and
+ * {@link #sync()} forces only what was written since the last call. Writer thread only.
+ */
+final class SegmentWriter implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentWriter.class);
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final CRC32C crc = new CRC32C();
+    private long nextIndex;
+    private long nextSequence;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int syncedPosition;
+
+    private SegmentWriter(Path directory, int segmentBytes, long nextIndex, long nextSequence) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.nextIndex = nextIndex;
+        this.nextSequence = nextSequence;
+    }
+
+    /**
+     * Writer that continues after the segments already in {@code directory}: new records go to a new segment
+     * and take up the sequence after the last valid record.
+     */
+    static SegmentWriter open(Path directory, int segmentBytes) throws IOException {
+        List<Path> segments = AuditSegmentReader.segments(directory);
+        long nextSequence = 1;
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            AuditSegmentReader.Scan scan = AuditSegmentReader.scan(segments.get(i), entry -> { });
+            if (!scan.isClean()) {
+                log.warn("Audit segment {}: {} after {} records", scan.segment(), scan.error(), scan.records());
+            }
+            if (scan.firstSequence() >= 0) {
+                nextSequence = scan.nextSequence();
+                break;
+            }
+        }
+        long nextIndex = segments.isEmpty() ? 1 : AuditSegmentReader.index(segments.getLast()) + 1;
+        return new SegmentWriter(directory, segmentBytes, nextIndex, nextSequence);
+    }
+
+    /**
+     * Largest payload that fits in a segment.
+     */
+    static int maxPayload(int segmentBytes) {
+        return segmentBytes - AuditSegmentReader.HEADER_BYTES - AuditSegmentReader.RECORD_HEADER_BYTES;
+    }
+
+    long nextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * Appends {@code length} bytes of {@code payload} as the next record, starting a new segment when the
+     * current one has no room for it.
+     */
+    void append(byte[] payload, int length) throws IOException {
+        if (length < 1 || length > maxPayload(segmentBytes)) {
+            throw new IllegalArgumentException("an audit record of " + length + " bytes does not fit in a segment");
+        }
+        int recordBytes = AuditSegmentReader.RECORD_HEADER_BYTES + length;
+        if (buffer == null || buffer.remaining() < recordBytes) {
+            roll();
+        }
+        int start = buffer.position();
+        buffer.putLong(start + 8, nextSequence);
+        buffer.put(start + AuditSegmentReader.RECORD_HEADER_BYTES, payload, 0, length);
+        crc.reset();
+        crc.update(buffer.slice(start + 8, length + 8));
+        buffer.putInt(start + 4, (int) crc.getValue());
+        buffer.putInt(start, length);
+        buffer.position(start + recordBytes);
+        nextSequence++;
+    }
+
+    /**
+     * Forces the records appended since the last call to disk.
+     */
+    void sync() {
+        if (buffer != null && buffer.position() > syncedPosition) {
+            buffer.force(syncedPosition, buffer.position() - syncedPosition);
+            syncedPosition = buffer.position();
+        }
+    }
+
+    boolean hasUnsynced() {
+        return buffer != null && buffer.position() > syncedPosition;
+    }
+
+    /**
+     * Forces and closes the current segment and trims it to its records; the next append starts a new one.
+     */
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            sync();
+            channel.truncate(buffer.position());
+        } finally {
+            buffer = null;
+            channel.close();
+        }
+    }
+
+    /**
+     * Closes the current segment after a failure without forcing or trimming it.
+     */
+    void abandon() {
+        buffer = null;
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException exception) {
+            log.debug("Could not close audit segment", exception);
+        }
+    }
+
+    private void roll() throws IOException {
+        close();
+        Path file = directory.resolve(AuditSegmentReader.fileName(nextIndex++));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        AuditSegmentReader.writeHeader(buffer, nextSequence);
+        buffer.position(AuditSegmentReader.HEADER_BYTES);
+        syncedPosition = 0;
+        log.info("Writing audit records from sequence {} to {}", nextSequence, file);
+    }
+}
@@ -0,0 +1,324 @@
+package com.example.minifrauddetector.cluster;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.BatchCheckItemResponse;
+import com.example.minifrauddetector.dto.ClusterStatusResponse;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.dto.FraudCheckResponse;
+import com.example.minifrauddetector.exception.ClusterMembershipException;
+import com.example.minifrauddetector.exception.PeerRejectedException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends each transaction to the node that owns its user on the {@link HashRing}, so that velocity windows,
+ * profiles and the idempotency cache for one user live on one node however the load balancer spreads requests.
+ * The ring only ever holds nodes from {@code fraud.cluster.members}, so transactions are never sent elsewhere.
+ *
+ * <p>Forwards go over one {@link HttpClient}, which keeps HTTP/1.1 connections to each peer open and reuses them.
+ * They carry {@value #FORWARDED_HEADER}, and a node scores a request with that header itself when it
+ * {@linkplain #isForwardedByPeer comes from another member}, so a request is never forwarded twice even while two
+ * nodes disagree about the members. When the owner cannot be reached, times out or fails, the receiving node scores the transaction
+ * itself: the decision then misses the owner's state for that user, which is better than failing the request. A
+ * client error from the owner is passed on to the caller.
+ */
+@Component
+public class ClusterRouter {
+
+    public static final String FORWARDED_HEADER = "X-Fraud-Forwarded-By";
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterRouter.class);
+
+    private static final String CHECK_PATH = "/api/v1/fraud/check";
+    private static final String BATCH_PATH = "/api/v1/fraud/check/batch";
+
+    private final String self;
+    private final Set<String> configuredMembers;
+    private final int virtualNodes;
+    private final Duration forwardTimeout;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+    private final LongAdder forwarded = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile HashRing ring;
+
+    public ClusterRouter(FraudRulesProperties fraudRulesProperties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        FraudRulesProperties.Cluster cluster = fraudRulesProperties.getCluster();
+        this.virtualNodes = cluster.getVirtualNodes();
+        this.forwardTimeout = cluster.getForwardTimeout();
+        this.objectMapper = objectMapper;
+        if (!cluster.isEnabled()) {
+            this.self = null;
+            this.configuredMembers = Set.of();
+            this.httpClient = null;
+            return;
+        }
+        if (cluster.getSelf() == null || cluster.getSelf().isBlank()) {
+            throw new IllegalArgumentException("fraud.cluster.self is required when cluster mode is enabled");
+        }
+        if (cluster.getVirtualNodes() < 1) {
+            throw new IllegalArgumentException("fraud.cluster.virtual-nodes must be positive");
+        }
+        this.self = normalize(cluster.getSelf());
+        this.ring = ring(cluster.getMembers());
+        this.configuredMembers = Set.copyOf(ring.getMembers());
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(cluster.getConnectTimeout())
+            .build();
+
+        register(meterRegistry, "ok", forwarded);
+        register(meterRegistry, "rejected", rejected);
+        register(meterRegistry, "failed", failed);
+        log.info("Cluster mode enabled as {}: {}", self, ring);
+    }
+
+    /**
+     * Router of a single node, which owns every user.
+     */
+    public static ClusterRouter disabled() {
+        return new ClusterRouter(new FraudRulesProperties(), null, null);
+    }
+
+    public boolean isEnabled() {
+        return httpClient != null;
+    }
+
+    /**
+     * Base URL of the node that owns {@code userId}, or {@code null} when it is this one.
+     */
+    public String remoteOwner(String userId) {
+        HashRing current = ring;
+        if (current == null) {
+            return null;
+        }
+        String owner = current.ownerOf(userId);
+        return owner.equals(self) ? null : owner;
+    }
+
+    /**
+     * Whether a request that says it was forwarded by {@code node} comes from another member: {@code node} has to
+     * be one of {@code fraud.cluster.members} other than this node, and {@code remoteAddress} one of the addresses
+     * its host name resolves to. Anything else is scored as if it came from a client.
+     */
+    public boolean isForwardedByPeer(String node, String remoteAddress) {
+        if (node == null || !isEnabled()) {
+            return false;
+        }
+        String member = normalize(node);
+        if (member.equals(self) || !configuredMembers.contains(member)) {
+            log.debug("Ignoring {} from {}: {} is not a peer", FORWARDED_HEADER, remoteAddress, node);
+            return false;
+        }
+        try {
+            InetAddress remote = InetAddress.getByName(remoteAddress);
+            for (InetAddress address : InetAddress.getAllByName(URI.create(member).getHost())) {
+                if (address.equals(remote)) {
+                    return true;
+                }
+            }
+        } catch (UnknownHostException exception) {
+            log.debug("Cannot resolve {} to check a forwarded request", member, exception);
+        }
+        log.debug("Ignoring {} from {}: not an address of {}", FORWARDED_HEADER, remoteAddress, member);
+        return false;
+    }
+
+    /**
+     * Scores {@code request} on {@code owner}. Returns {@code null} when the owner did not answer with a decision
+     * and the caller should score the request itself.
+     *
+     * @throws PeerRejectedException when the owner rejected the request with a 4xx status
+     */
+    public FraudCheckResponse forward(String owner, FraudCheckRequest request) {
+        try {
+            HttpResponse<byte[]> response = post(owner + CHECK_PATH, objectMapper.writeValueAsBytes(request));
+            int status = response.statusCode();
+            if (status == 200) {
+                FraudCheckResponse decision = objectMapper.readValue(response.body(), FraudCheckResponse.class);
+                forwarded.increment();
+                return decision;
+            }
+            if (status >= 400 && status < 500) {
+                rejected.increment();
+                throw new PeerRejectedException(status, errorMessage(response.body(), owner, status));
+            }
+            log.debug("Forward to {} answered {}; scoring locally", owner, status);
+        } catch (IOException exception) {
+            log.debug("Forward to {} failed; scoring locally", owner, exception);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        failed.increment();
+        return null;
+    }
+
+    /**
+     * Scores {@code requests} on {@code owner} as one batch, through the owner's idempotency cache only when
+     * {@code cached}. The result has one item per request: the owner's result or the error it reported for the
+     * request, or {@code null} when the owner gave neither. The whole result is {@code null} when the batch failed.
+     */
+    public List<BatchCheckItemResponse> forwardAll(String owner, List<FraudCheckRequest> requests, boolean cached) {
+        try {
+            String url = owner + (cached ? BATCH_PATH : BATCH_PATH + "?cache=false");
+            HttpResponse<byte[]> response = post(url, objectMapper.writeValueAsBytes(requests));
+            if (response.statusCode() == 200) {
+                JsonNode items = objectMapper.readTree(response.body());
+                if (items.isArray() && items.size() == requests.size()) {
+                    List<BatchCheckItemResponse> answers = new ArrayList<>(requests.size());
+                    for (JsonNode item : items) {
+                        BatchCheckItemResponse answer = objectMapper.treeToValue(item, BatchCheckItemResponse.class);
+                        if (answer.getResult() != null) {
+                            forwarded.increment();
+                        } else if (answer.getError() != null) {
+                            rejected.increment();
+                        } else {
+                            answer = null;
+                            failed.increment();
+                        }
+                        answers.add(answer);
+                    }
+                    return answers;
+                }
+            }
+            log.debug("Batch forward to {} answered {}; scoring locally", owner, response.statusCode());
+        } catch (IOException exception) {
+            log.debug("Batch forward to {} failed; scoring locally", owner, exception);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        failed.add(requests.size());
+        return null;
+    }
+
+    /**
+     * Replaces the members of the ring. Only this node changes; the same list has to be sent to every member.
+     * Users whose owner changes start with empty state on their new owner.
+     *
+     * @throws ClusterMembershipException when cluster mode is disabled, the list does not include this node or
+     *     it names a node that is not in {@code fraud.cluster.members}
+     */
+    public synchronized ClusterStatusResponse updateMembers(List<String> members) {
+        if (!isEnabled()) {
+            throw new ClusterMembershipException("Cluster mode is disabled; set fraud.cluster.enabled");
+        }
+        HashRing previous = ring;
+        HashRing next;
+        try {
+            next = ring(members);
+        } catch (IllegalArgumentException exception) {
+            throw new ClusterMembershipException(exception.getMessage());
+        }
+        for (String member : next.getMembers()) {
+            if (!configuredMembers.contains(member)) {
+                throw new ClusterMembershipException("cluster member " + member + " is not in fraud.cluster.members");
+            }
+        }
+        ring = next;
+        log.info("Cluster members changed to {}", next);
+        ClusterStatusResponse status = status();
+        status.setMovedShare(previous.movedShare(next));
+        return status;
+    }
+
+    public ClusterStatusResponse status() {
+        ClusterStatusResponse status = new ClusterStatusResponse();
+        status.setEnabled(isEnabled());
+        status.setSelf(self);
+        status.setVirtualNodes(virtualNodes);
+        Map<String, Double> members = new LinkedHashMap<>();
+        HashRing current = ring;
+        if (current != null) {
+            for (String member : current.getMembers()) {
+                members.put(member, current.share(member));
+            }
+        }
+        status.setMembers(members);
+        Map<String, Long> forwards = new LinkedHashMap<>();
+        forwards.put("ok", forwarded.sum());
+        forwards.put("rejected", rejected.sum());
+        forwards.put("failed", failed.sum());
+        status.setForwards(forwards);
+        return status;
+    }
+
+    @PreDestroy
+    void close() {
+        if (httpClient != null) {
+            httpClient.close();
+        }
+    }
+
+    private HttpResponse<byte[]> post(String url, byte[] body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+            .timeout(forwardTimeout)
+            .header("Content-Type", "application/json")
+            .header(FORWARDED_HEADER, self)
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private String errorMessage(byte[] body, String owner, int status) {
+        try {
+            JsonNode message = objectMapper.readTree(body).get("message");
+            if (message != null && message.isTextual()) {
+                return message.asText();
+            }
+        } catch (IOException exception) {
+            // Not an ApiErrorResponse; fall through to a generic message.
+        }
+        return "Owner node " + owner + " rejected the transaction with status " + status;
+    }
+
+    private HashRing ring(List<String> members) {
+        List<String> normalized = new ArrayList<>(members.size());
+        for (String member : members) {
+            if (member == null || member.isBlank()) {
+                throw new IllegalArgumentException("cluster members must not be blank");
+            }
+            URI uri = URI.create(normalize(member));
+            if (!"http".equals(uri.getScheme()) && !"https".equals(uri.getScheme()) || uri.getHost() == null) {
+                throw new IllegalArgumentException("cluster member " + member + " is not an http(s) base URL");
+            }
+            normalized.add(uri.toString());
+        }
+        if (!normalized.contains(self)) {
+            throw new IllegalArgumentException("cluster members " + normalized + " must include this node, " + self);
+        }
+        return HashRing.of(normalized, virtualNodes);
+    }
+
+    private static String normalize(String url) {
+        String trimmed = url.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+
+    private static void register(MeterRegistry meterRegistry, String outcome, LongAdder count) {
+        FunctionCounter.builder("fraud.cluster.forwards", count, LongAdder::sum)
+            .description("Transactions forwarded to the node that owns their user, by outcome")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.minifrauddetector.cluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Consistent-hash ring over the 64-bit hash space. Every member is placed at {@code virtualNodes} points,
+ * hashed from {@code member#i}, and a key belongs to the member at the first point at or after the key's hash,
+ * wrapping around at the end. The points depend only on the member names, so every node that is given the same
+ * members computes the same owners, and adding or removing one of N members moves only about 1/N of the keys.
+ *
+ * <p>The points are kept in one sorted {@code long[]} with the owning member index alongside, so a lookup is a
+ * hash of the key and a binary search.
+ */
+public final class HashRing {
+
+    private final List<String> members;
+    private final long[] points;
+    private final int[] owners;
+
+    private HashRing(List<String> members, long[] points, int[] owners) {
+        this.members = members;
+        this.points = points;
+        this.owners = owners;
+    }
+
+    /**
+     * Builds the ring of {@code members}. Duplicates are ignored and the order does not matter.
+     */
+    public static HashRing of(Collection<String> members, int virtualNodes) {
+        if (members.isEmpty()) {
+            throw new IllegalArgumentException("a hash ring needs at least one member");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("virtual nodes must be positive");
+        }
+        List<String> sorted = List.copyOf(new TreeSet<>(members));
+        int size = sorted.size() * virtualNodes;
+        // Sort point and owner together by packing them into one array of pairs.
+        long[][] pairs = new long[size][];
+        int next = 0;
+        for (int member = 0; member < sorted.size(); member++) {
+            for (int i = 0; i < virtualNodes; i++) {
+                pairs[next++] = new long[] {hash(sorted.get(member) + "#" + i), member};
+            }
+        }
+        Arrays.sort(pairs, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        long[] points = new long[size];
+        int[] owners = new int[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = pairs[i][0];
+            owners[i] = (int) pairs[i][1];
+        }
+        return new HashRing(sorted, points, owners);
+    }
+
+    /**
+     * The members in name order.
+     */
+    public List<String> getMembers() {
+        return members;
+    }
+
+    public String ownerOf(CharSequence key) {
+        return members.get(owners[successor(hash(key))]);
+    }
+
+    /**
+     * Share of the hash space, and so of the keys, that {@code member} owns; 0 for a non-member.
+     */
+    public double share(String member) {
+        if (points.length == 1) {
+            return members.getFirst().equals(member) ? 1 : 0;
+        }
+        double owned = 0;
+        for (int i = 0; i < points.length; i++) {
+            if (members.get(owners[i]).equals(member)) {
+                owned += arc(i == 0 ? points[points.length - 1] : points[i - 1], points[i]);
+            }
+        }
+        return owned / 0x1p64;
+    }
+
+    /**
+     * Share of the hash space whose owner differs between this ring and {@code other}: the keys that move when
+     * the membership changes from one to the other.
+     */
+    public double movedShare(HashRing other) {
+        long[] boundaries = new long[points.length + other.points.length];
+        System.arraycopy(points, 0, boundaries, 0, points.length);
+        System.arraycopy(other.points, 0, boundaries, points.length, other.points.length);
+        Arrays.sort(boundaries);
+
+        // Between two neighbouring boundaries neither ring has a point, so each ring gives the whole arc to the
+        // owner of the boundary that ends it.
+        double moved = 0;
+        for (int i = 0; i < boundaries.length; i++) {
+            long end = boundaries[i];
+            long start = i == 0 ? boundaries[boundaries.length - 1] : boundaries[i - 1];
+            if (start == end) {
+                continue;
+            }
+            String before = members.get(owners[successor(end)]);
+            String after = other.members.get(other.owners[other.successor(end)]);
+            if (!before.equals(after)) {
+                moved += arc(start, end);
+            }
+        }
+        return Math.min(moved / 0x1p64, 1.0);
+    }
+
+    private int successor(long hash) {
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) {
+            index = -index - 1;
+        } else {
+            // Equal points are ordered by member index; the key belongs to the first of them.
+            while (index > 0 && points[index - 1] == hash) {
+                index--;
+            }
+        }
+        return index == points.length ? 0 : index;
+    }
+
+    // Length of the arc (start, end] going clockwise, as an unsigned 64-bit difference.
+    private static double arc(long start, long end) {
+        long length = end - start;
+        return length >= 0 ? length : length + 0x1p64;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-16 code units of {@code key}, finished with the MurmurHash3 mixer so that keys
+     * differing only in their last characters still land far apart.
+     */
+    static long hash(CharSequence key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        List<String> shares = new ArrayList<>(members.size());
+        for (String member : members) {
+            shares.add(String.format("%s=%.3f", member, share(member)));
+        }
+        return "HashRing" + shares;
+    }
+}
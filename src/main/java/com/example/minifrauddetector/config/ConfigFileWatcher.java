@@ -0,0 +1,85 @@
+package com.example.minifrauddetector.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Calls a listener on a daemon thread whenever a single file is created or modified. Bursts of events
+ * (editors often write a file in several steps) are coalesced into one call.
+ */
+public class ConfigFileWatcher implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigFileWatcher.class);
+    private static final long SETTLE_MILLIS = 200;
+
+    private final Path file;
+    private final Runnable listener;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    public ConfigFileWatcher(Path file, Runnable listener) throws IOException {
+        this.file = file.toAbsolutePath().normalize();
+        this.listener = listener;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.file.getParent().register(
+            watchService,
+            StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY
+        );
+        this.thread = new Thread(this::run, "config-watcher-" + this.file.getFileName());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = containsTargetFile(key);
+                key.reset();
+                if (!changed) {
+                    continue;
+                }
+
+                WatchKey next;
+                while ((next = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    next.pollEvents();
+                    next.reset();
+                }
+                try {
+                    listener.run();
+                } catch (RuntimeException exception) {
+                    log.warn("Reload of {} failed, keeping previous configuration: {}", file, exception.getMessage());
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean containsTargetFile(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path path && file.getFileName().equals(path)) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        watchService.close();
+    }
+}
@@ -1,18 +1,42 @@
 package com.example.minifrauddetector.config;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 @Getter
 @Setter
 @ConfigurationProperties(prefix = "fraud")
 public class FraudRulesProperties {
 
+    private String rulesFile;
+    private boolean watchRulesFile = true;
     private List<String> highRiskCountries = new ArrayList<>();
+    private List<MerchantCategoryTier> merchantCategories = new ArrayList<>();
+    private List<CustomRule> customRules = new ArrayList<>();
     private NightWindow nightWindow = new NightWindow();
+    private Batch batch = new Batch();
+    private Stream stream = new Stream();
+    private Execution execution = new Execution();
+    private Metrics metrics = new Metrics();
+    private Replay replay = new Replay();
+    private Idempotency idempotency = new Idempotency();
+    private Fx fx = new Fx();
+    private Shadow shadow = new Shadow();
+    private Model model = new Model();
+    private Audit audit = new Audit();
+    private IpReputation ipReputation = new IpReputation();
+    private Velocity velocity = new Velocity();
+    private Profile profile = new Profile();
+    private Cluster cluster = new Cluster();
+    private Overload overload = new Overload();
+    private ReplayDetection replayDetection = new ReplayDetection();
+    private Pipeline pipeline = new Pipeline();
 
     @Getter
     @Setter
@@ -21,4 +45,274 @@ public class FraudRulesProperties {
         private int startHourUtc = 0;
         private int endHourUtc = 5;
     }
+
+    /**
+     * A group of merchant category codes scored alike. {@code minAmount} (whole currency units) limits the tier
+     * to transactions of at least that amount; 0 scores every transaction with one of the codes.
+     */
+    @Getter
+    @Setter
+    public static class MerchantCategoryTier {
+
+        private String name;
+        private List<String> codes = new ArrayList<>();
+        private int points;
+        private long minAmount;
+    }
+
+    /**
+     * Rule written as an expression over the transaction, such as
+     * {@code amount > 500 && country in [NG, PK] && !deviceTrusted}. {@code name} is also its outcome key.
+     */
+    @Getter
+    @Setter
+    public static class CustomRule {
+
+        private String name;
+        private String expression;
+        private int points;
+    }
+
+    @Getter
+    @Setter
+    public static class Batch {
+
+        private int maxSize = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class Stream {
+
+        private int chunkSize = 256;
+        private int maxLineBytes = 64 * 1024;
+    }
+
+    @Getter
+    @Setter
+    public static class Execution {
+
+        private Duration deadline = Duration.ofSeconds(2);
+        private int groupSize = 64;
+        private int threads = 0;
+        private int queueCapacity = 1024;
+    }
+
+    @Getter
+    @Setter
+    public static class Metrics {
+
+        private int latencySampleEvery = 16;
+    }
+
+    @Getter
+    @Setter
+    public static class Replay {
+
+        private Path input;
+        private Path output;
+        private String format = "auto";
+        private DataSize chunkSize = DataSize.ofMegabytes(32);
+        private int threads = 0;
+    }
+
+    @Getter
+    @Setter
+    public static class Idempotency {
+
+        private boolean enabled = true;
+        private Duration ttl = Duration.ofMinutes(10);
+        private int maxEntries = 100_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Fx {
+
+        private String baseCurrency = "USD";
+        private Path ratesFile;
+        private boolean watchFile = true;
+    }
+
+    @Getter
+    @Setter
+    public static class Shadow {
+
+        private boolean enabled = false;
+        private String rulesFile;
+        private int threads = 1;
+        private int queueCapacity = 1024;
+    }
+
+    @Getter
+    @Setter
+    public static class Model {
+
+        private boolean enabled = false;
+        private Path file;
+        private boolean watchFile = true;
+        private double weight = 0.5;
+    }
+
+    @Getter
+    @Setter
+    public static class Audit {
+
+        private boolean enabled = false;
+        private Path directory;
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+        private int queueCapacity = 65_536;
+        private int batchSize = 1024;
+        private Overflow overflow = Overflow.BLOCK;
+        private int sampleEvery = 100;
+        private Fsync fsync = Fsync.BATCH;
+        private Duration fsyncInterval = Duration.ofSeconds(1);
+
+        /**
+         * What a request thread does when the audit queue is full.
+         */
+        public enum Overflow {
+            /** Wait for room. */
+            BLOCK,
+            /** Drop the decision and count it. */
+            DROP,
+            /** Wait for room for one in {@code sample-every} decisions and drop the others. */
+            SAMPLE
+        }
+
+        public enum Fsync {
+            /** Force every written batch to disk before taking the next one. */
+            BATCH,
+            /** Force at most once per {@code fsync-interval}. */
+            INTERVAL
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class IpReputation {
+
+        private boolean enabled = false;
+        private boolean watchFiles = true;
+        private List<IpList> lists = new ArrayList<>();
+    }
+
+    @Getter
+    @Setter
+    public static class IpList {
+
+        private String name;
+        private Path file;
+        private int points;
+    }
+
+    @Getter
+    @Setter
+    public static class Velocity {
+
+        private int maxUsers = 250_000;
+        private int stripes = 64;
+        private int bucketsPerWindow = 6;
+        private List<VelocityWindow> windows = new ArrayList<>();
+    }
+
+    /**
+     * Per-user behavioral profiles and the rules that compare a transaction with them. Amounts are whole units
+     * of the base currency. A rule only fires once the profile has seen {@code minHistory} earlier transactions.
+     */
+    @Getter
+    @Setter
+    public static class Profile {
+
+        private boolean enabled = false;
+        private int maxUsers = 1_000_000;
+        private int stripes = 64;
+        private Path snapshotFile;
+        private Duration snapshotInterval = Duration.ofMinutes(5);
+        private int minHistory = 10;
+        private double amountDeviations = 5.0;
+        private long minAmountStdDev = 5;
+        private int amountDeviationPoints = 20;
+        private int newCountryPoints = 15;
+        private double unusualHourShare = 0.02;
+        private int unusualHourPoints = 5;
+    }
+
+    /**
+     * Nodes that partition per-user state by a consistent-hash ring on {@code userId}. {@code self} and every
+     * member are base URLs, such as {@code http://10.0.0.5:8080}; {@code self} must be one of the members.
+     */
+    @Getter
+    @Setter
+    public static class Cluster {
+
+        private boolean enabled = false;
+        private String self;
+        private List<String> members = new ArrayList<>();
+        private int virtualNodes = 128;
+        private Duration connectTimeout = Duration.ofMillis(500);
+        private Duration forwardTimeout = Duration.ofSeconds(1);
+    }
+
+    /**
+     * Adaptive limit on the number of transactions scored at once. Transactions over the limit are scored by the
+     * {@code degradedRules} alone.
+     */
+    @Getter
+    @Setter
+    public static class Overload {
+
+        private boolean enabled = false;
+        private int initialLimit = 32;
+        private int minLimit = 4;
+        private int maxLimit = 1000;
+        private Duration latencyThreshold = Duration.ofMillis(5);
+        private double backoffRatio = 0.9;
+        private List<String> degradedRules = new ArrayList<>(
+            List.of("amount", "untrustedDevice", "highRiskCountry", "nightWindow"));
+    }
+
+    /**
+     * Detection of transactions that repeat an earlier one of the same user: same amount, currency, country and
+     * IP address within the same {@code timeBucket}. Fingerprints are remembered for at least {@code window} in
+     * Bloom filters sized for {@code expectedInsertions} per window at {@code falsePositiveRate}.
+     */
+    @Getter
+    @Setter
+    public static class ReplayDetection {
+
+        private boolean enabled = false;
+        private Duration window = Duration.ofHours(24);
+        private int slices = 8;
+        private long expectedInsertions = 10_000_000;
+        private double falsePositiveRate = 0.001;
+        private Duration timeBucket = Duration.ofHours(1);
+        private int points = 20;
+    }
+
+    /**
+     * Staged scoring of {@code POST /check}: enrichment, scoring and completion each run on their own thread,
+     * fed through a ring of {@code bufferSize} preallocated slots and taking up to {@code batchSize} requests
+     * at a time.
+     */
+    @Getter
+    @Setter
+    public static class Pipeline {
+
+        private boolean enabled = false;
+        private int bufferSize = 4096;
+        private int batchSize = 64;
+    }
+
+    @Getter
+    @Setter
+    public static class VelocityWindow {
+
+        private String name;
+        private Duration duration;
+        private int maxCount;
+        private long maxAmount;
+        private int countPoints;
+        private int amountPoints;
+    }
 }
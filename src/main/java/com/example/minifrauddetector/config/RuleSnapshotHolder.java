@@ -0,0 +1,162 @@
+package com.example.minifrauddetector.config;
+
+import com.example.minifrauddetector.exception.RuleReloadException;
+import com.example.minifrauddetector.rules.Rule;
+import com.example.minifrauddetector.rules.RuleSnapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.PropertySourcesPlaceholdersResolver;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySource;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Owns the active {@link RuleSnapshot}. A reload binds {@code fraud.*} again, from
+ * {@code fraud.rules-file} layered over the application environment when a rules file is configured,
+ * compiles a new snapshot and publishes it with a single volatile write.
+ */
+@Component
+public class RuleSnapshotHolder {
+
+    private static final Logger log = LoggerFactory.getLogger(RuleSnapshotHolder.class);
+
+    private final FraudRulesProperties startupProperties;
+    private final String rulesFile;
+    private final List<Rule> customRules;
+    private final ConfigurableEnvironment environment;
+    private volatile RuleSnapshot current;
+    private ConfigFileWatcher watcher;
+
+    public RuleSnapshotHolder(FraudRulesProperties fraudRulesProperties) {
+        this(fraudRulesProperties, fraudRulesProperties.getRulesFile(), List.of(), null);
+    }
+
+    @Autowired
+    public RuleSnapshotHolder(
+            FraudRulesProperties fraudRulesProperties,
+            ObjectProvider<Rule> customRules,
+            ConfigurableEnvironment environment) {
+        this(fraudRulesProperties, fraudRulesProperties.getRulesFile(), customRules.orderedStream().toList(), environment);
+    }
+
+    RuleSnapshotHolder(
+            FraudRulesProperties fraudRulesProperties,
+            List<Rule> customRules,
+            ConfigurableEnvironment environment) {
+        this(fraudRulesProperties, fraudRulesProperties.getRulesFile(), customRules, environment);
+    }
+
+    private RuleSnapshotHolder(
+            FraudRulesProperties fraudRulesProperties,
+            String rulesFile,
+            List<Rule> customRules,
+            ConfigurableEnvironment environment) {
+        this.startupProperties = fraudRulesProperties;
+        this.rulesFile = rulesFile;
+        this.customRules = List.copyOf(customRules);
+        this.environment = environment;
+
+        FraudRulesProperties properties = loadProperties();
+        checkVelocityLayout(properties);
+        this.current = RuleSnapshot.build(1, properties, this.customRules);
+    }
+
+    @PostConstruct
+    void startWatching() throws IOException {
+        if (rulesFile != null && startupProperties.isWatchRulesFile()) {
+            watcher = new ConfigFileWatcher(Path.of(rulesFile), this::reload);
+        }
+    }
+
+    @PreDestroy
+    void stopWatching() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    public RuleSnapshot current() {
+        return current;
+    }
+
+    /**
+     * Unwatched holder for a candidate rule set that binds {@code fraud.*} from {@code candidateRulesFile}
+     * layered over the application environment, with the same custom rules and velocity layout as this one.
+     */
+    public RuleSnapshotHolder withRulesFile(String candidateRulesFile) {
+        return new RuleSnapshotHolder(startupProperties, candidateRulesFile, customRules, environment);
+    }
+
+    public synchronized RuleSnapshot reload() {
+        RuleSnapshot snapshot;
+        try {
+            FraudRulesProperties properties = loadProperties();
+            checkVelocityLayout(properties);
+            snapshot = RuleSnapshot.build(current.getVersion() + 1, properties, customRules);
+        } catch (RuntimeException exception) {
+            throw new RuleReloadException("Rule reload rejected: " + exception.getMessage(), exception);
+        }
+
+        current = snapshot;
+        log.info("Activated rule snapshot version {}", snapshot.getVersion());
+        return snapshot;
+    }
+
+    private FraudRulesProperties loadProperties() {
+        if (environment == null) {
+            return startupProperties;
+        }
+
+        List<ConfigurationPropertySource> sources = new ArrayList<>();
+        if (rulesFile != null && Files.exists(Path.of(rulesFile))) {
+            sources.add(ConfigurationPropertySource.from(readYaml(rulesFile)));
+        }
+        ConfigurationPropertySources.get(environment).forEach(sources::add);
+
+        return new Binder(sources, new PropertySourcesPlaceholdersResolver(environment))
+            .bind("fraud", FraudRulesProperties.class)
+            .orElseGet(FraudRulesProperties::new);
+    }
+
+    private PropertySource<?> readYaml(String rulesFile) {
+        try {
+            List<PropertySource<?>> documents = new YamlPropertySourceLoader()
+                .load("fraud-rules-file", new FileSystemResource(rulesFile));
+            if (documents.size() != 1) {
+                throw new IllegalArgumentException(rulesFile + " must contain exactly one YAML document");
+            }
+            return documents.get(0);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Cannot read " + rulesFile + ": " + exception.getMessage(), exception);
+        }
+    }
+
+    // Velocity state is laid out by window at startup; only the limits and points may change on reload.
+    private void checkVelocityLayout(FraudRulesProperties properties) {
+        List<FraudRulesProperties.VelocityWindow> active = startupProperties.getVelocity().getWindows();
+        List<FraudRulesProperties.VelocityWindow> reloaded = properties.getVelocity().getWindows();
+        boolean sameLayout = active.size() == reloaded.size();
+        for (int i = 0; sameLayout && i < active.size(); i++) {
+            sameLayout = Objects.equals(active.get(i).getName(), reloaded.get(i).getName())
+                && Objects.equals(active.get(i).getDuration(), reloaded.get(i).getDuration());
+        }
+        if (!sameLayout) {
+            throw new IllegalArgumentException("velocity window names and durations cannot change without a restart");
+        }
+    }
+}
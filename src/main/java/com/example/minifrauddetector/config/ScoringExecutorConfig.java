@@ -0,0 +1,43 @@
+package com.example.minifrauddetector.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+public class ScoringExecutorConfig {
+
+    /**
+     * Executor for fan-out inside {@code FraudScoringService}. It follows {@code spring.threads.virtual.enabled},
+     * so the switch that moves Tomcat request handling onto virtual threads moves scoring subtasks with it.
+     *
+     * <p>With platform threads it is a pool of {@code fraud.execution.threads} threads owned by this context, not
+     * the shared common pool, because subtasks block: the caller joins them and cluster forwards wait on HTTP.
+     * When {@code fraud.execution.queue-capacity} subtasks are already waiting, the forking request thread runs
+     * the next one itself.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService scoringExecutor(Environment environment, FraudRulesProperties fraudRulesProperties) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("scoring-", 0).factory());
+        }
+        FraudRulesProperties.Execution execution = fraudRulesProperties.getExecution();
+        if (execution.getThreads() < 0) {
+            throw new IllegalArgumentException("fraud.execution.threads must not be negative");
+        }
+        if (execution.getQueueCapacity() < 1) {
+            throw new IllegalArgumentException("fraud.execution.queue-capacity must be positive");
+        }
+        int threads = execution.getThreads() > 0 ? execution.getThreads() : Runtime.getRuntime().availableProcessors();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(execution.getQueueCapacity()),
+            Thread.ofPlatform().name("scoring-", 0).daemon(true).factory(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.minifrauddetector.controller;
+
+import com.example.minifrauddetector.cluster.ClusterRouter;
+import com.example.minifrauddetector.config.RuleSnapshotHolder;
+import com.example.minifrauddetector.dto.ClusterStatusResponse;
+import com.example.minifrauddetector.dto.RuleSnapshotResponse;
+import com.example.minifrauddetector.dto.ShadowStatsResponse;
+import com.example.minifrauddetector.exception.ApiErrorResponse;
+import com.example.minifrauddetector.exception.RuleReloadException;
+import com.example.minifrauddetector.rules.RuleSnapshot;
+import com.example.minifrauddetector.shadow.ShadowScorer;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import java.util.List;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/admin")
+public class AdminController {
+
+    private final RuleSnapshotHolder ruleSnapshotHolder;
+    private final ShadowScorer shadowScorer;
+    private final ClusterRouter clusterRouter;
+
+    public AdminController(RuleSnapshotHolder ruleSnapshotHolder, ShadowScorer shadowScorer, ClusterRouter clusterRouter) {
+        this.ruleSnapshotHolder = ruleSnapshotHolder;
+        this.shadowScorer = shadowScorer;
+        this.clusterRouter = clusterRouter;
+    }
+
+    @Operation(
+        summary = "Reload fraud rules",
+        description = "Re-binds fraud.* (including fraud.rules-file when configured) and atomically activates a new rule snapshot"
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "New rule snapshot activated",
+        content = @Content(schema = @Schema(implementation = RuleSnapshotResponse.class))
+    )
+    @ApiResponse(
+        responseCode = "422",
+        description = "Configuration is invalid; the previous snapshot stays active",
+        content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+    )
+    @PostMapping("/rules/reload")
+    public RuleSnapshotResponse reloadRules() {
+        return mapSnapshot(ruleSnapshotHolder.reload());
+    }
+
+    @Operation(
+        summary = "Get shadow scoring statistics",
+        description = "Compares the candidate rule set from fraud.shadow.rules-file with the active one on live traffic: "
+            + "risk level flips, score deltas and rules that fired on only one side"
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "Statistics since the candidate was last loaded",
+        content = @Content(schema = @Schema(implementation = ShadowStatsResponse.class))
+    )
+    @GetMapping("/shadow")
+    public ShadowStatsResponse shadowStats() {
+        return shadowScorer.stats();
+    }
+
+    @Operation(
+        summary = "Reload the candidate rule set",
+        description = "Re-binds the candidate from fraud.shadow.rules-file and resets the shadow statistics"
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "New candidate snapshot activated",
+        content = @Content(schema = @Schema(implementation = RuleSnapshotResponse.class))
+    )
+    @ApiResponse(
+        responseCode = "422",
+        description = "Candidate configuration is invalid or shadow scoring is disabled",
+        content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+    )
+    @PostMapping("/shadow/reload")
+    public RuleSnapshotResponse reloadShadow() {
+        if (!shadowScorer.isEnabled()) {
+            throw new RuleReloadException("Shadow scoring is disabled; set fraud.shadow.enabled", null);
+        }
+        return mapSnapshot(shadowScorer.reload());
+    }
+
+    @Operation(
+        summary = "Get cluster membership",
+        description = "Returns the members of the consistent-hash ring, the share of users each one owns and the "
+            + "outcomes of transactions this node forwarded to their owners"
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "Cluster status returned",
+        content = @Content(schema = @Schema(implementation = ClusterStatusResponse.class))
+    )
+    @GetMapping("/cluster")
+    public ClusterStatusResponse clusterStatus() {
+        return clusterRouter.status();
+    }
+
+    @Operation(
+        summary = "Replace the cluster members",
+        description = "Rebuilds the consistent-hash ring of this node from a list of base URLs that must include the "
+            + "node itself. Send the same list to every member. Users that move start with empty state on their new owner"
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "New ring active; movedShare is the share of users whose owner changed",
+        content = @Content(schema = @Schema(implementation = ClusterStatusResponse.class))
+    )
+    @ApiResponse(
+        responseCode = "422",
+        description = "Cluster mode is disabled or the member list is invalid; the previous ring stays active",
+        content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+    )
+    @PutMapping("/cluster/members")
+    public ClusterStatusResponse updateClusterMembers(@RequestBody List<String> members) {
+        return clusterRouter.updateMembers(members);
+    }
+
+    private RuleSnapshotResponse mapSnapshot(RuleSnapshot snapshot) {
+        RuleSnapshotResponse response = new RuleSnapshotResponse();
+        response.setVersion(snapshot.getVersion());
+        response.setLoadedAt(snapshot.getLoadedAt());
+        return response;
+    }
+}
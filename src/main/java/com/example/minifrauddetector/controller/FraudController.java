@@ -1,35 +1,81 @@
 package com.example.minifrauddetector.controller;
 
+import com.example.minifrauddetector.cluster.ClusterRouter;
 import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.config.RuleSnapshotHolder;
+import com.example.minifrauddetector.dto.BatchCheckItemResponse;
 import com.example.minifrauddetector.dto.FraudCheckRequest;
 import com.example.minifrauddetector.dto.FraudCheckResponse;
 import com.example.minifrauddetector.dto.RulesResponse;
 import com.example.minifrauddetector.exception.ApiErrorResponse;
+import com.example.minifrauddetector.exception.InvalidBatchException;
+import com.example.minifrauddetector.rules.RulePlan;
+import com.example.minifrauddetector.rules.RuleSnapshot;
+import com.example.minifrauddetector.service.BatchCheckService;
 import com.example.minifrauddetector.service.FraudScoringService;
+import com.example.minifrauddetector.service.NdjsonScoringService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping("/api/v1/fraud")
 public class FraudController {
 
+    private static final String VERBOSE_DESCRIPTION =
+        "Include human-readable reasons; false returns reasonCodes only and skips rendering the text";
+    private static final String FORWARDED_DESCRIPTION =
+        "Set by a cluster node that routed the request here; the request is then scored on this node. Ignored "
+            + "unless it names another member of fraud.cluster.members and the request comes from that member";
+    private static final String CACHE_DESCRIPTION =
+        "Whether to return and remember results by transactionId; false scores every item, as for backfills";
+
     private final FraudScoringService fraudScoringService;
     private final FraudRulesProperties fraudRulesProperties;
+    private final RuleSnapshotHolder ruleSnapshotHolder;
+    private final BatchCheckService batchCheckService;
+    private final NdjsonScoringService ndjsonScoringService;
+    private final ClusterRouter clusterRouter;
 
-    public FraudController(FraudScoringService fraudScoringService, FraudRulesProperties fraudRulesProperties) {
+    public FraudController(
+            FraudScoringService fraudScoringService,
+            FraudRulesProperties fraudRulesProperties,
+            RuleSnapshotHolder ruleSnapshotHolder,
+            BatchCheckService batchCheckService,
+            NdjsonScoringService ndjsonScoringService,
+            ClusterRouter clusterRouter) {
         this.fraudScoringService = fraudScoringService;
         this.fraudRulesProperties = fraudRulesProperties;
+        this.ruleSnapshotHolder = ruleSnapshotHolder;
+        this.batchCheckService = batchCheckService;
+        this.ndjsonScoringService = ndjsonScoringService;
+        this.clusterRouter = clusterRouter;
     }
 
+    /**
+     * Returns the response itself when it is already known, as it always is without the scoring pipeline, and
+     * the pending future otherwise: Spring picks the return value handler by the runtime type, so only requests
+     * answered by the pipeline pay for an async dispatch. The 200 response names its schema because springdoc
+     * cannot infer it from an {@code Object} return type.
+     */
     @Operation(
         summary = "Evaluate a transaction and return fraud risk",
         description = "Calculates the fraud score, risk level, and matching rule reasons for a transaction request"
@@ -45,8 +91,75 @@ public class FraudController {
         content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
     )
     @PostMapping("/check")
-    public FraudCheckResponse check(@Valid @RequestBody FraudCheckRequest request) {
-        return fraudScoringService.evaluate(request);
+    public Object check(
+            @Valid @RequestBody FraudCheckRequest request,
+            @Parameter(description = VERBOSE_DESCRIPTION) @RequestParam(defaultValue = "true") boolean verbose,
+            @Parameter(description = FORWARDED_DESCRIPTION)
+            @RequestHeader(name = ClusterRouter.FORWARDED_HEADER, required = false) String forwardedBy,
+            HttpServletRequest httpRequest) {
+        CompletableFuture<FraudCheckResponse> response = isForwarded(forwardedBy, httpRequest)
+            ? fraudScoringService.evaluateHereAsync(request)
+            : fraudScoringService.evaluateAsync(request);
+        if (!verbose) {
+            response = response.thenApply(FraudCheckResponse::withoutReasonTexts);
+        }
+        return response.state() == Future.State.SUCCESS ? response.resultNow() : response;
+    }
+
+    @Operation(
+        summary = "Evaluate a batch of transactions",
+        description = "Validates and scores each transaction independently; results are returned in request order "
+            + "and invalid items carry their own field errors instead of rejecting the whole batch"
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "Batch evaluation completed"
+    )
+    @ApiResponse(
+        responseCode = "400",
+        description = "Batch is empty, too large, or not a JSON array",
+        content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))
+    )
+    @PostMapping("/check/batch")
+    public List<BatchCheckItemResponse> checkBatch(
+            @RequestBody List<FraudCheckRequest> requests,
+            @Parameter(description = VERBOSE_DESCRIPTION) @RequestParam(defaultValue = "true") boolean verbose,
+            @Parameter(description = CACHE_DESCRIPTION) @RequestParam(defaultValue = "true") boolean cache,
+            @Parameter(description = FORWARDED_DESCRIPTION)
+            @RequestHeader(name = ClusterRouter.FORWARDED_HEADER, required = false) String forwardedBy,
+            HttpServletRequest httpRequest) {
+        int maxSize = fraudRulesProperties.getBatch().getMaxSize();
+        if (requests.isEmpty()) {
+            throw new InvalidBatchException("Batch must contain at least one transaction");
+        }
+        if (requests.size() > maxSize) {
+            throw new InvalidBatchException("Batch size " + requests.size() + " exceeds maximum of " + maxSize);
+        }
+
+        return batchCheckService.process(requests, 0, verbose, isForwarded(forwardedBy, httpRequest), cache);
+    }
+
+    @Operation(
+        summary = "Evaluate a stream of newline-delimited transactions",
+        description = "Reads one FraudCheckRequest JSON object per line and writes one batch item per line as results "
+            + "become available; malformed or invalid lines produce an inline error item and do not end the stream"
+    )
+    @ApiResponse(
+        responseCode = "200",
+        description = "Results streamed as application/x-ndjson"
+    )
+    @PostMapping(
+        value = "/check/stream",
+        consumes = MediaType.APPLICATION_NDJSON_VALUE,
+        produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    public void checkStream(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            @Parameter(description = VERBOSE_DESCRIPTION) @RequestParam(defaultValue = "true") boolean verbose)
+            throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        ndjsonScoringService.score(request.getInputStream(), response.getOutputStream(), verbose);
     }
 
     @Operation(
@@ -60,27 +173,28 @@ public class FraudController {
     )
     @GetMapping("/rules")
     public RulesResponse rules() {
+        RuleSnapshot snapshot = ruleSnapshotHolder.current();
+        RulePlan plan = snapshot.getPlan();
+
         RulesResponse response = new RulesResponse();
-        response.setAmountThresholds(Map.of(
-            "moderateMin", 300,
-            "highMin", 1000,
-            "veryHighMin", 2000
-        ));
-        response.setPoints(Map.of(
-            "amountModerate", 10,
-            "amountHigh", 25,
-            "amountVeryHigh", 35,
-            "untrustedDevice", 20,
-            "highRiskCountry", 25,
-            "nightWindow", 10
-        ));
-        response.setHighRiskCountries(fraudRulesProperties.getHighRiskCountries());
+        response.setVersion(snapshot.getVersion());
+        response.setLoadedAt(snapshot.getLoadedAt());
+        response.setAmountThresholds(plan.getThresholds());
+        response.setPoints(plan.getPoints());
+        response.setHighRiskCountries(snapshot.getHighRiskCountries());
 
         RulesResponse.NightWindowDto nightWindowDto = new RulesResponse.NightWindowDto();
-        nightWindowDto.setStartHourUtc(fraudRulesProperties.getNightWindow().getStartHourUtc());
-        nightWindowDto.setEndHourUtc(fraudRulesProperties.getNightWindow().getEndHourUtc());
+        nightWindowDto.setStartHourUtc(snapshot.getNightStartHourUtc());
+        nightWindowDto.setEndHourUtc(snapshot.getNightEndHourUtc());
         response.setNightWindow(nightWindowDto);
 
+        response.setVelocityWindows(snapshot.getVelocityWindows().stream()
+            .map(this::mapVelocityWindow)
+            .toList());
+        response.setMerchantCategories(snapshot.getMerchantCategories().stream()
+            .map(this::mapMerchantCategoryTier)
+            .toList());
+
         response.setRiskBands(Map.of(
             "LOW", "0-29",
             "MEDIUM", "30-69",
@@ -89,4 +203,26 @@ public class FraudController {
 
         return response;
     }
+
+    private boolean isForwarded(String forwardedBy, HttpServletRequest httpRequest) {
+        return forwardedBy != null && clusterRouter.isForwardedByPeer(forwardedBy, httpRequest.getRemoteAddr());
+    }
+
+    private RulesResponse.VelocityWindowDto mapVelocityWindow(FraudRulesProperties.VelocityWindow window) {
+        RulesResponse.VelocityWindowDto dto = new RulesResponse.VelocityWindowDto();
+        dto.setName(window.getName());
+        dto.setDurationSeconds(window.getDuration().toSeconds());
+        dto.setMaxCount(window.getMaxCount());
+        dto.setMaxAmount(window.getMaxAmount());
+        return dto;
+    }
+
+    private RulesResponse.MerchantCategoryTierDto mapMerchantCategoryTier(FraudRulesProperties.MerchantCategoryTier tier) {
+        RulesResponse.MerchantCategoryTierDto dto = new RulesResponse.MerchantCategoryTierDto();
+        dto.setName(tier.getName());
+        dto.setCodes(List.copyOf(tier.getCodes()));
+        dto.setPoints(tier.getPoints());
+        dto.setMinAmount(tier.getMinAmount());
+        return dto;
+    }
 }
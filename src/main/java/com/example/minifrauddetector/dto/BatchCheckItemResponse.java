@@ -0,0 +1,23 @@
+package com.example.minifrauddetector.dto;
+
+import com.example.minifrauddetector.exception.ApiErrorResponse;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import lombok.Data;
+
+@Data
+@Schema(description = "Outcome for a single transaction of a batch fraud check")
+public class BatchCheckItemResponse {
+
+    @Schema(description = "Position of the transaction in the submitted batch, or its line number in a stream")
+    private long index;
+
+    @Schema(description = "Fraud evaluation, present when the item passed validation")
+    private FraudCheckResponse result;
+
+    @Schema(description = "Error summary, present when the item was rejected")
+    private String error;
+
+    @Schema(description = "Field validation errors for a rejected item")
+    private List<ApiErrorResponse.FieldErrorItem> fieldErrors;
+}
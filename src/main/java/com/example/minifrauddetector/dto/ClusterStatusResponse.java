@@ -0,0 +1,30 @@
+package com.example.minifrauddetector.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.Map;
+import lombok.Data;
+
+@Data
+@Schema(description = "Membership of the consistent-hash ring as this node sees it")
+public class ClusterStatusResponse {
+
+    @Schema(description = "Whether cluster mode is enabled")
+    private boolean enabled;
+
+    @Schema(description = "Base URL of this node")
+    private String self;
+
+    @Schema(description = "Points each member takes on the ring")
+    private int virtualNodes;
+
+    @Schema(description = "Share of users owned by each member, by base URL")
+    private Map<String, Double> members;
+
+    @Schema(description = "Share of users whose owner changed with this update; only set by a membership update")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double movedShare;
+
+    @Schema(description = "Forwarded transactions by outcome: ok, rejected, failed")
+    private Map<String, Long> forwards;
+}
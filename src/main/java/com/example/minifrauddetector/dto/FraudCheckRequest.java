@@ -7,6 +7,7 @@ import jakarta.validation.constraints.Size;
 import java.math.BigDecimal;
 import java.time.Instant;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 
 @Data
 public class FraudCheckRequest {
@@ -40,4 +41,13 @@ public class FraudCheckRequest {
     private String paymentMethod;
 
     private String ipAddress;
+
+    /**
+     * Amount as compared by {@code equals} and {@code hashCode}: {@code 100.0} and {@code 100.00} are the same
+     * payload, so that a retry that formats the amount differently is not an idempotency conflict.
+     */
+    @EqualsAndHashCode.Include(replaces = "amount")
+    private BigDecimal comparableAmount() {
+        return amount == null ? null : amount.stripTrailingZeros();
+    }
 }
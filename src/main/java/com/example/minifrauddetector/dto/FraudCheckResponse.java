@@ -1,5 +1,6 @@
 package com.example.minifrauddetector.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.time.Instant;
 import java.util.List;
 import lombok.Data;
@@ -10,6 +11,44 @@ public class FraudCheckResponse {
     private String transactionId;
     private int riskScore;
     private RiskLevel riskLevel;
+
+    /**
+     * Score of the fraud model before it was blended with the rule points; {@code null} without a model.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer modelScore;
+
+    /**
+     * Human-readable reasons. The scoring service sets a list that renders the text on first read, which
+     * normally happens during serialization; {@code null} when the caller asked for codes only.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<String> reasons;
+
+    private List<String> reasonCodes;
     private Instant evaluatedAt;
+    private long ruleVersion;
+
+    /**
+     * Set when the service was over its concurrency limit and scored the transaction with the cheap stateless rules
+     * only; omitted otherwise.
+     */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean degraded;
+
+    /**
+     * Copy of this response without {@link #getReasons() reasons}, so the text is never rendered.
+     */
+    public FraudCheckResponse withoutReasonTexts() {
+        FraudCheckResponse compact = new FraudCheckResponse();
+        compact.setTransactionId(transactionId);
+        compact.setRiskScore(riskScore);
+        compact.setRiskLevel(riskLevel);
+        compact.setModelScore(modelScore);
+        compact.setReasonCodes(reasonCodes);
+        compact.setEvaluatedAt(evaluatedAt);
+        compact.setRuleVersion(ruleVersion);
+        compact.setDegraded(degraded);
+        return compact;
+    }
 }
@@ -3,5 +3,18 @@ package com.example.minifrauddetector.dto;
 public enum RiskLevel {
     LOW,
     MEDIUM,
-    HIGH
+    HIGH;
+
+    /**
+     * Band of a capped score, as published under {@code riskBands} on {@code /rules}.
+     */
+    public static RiskLevel forScore(int score) {
+        if (score >= 70) {
+            return HIGH;
+        }
+        if (score >= 30) {
+            return MEDIUM;
+        }
+        return LOW;
+    }
 }
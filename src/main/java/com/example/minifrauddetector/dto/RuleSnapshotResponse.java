@@ -0,0 +1,13 @@
+package com.example.minifrauddetector.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.Instant;
+import lombok.Data;
+
+@Data
+@Schema(description = "Identity of the active rule snapshot")
+public class RuleSnapshotResponse {
+
+    private long version;
+    private Instant loadedAt;
+}
@@ -1,6 +1,7 @@
 package com.example.minifrauddetector.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import lombok.Data;
@@ -9,6 +10,12 @@ import lombok.Data;
 @Schema(description = "Fraud scoring rules and thresholds used by the API")
 public class RulesResponse {
 
+    @Schema(description = "Version of the active rule snapshot; increases on every successful reload")
+    private long version;
+
+    @Schema(description = "When the active rule snapshot was loaded")
+    private Instant loadedAt;
+
     @Schema(description = "Transaction amount thresholds used by amount-based rules")
     private Map<String, Integer> amountThresholds;
 
@@ -21,6 +28,12 @@ public class RulesResponse {
     @Schema(description = "UTC night window used for unusual-time scoring")
     private NightWindowDto nightWindow;
 
+    @Schema(description = "Per-user velocity windows and their limits")
+    private List<VelocityWindowDto> velocityWindows;
+
+    @Schema(description = "Merchant category code tiers; points are listed under merchantCategory<Name>")
+    private List<MerchantCategoryTierDto> merchantCategories;
+
     @Schema(description = "Risk score ranges mapped to risk bands")
     private Map<String, String> riskBands;
 
@@ -30,4 +43,22 @@ public class RulesResponse {
         private int startHourUtc;
         private int endHourUtc;
     }
+
+    @Data
+    public static class VelocityWindowDto {
+
+        private String name;
+        private long durationSeconds;
+        private int maxCount;
+        private long maxAmount;
+    }
+
+    @Data
+    public static class MerchantCategoryTierDto {
+
+        private String name;
+        private List<String> codes;
+        private int points;
+        private long minAmount;
+    }
 }
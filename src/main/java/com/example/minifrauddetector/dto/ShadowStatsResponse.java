@@ -0,0 +1,63 @@
+package com.example.minifrauddetector.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.Instant;
+import java.util.Map;
+import lombok.Data;
+
+@Data
+@Schema(description = "How the candidate rule set scored live traffic compared with the active one")
+public class ShadowStatsResponse {
+
+    @Schema(description = "Whether shadow evaluation is enabled")
+    private boolean enabled;
+
+    @Schema(description = "Version of the candidate rule snapshot the statistics belong to")
+    private long candidateVersion;
+
+    @Schema(description = "When the statistics were last reset")
+    private Instant since;
+
+    @Schema(description = "Transactions scored by both rule sets")
+    private long evaluated;
+
+    @Schema(description = "Transactions skipped because the shadow queue was full")
+    private long dropped;
+
+    @Schema(description = "Transactions the candidate rule set failed to score")
+    private long failed;
+
+    @Schema(description = "Transactions whose capped score differs")
+    private long scoreChanged;
+
+    @Schema(description = "Transactions whose risk level differs")
+    private long levelChanged;
+
+    @Schema(description = "Mean of candidate minus active score")
+    private double meanScoreDelta;
+
+    @Schema(description = "Mean absolute difference between candidate and active score")
+    private double meanAbsoluteScoreDelta;
+
+    @Schema(description = "Smallest candidate minus active score")
+    private int minScoreDelta;
+
+    @Schema(description = "Largest candidate minus active score")
+    private int maxScoreDelta;
+
+    @Schema(description = "Risk level changes, keyed ACTIVE->CANDIDATE, for example LOW->HIGH")
+    private Map<String, Long> levelFlips;
+
+    @Schema(description = "Per-rule disagreements, keyed by rule id")
+    private Map<String, RuleDifferenceDto> rules;
+
+    @Data
+    public static class RuleDifferenceDto {
+
+        @Schema(description = "Transactions on which only the active rule set fired the rule")
+        private long activeOnly;
+
+        @Schema(description = "Transactions on which only the candidate rule set fired the rule")
+        private long candidateOnly;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.minifrauddetector.exception;
+
+public class ClusterMembershipException extends RuntimeException {
+
+    public ClusterMembershipException(String message) {
+        super(message);
+    }
+}
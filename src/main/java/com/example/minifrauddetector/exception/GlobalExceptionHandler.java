@@ -4,6 +4,8 @@ import jakarta.servlet.http.HttpServletRequest;
 import java.time.Instant;
 import java.util.List;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
@@ -31,7 +33,59 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ApiErrorResponse> handleMalformedJson(
             HttpMessageNotReadableException exception,
             HttpServletRequest request) {
-        return buildResponse(HttpStatus.BAD_REQUEST, "Malformed JSON request", request, null);
+        String format = isCbor(request) ? "CBOR" : "JSON";
+        return buildResponse(HttpStatus.BAD_REQUEST, "Malformed " + format + " request", request, null);
+    }
+
+    @ExceptionHandler(InvalidBatchException.class)
+    public ResponseEntity<ApiErrorResponse> handleInvalidBatch(
+            InvalidBatchException exception,
+            HttpServletRequest request) {
+        return buildResponse(HttpStatus.BAD_REQUEST, exception.getMessage(), request, null);
+    }
+
+    @ExceptionHandler(UnsupportedCurrencyException.class)
+    public ResponseEntity<ApiErrorResponse> handleUnsupportedCurrency(
+            UnsupportedCurrencyException exception,
+            HttpServletRequest request) {
+        return buildResponse(HttpStatus.BAD_REQUEST, exception.getMessage(), request,
+            List.of(UnsupportedCurrencyException.fieldError()));
+    }
+
+    @ExceptionHandler(RuleReloadException.class)
+    public ResponseEntity<ApiErrorResponse> handleRuleReload(
+            RuleReloadException exception,
+            HttpServletRequest request) {
+        return buildResponse(HttpStatus.UNPROCESSABLE_ENTITY, exception.getMessage(), request, null);
+    }
+
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<ApiErrorResponse> handleIdempotencyConflict(
+            IdempotencyConflictException exception,
+            HttpServletRequest request) {
+        return buildResponse(HttpStatus.CONFLICT, exception.getMessage(), request, null);
+    }
+
+    @ExceptionHandler(ScoringTimeoutException.class)
+    public ResponseEntity<ApiErrorResponse> handleScoringTimeout(
+            ScoringTimeoutException exception,
+            HttpServletRequest request) {
+        return buildResponse(HttpStatus.SERVICE_UNAVAILABLE, exception.getMessage(), request, null);
+    }
+
+    @ExceptionHandler(PeerRejectedException.class)
+    public ResponseEntity<ApiErrorResponse> handlePeerRejected(
+            PeerRejectedException exception,
+            HttpServletRequest request) {
+        HttpStatus status = HttpStatus.resolve(exception.getStatus());
+        return buildResponse(status != null ? status : HttpStatus.BAD_GATEWAY, exception.getMessage(), request, null);
+    }
+
+    @ExceptionHandler(ClusterMembershipException.class)
+    public ResponseEntity<ApiErrorResponse> handleClusterMembership(
+            ClusterMembershipException exception,
+            HttpServletRequest request) {
+        return buildResponse(HttpStatus.UNPROCESSABLE_ENTITY, exception.getMessage(), request, null);
     }
 
     @ExceptionHandler(Exception.class)
@@ -41,6 +95,18 @@ public class GlobalExceptionHandler {
         return buildResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Internal server error", request, null);
     }
 
+    private boolean isCbor(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            return MediaType.APPLICATION_CBOR.includes(MediaType.parseMediaType(contentType));
+        } catch (InvalidMediaTypeException exception) {
+            return false;
+        }
+    }
+
     private ApiErrorResponse.FieldErrorItem mapFieldError(FieldError fieldError) {
         return ApiErrorResponse.FieldErrorItem.builder()
             .field(fieldError.getField())
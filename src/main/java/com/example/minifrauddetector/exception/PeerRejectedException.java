@@ -0,0 +1,19 @@
+package com.example.minifrauddetector.exception;
+
+/**
+ * The cluster node that owns a user answered a forwarded request with a client error, which is passed on to
+ * the caller unchanged.
+ */
+public class PeerRejectedException extends RuntimeException {
+
+    private final int status;
+
+    public PeerRejectedException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
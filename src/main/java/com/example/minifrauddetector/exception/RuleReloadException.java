@@ -0,0 +1,8 @@
+package com.example.minifrauddetector.exception;
+
+public class RuleReloadException extends RuntimeException {
+
+    public RuleReloadException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
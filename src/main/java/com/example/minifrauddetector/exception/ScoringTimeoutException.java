@@ -0,0 +1,8 @@
+package com.example.minifrauddetector.exception;
+
+public class ScoringTimeoutException extends RuntimeException {
+
+    public ScoringTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.minifrauddetector.exception;
+
+public class UnsupportedCurrencyException extends RuntimeException {
+
+    public static final String FIELD = "currency";
+    public static final String FIELD_MESSAGE = "must be a currency with a configured FX rate";
+
+    public UnsupportedCurrencyException(String currency) {
+        super("Unsupported currency '" + currency + "'");
+    }
+
+    public static ApiErrorResponse.FieldErrorItem fieldError() {
+        return ApiErrorResponse.FieldErrorItem.builder()
+            .field(FIELD)
+            .message(FIELD_MESSAGE)
+            .build();
+    }
+}
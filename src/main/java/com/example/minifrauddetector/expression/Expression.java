@@ -0,0 +1,188 @@
+package com.example.minifrauddetector.expression;
+
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.rules.ScoringContext;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Parsed custom rule expression. {@link #evaluate} walks the tree and defines what an expression means;
+ * {@link ExpressionCompiler} turns the same tree into bytecode that must agree with it.
+ */
+public sealed interface Expression {
+
+    boolean evaluate(ScoringContext context);
+
+    enum Type {
+        NUMBER, STRING, BOOLEAN
+    }
+
+    /**
+     * Transaction fields an expression can read. {@code amount} is in the base currency and {@code hour} is the
+     * UTC hour of the transaction timestamp.
+     */
+    enum Field {
+        AMOUNT("amount", Type.NUMBER, "getAmountCents"),
+        HOUR("hour", Type.NUMBER, "getHourUtc"),
+        DEVICE_TRUSTED("deviceTrusted", Type.BOOLEAN, "getDeviceTrusted"),
+        COUNTRY("country", Type.STRING, "getCountry"),
+        CURRENCY("currency", Type.STRING, "getCurrency"),
+        MERCHANT_CATEGORY("merchantCategory", Type.STRING, "getMerchantCategory"),
+        PAYMENT_METHOD("paymentMethod", Type.STRING, "getPaymentMethod"),
+        USER_ID("userId", Type.STRING, "getUserId"),
+        IP_ADDRESS("ipAddress", Type.STRING, "getIpAddress");
+
+        private final String key;
+        private final Type type;
+        private final String getter;
+
+        Field(String key, Type type, String getter) {
+            this.key = key;
+            this.type = type;
+            this.getter = getter;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * Accessor the compiled code calls: on {@link ScoringContext} for numbers, on {@link FraudCheckRequest}
+         * otherwise.
+         */
+        String getGetter() {
+            return getter;
+        }
+
+        static Field byKey(String key) {
+            for (Field field : values()) {
+                if (field.key.equals(key)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+
+        static String keys() {
+            return Arrays.stream(values()).map(Field::getKey).collect(Collectors.joining(", "));
+        }
+
+        long number(ScoringContext context) {
+            return this == AMOUNT ? context.getAmountCents() : context.getHourUtc();
+        }
+
+        String string(FraudCheckRequest request) {
+            return switch (this) {
+                case COUNTRY -> request.getCountry();
+                case CURRENCY -> request.getCurrency();
+                case MERCHANT_CATEGORY -> request.getMerchantCategory();
+                case PAYMENT_METHOD -> request.getPaymentMethod();
+                case USER_ID -> request.getUserId();
+                case IP_ADDRESS -> request.getIpAddress();
+                default -> throw new IllegalStateException(key + " is not a text field");
+            };
+        }
+    }
+
+    enum Operator {
+        EQ("=="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">=");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        static Operator bySymbol(String symbol) {
+            for (Operator operator : values()) {
+                if (operator.symbol.equals(symbol)) {
+                    return operator;
+                }
+            }
+            return null;
+        }
+
+        boolean test(long left, long right) {
+            return switch (this) {
+                case EQ -> left == right;
+                case NE -> left != right;
+                case LT -> left < right;
+                case LE -> left <= right;
+                case GT -> left > right;
+                case GE -> left >= right;
+            };
+        }
+    }
+
+    record And(Expression left, Expression right) implements Expression {
+
+        @Override
+        public boolean evaluate(ScoringContext context) {
+            return left.evaluate(context) && right.evaluate(context);
+        }
+    }
+
+    record Or(Expression left, Expression right) implements Expression {
+
+        @Override
+        public boolean evaluate(ScoringContext context) {
+            return left.evaluate(context) || right.evaluate(context);
+        }
+    }
+
+    record Not(Expression operand) implements Expression {
+
+        @Override
+        public boolean evaluate(ScoringContext context) {
+            return !operand.evaluate(context);
+        }
+    }
+
+    record Constant(boolean value) implements Expression {
+
+        @Override
+        public boolean evaluate(ScoringContext context) {
+            return value;
+        }
+    }
+
+    /**
+     * A boolean field; a missing value is false.
+     */
+    record BooleanField(Field field) implements Expression {
+
+        @Override
+        public boolean evaluate(ScoringContext context) {
+            return Boolean.TRUE.equals(context.getRequest().getDeviceTrusted());
+        }
+    }
+
+    /**
+     * {@code field operator value}, where an amount {@code value} is in hundredths of the base currency.
+     */
+    record NumberComparison(Field field, Operator operator, long value) implements Expression {
+
+        @Override
+        public boolean evaluate(ScoringContext context) {
+            return operator.test(field.number(context), value);
+        }
+    }
+
+    /**
+     * {@code field in [values]}, or {@code not in} when {@code negated}; {@code ==} and {@code !=} have one value.
+     * Matching is exact, and a missing value is in no list.
+     */
+    record Membership(Field field, boolean negated, Set<String> values) implements Expression {
+
+        @Override
+        public boolean evaluate(ScoringContext context) {
+            String value = field.string(context.getRequest());
+            return (value != null && values.contains(value)) != negated;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.minifrauddetector.expression;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.rules.CountrySet;
+import com.example.minifrauddetector.rules.Rule;
+import com.example.minifrauddetector.rules.ScoringContext;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Turns custom rule expressions into rules. {@link #compile} emits, for each rule, a hidden class extending
+ * {@link ExpressionRule} whose {@code match} evaluates the expression with plain branches: amounts and hours are
+ * {@code long} comparisons against constants, {@code ==} on text is one {@link String#equals} call and {@code in}
+ * lists are {@code static final} sets (a {@link CountrySet} for countries). The JIT compiles and inlines that like
+ * any hand-written rule. Hidden classes are not tied to their class loader, so the classes of replaced rule
+ * snapshots are unloaded once nothing references them.
+ */
+public final class ExpressionCompiler {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final String CLASS_NAME =
+        ExpressionCompiler.class.getPackageName().replace('.', '/') + "/CompiledRule";
+    private static final String SUPER_NAME = Type.getInternalName(ExpressionRule.class);
+    private static final String CONTEXT = Type.getInternalName(ScoringContext.class);
+    private static final String REQUEST = Type.getInternalName(FraudCheckRequest.class);
+    private static final MethodType CONSTRUCTOR =
+        MethodType.methodType(void.class, String.class, int.class, String.class);
+
+    private ExpressionCompiler() {
+    }
+
+    /**
+     * Compiled rules for {@code fraud.custom-rules}, in configuration order.
+     *
+     * @throws IllegalArgumentException naming the rule and, for a malformed expression, the column at fault
+     */
+    public static List<Rule> compileAll(List<FraudRulesProperties.CustomRule> customRules) {
+        List<Rule> rules = new ArrayList<>(customRules.size());
+        for (FraudRulesProperties.CustomRule customRule : customRules) {
+            rules.add(compile(customRule.getName(), customRule.getPoints(), customRule.getExpression()));
+        }
+        return rules;
+    }
+
+    public static ExpressionRule compile(String name, int points, String expression) {
+        Expression tree = parse(name, expression);
+        Generator generator = new Generator();
+        byte[] bytes = generator.generate(tree);
+        try {
+            MethodHandles.Lookup lookup = LOOKUP.defineHiddenClassWithClassData(bytes, generator.constants.toArray(),
+                true);
+            return (ExpressionRule) lookup.findConstructor(lookup.lookupClass(), CONSTRUCTOR)
+                .invoke(name, points, expression);
+        } catch (Throwable exception) {
+            throw new IllegalStateException("Cannot compile custom rule '" + name + "'", exception);
+        }
+    }
+
+    /**
+     * Rule that evaluates the parsed expression tree on every call, for comparison with {@link #compile}.
+     */
+    public static ExpressionRule interpret(String name, int points, String expression) {
+        return new ExpressionRule.Interpreted(name, points, expression, parse(name, expression));
+    }
+
+    private static Expression parse(String name, String expression) {
+        if (name == null || !name.matches("[A-Za-z][A-Za-z0-9]*")) {
+            throw new IllegalArgumentException("fraud.custom-rules name '" + name + "' must be letters and digits, "
+                + "starting with a letter");
+        }
+        try {
+            return ExpressionParser.parse(expression);
+        } catch (IllegalArgumentException exception) {
+            throw new IllegalArgumentException("fraud.custom-rules '" + name + "': " + exception.getMessage(),
+                exception);
+        }
+    }
+
+    /**
+     * Emits one class. Conditions compile to jumps, so {@code &&}, {@code ||} and {@code !} short-circuit without
+     * ever materializing a boolean.
+     */
+    private static final class Generator {
+
+        private static final int CONTEXT_SLOT = 1;
+        private static final int REQUEST_SLOT = 2;
+
+        private final List<Object> constants = new ArrayList<>();
+        private final List<String> constantTypes = new ArrayList<>();
+        private MethodVisitor method;
+
+        byte[] generate(Expression tree) {
+            ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+            writer.visit(Opcodes.V17, Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, CLASS_NAME, null, SUPER_NAME, null);
+
+            MethodVisitor constructor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>",
+                CONSTRUCTOR.toMethodDescriptorString(), null, null);
+            constructor.visitCode();
+            constructor.visitVarInsn(Opcodes.ALOAD, 0);
+            constructor.visitVarInsn(Opcodes.ALOAD, 1);
+            constructor.visitVarInsn(Opcodes.ILOAD, 2);
+            constructor.visitVarInsn(Opcodes.ALOAD, 3);
+            constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, SUPER_NAME, "<init>",
+                CONSTRUCTOR.toMethodDescriptorString(), false);
+            constructor.visitInsn(Opcodes.RETURN);
+            constructor.visitMaxs(0, 0);
+            constructor.visitEnd();
+
+            method = writer.visitMethod(Opcodes.ACC_PUBLIC, "match", "(L" + CONTEXT + ";)I", null, null);
+            method.visitCode();
+            method.visitVarInsn(Opcodes.ALOAD, CONTEXT_SLOT);
+            method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, CONTEXT, "getRequest", "()L" + REQUEST + ";", false);
+            method.visitVarInsn(Opcodes.ASTORE, REQUEST_SLOT);
+            Label noMatch = new Label();
+            jumpIfFalse(tree, noMatch);
+            method.visitInsn(Opcodes.ICONST_0);
+            method.visitInsn(Opcodes.IRETURN);
+            method.visitLabel(noMatch);
+            method.visitInsn(Opcodes.ICONST_M1);
+            method.visitInsn(Opcodes.IRETURN);
+            method.visitMaxs(0, 0);
+            method.visitEnd();
+
+            for (int i = 0; i < constants.size(); i++) {
+                writer.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "C" + i,
+                    constantTypes.get(i), null, null).visitEnd();
+            }
+            if (!constants.isEmpty()) {
+                staticInitializer(writer);
+            }
+            writer.visitEnd();
+            return writer.toByteArray();
+        }
+
+        // Reads the class data handed to defineHiddenClassWithClassData into the static final fields.
+        private void staticInitializer(ClassWriter writer) {
+            MethodVisitor init = writer.visitMethod(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+            init.visitCode();
+            init.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/invoke/MethodHandles", "lookup",
+                "()Ljava/lang/invoke/MethodHandles$Lookup;", false);
+            init.visitLdcInsn("_");
+            init.visitLdcInsn(Type.getType(Object[].class));
+            init.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/invoke/MethodHandles", "classData",
+                "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;)Ljava/lang/Object;",
+                false);
+            init.visitTypeInsn(Opcodes.CHECKCAST, "[Ljava/lang/Object;");
+            init.visitVarInsn(Opcodes.ASTORE, 0);
+            for (int i = 0; i < constants.size(); i++) {
+                init.visitVarInsn(Opcodes.ALOAD, 0);
+                init.visitLdcInsn(i);
+                init.visitInsn(Opcodes.AALOAD);
+                init.visitTypeInsn(Opcodes.CHECKCAST, Type.getType(constantTypes.get(i)).getInternalName());
+                init.visitFieldInsn(Opcodes.PUTSTATIC, CLASS_NAME, "C" + i, constantTypes.get(i));
+            }
+            init.visitInsn(Opcodes.RETURN);
+            init.visitMaxs(0, 0);
+            init.visitEnd();
+        }
+
+        private void jumpIfFalse(Expression expression, Label target) {
+            switch (expression) {
+                case Expression.Constant constant -> {
+                    if (!constant.value()) {
+                        method.visitJumpInsn(Opcodes.GOTO, target);
+                    }
+                }
+                case Expression.And and -> {
+                    jumpIfFalse(and.left(), target);
+                    jumpIfFalse(and.right(), target);
+                }
+                case Expression.Or or -> {
+                    Label taken = new Label();
+                    jumpIfTrue(or.left(), taken);
+                    jumpIfFalse(or.right(), target);
+                    method.visitLabel(taken);
+                }
+                case Expression.Not not -> jumpIfTrue(not.operand(), target);
+                case Expression.NumberComparison comparison -> {
+                    compare(comparison);
+                    method.visitJumpInsn(jumpOpcode(comparison.operator(), false), target);
+                }
+                default -> {
+                    test(expression);
+                    method.visitJumpInsn(Opcodes.IFEQ, target);
+                }
+            }
+        }
+
+        private void jumpIfTrue(Expression expression, Label target) {
+            switch (expression) {
+                case Expression.Constant constant -> {
+                    if (constant.value()) {
+                        method.visitJumpInsn(Opcodes.GOTO, target);
+                    }
+                }
+                case Expression.And and -> {
+                    Label notTaken = new Label();
+                    jumpIfFalse(and.left(), notTaken);
+                    jumpIfTrue(and.right(), target);
+                    method.visitLabel(notTaken);
+                }
+                case Expression.Or or -> {
+                    jumpIfTrue(or.left(), target);
+                    jumpIfTrue(or.right(), target);
+                }
+                case Expression.Not not -> jumpIfFalse(not.operand(), target);
+                case Expression.NumberComparison comparison -> {
+                    compare(comparison);
+                    method.visitJumpInsn(jumpOpcode(comparison.operator(), true), target);
+                }
+                default -> {
+                    test(expression);
+                    method.visitJumpInsn(Opcodes.IFNE, target);
+                }
+            }
+        }
+
+        // Leaves the field compared with the constant on the stack, as LCMP does: -1, 0 or 1.
+        private void compare(Expression.NumberComparison comparison) {
+            method.visitVarInsn(Opcodes.ALOAD, CONTEXT_SLOT);
+            if (comparison.field() == Expression.Field.AMOUNT) {
+                method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, CONTEXT, comparison.field().getGetter(), "()J", false);
+            } else {
+                method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, CONTEXT, comparison.field().getGetter(), "()I", false);
+                method.visitInsn(Opcodes.I2L);
+            }
+            method.visitLdcInsn(comparison.value());
+            method.visitInsn(Opcodes.LCMP);
+        }
+
+        // Leaves 1 on the stack when a boolean field or membership test holds, 0 otherwise.
+        private void test(Expression expression) {
+            switch (expression) {
+                case Expression.BooleanField field -> {
+                    method.visitFieldInsn(Opcodes.GETSTATIC, "java/lang/Boolean", "TRUE", "Ljava/lang/Boolean;");
+                    method.visitVarInsn(Opcodes.ALOAD, REQUEST_SLOT);
+                    method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, REQUEST, field.field().getGetter(),
+                        "()Ljava/lang/Boolean;", false);
+                    method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/Boolean", "equals",
+                        "(Ljava/lang/Object;)Z", false);
+                }
+                case Expression.Membership membership -> {
+                    contains(membership);
+                    if (membership.negated()) {
+                        method.visitInsn(Opcodes.ICONST_1);
+                        method.visitInsn(Opcodes.IXOR);
+                    }
+                }
+                default -> throw new IllegalStateException("Unexpected expression " + expression);
+            }
+        }
+
+        private void contains(Expression.Membership membership) {
+            if (membership.values().size() == 1) {
+                method.visitLdcInsn(membership.values().iterator().next());
+                loadText(membership.field());
+                method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/String", "equals", "(Ljava/lang/Object;)Z",
+                    false);
+            } else if (membership.field() == Expression.Field.COUNTRY) {
+                constant(CountrySet.of(membership.values()), CountrySet.class);
+                loadText(membership.field());
+                method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(CountrySet.class), "contains",
+                    "(Ljava/lang/String;)Z", false);
+            } else {
+                constant(new HashSet<>(membership.values()), HashSet.class);
+                loadText(membership.field());
+                method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/util/HashSet", "contains", "(Ljava/lang/Object;)Z",
+                    false);
+            }
+        }
+
+        private void loadText(Expression.Field field) {
+            method.visitVarInsn(Opcodes.ALOAD, REQUEST_SLOT);
+            method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, REQUEST, field.getGetter(), "()Ljava/lang/String;", false);
+        }
+
+        private void constant(Object value, Class<?> type) {
+            method.visitFieldInsn(Opcodes.GETSTATIC, CLASS_NAME, "C" + constants.size(), Type.getDescriptor(type));
+            constants.add(value);
+            constantTypes.add(Type.getDescriptor(type));
+        }
+
+        private static int jumpOpcode(Expression.Operator operator, boolean whenTrue) {
+            Expression.Operator jumpOn = whenTrue ? operator : negate(operator);
+            return switch (jumpOn) {
+                case EQ -> Opcodes.IFEQ;
+                case NE -> Opcodes.IFNE;
+                case LT -> Opcodes.IFLT;
+                case LE -> Opcodes.IFLE;
+                case GT -> Opcodes.IFGT;
+                case GE -> Opcodes.IFGE;
+            };
+        }
+
+        private static Expression.Operator negate(Expression.Operator operator) {
+            return switch (operator) {
+                case EQ -> Expression.Operator.NE;
+                case NE -> Expression.Operator.EQ;
+                case LT -> Expression.Operator.GE;
+                case LE -> Expression.Operator.GT;
+                case GT -> Expression.Operator.LE;
+                case GE -> Expression.Operator.LT;
+            };
+        }
+    }
+}
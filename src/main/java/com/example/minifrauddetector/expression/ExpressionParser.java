@@ -0,0 +1,292 @@
+package com.example.minifrauddetector.expression;
+
+import com.example.minifrauddetector.rules.CountrySet;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parses the custom rule language:
+ *
+ * <pre>
+ * expression := and ('||' and)*
+ * and        := unary ('&amp;&amp;' unary)*
+ * unary      := '!' unary | '(' expression ')' | 'true' | 'false' | condition
+ * condition  := numberField ('==' | '!=' | '&lt;' | '&lt;=' | '&gt;' | '&gt;=') number
+ *             | textField ('==' | '!=') value
+ *             | textField ['not'] 'in' '[' value (',' value)* ']'
+ *             | booleanField [('==' | '!=') ('true' | 'false')]
+ * value      := word | number | 'quoted text' | "quoted text"
+ * </pre>
+ *
+ * Field types are checked while parsing, so a rule that parses can be evaluated without further checks. Errors
+ * give the 1-based column of the offending token.
+ */
+public final class ExpressionParser {
+
+    private final String source;
+    private final List<Token> tokens;
+    private int next;
+
+    private ExpressionParser(String source) {
+        this.source = source;
+        this.tokens = tokenize(source);
+    }
+
+    /**
+     * @throws IllegalArgumentException naming the column and what was expected there
+     */
+    public static Expression parse(String source) {
+        if (source == null || source.isBlank()) {
+            throw new IllegalArgumentException("expression is empty");
+        }
+        ExpressionParser parser = new ExpressionParser(source);
+        Expression expression = parser.or();
+        Token end = parser.peek();
+        if (end.kind != Kind.END) {
+            throw parser.error(end, "unexpected " + end.describe() + "; expected '&&', '||' or the end");
+        }
+        return expression;
+    }
+
+    private Expression or() {
+        Expression left = and();
+        while (peek().kind == Kind.OR) {
+            next++;
+            left = new Expression.Or(left, and());
+        }
+        return left;
+    }
+
+    private Expression and() {
+        Expression left = unary();
+        while (peek().kind == Kind.AND) {
+            next++;
+            left = new Expression.And(left, unary());
+        }
+        return left;
+    }
+
+    private Expression unary() {
+        Token token = take();
+        switch (token.kind) {
+            case NOT:
+                return new Expression.Not(unary());
+            case LEFT_PAREN:
+                Expression inner = or();
+                expect(Kind.RIGHT_PAREN, "')'");
+                return inner;
+            case WORD:
+                if (token.text.equals("true") || token.text.equals("false")) {
+                    return new Expression.Constant(Boolean.parseBoolean(token.text));
+                }
+                Expression.Field field = Expression.Field.byKey(token.text);
+                if (field == null) {
+                    throw error(token, "unknown field '" + token.text + "'; fields are " + Expression.Field.keys());
+                }
+                return condition(field);
+            default:
+                throw error(token, "unexpected " + token.describe() + "; expected a field, '!', '(', true or false");
+        }
+    }
+
+    private Expression condition(Expression.Field field) {
+        return switch (field.getType()) {
+            case BOOLEAN -> booleanCondition(field);
+            case NUMBER -> numberCondition(field);
+            case STRING -> textCondition(field);
+        };
+    }
+
+    private Expression booleanCondition(Expression.Field field) {
+        Expression test = new Expression.BooleanField(field);
+        if (peek().kind != Kind.OPERATOR) {
+            return test;
+        }
+        Token operator = take();
+        if (!operator.text.equals("==") && !operator.text.equals("!=")) {
+            throw error(operator, field.getKey() + " can only be compared with '==' or '!='");
+        }
+        Token value = take();
+        if (value.kind != Kind.WORD || !value.text.equals("true") && !value.text.equals("false")) {
+            throw error(value, "expected true or false but found " + value.describe());
+        }
+        boolean expected = Boolean.parseBoolean(value.text) == operator.text.equals("==");
+        return expected ? test : new Expression.Not(test);
+    }
+
+    private Expression numberCondition(Expression.Field field) {
+        Token operatorToken = take();
+        Expression.Operator operator = operatorToken.kind == Kind.OPERATOR
+            ? Expression.Operator.bySymbol(operatorToken.text)
+            : null;
+        if (operator == null) {
+            throw error(operatorToken, "expected a comparison ('==', '!=', '<', '<=', '>', '>=') after "
+                + field.getKey() + " but found " + operatorToken.describe());
+        }
+        Token value = take();
+        if (value.kind != Kind.NUMBER) {
+            throw error(value, "expected a number but found " + value.describe());
+        }
+        BigDecimal number = new BigDecimal(value.text);
+        if (field == Expression.Field.AMOUNT) {
+            if (number.stripTrailingZeros().scale() > 2) {
+                throw error(value, "amount " + value.text + " has more than two decimals");
+            }
+            if (number.compareTo(BigDecimal.valueOf(Long.MAX_VALUE / 100)) > 0) {
+                throw error(value, "amount " + value.text + " is too large");
+            }
+            return new Expression.NumberComparison(field, operator, number.movePointRight(2).longValueExact());
+        }
+        if (number.stripTrailingZeros().scale() > 0 || number.compareTo(BigDecimal.valueOf(23)) > 0) {
+            throw error(value, "hour must be a whole number from 0 to 23, got " + value.text);
+        }
+        return new Expression.NumberComparison(field, operator, number.longValueExact());
+    }
+
+    private Expression textCondition(Expression.Field field) {
+        Token token = take();
+        if (token.kind == Kind.OPERATOR) {
+            if (!token.text.equals("==") && !token.text.equals("!=")) {
+                throw error(token, field.getKey() + " can only be compared with '==', '!=', 'in' or 'not in'");
+            }
+            return new Expression.Membership(field, token.text.equals("!="), Set.of(value(field)));
+        }
+        boolean negated = token.kind == Kind.WORD && token.text.equals("not");
+        if (negated) {
+            token = take();
+        }
+        if (token.kind != Kind.WORD || !token.text.equals("in")) {
+            throw error(token, "expected '==', '!=', 'in' or 'not in' after " + field.getKey() + " but found "
+                + token.describe());
+        }
+        expect(Kind.LEFT_BRACKET, "'['");
+        Set<String> values = new LinkedHashSet<>();
+        values.add(value(field));
+        while (peek().kind == Kind.COMMA) {
+            next++;
+            values.add(value(field));
+        }
+        expect(Kind.RIGHT_BRACKET, "',' or ']'");
+        return new Expression.Membership(field, negated, Set.copyOf(values));
+    }
+
+    private String value(Expression.Field field) {
+        Token token = take();
+        if (token.kind != Kind.WORD && token.kind != Kind.NUMBER && token.kind != Kind.QUOTED) {
+            throw error(token, "expected a value for " + field.getKey() + " but found " + token.describe());
+        }
+        if (field == Expression.Field.COUNTRY && CountrySet.index(token.text) < 0) {
+            throw error(token, "invalid country code '" + token.text + "', expected two uppercase letters");
+        }
+        return token.text;
+    }
+
+    private void expect(Kind kind, String expected) {
+        Token token = take();
+        if (token.kind != kind) {
+            throw error(token, "expected " + expected + " but found " + token.describe());
+        }
+    }
+
+    private Token peek() {
+        return tokens.get(next);
+    }
+
+    private Token take() {
+        Token token = tokens.get(next);
+        if (token.kind != Kind.END) {
+            next++;
+        }
+        return token;
+    }
+
+    private IllegalArgumentException error(Token token, String message) {
+        return error(source, token.column, message);
+    }
+
+    private static IllegalArgumentException error(String source, int column, String message) {
+        return new IllegalArgumentException("column " + column + " of \"" + source + "\": " + message);
+    }
+
+    private static List<Token> tokenize(String source) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            int start = i;
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (Character.isLetter(c) || c == '_') {
+                while (i < source.length() && isWordPart(source.charAt(i))) {
+                    i++;
+                }
+                tokens.add(new Token(Kind.WORD, source.substring(start, i), start + 1));
+            } else if (Character.isDigit(c)) {
+                while (i < source.length() && (Character.isDigit(source.charAt(i)) || source.charAt(i) == '.')) {
+                    i++;
+                }
+                String number = source.substring(start, i);
+                if (!number.matches("\\d+(\\.\\d+)?")) {
+                    throw error(source, start + 1, "malformed number '" + number + "'");
+                }
+                tokens.add(new Token(Kind.NUMBER, number, start + 1));
+            } else if (c == '\'' || c == '"') {
+                int end = source.indexOf(c, i + 1);
+                if (end < 0) {
+                    throw error(source, start + 1, "unterminated quoted value");
+                }
+                tokens.add(new Token(Kind.QUOTED, source.substring(i + 1, end), start + 1));
+                i = end + 1;
+            } else {
+                String two = source.substring(i, Math.min(i + 2, source.length()));
+                Kind kind;
+                String text;
+                if (two.equals("&&") || two.equals("||")) {
+                    kind = two.equals("&&") ? Kind.AND : Kind.OR;
+                    text = two;
+                } else if (two.equals("==") || two.equals("!=") || two.equals("<=") || two.equals(">=")) {
+                    kind = Kind.OPERATOR;
+                    text = two;
+                } else if (c == '<' || c == '>') {
+                    kind = Kind.OPERATOR;
+                    text = String.valueOf(c);
+                } else {
+                    kind = switch (c) {
+                        case '!' -> Kind.NOT;
+                        case '(' -> Kind.LEFT_PAREN;
+                        case ')' -> Kind.RIGHT_PAREN;
+                        case '[' -> Kind.LEFT_BRACKET;
+                        case ']' -> Kind.RIGHT_BRACKET;
+                        case ',' -> Kind.COMMA;
+                        case '&', '|' -> throw error(source, start + 1, "expected '" + c + c + "'");
+                        case '=' -> throw error(source, start + 1, "expected '=='");
+                        default -> throw error(source, start + 1, "unexpected character '" + c + "'");
+                    };
+                    text = String.valueOf(c);
+                }
+                tokens.add(new Token(kind, text, start + 1));
+                i += text.length();
+            }
+        }
+        tokens.add(new Token(Kind.END, "", source.length() + 1));
+        return tokens;
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private enum Kind {
+        WORD, NUMBER, QUOTED, OPERATOR, AND, OR, NOT, LEFT_PAREN, RIGHT_PAREN, LEFT_BRACKET, RIGHT_BRACKET, COMMA, END
+    }
+
+    private record Token(Kind kind, String text, int column) {
+
+        String describe() {
+            return kind == Kind.END ? "the end of the expression" : "'" + text + "'";
+        }
+    }
+}
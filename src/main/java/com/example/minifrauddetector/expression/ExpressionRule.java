@@ -0,0 +1,61 @@
+package com.example.minifrauddetector.expression;
+
+import com.example.minifrauddetector.rules.Rule;
+import com.example.minifrauddetector.rules.ScoringContext;
+
+/**
+ * Rule defined under {@code fraud.custom-rules}, with a single outcome named after the rule that fires when its
+ * expression holds. {@link ExpressionCompiler#compile} generates a subclass per rule whose {@link #match} is the
+ * expression in bytecode; {@link ExpressionCompiler#interpret} returns one that walks the parsed tree.
+ */
+public abstract class ExpressionRule implements Rule {
+
+    private final String name;
+    private final int points;
+    private final String expression;
+
+    protected ExpressionRule(String name, int points, String expression) {
+        this.name = name;
+        this.points = points;
+        this.expression = expression;
+    }
+
+    @Override
+    public String getId() {
+        return name;
+    }
+
+    @Override
+    public String[] getOutcomes() {
+        return new String[] {name};
+    }
+
+    @Override
+    public int[] getPoints() {
+        return new int[] {points};
+    }
+
+    @Override
+    public String describe(ScoringContext context, int outcome) {
+        return "Matches custom rule " + name + ": " + expression;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    static final class Interpreted extends ExpressionRule {
+
+        private final Expression tree;
+
+        Interpreted(String name, int points, String expression, Expression tree) {
+            super(name, points, expression);
+            this.tree = tree;
+        }
+
+        @Override
+        public int match(ScoringContext context) {
+            return tree.evaluate(context) ? 0 : NO_MATCH;
+        }
+    }
+}
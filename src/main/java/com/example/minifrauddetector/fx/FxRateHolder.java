@@ -0,0 +1,70 @@
+package com.example.minifrauddetector.fx;
+
+import com.example.minifrauddetector.config.ConfigFileWatcher;
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Owns the active {@link FxRateTable}. Without {@code fraud.fx.rates-file} amounts are not converted: every
+ * currency is accepted and scored as if it were the base currency, as before FX support. A reload reads the file into a new table and publishes it with a single volatile write; a file
+ * that fails to load keeps the previous table active.
+ */
+@Component
+public class FxRateHolder {
+
+    private static final Logger log = LoggerFactory.getLogger(FxRateHolder.class);
+
+    private final String baseCurrency;
+    private final Path ratesFile;
+    private final boolean watchFile;
+    private volatile FxRateTable current;
+    private ConfigFileWatcher watcher;
+
+    public FxRateHolder(FraudRulesProperties fraudRulesProperties) {
+        FraudRulesProperties.Fx fx = fraudRulesProperties.getFx();
+        this.baseCurrency = fx.getBaseCurrency();
+        this.ratesFile = fx.getRatesFile();
+        this.watchFile = fx.isWatchFile();
+        this.current = load(1);
+    }
+
+    @PostConstruct
+    void startWatching() throws IOException {
+        if (ratesFile != null && watchFile) {
+            watcher = new ConfigFileWatcher(ratesFile, this::reload);
+        }
+    }
+
+    @PreDestroy
+    void stopWatching() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    public FxRateTable current() {
+        return current;
+    }
+
+    public synchronized FxRateTable reload() {
+        FxRateTable table = load(current.getVersion() + 1);
+        current = table;
+        return table;
+    }
+
+    private FxRateTable load(long version) {
+        if (ratesFile == null) {
+            return FxRateTable.passThrough(version, baseCurrency);
+        }
+        FxRateTable table = FxRateTable.load(version, baseCurrency, ratesFile);
+        log.info("Loaded FX rate table version {}: {} currencies into {}",
+            version, table.getCurrencyCount(), table.getBaseCurrency());
+        return table;
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.minifrauddetector.fx;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Currency;
+
+/**
+ * Immutable exchange rates into one base currency, indexed by ISO 4217 code. Each supported currency has a
+ * fixed-point factor (32 fractional bits) that turns its minor units into hundredths of the base currency, so
+ * converting an amount is one multiplication.
+ *
+ * <p>Rate files hold one {@code <code> <rate>} pair per line, where the rate is the value of one unit of the
+ * currency in the base currency ({@code EUR 1.08} for a USD base). Blank lines and {@code #} comments are
+ * ignored. The base currency is always supported at rate 1.
+ *
+ * <p>A {@linkplain #passThrough pass-through} table, used when no rates are configured, accepts every currency and
+ * takes each amount as it is, truncated to hundredths.
+ */
+public final class FxRateTable {
+
+    public static final long UNSUPPORTED = -1;
+    public static final long MAX_AMOUNT_CENTS = 100_000_000_000_000_000L;
+
+    private static final int CODE_SLOTS = 26 * 26 * 26;
+    private static final int FRACTION_BITS = 32;
+    private static final long HALF = 1L << (FRACTION_BITS - 1);
+    private static final int MAX_AMOUNT_DIGITS = 17;
+    private static final BigDecimal ONE_FIXED = BigDecimal.valueOf(1L << FRACTION_BITS);
+
+    private final long version;
+    private final Instant loadedAt;
+    private final String baseCurrency;
+    private final boolean passThrough;
+    private final long[] factors = new long[CODE_SLOTS];
+    private final byte[] fractionDigits = new byte[CODE_SLOTS];
+    private int currencyCount;
+
+    private FxRateTable(long version, String baseCurrency, boolean passThrough) {
+        this.version = version;
+        this.loadedAt = Instant.now();
+        this.baseCurrency = baseCurrency;
+        this.passThrough = passThrough;
+        put(baseCurrency, BigDecimal.ONE);
+    }
+
+    /**
+     * Table that supports only {@code baseCurrency}.
+     */
+    public static FxRateTable baseOnly(long version, String baseCurrency) {
+        return new FxRateTable(version, checkCode(baseCurrency), false);
+    }
+
+    /**
+     * Table that converts nothing: every currency is accepted and its amount is used as if it were in
+     * {@code baseCurrency}.
+     */
+    public static FxRateTable passThrough(long version, String baseCurrency) {
+        return new FxRateTable(version, checkCode(baseCurrency), true);
+    }
+
+    static FxRateTable load(long version, String baseCurrency, Path file) {
+        FxRateTable table = baseOnly(version, baseCurrency);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                int comment = line.indexOf('#');
+                String entry = (comment < 0 ? line : line.substring(0, comment)).strip();
+                if (!entry.isEmpty()) {
+                    table.add(entry, file + ":" + lineNumber + ": ");
+                }
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Cannot read FX rates " + file + ": " + exception.getMessage(), exception);
+        }
+        return table;
+    }
+
+    /**
+     * Converts {@code amount}, given in {@code currency}, into hundredths of the base currency. Digits below
+     * the currency's minor unit are truncated, the converted value is rounded to the nearest hundredth, and
+     * amounts beyond {@link #MAX_AMOUNT_CENTS} saturate. Returns {@link #UNSUPPORTED} when there is no rate for
+     * the currency. A pass-through table truncates every amount to hundredths, whatever its currency.
+     */
+    public long toBaseCents(BigDecimal amount, String currency) {
+        if (passThrough) {
+            return amount.precision() - amount.scale() > MAX_AMOUNT_DIGITS - 2
+                ? MAX_AMOUNT_CENTS
+                : amount.movePointRight(2).longValue();
+        }
+        int slot = slot(currency);
+        long factor = slot < 0 ? 0 : factors[slot];
+        if (factor == 0) {
+            return UNSUPPORTED;
+        }
+        int digits = fractionDigits[slot];
+        if (amount.precision() - amount.scale() > MAX_AMOUNT_DIGITS - digits) {
+            return MAX_AMOUNT_CENTS;
+        }
+        long minorUnits = amount.movePointRight(digits).longValue();
+        long low = minorUnits * factor;
+        long high = Math.multiplyHigh(minorUnits, factor);
+        long rounded = low + HALF;
+        if (Long.compareUnsigned(rounded, low) < 0) {
+            high++;
+        }
+        if ((high >>> (FRACTION_BITS - 1)) != 0) {
+            return MAX_AMOUNT_CENTS;
+        }
+        long cents = (high << (Long.SIZE - FRACTION_BITS)) | (rounded >>> FRACTION_BITS);
+        return Math.min(cents, MAX_AMOUNT_CENTS);
+    }
+
+    public boolean supports(String currency) {
+        if (passThrough) {
+            return true;
+        }
+        int slot = slot(currency);
+        return slot >= 0 && factors[slot] != 0;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    public String getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    public int getCurrencyCount() {
+        return currencyCount;
+    }
+
+    private void add(String entry, String location) {
+        String[] fields = entry.split("\\s+");
+        if (fields.length != 2) {
+            throw new IllegalArgumentException(location + "expected '<currency> <rate>' but found '" + entry + "'");
+        }
+        String code = fields[0];
+        BigDecimal rate;
+        try {
+            checkCode(code);
+            rate = new BigDecimal(fields[1]);
+        } catch (IllegalArgumentException exception) {
+            throw new IllegalArgumentException(location + exception.getMessage(), exception);
+        }
+        if (rate.signum() <= 0) {
+            throw new IllegalArgumentException(location + "rate for " + code + " must be positive");
+        }
+        if (code.equals(baseCurrency)) {
+            if (rate.compareTo(BigDecimal.ONE) != 0) {
+                throw new IllegalArgumentException(location + "base currency " + code + " must have rate 1");
+            }
+            return;
+        }
+        if (factors[slot(code)] != 0) {
+            throw new IllegalArgumentException(location + code + " is listed twice");
+        }
+        put(code, rate);
+    }
+
+    private void put(String code, BigDecimal rate) {
+        int digits = Currency.getInstance(code).getDefaultFractionDigits();
+        BigInteger factor = rate.movePointRight(2 - digits).multiply(ONE_FIXED)
+            .setScale(0, RoundingMode.HALF_UP).toBigInteger();
+        if (factor.signum() == 0 || factor.bitLength() > Long.SIZE - 2) {
+            throw new IllegalArgumentException("rate " + rate.toPlainString() + " for " + code + " is out of range");
+        }
+        int slot = slot(code);
+        factors[slot] = factor.longValue();
+        fractionDigits[slot] = (byte) digits;
+        currencyCount++;
+    }
+
+    private static String checkCode(String code) {
+        if (slot(code) < 0) {
+            throw new IllegalArgumentException("'" + code + "' is not an ISO 4217 currency code");
+        }
+        Currency currency;
+        try {
+            currency = Currency.getInstance(code);
+        } catch (IllegalArgumentException exception) {
+            throw new IllegalArgumentException("'" + code + "' is not an ISO 4217 currency code", exception);
+        }
+        if (currency.getDefaultFractionDigits() < 0) {
+            throw new IllegalArgumentException(code + " has no minor unit and cannot be used for amounts");
+        }
+        return code;
+    }
+
+    private static int slot(String code) {
+        if (code == null || code.length() != 3) {
+            return -1;
+        }
+        int slot = 0;
+        for (int i = 0; i < 3; i++) {
+            int letter = code.charAt(i) - 'A';
+            if (letter < 0 || letter >= 26) {
+                return -1;
+            }
+            slot = slot * 26 + letter;
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.minifrauddetector.idempotency;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.dto.FraudCheckResponse;
+import com.example.minifrauddetector.exception.IdempotencyConflictException;
+import com.example.minifrauddetector.exception.ScoringTimeoutException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers recent results by {@code transactionId}, so that a retried request gets the original response
+ * instead of being scored again.
+ *
+ * <p>The first request for an id owns the entry and scores it. Duplicates that arrive while it is being scored
+ * wait for the same result. A later request with the same id and a different payload is a conflict. Entries
+ * expire {@code fraud.idempotency.ttl} after they were created, and the oldest ones are dropped once there are
+ * more than {@code fraud.idempotency.max-entries}. A failed evaluation is not cached, and neither is a degraded one:
+ * duplicates waiting for it share it, but a later retry is scored again, fully once the overload has passed.
+ */
+@Component
+public class IdempotencyCache {
+
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final long waitTimeoutNanos;
+    private final LongSupplier nanoClock;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+
+    @Autowired
+    public IdempotencyCache(FraudRulesProperties fraudRulesProperties, MeterRegistry meterRegistry) {
+        this(fraudRulesProperties, meterRegistry, System::nanoTime);
+    }
+
+    IdempotencyCache(FraudRulesProperties fraudRulesProperties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        FraudRulesProperties.Idempotency idempotency = fraudRulesProperties.getIdempotency();
+        if (idempotency.getMaxEntries() < 1) {
+            throw new IllegalArgumentException("fraud.idempotency.max-entries must be positive");
+        }
+        if (idempotency.getTtl().isNegative() || idempotency.getTtl().isZero()) {
+            throw new IllegalArgumentException("fraud.idempotency.ttl must be positive");
+        }
+        this.enabled = idempotency.isEnabled();
+        this.ttlNanos = idempotency.getTtl().toNanos();
+        this.maxEntries = idempotency.getMaxEntries();
+        this.waitTimeoutNanos = fraudRulesProperties.getExecution().getDeadline().toNanos();
+        this.nanoClock = nanoClock;
+        if (!enabled) {
+            return;
+        }
+
+        register(meterRegistry, "hit", hits);
+        register(meterRegistry, "miss", misses);
+        register(meterRegistry, "coalesced", coalesced);
+        register(meterRegistry, "conflict", conflicts);
+        Gauge.builder("fraud.idempotency.entries", entries, ConcurrentMap::size)
+            .description("Results currently held by the idempotency cache")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Cache that scores every request.
+     */
+    public static IdempotencyCache disabled() {
+        FraudRulesProperties properties = new FraudRulesProperties();
+        properties.getIdempotency().setEnabled(false);
+        return new IdempotencyCache(properties, null);
+    }
+
+    /**
+     * Returns the cached response for {@code request}, or scores it with {@code scorer} and caches the result.
+     */
+    public FraudCheckResponse get(FraudCheckRequest request, Function<FraudCheckRequest, FraudCheckResponse> scorer) {
+        String transactionId = request.getTransactionId();
+        if (!enabled || transactionId == null) {
+            return scorer.apply(request);
+        }
+
+        long now = nanoClock.getAsLong();
+        Entry created = new Entry(transactionId, request, now + ttlNanos);
+        Entry entry = find(created, now);
+        return entry == created ? score(created, scorer) : await(entry);
+    }
+
+    /**
+     * Like {@link #get} for a scorer that answers later. Duplicates of a request still being scored get a future
+     * that completes with the same result.
+     */
+    public CompletableFuture<FraudCheckResponse> getAsync(FraudCheckRequest request,
+            Function<FraudCheckRequest, CompletableFuture<FraudCheckResponse>> scorer) {
+        String transactionId = request.getTransactionId();
+        if (!enabled || transactionId == null) {
+            return scorer.apply(request);
+        }
+
+        long now = nanoClock.getAsLong();
+        Entry created = new Entry(transactionId, request, now + ttlNanos);
+        Entry entry = find(created, now);
+        if (entry != created) {
+            return entry.result.copy();
+        }
+        CompletableFuture<FraudCheckResponse> scored;
+        try {
+            scored = scorer.apply(request);
+        } catch (RuntimeException | Error exception) {
+            fail(created, exception);
+            throw exception;
+        }
+        return scored.whenComplete((response, exception) -> {
+            if (exception == null) {
+                complete(created, response);
+            } else {
+                fail(created, exception);
+            }
+        });
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the live entry for the transaction of {@code created}, inserting {@code created} when there is
+     * none; the caller owns the entry and must score it when it gets {@code created} back.
+     *
+     * @throws IdempotencyConflictException when the live entry holds a different payload
+     */
+    private Entry find(Entry created, long now) {
+        Entry entry = entries.get(created.transactionId);
+        if (entry != null && entry.isExpired(now)) {
+            entries.remove(created.transactionId, entry);
+            entry = null;
+        }
+
+        if (entry == null) {
+            entry = entries.putIfAbsent(created.transactionId, created);
+            if (entry == null) {
+                misses.increment();
+                insertionOrder.add(created);
+                evict(now);
+                return created;
+            }
+        }
+
+        if (!entry.request.equals(created.request)) {
+            conflicts.increment();
+            throw new IdempotencyConflictException(
+                "Transaction " + created.transactionId + " was already submitted with a different payload");
+        }
+        if (entry.result.isDone()) {
+            hits.increment();
+        } else {
+            coalesced.increment();
+        }
+        return entry;
+    }
+
+    private FraudCheckResponse score(Entry entry, Function<FraudCheckRequest, FraudCheckResponse> scorer) {
+        try {
+            FraudCheckResponse response = scorer.apply(entry.request);
+            complete(entry, response);
+            return response;
+        } catch (RuntimeException | Error exception) {
+            fail(entry, exception);
+            throw exception;
+        }
+    }
+
+    private void complete(Entry entry, FraudCheckResponse response) {
+        if (response.isDegraded()) {
+            entries.remove(entry.transactionId, entry);
+        }
+        entry.result.complete(response);
+    }
+
+    private void fail(Entry entry, Throwable exception) {
+        entries.remove(entry.transactionId, entry);
+        entry.result.completeExceptionally(exception);
+    }
+
+    private FraudCheckResponse await(Entry entry) {
+        try {
+            return entry.result.get(waitTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException exception) {
+            throw new ScoringTimeoutException("Transaction " + entry.transactionId + " is still being scored");
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new ScoringTimeoutException("Scoring was interrupted");
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Drops entries from the oldest end while the cache is over capacity or the oldest entry has expired.
+     * Entries share one TTL, so insertion order is also expiry order.
+     */
+    private void evict(long now) {
+        Entry oldest;
+        while ((oldest = insertionOrder.peek()) != null) {
+            if (entries.size() <= maxEntries && !oldest.isExpired(now)) {
+                return;
+            }
+            if (insertionOrder.remove(oldest)) {
+                entries.remove(oldest.transactionId, oldest);
+            }
+        }
+    }
+
+    private static void register(MeterRegistry meterRegistry, String outcome, LongAdder count) {
+        FunctionCounter.builder("fraud.idempotency.lookups", count, LongAdder::sum)
+            .description("Idempotency cache lookups by outcome")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    private static final class Entry {
+
+        private final String transactionId;
+        private final FraudCheckRequest request;
+        private final long expiresAtNanos;
+        private final CompletableFuture<FraudCheckResponse> result = new CompletableFuture<>();
+
+        private Entry(String transactionId, FraudCheckRequest request, long expiresAtNanos) {
+            this.transactionId = transactionId;
+            this.request = request;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAtNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.minifrauddetector.ipreputation;
+
+/**
+ * Allocation-free parsing of textual IPv4 and IPv6 addresses. {@link java.net.InetAddress} is avoided on the
+ * request path because it allocates and may fall back to a DNS lookup for anything that is not a literal.
+ */
+final class IpAddresses {
+
+    static final long INVALID = -1;
+
+    private static final int IPV6_GROUPS = 8;
+
+    private IpAddresses() {
+    }
+
+    /**
+     * Receives a parsed IPv6 address as two longs, most significant bits first.
+     */
+    @FunctionalInterface
+    interface Ipv6Function {
+
+        int apply(long high, long low);
+    }
+
+    /**
+     * Parses dotted-quad {@code text[from, to)} and returns the address as an unsigned 32-bit value, or
+     * {@link #INVALID}.
+     */
+    static long parseIpv4(CharSequence text, int from, int to) {
+        long address = 0;
+        int octets = 0;
+        int i = from;
+        while (true) {
+            int value = 0;
+            int digits = 0;
+            while (i < to && digits <= 3) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                value = value * 10 + (c - '0');
+                digits++;
+                i++;
+            }
+            if (digits == 0 || digits > 3 || value > 255) {
+                return INVALID;
+            }
+            address = (address << 8) | value;
+            octets++;
+            if (i == to) {
+                return octets == 4 ? address : INVALID;
+            }
+            if (octets == 4 || text.charAt(i) != '.') {
+                return INVALID;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Parses {@code text[from, to)} as an IPv6 address (with optional {@code ::} and trailing dotted quad) and
+     * passes it to {@code function}. Returns the function's result, or {@code invalid} if the text is malformed.
+     * Zone ids are not accepted.
+     */
+    static int parseIpv6(CharSequence text, int from, int to, Ipv6Function function, int invalid) {
+        long headHigh = 0;
+        long headLow = 0;
+        long tailHigh = 0;
+        long tailLow = 0;
+        int headGroups = 0;
+        int tailGroups = 0;
+        boolean compressed = false;
+
+        int i = from;
+        if (to - from >= 2 && text.charAt(from) == ':' && text.charAt(from + 1) == ':') {
+            compressed = true;
+            i += 2;
+        }
+        while (i < to) {
+            int groupStart = i;
+            int value = 0;
+            int digits = 0;
+            while (i < to && digits <= 4) {
+                int digit = hexDigit(text.charAt(i));
+                if (digit < 0) {
+                    break;
+                }
+                value = (value << 4) | digit;
+                digits++;
+                i++;
+            }
+
+            if (i < to && text.charAt(i) == '.') {
+                long ipv4 = parseIpv4(text, groupStart, to);
+                if (ipv4 == INVALID) {
+                    return invalid;
+                }
+                for (int shift = 16; shift >= 0; shift -= 16) {
+                    int group = (int) (ipv4 >>> shift) & 0xFFFF;
+                    if (compressed) {
+                        tailHigh = (tailHigh << 16) | (tailLow >>> 48);
+                        tailLow = (tailLow << 16) | group;
+                        tailGroups++;
+                    } else {
+                        headHigh = (headHigh << 16) | (headLow >>> 48);
+                        headLow = (headLow << 16) | group;
+                        headGroups++;
+                    }
+                }
+                break;
+            }
+            if (digits == 0 || digits > 4) {
+                return invalid;
+            }
+            if (compressed) {
+                tailHigh = (tailHigh << 16) | (tailLow >>> 48);
+                tailLow = (tailLow << 16) | value;
+                tailGroups++;
+            } else {
+                headHigh = (headHigh << 16) | (headLow >>> 48);
+                headLow = (headLow << 16) | value;
+                headGroups++;
+            }
+
+            if (i == to) {
+                break;
+            }
+            if (text.charAt(i) != ':') {
+                return invalid;
+            }
+            i++;
+            if (i < to && text.charAt(i) == ':') {
+                if (compressed) {
+                    return invalid;
+                }
+                compressed = true;
+                i++;
+            } else if (i == to) {
+                return invalid;
+            }
+        }
+
+        int groups = headGroups + tailGroups;
+        if (compressed ? groups >= IPV6_GROUPS : groups != IPV6_GROUPS) {
+            return invalid;
+        }
+
+        // Move the groups before "::" to the top; the zero groups it stands for end up in between.
+        int shift = 16 * (IPV6_GROUPS - headGroups);
+        if (headGroups == 0) {
+            headHigh = 0;
+            headLow = 0;
+        } else if (shift >= Long.SIZE) {
+            headHigh = headLow << (shift - Long.SIZE);
+            headLow = 0;
+        } else if (shift > 0) {
+            headHigh = (headHigh << shift) | (headLow >>> (Long.SIZE - shift));
+            headLow <<= shift;
+        }
+        return function.apply(headHigh | tailHigh, headLow | tailLow);
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.minifrauddetector.ipreputation;
+
+import com.example.minifrauddetector.config.ConfigFileWatcher;
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Owns the active {@link IpReputationTable}. A reload reads every list file into a new table off the
+ * scoring path and publishes it with a single volatile write; requests that already read the previous table
+ * finish with it. A list that fails to load keeps the previous table active.
+ */
+@Component
+@ConditionalOnProperty(prefix = "fraud.ip-reputation", name = "enabled", havingValue = "true")
+public class IpReputationHolder {
+
+    private static final Logger log = LoggerFactory.getLogger(IpReputationHolder.class);
+
+    private final List<FraudRulesProperties.IpList> lists;
+    private final boolean watchFiles;
+    private final List<ConfigFileWatcher> watchers = new ArrayList<>();
+    private volatile IpReputationTable current;
+
+    public IpReputationHolder(FraudRulesProperties fraudRulesProperties) {
+        FraudRulesProperties.IpReputation ipReputation = fraudRulesProperties.getIpReputation();
+        this.lists = List.copyOf(ipReputation.getLists());
+        this.watchFiles = ipReputation.isWatchFiles();
+        checkLists(lists);
+        this.current = load(1);
+    }
+
+    @PostConstruct
+    void startWatching() throws IOException {
+        if (!watchFiles) {
+            return;
+        }
+        Set<Path> files = new LinkedHashSet<>();
+        for (FraudRulesProperties.IpList list : lists) {
+            files.add(list.getFile().toAbsolutePath().normalize());
+        }
+        for (Path file : files) {
+            watchers.add(new ConfigFileWatcher(file, this::reload));
+        }
+    }
+
+    @PreDestroy
+    void stopWatching() throws IOException {
+        for (ConfigFileWatcher watcher : watchers) {
+            watcher.close();
+        }
+    }
+
+    public IpReputationTable current() {
+        return current;
+    }
+
+    public List<FraudRulesProperties.IpList> getLists() {
+        return lists;
+    }
+
+    public synchronized IpReputationTable reload() {
+        IpReputationTable table = load(current.getVersion() + 1);
+        current = table;
+        return table;
+    }
+
+    private IpReputationTable load(long version) {
+        long startNanos = System.nanoTime();
+        IpReputationTable table = IpReputationTable.load(version, lists);
+        log.info("Loaded IP reputation table version {}: {} ranges, {} trie nodes in {} ms",
+            version, table.getPrefixCount(), table.getNodeCount(), (System.nanoTime() - startNanos) / 1_000_000);
+        return table;
+    }
+
+    private static void checkLists(List<FraudRulesProperties.IpList> lists) {
+        if (lists.isEmpty()) {
+            throw new IllegalArgumentException("fraud.ip-reputation.lists must not be empty when IP reputation is enabled");
+        }
+        if (lists.size() > PrefixTrie.MAX_VALUE + 1) {
+            throw new IllegalArgumentException("At most " + (PrefixTrie.MAX_VALUE + 1) + " IP lists are supported");
+        }
+        Set<String> names = new HashSet<>();
+        for (FraudRulesProperties.IpList list : lists) {
+            if (list.getName() == null || list.getName().isBlank() || !names.add(list.getName())) {
+                throw new IllegalArgumentException("IP lists need a unique, non-blank name");
+            }
+            if (list.getFile() == null) {
+                throw new IllegalArgumentException("IP list '" + list.getName() + "' has no file");
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.minifrauddetector.ipreputation;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.rules.Rule;
+import com.example.minifrauddetector.rules.ScoringContext;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fires when the request's {@code ipAddress} falls into one of the configured IP lists, with one outcome per
+ * list. The list contents are read from the holder on every match, so a reloaded table applies to the next
+ * request; list names and points are fixed at startup.
+ */
+@Component
+@ConditionalOnProperty(prefix = "fraud.ip-reputation", name = "enabled", havingValue = "true")
+public class IpReputationRule implements Rule {
+
+    private final IpReputationHolder ipReputationHolder;
+    private final String[] listNames;
+    private final String[] outcomes;
+    private final int[] points;
+
+    public IpReputationRule(IpReputationHolder ipReputationHolder) {
+        List<FraudRulesProperties.IpList> lists = ipReputationHolder.getLists();
+        this.ipReputationHolder = ipReputationHolder;
+        this.listNames = new String[lists.size()];
+        this.outcomes = new String[lists.size()];
+        this.points = new int[lists.size()];
+        for (int i = 0; i < lists.size(); i++) {
+            listNames[i] = lists.get(i).getName();
+            outcomes[i] = outcome(listNames[i]);
+            points[i] = lists.get(i).getPoints();
+        }
+    }
+
+    @Override
+    public String getId() {
+        return "ipReputation";
+    }
+
+    @Override
+    public String[] getOutcomes() {
+        return outcomes.clone();
+    }
+
+    @Override
+    public int[] getPoints() {
+        return points.clone();
+    }
+
+    @Override
+    public int match(ScoringContext context) {
+        return ipReputationHolder.current().lookup(context.getRequest().getIpAddress());
+    }
+
+    @Override
+    public String describe(ScoringContext context, int outcome) {
+        return "IP address " + context.getRequest().getIpAddress() + " is on the " + listNames[outcome] + " list";
+    }
+
+    // "risky-asn" -> "ipRiskyAsn", in line with the camel-case outcome keys of the built-in rules.
+    private static String outcome(String listName) {
+        StringBuilder key = new StringBuilder("ip");
+        boolean upper = true;
+        for (char c : listName.toCharArray()) {
+            if (c == '-' || c == '_' || c == ' ') {
+                upper = true;
+            } else {
+                key.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return key.toString();
+    }
+}
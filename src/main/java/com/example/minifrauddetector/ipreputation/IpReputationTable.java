@@ -0,0 +1,141 @@
+package com.example.minifrauddetector.ipreputation;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Immutable longest-prefix-match index over all configured IP lists: one {@link PrefixTrie} for IPv4 and one
+ * for IPv6. The value of a prefix is the index of the list it came from.
+ *
+ * <p>List files hold one address or CIDR range per line. Blank lines and {@code #} comments are ignored, and
+ * host bits below the prefix length are dropped. When a range appears in several lists, the list configured
+ * first wins; otherwise the most specific range decides.
+ */
+public final class IpReputationTable {
+
+    private static final long IPV4_MAPPED_PREFIX = 0xFFFFL;
+
+    private final long version;
+    private final Instant loadedAt;
+    private final PrefixTrie ipv4;
+    private final PrefixTrie ipv6;
+    private final IpAddresses.Ipv6Function ipv6Lookup;
+
+    IpReputationTable(long version, PrefixTrie ipv4, PrefixTrie ipv6) {
+        this.version = version;
+        this.loadedAt = Instant.now();
+        this.ipv4 = ipv4;
+        this.ipv6 = ipv6;
+        this.ipv6Lookup = this::lookupIpv6;
+    }
+
+    static IpReputationTable load(long version, List<FraudRulesProperties.IpList> lists) {
+        PrefixTrie.Builder ipv4 = PrefixTrie.ipv4();
+        PrefixTrie.Builder ipv6 = PrefixTrie.ipv6();
+        for (int index = 0; index < lists.size(); index++) {
+            Path file = lists.get(index).getFile();
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+                String line;
+                int lineNumber = 0;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    String range = stripComment(line);
+                    if (!range.isEmpty() && !addRange(range, index, ipv4, ipv6)) {
+                        throw new IllegalArgumentException(
+                            file + ":" + lineNumber + ": '" + range + "' is not an IP address or CIDR range");
+                    }
+                }
+            } catch (IOException exception) {
+                throw new UncheckedIOException("Cannot read IP list " + file + ": " + exception.getMessage(), exception);
+            }
+        }
+        return new IpReputationTable(version, ipv4.build(), ipv6.build());
+    }
+
+    /**
+     * Returns the index of the list holding the most specific range that contains {@code address}, or
+     * {@link PrefixTrie#NO_VALUE} when none does or the address is not a valid literal. IPv4-mapped IPv6
+     * addresses are looked up as IPv4.
+     */
+    public int lookup(String address) {
+        if (address == null) {
+            return PrefixTrie.NO_VALUE;
+        }
+        int length = address.length();
+        for (int i = 0; i < length; i++) {
+            if (address.charAt(i) == ':') {
+                return IpAddresses.parseIpv6(address, 0, length, ipv6Lookup, PrefixTrie.NO_VALUE);
+            }
+        }
+        long ipv4Address = IpAddresses.parseIpv4(address, 0, length);
+        return ipv4Address == IpAddresses.INVALID ? PrefixTrie.NO_VALUE : ipv4.lookup(ipv4Address << 32, 0);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    public int getPrefixCount() {
+        return ipv4.getPrefixCount() + ipv6.getPrefixCount();
+    }
+
+    public int getNodeCount() {
+        return ipv4.getNodeCount() + ipv6.getNodeCount();
+    }
+
+    private int lookupIpv6(long high, long low) {
+        if (high == 0 && (low >>> 32) == IPV4_MAPPED_PREFIX) {
+            return ipv4.lookup(low << 32, 0);
+        }
+        return ipv6.lookup(high, low);
+    }
+
+    private static String stripComment(String line) {
+        int comment = line.indexOf('#');
+        return (comment < 0 ? line : line.substring(0, comment)).strip();
+    }
+
+    private static boolean addRange(String range, int value, PrefixTrie.Builder ipv4, PrefixTrie.Builder ipv6) {
+        int slash = range.indexOf('/');
+        int end = slash < 0 ? range.length() : slash;
+        boolean isIpv6 = range.lastIndexOf(':', end) >= 0;
+        int width = isIpv6 ? 128 : 32;
+
+        int length = width;
+        if (slash >= 0) {
+            String digits = range.substring(slash + 1);
+            if (digits.isEmpty() || digits.length() > 3 || !digits.chars().allMatch(Character::isDigit)) {
+                return false;
+            }
+            length = Integer.parseInt(digits);
+            if (length > width) {
+                return false;
+            }
+        }
+
+        if (!isIpv6) {
+            long address = IpAddresses.parseIpv4(range, 0, end);
+            if (address == IpAddresses.INVALID) {
+                return false;
+            }
+            ipv4.add(address << 32, 0, length, value);
+            return true;
+        }
+        int prefixLength = length;
+        return IpAddresses.parseIpv6(range, 0, end, (high, low) -> {
+            ipv6.add(high, low, prefixLength, value);
+            return 0;
+        }, -1) == 0;
+    }
+}
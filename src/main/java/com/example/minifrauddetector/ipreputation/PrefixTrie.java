@@ -0,0 +1,336 @@
+package com.example.minifrauddetector.ipreputation;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, path-compressed binary trie over 32-bit (IPv4) or 128-bit (IPv6) keys, packed into one
+ * {@code long[]}. A node is 2 longs for IPv4 (key and metadata, then both child indexes) and 4 for IPv6 (key
+ * high, key low, metadata, child indexes), so visiting a node touches one cache line. A trie of {@code n}
+ * prefixes has fewer than {@code 2n} nodes.
+ *
+ * <p>The leading bits of a key are resolved through a jump table that holds, for each value of those bits, the
+ * best match so far and the node to continue from. That replaces the top of the tree, where every lookup would
+ * otherwise start with the same dozen or more dependent loads. The table covers about as many bits as the trie
+ * has prefixes, between {@value #MIN_JUMP_BITS} and {@value #MAX_JUMP_BITS} (5 MB).
+ *
+ * <p>Keys are passed as two longs, most significant bits first; an IPv4 address occupies the upper 32 bits of
+ * {@code high}. {@link #lookup(long, long)} does not allocate.
+ */
+public final class PrefixTrie {
+
+    public static final int NO_VALUE = -1;
+    public static final int MAX_VALUE = Byte.MAX_VALUE;
+
+    static final int MIN_JUMP_BITS = 8;
+    static final int MAX_JUMP_BITS = 20;
+
+    private static final int ROOT = 0;
+    private static final int NONE = ROOT;
+    private static final long IPV4_KEY_MASK = 0xFFFF_FFFF_0000_0000L;
+
+    private final int width;
+    private final int stride;
+    private final int jumpBits;
+    private final long[] nodes;
+    private final int[] jumpNodes;
+    private final byte[] jumpValues;
+    private final int nodeCount;
+    private final int prefixCount;
+
+    private PrefixTrie(Builder builder) {
+        this.width = builder.width;
+        this.stride = builder.stride;
+        this.nodeCount = builder.nodeCount;
+        this.prefixCount = builder.prefixCount;
+        this.nodes = preorder(builder.nodes, nodeCount, stride, width);
+        this.jumpBits = Math.clamp(Long.SIZE - Long.numberOfLeadingZeros(prefixCount), MIN_JUMP_BITS, MAX_JUMP_BITS);
+        this.jumpNodes = new int[1 << jumpBits];
+        this.jumpValues = new byte[1 << jumpBits];
+        for (int bucket = 0; bucket < jumpNodes.length; bucket++) {
+            fillJump(bucket);
+        }
+    }
+
+    public static Builder ipv4() {
+        return new Builder(32);
+    }
+
+    public static Builder ipv6() {
+        return new Builder(128);
+    }
+
+    /**
+     * Returns the value of the longest prefix containing the key, or {@link #NO_VALUE}.
+     */
+    public int lookup(long high, long low) {
+        int bucket = (int) (high >>> (Long.SIZE - jumpBits));
+        int best = jumpValues[bucket];
+        int node = jumpNodes[bucket];
+        if (node == NONE) {
+            return best;
+        }
+
+        long[] nodes = this.nodes;
+        int stride = this.stride;
+        while (true) {
+            int base = node * stride;
+            int meta = meta(nodes, stride, base);
+            int length = meta & 0xFF;
+            if (commonPrefix(nodes, stride, base, high, low) < length) {
+                return best;
+            }
+            if ((byte) (meta >>> 8) != NO_VALUE) {
+                best = (byte) (meta >>> 8);
+            }
+            if (length == width) {
+                return best;
+            }
+            node = child(nodes, stride, base, bit(high, low, length));
+            if (node == NONE) {
+                return best;
+            }
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getPrefixCount() {
+        return prefixCount;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Copies the nodes in depth-first order. Nodes arrive in insertion order, which scatters every path
+     * across the whole array; in preorder a subtree is contiguous, so the last levels of a lookup usually
+     * hit pages and cache lines that the previous level already brought in.
+     */
+    private static long[] preorder(long[] source, int nodeCount, int stride, int width) {
+        int[] order = new int[nodeCount];
+        int[] renumbered = new int[nodeCount];
+        int[] stack = new int[2 * width + 2];
+        int top = 0;
+        int visited = 0;
+        stack[top++] = ROOT;
+        while (top > 0) {
+            int node = stack[--top];
+            renumbered[node] = visited;
+            order[visited++] = node;
+            int right = child(source, stride, node * stride, 1);
+            int left = child(source, stride, node * stride, 0);
+            if (right != NONE) {
+                stack[top++] = right;
+            }
+            if (left != NONE) {
+                stack[top++] = left;
+            }
+        }
+
+        long[] target = new long[nodeCount * stride];
+        for (int i = 0; i < nodeCount; i++) {
+            int from = order[i] * stride;
+            int to = i * stride;
+            System.arraycopy(source, from, target, to, stride - 1);
+            int left = child(source, stride, from, 0);
+            int right = child(source, stride, from, 1);
+            target[to + stride - 1] = ((long) renumbered[left] << 32) | (renumbered[right] & 0xFFFFFFFFL);
+        }
+        return target;
+    }
+
+    /**
+     * Walks the part of the tree that lies within the first {@code jumpBits} bits for one value of them.
+     * Every decision there depends only on those bits, so it can be made once per bucket.
+     */
+    private void fillJump(int bucket) {
+        long high = (long) bucket << (Long.SIZE - jumpBits);
+        int best = NO_VALUE;
+        int node = ROOT;
+        do {
+            int base = node * stride;
+            int meta = meta(nodes, stride, base);
+            int length = meta & 0xFF;
+            if (length > jumpBits) {
+                break;
+            }
+            if (commonPrefix(nodes, stride, base, high, 0) < length) {
+                node = NONE;
+                break;
+            }
+            if ((byte) (meta >>> 8) != NO_VALUE) {
+                best = (byte) (meta >>> 8);
+            }
+            if (length == jumpBits || length == width) {
+                // Children of this node branch on bits past the jump table; resume here. The node is visited
+                // again by lookup, which only re-confirms the match and value recorded above.
+                break;
+            }
+            node = child(nodes, stride, base, bit(high, 0, length));
+        } while (node != NONE);
+        jumpNodes[bucket] = node;
+        jumpValues[bucket] = (byte) best;
+    }
+
+    private static int meta(long[] nodes, int stride, int base) {
+        return stride == 2 ? (int) nodes[base] : (int) nodes[base + 2];
+    }
+
+    private static int child(long[] nodes, int stride, int base, int bit) {
+        long children = nodes[base + stride - 1];
+        return bit == 0 ? (int) (children >>> 32) : (int) children;
+    }
+
+    private static int commonPrefix(long[] nodes, int stride, int base, long high, long low) {
+        if (stride == 2) {
+            return Long.numberOfLeadingZeros(high ^ (nodes[base] & IPV4_KEY_MASK));
+        }
+        long difference = high ^ nodes[base];
+        if (difference != 0) {
+            return Long.numberOfLeadingZeros(difference);
+        }
+        return Long.SIZE + Long.numberOfLeadingZeros(low ^ nodes[base + 1]);
+    }
+
+    private static int bit(long high, long low, int position) {
+        return position < Long.SIZE
+            ? (int) (high >>> (Long.SIZE - 1 - position)) & 1
+            : (int) (low >>> (2 * Long.SIZE - 1 - position)) & 1;
+    }
+
+    /**
+     * Collects prefixes into a growable array in the final node layout. When the same prefix is added twice,
+     * the first value is kept. Not thread-safe; build on one thread and publish the resulting
+     * {@link PrefixTrie}.
+     */
+    public static final class Builder {
+
+        private final int width;
+        private final int stride;
+        private long[] nodes;
+        private int nodeCount;
+        private int prefixCount;
+
+        private Builder(int width) {
+            this.width = width;
+            this.stride = width > Long.SIZE ? 4 : 2;
+            this.nodes = new long[16 * stride];
+            newNode(0, 0, 0, NO_VALUE);
+        }
+
+        /**
+         * Adds {@code high:low/length}. Bits beyond {@code length} are ignored.
+         */
+        public Builder add(long high, long low, int length, int value) {
+            if (length < 0 || length > width) {
+                throw new IllegalArgumentException("Prefix length " + length + " is outside 0-" + width);
+            }
+            if (value < 0 || value > MAX_VALUE) {
+                throw new IllegalArgumentException("Value " + value + " is outside 0-" + MAX_VALUE);
+            }
+            high = mask(high, length);
+            low = stride == 2 ? 0 : mask(low, length - Long.SIZE);
+
+            int node = ROOT;
+            while (true) {
+                int nodeLength = length(node);
+                if (nodeLength == length) {
+                    if (value(node) == NO_VALUE) {
+                        setValue(node, value);
+                        prefixCount++;
+                    }
+                    return this;
+                }
+
+                int bit = bit(high, low, nodeLength);
+                int child = child(nodes, stride, node * stride, bit);
+                if (child == NONE) {
+                    setChild(node, bit, newNode(high, low, length, value));
+                    prefixCount++;
+                    return this;
+                }
+
+                int childLength = length(child);
+                int common = Math.min(commonPrefix(nodes, stride, child * stride, high, low), Math.min(childLength, length));
+                if (common == childLength) {
+                    node = child;
+                    continue;
+                }
+
+                int split = common == length
+                    ? newNode(high, low, length, value)
+                    : newNode(mask(high, common), stride == 2 ? 0 : mask(low, common - Long.SIZE), common, NO_VALUE);
+                setChild(split, keyBit(child, common), child);
+                if (common < length) {
+                    setChild(split, bit(high, low, common), newNode(high, low, length, value));
+                }
+                setChild(node, bit, split);
+                prefixCount++;
+                return this;
+            }
+        }
+
+        public PrefixTrie build() {
+            return new PrefixTrie(this);
+        }
+
+        private int length(int node) {
+            return meta(nodes, stride, node * stride) & 0xFF;
+        }
+
+        private int value(int node) {
+            return (byte) (meta(nodes, stride, node * stride) >>> 8);
+        }
+
+        private void setValue(int node, int value) {
+            int meta = (length(node)) | ((value & 0xFF) << 8);
+            int index = stride == 2 ? node * stride : node * stride + 2;
+            nodes[index] = (nodes[index] & ~0xFFFFFFFFL) | (meta & 0xFFFFFFFFL);
+        }
+
+        private void setChild(int node, int bit, int child) {
+            int index = node * stride + stride - 1;
+            nodes[index] = bit == 0
+                ? (nodes[index] & 0xFFFFFFFFL) | ((long) child << 32)
+                : (nodes[index] & ~0xFFFFFFFFL) | (child & 0xFFFFFFFFL);
+        }
+
+        private int keyBit(int node, int position) {
+            int base = node * stride;
+            long high = stride == 2 ? nodes[base] & IPV4_KEY_MASK : nodes[base];
+            long low = stride == 2 ? 0 : nodes[base + 1];
+            return bit(high, low, position);
+        }
+
+        private int newNode(long high, long low, int length, int value) {
+            if ((nodeCount + 1) * stride > nodes.length) {
+                nodes = Arrays.copyOf(nodes, nodes.length * 2);
+            }
+            int node = nodeCount++;
+            int base = node * stride;
+            long meta = (length | ((value & 0xFF) << 8)) & 0xFFFFFFFFL;
+            if (stride == 2) {
+                nodes[base] = high | meta;
+            } else {
+                nodes[base] = high;
+                nodes[base + 1] = low;
+                nodes[base + 2] = meta;
+            }
+            nodes[base + stride - 1] = 0;
+            return node;
+        }
+
+        /**
+         * Keeps the first {@code bits} bits of {@code word}; all of them when {@code bits >= 64}.
+         */
+        private static long mask(long word, int bits) {
+            if (bits <= 0) {
+                return 0;
+            }
+            return bits >= Long.SIZE ? word : word & (-1L << (Long.SIZE - bits));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.minifrauddetector.metrics;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.RiskLevel;
+import com.example.minifrauddetector.rules.RulePlan;
+import com.example.minifrauddetector.rules.RuleSnapshot;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Meters for the scoring path. All meters are registered ahead of time (rule counters when a snapshot is
+ * first seen), so recording an evaluation is a few {@link LongAdder} increments with no tag lookup. Rule and
+ * risk level counts are exact; the {@code fraud.evaluate} timer sees one in
+ * {@code fraud.metrics.latency-sample-every} evaluations, because a histogram update costs several times more
+ * than the counters.
+ */
+@Component
+public class ScoringMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Timer evaluateTimer;
+    private final int latencySampleEvery;
+    private final LongAdder[] riskLevelCounts;
+    private final ConcurrentMap<String, LongAdder> ruleHitCounts = new ConcurrentHashMap<>();
+    private volatile PlanCounters planCounters = new PlanCounters(null, new LongAdder[0]);
+
+    public ScoringMetrics(MeterRegistry meterRegistry, FraudRulesProperties fraudRulesProperties) {
+        int sampleEvery = fraudRulesProperties.getMetrics().getLatencySampleEvery();
+        if (sampleEvery < 1) {
+            throw new IllegalArgumentException("fraud.metrics.latency-sample-every must be positive");
+        }
+        this.meterRegistry = meterRegistry;
+        this.latencySampleEvery = sampleEvery;
+        this.evaluateTimer = Timer.builder("fraud.evaluate")
+            .description("Time spent scoring one transaction, excluding JSON binding (sampled)")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+
+        RiskLevel[] riskLevels = RiskLevel.values();
+        this.riskLevelCounts = new LongAdder[riskLevels.length];
+        for (RiskLevel riskLevel : riskLevels) {
+            LongAdder count = new LongAdder();
+            riskLevelCounts[riskLevel.ordinal()] = count;
+            FunctionCounter.builder("fraud.risk.level", count, LongAdder::sum)
+                .description("Evaluated transactions by risk level")
+                .tag("level", riskLevel.name())
+                .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Decides whether the current evaluation should be timed.
+     */
+    public boolean sampleLatency() {
+        return latencySampleEvery == 1 || ThreadLocalRandom.current().nextInt(latencySampleEvery) == 0;
+    }
+
+    public void recordLatency(long elapsedNanos) {
+        evaluateTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void record(RuleSnapshot snapshot, long firedMask, RiskLevel riskLevel) {
+        PlanCounters counters = planCounters;
+        if (counters.snapshot() != snapshot) {
+            counters = bind(snapshot);
+        }
+        LongAdder[] hits = counters.hits();
+        for (long mask = firedMask; mask != 0; mask &= mask - 1) {
+            hits[Long.numberOfTrailingZeros(mask)].increment();
+        }
+        riskLevelCounts[riskLevel.ordinal()].increment();
+    }
+
+    /**
+     * Returns the running hit count of every rule seen so far, keyed by rule id.
+     */
+    public Map<String, Long> getRuleHitCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        ruleHitCounts.forEach((ruleId, count) -> counts.put(ruleId, count.sum()));
+        return counts;
+    }
+
+    /**
+     * Lines up the hit counters with the plan's rule indexes. Counters are keyed by rule id, so a rule keeps its
+     * running total across reloads.
+     */
+    private synchronized PlanCounters bind(RuleSnapshot snapshot) {
+        PlanCounters counters = planCounters;
+        if (counters.snapshot() == snapshot) {
+            return counters;
+        }
+        RulePlan plan = snapshot.getPlan();
+        LongAdder[] hits = new LongAdder[plan.size()];
+        for (int i = 0; i < hits.length; i++) {
+            hits[i] = ruleHitCounts.computeIfAbsent(plan.getRuleId(i), this::registerRuleCounter);
+        }
+        counters = new PlanCounters(snapshot, hits);
+        planCounters = counters;
+        return counters;
+    }
+
+    private LongAdder registerRuleCounter(String ruleId) {
+        LongAdder count = new LongAdder();
+        FunctionCounter.builder("fraud.rule.hits", count, LongAdder::sum)
+            .description("Evaluations in which the rule fired")
+            .tag("rule", ruleId)
+            .register(meterRegistry);
+        return count;
+    }
+
+    private record PlanCounters(RuleSnapshot snapshot, LongAdder[] hits) {
+    }
+}
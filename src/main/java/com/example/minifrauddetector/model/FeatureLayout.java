@@ -0,0 +1,169 @@
+package com.example.minifrauddetector.model;
+
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.rules.MerchantCategoryRule;
+import com.example.minifrauddetector.rules.ScoringContext;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The ordered inputs of a model, resolved from their names once when the model loads. Building a vector is
+ * then one switch per feature over values the {@link ScoringContext} already holds.
+ *
+ * <p>Supported names:
+ * <ul>
+ *   <li>{@code amount}, {@code logAmount}: the amount in base-currency units, and {@code ln(1 + amount)}</li>
+ *   <li>{@code hourUtc} (0-23), {@code dayOfWeekUtc} (0 is Monday)</li>
+ *   <li>{@code deviceTrusted}, {@code ipAddressPresent}: 1 or 0</li>
+ *   <li>{@code merchantCategory}: the 4-digit MCC as a number</li>
+ *   <li>{@code velocityCount.<window>}, {@code velocityAmount.<window>}: figures of a configured velocity
+ *       window, the amount in base-currency units</li>
+ *   <li>{@code country=<code>}, {@code currency=<code>}, {@code paymentMethod=<method>}: 1 when the request
+ *       field equals the value, otherwise 0</li>
+ * </ul>
+ * A value the request does not carry, such as a missing or malformed MCC, is {@code NaN}.
+ */
+public final class FeatureLayout {
+
+    private static final int AMOUNT = 0;
+    private static final int LOG_AMOUNT = 1;
+    private static final int HOUR_UTC = 2;
+    private static final int DAY_OF_WEEK_UTC = 3;
+    private static final int DEVICE_TRUSTED = 4;
+    private static final int IP_ADDRESS_PRESENT = 5;
+    private static final int MERCHANT_CATEGORY = 6;
+    private static final int VELOCITY_COUNT = 7;
+    private static final int VELOCITY_AMOUNT = 8;
+    private static final int COUNTRY_IS = 9;
+    private static final int CURRENCY_IS = 10;
+    private static final int PAYMENT_METHOD_IS = 11;
+
+    private static final Map<String, Integer> SCALARS = Map.of(
+        "amount", AMOUNT,
+        "logAmount", LOG_AMOUNT,
+        "hourUtc", HOUR_UTC,
+        "dayOfWeekUtc", DAY_OF_WEEK_UTC,
+        "deviceTrusted", DEVICE_TRUSTED,
+        "ipAddressPresent", IP_ADDRESS_PRESENT,
+        "merchantCategory", MERCHANT_CATEGORY
+    );
+    private static final long SECONDS_PER_DAY = 86_400;
+    // 1970-01-01 was a Thursday.
+    private static final int EPOCH_DAY_OF_WEEK = 3;
+
+    private final List<String> names;
+    private final Map<String, Integer> indexByName = new HashMap<>();
+    private final int[] kinds;
+    private final int[] windows;
+    private final String[] values;
+
+    private FeatureLayout(List<String> names, List<String> velocityWindows) {
+        this.names = List.copyOf(names);
+        this.kinds = new int[names.size()];
+        this.windows = new int[names.size()];
+        this.values = new String[names.size()];
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            if (indexByName.putIfAbsent(name, i) != null) {
+                throw new IllegalArgumentException("feature " + name + " is listed twice");
+            }
+            resolve(i, name, velocityWindows);
+        }
+    }
+
+    /**
+     * Resolves {@code names} in order. Velocity features refer to {@code velocityWindows} by name.
+     */
+    public static FeatureLayout of(List<String> names, List<String> velocityWindows) {
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("a model needs at least one feature");
+        }
+        return new FeatureLayout(names, velocityWindows);
+    }
+
+    public int size() {
+        return kinds.length;
+    }
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Position of {@code name} in the vector, or {@code -1}.
+     */
+    public int indexOf(String name) {
+        return indexByName.getOrDefault(name, -1);
+    }
+
+    /**
+     * Writes the features of {@code context} into the first {@link #size()} slots of {@code vector}.
+     */
+    public void extract(ScoringContext context, float[] vector) {
+        FraudCheckRequest request = context.getRequest();
+        for (int i = 0; i < kinds.length; i++) {
+            vector[i] = switch (kinds[i]) {
+                case AMOUNT -> context.getAmountCents() / (float) ScoringContext.CENTS_PER_UNIT;
+                case LOG_AMOUNT -> (float) Math.log1p(context.getAmountCents() / (double) ScoringContext.CENTS_PER_UNIT);
+                case HOUR_UTC -> context.getHourUtc();
+                case DAY_OF_WEEK_UTC -> Math.floorMod(
+                    Math.floorDiv(request.getTimestamp().getEpochSecond(), SECONDS_PER_DAY) + EPOCH_DAY_OF_WEEK, 7);
+                case DEVICE_TRUSTED -> Boolean.TRUE.equals(request.getDeviceTrusted()) ? 1 : 0;
+                case IP_ADDRESS_PRESENT -> request.getIpAddress() == null || request.getIpAddress().isBlank() ? 0 : 1;
+                case MERCHANT_CATEGORY -> merchantCategory(request.getMerchantCategory());
+                case VELOCITY_COUNT -> context.hasVelocity() ? context.getVelocityCount(windows[i]) : Float.NaN;
+                case VELOCITY_AMOUNT -> context.hasVelocity()
+                    ? context.getVelocityAmount(windows[i]) / (float) ScoringContext.CENTS_PER_UNIT
+                    : Float.NaN;
+                case COUNTRY_IS -> values[i].equals(request.getCountry()) ? 1 : 0;
+                case CURRENCY_IS -> values[i].equals(request.getCurrency()) ? 1 : 0;
+                case PAYMENT_METHOD_IS -> values[i].equals(request.getPaymentMethod()) ? 1 : 0;
+                default -> throw new IllegalStateException("Unknown feature kind " + kinds[i]);
+            };
+        }
+    }
+
+    private void resolve(int i, String name, List<String> velocityWindows) {
+        Integer scalar = SCALARS.get(name);
+        if (scalar != null) {
+            kinds[i] = scalar;
+            return;
+        }
+        int equals = name.indexOf('=');
+        if (equals > 0 && equals < name.length() - 1) {
+            kinds[i] = switch (name.substring(0, equals)) {
+                case "country" -> COUNTRY_IS;
+                case "currency" -> CURRENCY_IS;
+                case "paymentMethod" -> PAYMENT_METHOD_IS;
+                default -> throw unknown(name);
+            };
+            values[i] = name.substring(equals + 1);
+            return;
+        }
+        int dot = name.indexOf('.');
+        if (dot > 0) {
+            kinds[i] = switch (name.substring(0, dot)) {
+                case "velocityCount" -> VELOCITY_COUNT;
+                case "velocityAmount" -> VELOCITY_AMOUNT;
+                default -> throw unknown(name);
+            };
+            windows[i] = velocityWindows.indexOf(name.substring(dot + 1));
+            if (windows[i] < 0) {
+                throw new IllegalArgumentException("feature " + name + " refers to velocity window '"
+                    + name.substring(dot + 1) + "', which is not configured");
+            }
+            return;
+        }
+        throw unknown(name);
+    }
+
+    private static float merchantCategory(String code) {
+        int value = MerchantCategoryRule.code(code);
+        return value < 0 ? Float.NaN : value;
+    }
+
+    private static IllegalArgumentException unknown(String name) {
+        return new IllegalArgumentException("unknown feature '" + name + "'");
+    }
+}
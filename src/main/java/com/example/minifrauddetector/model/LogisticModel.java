@@ -0,0 +1,30 @@
+package com.example.minifrauddetector.model;
+
+/**
+ * Logistic regression: the intercept plus one weight per feature. A missing ({@code NaN}) feature adds nothing.
+ */
+final class LogisticModel implements Predictor {
+
+    private final double intercept;
+    private final float[] weights;
+
+    LogisticModel(double intercept, float[] weights) {
+        this.intercept = intercept;
+        this.weights = weights.clone();
+    }
+
+    @Override
+    public double margin(float[] features) {
+        double margin = intercept;
+        for (int i = 0; i < weights.length; i++) {
+            float value = features[i];
+            margin += value == value ? weights[i] * value : 0;
+        }
+        return margin;
+    }
+
+    @Override
+    public String describe() {
+        return weights.length + " weights";
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.minifrauddetector.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads model files. A file starts with a header and, for tree models, continues with the text dump of an
+ * XGBoost booster ({@code Booster.get_dump()} joined with {@code booster[i]:} lines, as
+ * {@code dump_model} writes it):
+ *
+ * <pre>
+ * model gbtree
+ * features logAmount hourUtc deviceTrusted velocityCount.1m
+ * base-margin -2.2
+ * booster[0]:
+ * 0:[f0&lt;6.2] yes=1,no=2,missing=1
+ *     1:leaf=-0.12
+ *     2:[deviceTrusted&lt;0.5] yes=3,no=4,missing=4
+ *         3:leaf=0.41
+ *         4:leaf=-0.02
+ * </pre>
+ *
+ * Splits may name a feature or use XGBoost's positional {@code f<i>}; statistics such as {@code gain} and
+ * {@code cover} are ignored. {@code base-margin} is the log-odds the booster starts from (the logit of
+ * XGBoost's {@code base_score}, 0 by default). A logistic model lists {@code intercept} and one
+ * {@code weight <feature> <value>} line per non-zero weight instead of boosters. Blank lines and {@code #}
+ * comments are ignored.
+ */
+final class ModelFile {
+
+    private static final Pattern SPLIT = Pattern.compile(
+        "(\\d+):\\[([^<\\]]+)<([^\\]]+)] yes=(\\d+),no=(\\d+),missing=(\\d+)(,.*)?");
+    private static final Pattern LEAF = Pattern.compile("(\\d+):leaf=([^,]+)(,.*)?");
+    private static final Pattern BOOSTER = Pattern.compile("booster\\[\\d+]:");
+    private static final Pattern POSITIONAL = Pattern.compile("f(\\d+)");
+
+    private final Path file;
+    private final List<String> velocityWindows;
+    private String type;
+    private FeatureLayout features;
+    private double baseMargin;
+    private double intercept;
+    private float[] weights;
+    private TreeEnsemble.Builder trees;
+    private Map<Integer, TreeEnsemble.Node> tree;
+    private int boosterCount;
+
+    private ModelFile(Path file, List<String> velocityWindows) {
+        this.file = file;
+        this.velocityWindows = velocityWindows;
+    }
+
+    static ScoringModel load(long version, Path file, List<String> velocityWindows) {
+        ModelFile model = new ModelFile(file, velocityWindows);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                int comment = line.indexOf('#');
+                String entry = (comment < 0 ? line : line.substring(0, comment)).strip();
+                if (!entry.isEmpty()) {
+                    try {
+                        model.read(entry);
+                    } catch (IllegalArgumentException exception) {
+                        throw new IllegalArgumentException(file + ":" + lineNumber + ": " + exception.getMessage(), exception);
+                    }
+                }
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Cannot read model " + file + ": " + exception.getMessage(), exception);
+        }
+        return model.build(version);
+    }
+
+    private void read(String entry) {
+        if (tree != null || BOOSTER.matcher(entry).matches()) {
+            readTree(entry);
+            return;
+        }
+        String[] fields = entry.split("\\s+");
+        switch (fields[0]) {
+            case "model" -> {
+                expectValues(fields, 1);
+                if (!fields[1].equals("gbtree") && !fields[1].equals("logistic")) {
+                    throw new IllegalArgumentException("model must be gbtree or logistic, not '" + fields[1] + "'");
+                }
+                type = fields[1];
+            }
+            case "features" -> {
+                if (features != null) {
+                    throw new IllegalArgumentException("features are listed twice");
+                }
+                features = FeatureLayout.of(Arrays.asList(fields).subList(1, fields.length), velocityWindows);
+                weights = new float[features.size()];
+            }
+            case "base-margin" -> {
+                expectValues(fields, 1);
+                baseMargin = number(fields[1]);
+            }
+            case "intercept" -> {
+                expectValues(fields, 1);
+                intercept = number(fields[1]);
+            }
+            case "weight" -> {
+                expectValues(fields, 2);
+                weights[feature(fields[1])] = (float) number(fields[2]);
+            }
+            default -> throw new IllegalArgumentException("unexpected '" + fields[0] + "'");
+        }
+    }
+
+    private void readTree(String entry) {
+        if (BOOSTER.matcher(entry).matches()) {
+            if (!"gbtree".equals(type) || features == null) {
+                throw new IllegalArgumentException("boosters must follow 'model gbtree' and the features line");
+            }
+            if (trees == null) {
+                trees = new TreeEnsemble.Builder(features.size(), baseMargin);
+            } else {
+                finishTree();
+            }
+            tree = new HashMap<>();
+            boosterCount++;
+            return;
+        }
+        Matcher leaf = LEAF.matcher(entry);
+        Matcher split = SPLIT.matcher(entry);
+        TreeEnsemble.Node node;
+        int id;
+        if (leaf.matches()) {
+            id = Integer.parseInt(leaf.group(1));
+            node = TreeEnsemble.Node.leaf((float) number(leaf.group(2)));
+        } else if (split.matches()) {
+            id = Integer.parseInt(split.group(1));
+            node = new TreeEnsemble.Node(
+                feature(split.group(2)),
+                (float) number(split.group(3)),
+                Integer.parseInt(split.group(4)),
+                Integer.parseInt(split.group(5)),
+                Integer.parseInt(split.group(6))
+            );
+        } else {
+            throw new IllegalArgumentException("expected a split 'id:[feature<threshold] yes=,no=,missing=' or a leaf "
+                + "'id:leaf=value' but found '" + entry + "'");
+        }
+        if (tree.putIfAbsent(id, node) != null) {
+            throw new IllegalArgumentException("node " + id + " is defined twice");
+        }
+    }
+
+    private void finishTree() {
+        try {
+            trees.addTree(tree);
+        } catch (IllegalArgumentException exception) {
+            throw new IllegalArgumentException("booster[" + (boosterCount - 1) + "]: "
+                + exception.getMessage(), exception);
+        }
+    }
+
+    private ScoringModel build(long version) {
+        if (type == null || features == null) {
+            throw new IllegalArgumentException(file + ": a model needs 'model' and 'features' lines");
+        }
+        if (type.equals("logistic")) {
+            return new ScoringModel(version, type, features, new LogisticModel(intercept, weights));
+        }
+        if (trees == null) {
+            throw new IllegalArgumentException(file + ": model has no trees");
+        }
+        try {
+            finishTree();
+        } catch (IllegalArgumentException exception) {
+            throw new IllegalArgumentException(file + ": " + exception.getMessage(), exception);
+        }
+        return new ScoringModel(version, type, features, trees.build());
+    }
+
+    private int feature(String name) {
+        if (features == null) {
+            throw new IllegalArgumentException("the features line must come first");
+        }
+        int index = features.indexOf(name);
+        if (index >= 0) {
+            return index;
+        }
+        Matcher positional = POSITIONAL.matcher(name);
+        if (positional.matches() && Integer.parseInt(positional.group(1)) < features.size()) {
+            return Integer.parseInt(positional.group(1));
+        }
+        throw new IllegalArgumentException("'" + name + "' is not one of the listed features");
+    }
+
+    private static double number(String text) {
+        double value = Double.parseDouble(text);
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("'" + text + "' is not a finite number");
+        }
+        return value;
+    }
+
+    private static void expectValues(String[] fields, int count) {
+        if (fields.length != count + 1) {
+            throw new IllegalArgumentException(fields[0] + " expects " + count + " value(s)");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.minifrauddetector.model;
+
+import com.example.minifrauddetector.config.ConfigFileWatcher;
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Owns the active {@link ScoringModel} and the blend of its score with rule points. With
+ * {@code fraud.model.enabled=false} there is no model and scores are rule points alone. A reload reads the
+ * file into a new model and publishes it with a single volatile write; a file that fails to load keeps the
+ * previous model active.
+ */
+@Component
+public class ModelHolder {
+
+    private static final Logger log = LoggerFactory.getLogger(ModelHolder.class);
+
+    private final Path modelFile;
+    private final boolean watchFile;
+    private final double weight;
+    private final List<String> velocityWindows;
+    private volatile ScoringModel current;
+    private ConfigFileWatcher watcher;
+
+    public ModelHolder(FraudRulesProperties fraudRulesProperties) {
+        FraudRulesProperties.Model model = fraudRulesProperties.getModel();
+        this.watchFile = model.isWatchFile();
+        this.weight = model.getWeight();
+        this.velocityWindows = fraudRulesProperties.getVelocity().getWindows().stream()
+            .map(FraudRulesProperties.VelocityWindow::getName)
+            .toList();
+        if (!model.isEnabled()) {
+            this.modelFile = null;
+            return;
+        }
+        if (model.getFile() == null) {
+            throw new IllegalArgumentException("fraud.model.file is required when the model is enabled");
+        }
+        if (!(weight >= 0 && weight <= 1)) {
+            throw new IllegalArgumentException("fraud.model.weight must be between 0 and 1");
+        }
+        this.modelFile = model.getFile();
+        this.current = load(1);
+    }
+
+    /**
+     * Holder without a model.
+     */
+    public static ModelHolder disabled() {
+        return new ModelHolder(new FraudRulesProperties());
+    }
+
+    @PostConstruct
+    void startWatching() throws IOException {
+        if (modelFile != null && watchFile) {
+            watcher = new ConfigFileWatcher(modelFile, this::reload);
+        }
+    }
+
+    @PreDestroy
+    void stopWatching() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    /**
+     * The active model, or {@code null} when the model is disabled.
+     */
+    public ScoringModel current() {
+        return current;
+    }
+
+    /**
+     * Weighted average of the capped rule points and the model score, {@code fraud.model.weight} being the
+     * model's share.
+     */
+    public int blend(int rulePoints, int modelScore) {
+        return (int) Math.round((1 - weight) * rulePoints + weight * modelScore);
+    }
+
+    public synchronized ScoringModel reload() {
+        if (modelFile == null) {
+            throw new IllegalStateException("The fraud model is disabled");
+        }
+        ScoringModel model = load(current.getVersion() + 1);
+        current = model;
+        return model;
+    }
+
+    private ScoringModel load(long version) {
+        long startNanos = System.nanoTime();
+        ScoringModel model = ModelFile.load(version, modelFile, velocityWindows);
+        log.info("Loaded fraud model version {} from {}: {} in {} ms",
+            version, modelFile, model.describe(), (System.nanoTime() - startNanos) / 1_000_000);
+        return model;
+    }
+}
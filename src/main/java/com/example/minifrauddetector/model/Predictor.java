@@ -0,0 +1,17 @@
+package com.example.minifrauddetector.model;
+
+/**
+ * The log-odds part of a model. Implementations are immutable and do not allocate while predicting.
+ */
+sealed interface Predictor permits TreeEnsemble, LogisticModel {
+
+    /**
+     * Log-odds of fraud for a feature vector laid out by the model's {@link FeatureLayout}.
+     */
+    double margin(float[] features);
+
+    /**
+     * Size summary for logs.
+     */
+    String describe();
+}
@@ -0,0 +1,65 @@
+package com.example.minifrauddetector.model;
+
+import com.example.minifrauddetector.rules.ScoringContext;
+import java.time.Instant;
+
+/**
+ * An immutable, versioned fraud model: the feature layout and the trees or weights that turn a feature vector
+ * into a probability. Scores are that probability in percent, on the same 0-100 scale as rule points.
+ */
+public final class ScoringModel {
+
+    private final long version;
+    private final Instant loadedAt;
+    private final String type;
+    private final FeatureLayout features;
+    private final Predictor predictor;
+
+    ScoringModel(long version, String type, FeatureLayout features, Predictor predictor) {
+        this.version = version;
+        this.loadedAt = Instant.now();
+        this.type = type;
+        this.features = features;
+        this.predictor = predictor;
+    }
+
+    /**
+     * Builds the feature vector of {@code context} and scores it.
+     */
+    public int score(ScoringContext context) {
+        float[] vector = new float[features.size()];
+        features.extract(context, vector);
+        return score(vector);
+    }
+
+    /**
+     * Scores a vector laid out by {@link #getFeatures()}. Does not allocate.
+     */
+    public int score(float[] vector) {
+        double probability = 1 / (1 + Math.exp(-predictor.margin(vector)));
+        return (int) Math.round(100 * probability);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    /**
+     * {@code gbtree} or {@code logistic}.
+     */
+    public String getType() {
+        return type;
+    }
+
+    public FeatureLayout getFeatures() {
+        return features;
+    }
+
+    public String describe() {
+        return type + " with " + predictor.describe() + " over " + features.size() + " features";
+    }
+}
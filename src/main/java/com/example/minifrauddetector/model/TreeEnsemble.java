@@ -0,0 +1,212 @@
+package com.example.minifrauddetector.model;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Gradient-boosted trees flattened into one {@code int[]}. A node takes {@value #STRIDE} ints: the feature index,
+ * the threshold or leaf value as float bits, the index of its "yes" child, and the steps taken for a value at or
+ * above the threshold and for a missing ({@code NaN}) value. The two children of a split are adjacent, so the
+ * next node is {@code yes + step} and a node is a quarter of a cache line.
+ *
+ * <p>A leaf is its own "yes" child with both steps 0, so walking past it stays put. That lets
+ * {@link #margin(float[])} walk {@value #LANES} trees in lockstep for as many levels as the deepest of them has:
+ * a walk is a chain of dependent loads, and interleaving independent chains keeps several loads in flight
+ * instead of one.
+ *
+ * <p>A split follows XGBoost semantics: {@code value < threshold} goes to "yes". The margin is the base margin
+ * plus the leaf value of every tree.
+ */
+final class TreeEnsemble implements Predictor {
+
+    static final int STRIDE = 4;
+    static final int LANES = 4;
+
+    private static final int LEAF = -1;
+    private static final int ABOVE_STEP = 1;
+    private static final int MISSING_SHIFT = 1;
+
+    private final double baseMargin;
+    private final int[] nodes;
+    private final int[] roots;
+    private final int[] depths;
+
+    private TreeEnsemble(Builder builder) {
+        this.baseMargin = builder.baseMargin;
+        this.nodes = Arrays.copyOf(builder.nodes, builder.nodeCount * STRIDE);
+        this.roots = Arrays.copyOf(builder.roots, builder.treeCount);
+        this.depths = new int[(builder.treeCount + LANES - 1) / LANES];
+        for (int tree = 0; tree < builder.treeCount; tree++) {
+            depths[tree / LANES] = Math.max(depths[tree / LANES], builder.depths[tree]);
+        }
+    }
+
+    @Override
+    public double margin(float[] features) {
+        int[] nodes = this.nodes;
+        int[] roots = this.roots;
+        double margin = baseMargin;
+        int tree = 0;
+        for (; tree + LANES <= roots.length; tree += LANES) {
+            int node0 = roots[tree];
+            int node1 = roots[tree + 1];
+            int node2 = roots[tree + 2];
+            int node3 = roots[tree + 3];
+            for (int level = depths[tree / LANES]; level > 0; level--) {
+                node0 = next(nodes, features, node0);
+                node1 = next(nodes, features, node1);
+                node2 = next(nodes, features, node2);
+                node3 = next(nodes, features, node3);
+            }
+            margin += leaf(nodes, node0) + leaf(nodes, node1) + leaf(nodes, node2) + leaf(nodes, node3);
+        }
+        for (; tree < roots.length; tree++) {
+            int node = roots[tree];
+            for (int level = depths[tree / LANES]; level > 0; level--) {
+                node = next(nodes, features, node);
+            }
+            margin += leaf(nodes, node);
+        }
+        return margin;
+    }
+
+    private static int next(int[] nodes, float[] features, int node) {
+        int base = node * STRIDE;
+        float value = features[nodes[base]];
+        int steps = nodes[base + 3];
+        int step = value < Float.intBitsToFloat(nodes[base + 1]) ? 0 : steps & ABOVE_STEP;
+        if (value != value) {
+            step = steps >>> MISSING_SHIFT;
+        }
+        return nodes[base + 2] + step;
+    }
+
+    private static float leaf(int[] nodes, int node) {
+        return Float.intBitsToFloat(nodes[node * STRIDE + 1]);
+    }
+
+    @Override
+    public String describe() {
+        return String.format("%,d trees, %,d nodes", roots.length, nodes.length / STRIDE);
+    }
+
+    int getTreeCount() {
+        return roots.length;
+    }
+
+    int getNodeCount() {
+        return nodes.length / STRIDE;
+    }
+
+    /**
+     * One node of a tree as read from a model file; {@code feature} is {@code -1} for a leaf, whose value is
+     * {@code value}.
+     */
+    record Node(int feature, float value, int yes, int no, int missing) {
+
+        static Node leaf(float value) {
+            return new Node(LEAF, value, 0, 0, 0);
+        }
+    }
+
+    /**
+     * Lays trees out breadth first, one after the other. Not thread-safe.
+     */
+    static final class Builder {
+
+        private final int featureCount;
+        private final double baseMargin;
+        private int[] nodes = new int[64 * STRIDE];
+        private int[] roots = new int[16];
+        private int[] depths = new int[16];
+        private int nodeCount;
+        private int treeCount;
+
+        Builder(int featureCount, double baseMargin) {
+            this.featureCount = featureCount;
+            this.baseMargin = baseMargin;
+        }
+
+        /**
+         * Adds a tree given as node id to node; the root has id 0.
+         */
+        Builder addTree(Map<Integer, Node> tree) {
+            if (!tree.containsKey(0)) {
+                throw new IllegalArgumentException("tree has no node 0");
+            }
+            if (treeCount == roots.length) {
+                roots = Arrays.copyOf(roots, 2 * treeCount);
+                depths = Arrays.copyOf(depths, 2 * treeCount);
+            }
+            int root = allocate(1);
+            int depth = 0;
+
+            Set<Integer> visited = new HashSet<>();
+            ArrayDeque<int[]> pending = new ArrayDeque<>();
+            pending.add(new int[] {0, root, 0});
+            while (!pending.isEmpty()) {
+                int[] entry = pending.poll();
+                int id = entry[0];
+                int slot = entry[1];
+                int base = slot * STRIDE;
+                Node node = tree.get(id);
+                if (node == null) {
+                    throw new IllegalArgumentException("node " + id + " is referenced but not defined");
+                }
+                if (!visited.add(id)) {
+                    throw new IllegalArgumentException("node " + id + " is reached twice");
+                }
+                if (Float.isNaN(node.value()) || Float.isInfinite(node.value())) {
+                    throw new IllegalArgumentException("node " + id + " has a non-finite value");
+                }
+                nodes[base + 1] = Float.floatToIntBits(node.value());
+                if (node.feature() == LEAF) {
+                    nodes[base] = 0;
+                    nodes[base + 2] = slot;
+                    nodes[base + 3] = 0;
+                    depth = Math.max(depth, entry[2]);
+                    continue;
+                }
+                if (node.feature() < 0 || node.feature() >= featureCount) {
+                    throw new IllegalArgumentException("node " + id + " splits on feature " + node.feature()
+                        + " but the model has " + featureCount);
+                }
+                if (node.missing() != node.yes() && node.missing() != node.no()) {
+                    throw new IllegalArgumentException("node " + id + " sends missing values to neither child");
+                }
+                int yes = allocate(2);
+                nodes[base] = node.feature();
+                nodes[base + 2] = yes;
+                nodes[base + 3] = ABOVE_STEP | (node.missing() == node.yes() ? 0 : 1) << MISSING_SHIFT;
+                pending.add(new int[] {node.yes(), yes, entry[2] + 1});
+                pending.add(new int[] {node.no(), yes + 1, entry[2] + 1});
+            }
+            if (visited.size() != tree.size()) {
+                throw new IllegalArgumentException((tree.size() - visited.size())
+                    + " node(s) cannot be reached from node 0");
+            }
+            roots[treeCount] = root;
+            depths[treeCount++] = depth;
+            return this;
+        }
+
+        TreeEnsemble build() {
+            if (treeCount == 0) {
+                throw new IllegalArgumentException("model has no trees");
+            }
+            return new TreeEnsemble(this);
+        }
+
+        private int allocate(int count) {
+            if ((nodeCount + count) * STRIDE > nodes.length) {
+                nodes = Arrays.copyOf(nodes, Math.max(nodes.length * 2, (nodeCount + count) * STRIDE));
+            }
+            int first = nodeCount;
+            nodeCount += count;
+            return first;
+        }
+    }
+}
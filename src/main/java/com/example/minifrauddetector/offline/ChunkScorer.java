@@ -0,0 +1,166 @@
+package com.example.minifrauddetector.offline;
+
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.dto.FraudCheckResponse;
+import com.example.minifrauddetector.dto.RiskLevel;
+import com.example.minifrauddetector.exception.ApiErrorResponse;
+import com.example.minifrauddetector.exception.UnsupportedCurrencyException;
+import com.example.minifrauddetector.service.FraudScoringService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Scores the records of mapped chunks in three steps: {@link #parse} validates the records of one chunk,
+ * {@link #score} scores one user partition of a group of parsed chunks in input order, and {@link #write} writes
+ * one NDJSON line per record of a chunk to a part file: the {@link FraudCheckResponse}, or an error record
+ * carrying the byte offset of the input line.
+ */
+final class ChunkScorer {
+
+    private final FraudScoringService fraudScoringService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter responseWriter;
+    private final ObjectWriter errorWriter;
+    private final RecordParser parser;
+
+    ChunkScorer(
+            FraudScoringService fraudScoringService,
+            Validator validator,
+            ObjectMapper objectMapper,
+            RecordParser parser) {
+        this.fraudScoringService = fraudScoringService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.responseWriter = objectMapper.writerFor(FraudCheckResponse.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.errorWriter = objectMapper.writerFor(RecordError.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.parser = parser;
+    }
+
+    ParsedChunk parse(TransactionLog log, TransactionLog.Chunk chunk) throws IOException {
+        MappedByteBuffer buffer = log.map(chunk);
+        ParsedChunk parsed = new ParsedChunk();
+        byte[] line = new byte[1024];
+
+        int limit = buffer.limit();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+            int length = contentEnd - lineStart;
+            if (length > 0) {
+                if (length > line.length) {
+                    line = new byte[Math.max(length, line.length * 2)];
+                }
+                buffer.get(lineStart, line, 0, length);
+                parsed.records.add(parseLine(line, length, chunk.start() + lineStart));
+            }
+            lineStart = lineEnd + 1;
+        }
+        return parsed;
+    }
+
+    /**
+     * Scores the valid records of {@code chunks} whose user falls into {@code partition} of {@code partitions},
+     * in input order. Every user belongs to exactly one partition, so velocity, profile and replay state see each
+     * user's transactions in the order of the file however many partitions are scored at once.
+     */
+    void score(List<ParsedChunk> chunks, int partition, int partitions) {
+        for (ParsedChunk chunk : chunks) {
+            List<Object> records = chunk.records;
+            for (int i = 0; i < records.size(); i++) {
+                if (records.get(i) instanceof FraudCheckRequest request
+                        && Math.floorMod(request.getUserId().hashCode(), partitions) == partition) {
+                    records.set(i, fraudScoringService.evaluate(request));
+                }
+            }
+        }
+    }
+
+    ChunkResult write(ParsedChunk chunk, Path part) throws IOException {
+        ChunkResult result = new ChunkResult();
+        try (OutputStream output = Files.newOutputStream(part);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.setRootValueSeparator(null);
+            for (Object record : chunk.records) {
+                result.records++;
+                if (record instanceof FraudCheckResponse response) {
+                    result.scored++;
+                    result.riskLevels[response.getRiskLevel().ordinal()]++;
+                    responseWriter.writeValue(generator, response);
+                } else {
+                    result.invalid++;
+                    errorWriter.writeValue(generator, (RecordError) record);
+                }
+                generator.writeRaw('\n');
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The request, or the {@link RecordError} that keeps it from being scored.
+     */
+    private Object parseLine(byte[] line, int length, long offset) {
+        FraudCheckRequest request;
+        try {
+            request = parser.parse(line, length);
+        } catch (IOException | RuntimeException exception) {
+            return new RecordError(offset, "Malformed record", null);
+        }
+
+        Set<ConstraintViolation<FraudCheckRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            List<ApiErrorResponse.FieldErrorItem> fieldErrors = violations.stream()
+                .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                .map(violation -> ApiErrorResponse.FieldErrorItem.builder()
+                    .field(violation.getPropertyPath().toString())
+                    .message(violation.getMessage())
+                    .build())
+                .toList();
+            return new RecordError(offset, "Validation failed", fieldErrors);
+        }
+        if (!fraudScoringService.supportsCurrency(request.getCurrency())) {
+            return new RecordError(offset, "Validation failed", List.of(UnsupportedCurrencyException.fieldError()));
+        }
+        return request;
+    }
+
+    record RecordError(long offset, String error, List<ApiErrorResponse.FieldErrorItem> fieldErrors) {
+    }
+
+    /**
+     * The records of one chunk in input order: a {@link FraudCheckRequest} until it is scored, then its
+     * {@link FraudCheckResponse}, or a {@link RecordError}.
+     */
+    static final class ParsedChunk {
+
+        final List<Object> records = new ArrayList<>();
+    }
+
+    static final class ChunkResult {
+
+        long records;
+        long scored;
+        long invalid;
+        final long[] riskLevels = new long[RiskLevel.values().length];
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.minifrauddetector.offline;
+
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Parses unquoted, comma-separated records whose columns are named by the header line after
+ * {@link FraudCheckRequest} properties. Unknown columns are ignored and missing ones stay {@code null}.
+ */
+final class CsvRecordParser implements RecordParser {
+
+    private static final List<String> COLUMNS = List.of(
+        "transactionId",
+        "userId",
+        "amount",
+        "currency",
+        "merchantCategory",
+        "country",
+        "timestamp",
+        "deviceTrusted",
+        "paymentMethod",
+        "ipAddress"
+    );
+
+    /** Position of each {@link #COLUMNS} entry in a record, or -1 when the header does not have it. */
+    private final int[] positions;
+    private final int fieldCount;
+
+    CsvRecordParser(String header) {
+        String[] names = header.split(",", -1);
+        this.fieldCount = names.length;
+        this.positions = new int[COLUMNS.size()];
+        Arrays.fill(positions, -1);
+        for (int i = 0; i < names.length; i++) {
+            int column = COLUMNS.indexOf(names[i].strip());
+            if (column >= 0) {
+                positions[column] = i;
+            }
+        }
+    }
+
+    @Override
+    public FraudCheckRequest parse(byte[] line, int length) {
+        String[] fields = new String(line, 0, length, StandardCharsets.UTF_8).split(",", -1);
+        if (fields.length != fieldCount) {
+            throw new IllegalArgumentException("Expected " + fieldCount + " fields but found " + fields.length);
+        }
+
+        FraudCheckRequest request = new FraudCheckRequest();
+        request.setTransactionId(field(fields, 0));
+        request.setUserId(field(fields, 1));
+        String amount = field(fields, 2);
+        request.setAmount(amount == null ? null : new BigDecimal(amount));
+        request.setCurrency(field(fields, 3));
+        request.setMerchantCategory(field(fields, 4));
+        request.setCountry(field(fields, 5));
+        String timestamp = field(fields, 6);
+        request.setTimestamp(timestamp == null ? null : Instant.parse(timestamp));
+        String deviceTrusted = field(fields, 7);
+        request.setDeviceTrusted(deviceTrusted == null ? null : Boolean.valueOf(deviceTrusted));
+        request.setPaymentMethod(field(fields, 8));
+        request.setIpAddress(field(fields, 9));
+        return request;
+    }
+
+    private String field(String[] fields, int column) {
+        int position = positions[column];
+        if (position < 0) {
+            return null;
+        }
+        String value = fields[position].strip();
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.minifrauddetector.offline;
+
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import java.io.IOException;
+
+/**
+ * Turns one line of a transaction export into a request. Implementations are shared between replay workers
+ * and must be thread-safe.
+ */
+interface RecordParser {
+
+    /**
+     * Parses {@code line[0, length)}, which excludes the line terminator. Throws {@link IOException} or an
+     * unchecked exception for a malformed line.
+     */
+    FraudCheckRequest parse(byte[] line, int length) throws IOException;
+}
@@ -0,0 +1,227 @@
+package com.example.minifrauddetector.offline;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.config.RuleSnapshotHolder;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.dto.RiskLevel;
+import com.example.minifrauddetector.metrics.ScoringMetrics;
+import com.example.minifrauddetector.service.FraudScoringService;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scores a transaction export file without the web stack (profile {@code replay}).
+ *
+ * <p>The input is cut into line-aligned chunks of {@code fraud.replay.chunk-size}, which are processed in waves
+ * of one chunk per {@code fraud.replay.threads} worker. The workers parse the chunks of a wave, then each worker
+ * scores the users of its own partition in input order, then each chunk is written to its own part file. The
+ * part files are concatenated in input order into {@code fraud.replay.output}. Counts per risk level and per rule
+ * are written to {@code <output>.summary.json}.
+ */
+@Component
+@Profile("replay")
+public class ReplayRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplayRunner.class);
+
+    private final FraudScoringService fraudScoringService;
+    private final RuleSnapshotHolder ruleSnapshotHolder;
+    private final ScoringMetrics scoringMetrics;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final FraudRulesProperties fraudRulesProperties;
+
+    public ReplayRunner(
+            FraudScoringService fraudScoringService,
+            RuleSnapshotHolder ruleSnapshotHolder,
+            ScoringMetrics scoringMetrics,
+            Validator validator,
+            ObjectMapper objectMapper,
+            FraudRulesProperties fraudRulesProperties) {
+        this.fraudScoringService = fraudScoringService;
+        this.ruleSnapshotHolder = ruleSnapshotHolder;
+        this.scoringMetrics = scoringMetrics;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.fraudRulesProperties = fraudRulesProperties;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        FraudRulesProperties.Replay replay = fraudRulesProperties.getReplay();
+        if (replay.getInput() == null || replay.getOutput() == null) {
+            throw new IllegalStateException("fraud.replay.input and fraud.replay.output must be set for the replay profile");
+        }
+
+        ReplaySummary summary = replay(replay);
+        Path summaryFile = replay.getOutput().resolveSibling(replay.getOutput().getFileName() + ".summary.json");
+        objectMapper.writer(SerializationFeature.INDENT_OUTPUT).writeValue(summaryFile.toFile(), summary);
+        log.info("Replayed {} records ({} scored, {} invalid) in {} ms, {} records/s; summary written to {}",
+            summary.getRecords(), summary.getScored(), summary.getInvalid(), summary.getElapsedMillis(),
+            summary.getRecordsPerSecond(), summaryFile);
+    }
+
+    ReplaySummary replay(FraudRulesProperties.Replay replay) throws IOException, InterruptedException {
+        int threads = replay.getThreads() > 0 ? replay.getThreads() : Runtime.getRuntime().availableProcessors();
+        Path output = replay.getOutput().toAbsolutePath();
+        Map<String, Long> hitsBefore = scoringMetrics.getRuleHitCounts();
+        long startNanos = System.nanoTime();
+
+        List<ChunkScorer.ChunkResult> results = new ArrayList<>();
+        List<Path> parts = new ArrayList<>();
+        try (TransactionLog transactionLog = TransactionLog.open(replay.getInput(), replay.getFormat());
+             ExecutorService workers = Executors.newFixedThreadPool(threads, Thread.ofPlatform().name("replay-", 0).factory())) {
+            ChunkScorer scorer = new ChunkScorer(fraudScoringService, validator, objectMapper, parser(transactionLog));
+            List<TransactionLog.Chunk> chunks = transactionLog.split(replay.getChunkSize().toBytes());
+            log.info("Replaying {} ({} bytes, {}) in {} chunks on {} threads",
+                replay.getInput(), transactionLog.size(), transactionLog.getFormat(), chunks.size(), threads);
+
+            for (int from = 0; from < chunks.size(); from += threads) {
+                List<TransactionLog.Chunk> wave = chunks.subList(from, Math.min(from + threads, chunks.size()));
+                List<Callable<ChunkScorer.ParsedChunk>> parsing = new ArrayList<>(wave.size());
+                for (TransactionLog.Chunk chunk : wave) {
+                    parsing.add(() -> scorer.parse(transactionLog, chunk));
+                }
+                List<ChunkScorer.ParsedChunk> parsed = runAll(workers, parsing, replay);
+
+                List<Callable<Void>> scoring = new ArrayList<>(threads);
+                for (int partition = 0; partition < threads; partition++) {
+                    int owned = partition;
+                    scoring.add(() -> {
+                        scorer.score(parsed, owned, threads);
+                        return null;
+                    });
+                }
+                runAll(workers, scoring, replay);
+
+                List<Callable<ChunkScorer.ChunkResult>> writing = new ArrayList<>(wave.size());
+                for (int i = 0; i < wave.size(); i++) {
+                    ChunkScorer.ParsedChunk chunk = parsed.get(i);
+                    Path part = output.resolveSibling(output.getFileName() + ".part" + wave.get(i).index());
+                    parts.add(part);
+                    writing.add(() -> scorer.write(chunk, part));
+                }
+                results.addAll(runAll(workers, writing, replay));
+            }
+            concatenate(parts, output);
+        } finally {
+            for (Path part : parts) {
+                Files.deleteIfExists(part);
+            }
+        }
+
+        return summarize(replay, results, hitsBefore, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Runs {@code tasks} on {@code workers} and returns their results in task order. The first failure stops the
+     * replay.
+     */
+    private static <T> List<T> runAll(
+            ExecutorService workers,
+            List<Callable<T>> tasks,
+            FraudRulesProperties.Replay replay) throws IOException, InterruptedException {
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            futures.add(workers.submit(task));
+        }
+        List<T> results = new ArrayList<>(tasks.size());
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException exception) {
+                workers.shutdownNow();
+                throw new IOException("Replay of " + replay.getInput() + " failed", exception.getCause());
+            }
+        }
+        return results;
+    }
+
+    private RecordParser parser(TransactionLog transactionLog) {
+        if (transactionLog.getFormat() == TransactionLog.Format.CSV) {
+            return new CsvRecordParser(transactionLog.getHeader());
+        }
+        ObjectReader reader = objectMapper.readerFor(FraudCheckRequest.class)
+            .with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+        return (line, length) -> reader.readValue(line, 0, length);
+    }
+
+    private void concatenate(List<Path> parts, Path output) throws IOException {
+        try (FileChannel target = FileChannel.open(output,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Path part : parts) {
+                try (FileChannel source = FileChannel.open(part, StandardOpenOption.READ)) {
+                    long size = source.size();
+                    long position = 0;
+                    while (position < size) {
+                        position += source.transferTo(position, size - position, target);
+                    }
+                }
+            }
+        }
+    }
+
+    private ReplaySummary summarize(
+            FraudRulesProperties.Replay replay,
+            List<ChunkScorer.ChunkResult> results,
+            Map<String, Long> hitsBefore,
+            long elapsedNanos) {
+        long records = 0;
+        long scored = 0;
+        long invalid = 0;
+        long[] riskLevels = new long[RiskLevel.values().length];
+        for (ChunkScorer.ChunkResult result : results) {
+            records += result.records;
+            scored += result.scored;
+            invalid += result.invalid;
+            for (int i = 0; i < riskLevels.length; i++) {
+                riskLevels[i] += result.riskLevels[i];
+            }
+        }
+
+        Map<RiskLevel, Long> riskLevelCounts = new EnumMap<>(RiskLevel.class);
+        for (RiskLevel riskLevel : RiskLevel.values()) {
+            riskLevelCounts.put(riskLevel, riskLevels[riskLevel.ordinal()]);
+        }
+        Map<String, Long> ruleHits = new TreeMap<>();
+        scoringMetrics.getRuleHitCounts().forEach((ruleId, count) ->
+            ruleHits.put(ruleId, count - hitsBefore.getOrDefault(ruleId, 0L)));
+
+        ReplaySummary summary = new ReplaySummary();
+        summary.setInput(replay.getInput().toString());
+        summary.setOutput(replay.getOutput().toString());
+        summary.setRuleVersion(ruleSnapshotHolder.current().getVersion());
+        summary.setRecords(records);
+        summary.setScored(scored);
+        summary.setInvalid(invalid);
+        summary.setElapsedMillis(elapsedNanos / 1_000_000);
+        summary.setRecordsPerSecond(elapsedNanos == 0 ? 0 : (long) (records / (elapsedNanos / 1e9)));
+        summary.setRiskLevels(riskLevelCounts);
+        summary.setRuleHits(ruleHits);
+        return summary;
+    }
+}
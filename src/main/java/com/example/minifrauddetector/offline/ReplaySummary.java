@@ -0,0 +1,20 @@
+package com.example.minifrauddetector.offline;
+
+import com.example.minifrauddetector.dto.RiskLevel;
+import java.util.Map;
+import lombok.Data;
+
+@Data
+public class ReplaySummary {
+
+    private String input;
+    private String output;
+    private long ruleVersion;
+    private long records;
+    private long scored;
+    private long invalid;
+    private long elapsedMillis;
+    private long recordsPerSecond;
+    private Map<RiskLevel, Long> riskLevels;
+    private Map<String, Long> ruleHits;
+}
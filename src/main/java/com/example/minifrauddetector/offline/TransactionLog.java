@@ -0,0 +1,147 @@
+package com.example.minifrauddetector.offline;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A read-only transaction export (NDJSON or CSV with a header line) that is split into line-aligned chunks, each
+ * of which can be memory-mapped and scored independently.
+ */
+final class TransactionLog implements Closeable {
+
+    private static final int SCAN_BLOCK_BYTES = 64 * 1024;
+
+    enum Format {
+        NDJSON,
+        CSV
+    }
+
+    record Chunk(int index, long start, long end) {
+    }
+
+    private final FileChannel channel;
+    private final long size;
+    private final Format format;
+    private final String header;
+    private final long dataStart;
+
+    private TransactionLog(FileChannel channel, Format format) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.format = format;
+        if (format == Format.CSV) {
+            long headerEnd = nextLineStart(0);
+            this.header = readLine(0, headerEnd);
+            this.dataStart = headerEnd;
+        } else {
+            this.header = null;
+            this.dataStart = 0;
+        }
+    }
+
+    /**
+     * Opens {@code path}; {@code format} is {@code ndjson}, {@code csv} or {@code auto} (CSV for a {@code .csv}
+     * file name, NDJSON otherwise).
+     */
+    static TransactionLog open(Path path, String format) throws IOException {
+        Format resolved = switch (format.toLowerCase(Locale.ROOT)) {
+            case "auto" -> path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv")
+                ? Format.CSV
+                : Format.NDJSON;
+            case "ndjson" -> Format.NDJSON;
+            case "csv" -> Format.CSV;
+            default -> throw new IllegalArgumentException("Unsupported replay format '" + format + "'");
+        };
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new TransactionLog(channel, resolved);
+        } catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Returns the CSV header line, or {@code null} for NDJSON.
+     */
+    String getHeader() {
+        return header;
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Cuts the data section into chunks of about {@code chunkBytes}, each extended to the end of the line it
+     * would otherwise split.
+     */
+    List<Chunk> split(long chunkBytes) throws IOException {
+        if (chunkBytes < 1 || chunkBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Replay chunk size must be between 1 byte and 2 GB");
+        }
+
+        List<Chunk> chunks = new ArrayList<>();
+        long start = dataStart;
+        while (start < size) {
+            long end = start + chunkBytes >= size ? size : nextLineStart(start + chunkBytes - 1);
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Line at byte " + start + " is longer than 2 GB");
+            }
+            chunks.add(new Chunk(chunks.size(), start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    MappedByteBuffer map(Chunk chunk) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, chunk.start(), chunk.end() - chunk.start());
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Returns the offset just after the first newline at or after {@code position}, or the file size.
+     */
+    private long nextLineStart(long position) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(SCAN_BLOCK_BYTES);
+        long offset = position;
+        while (offset < size) {
+            block.clear();
+            int read = channel.read(block, offset);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (block.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return size;
+    }
+
+    private String readLine(long start, long end) throws IOException {
+        ByteBuffer line = ByteBuffer.allocate((int) Math.min(end - start, SCAN_BLOCK_BYTES));
+        channel.read(line, start);
+        return new String(line.array(), 0, line.position(), StandardCharsets.UTF_8).strip();
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.minifrauddetector.overload;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adaptive limit on the number of transactions scored at once, adjusted by AIMD on the measured scoring time.
+ * A transaction that took longer than {@code fraud.overload.latency-threshold} cuts the limit by
+ * {@code fraud.overload.backoff-ratio}, unless it got its permit before the last cut: the transactions that were
+ * already in flight when the service got slow cut the limit once, not once each. A faster one raises it by one, but
+ * only while at least half of the limit is in use, so a quiet service does not build up a limit it has never
+ * tested. The limit stays between {@code min-limit} and {@code max-limit}.
+ *
+ * <p>Once the CPU is saturated, every extra transaction scored in parallel only makes each one slower. A
+ * transaction that does not get a permit is scored by the degraded plan instead of waiting. Acquiring and
+ * releasing a permit is a few atomic operations; nothing blocks.
+ */
+@Component
+public class ConcurrencyLimiter {
+
+    /**
+     * Returned by {@link #acquire()} when the limit is reached.
+     */
+    public static final long SHED = Long.MIN_VALUE;
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong lastDecreaseNanos = new AtomicLong(System.nanoTime());
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+
+    public ConcurrencyLimiter(FraudRulesProperties fraudRulesProperties, MeterRegistry meterRegistry) {
+        FraudRulesProperties.Overload overload = fraudRulesProperties.getOverload();
+        this.enabled = overload.isEnabled();
+        this.minLimit = overload.getMinLimit();
+        this.maxLimit = overload.getMaxLimit();
+        this.latencyThresholdNanos = overload.getLatencyThreshold().toNanos();
+        this.backoffRatio = overload.getBackoffRatio();
+        this.limit = new AtomicInteger(overload.getInitialLimit());
+        if (!enabled) {
+            return;
+        }
+        if (minLimit < 1 || maxLimit < minLimit || overload.getInitialLimit() < minLimit || overload.getInitialLimit() > maxLimit) {
+            throw new IllegalArgumentException(
+                "fraud.overload limits must satisfy 1 <= min-limit <= initial-limit <= max-limit");
+        }
+        if (latencyThresholdNanos <= 0) {
+            throw new IllegalArgumentException("fraud.overload.latency-threshold must be positive");
+        }
+        if (!(backoffRatio > 0 && backoffRatio < 1)) {
+            throw new IllegalArgumentException("fraud.overload.backoff-ratio must be between 0 and 1");
+        }
+
+        Gauge.builder("fraud.limiter.limit", limit, AtomicInteger::get)
+            .description("Current concurrency limit on scoring")
+            .register(meterRegistry);
+        Gauge.builder("fraud.limiter.in-flight", inFlight, AtomicInteger::get)
+            .description("Transactions being scored with a permit")
+            .register(meterRegistry);
+        register(meterRegistry, "accepted", accepted);
+        register(meterRegistry, "shed", shed);
+    }
+
+    /**
+     * Limiter that hands out a permit to every caller.
+     */
+    public static ConcurrencyLimiter disabled() {
+        return new ConcurrencyLimiter(new FraudRulesProperties(), null);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes a permit. Returns a token to pass to {@link #release}, or {@link #SHED} when the limit is reached.
+     */
+    public long acquire() {
+        if (!enabled) {
+            return 0;
+        }
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit.get()) {
+                shed.increment();
+                return SHED;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        accepted.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * Returns the permit taken by {@link #acquire} and adjusts the limit by how long it was held.
+     */
+    public void release(long token) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        int held = inFlight.getAndDecrement();
+        if (now - token > latencyThresholdNanos) {
+            long lastDecrease = lastDecreaseNanos.get();
+            if (token - lastDecrease > 0 && lastDecreaseNanos.compareAndSet(lastDecrease, now)) {
+                limit.updateAndGet(current -> Math.max(minLimit, (int) (current * backoffRatio)));
+            }
+        } else if (held * 2 >= limit.get()) {
+            limit.updateAndGet(current -> Math.min(maxLimit, current + 1));
+        }
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private static void register(MeterRegistry meterRegistry, String outcome, LongAdder count) {
+        FunctionCounter.builder("fraud.limiter.requests", count, LongAdder::sum)
+            .description("Transactions offered to the concurrency limiter, by outcome")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+}
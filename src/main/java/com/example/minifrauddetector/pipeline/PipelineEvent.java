@@ -0,0 +1,30 @@
+package com.example.minifrauddetector.pipeline;
+
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.dto.FraudCheckResponse;
+import com.example.minifrauddetector.rules.ScoringContext;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One slot of the pipeline ring. Slots are allocated once and reused for every request that passes through
+ * them; each field is written by one stage and read by the stages after it, and the respond stage clears them
+ * before the slot is handed out again.
+ */
+final class PipelineEvent {
+
+    FraudCheckRequest request;
+    long permit;
+    CompletableFuture<FraudCheckResponse> result;
+    long startNanos;
+    ScoringContext context;
+    FraudCheckResponse response;
+    Throwable failure;
+
+    void clear() {
+        request = null;
+        result = null;
+        context = null;
+        response = null;
+        failure = null;
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.minifrauddetector.pipeline;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.dto.FraudCheckResponse;
+import com.example.minifrauddetector.rules.ScoringContext;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scores single requests on three dedicated threads instead of the request thread: enrich (FX conversion,
+ * velocity, profile and replay state), score (rules, model and decision) and respond (completing the future the
+ * request thread returned to the servlet container).
+ *
+ * <p>Requests travel through one ring of preallocated {@link PipelineEvent} slots, in the manner of the LMAX
+ * Disruptor. Request threads claim a sequence with one CAS and publish the slot by storing its sequence. Each
+ * stage then owns a cursor, written by its thread alone, that marks the last sequence it has finished; a stage
+ * reads up to the cursor of the stage before it, takes at most {@code fraud.pipeline.batch-size} slots at once
+ * and moves its own cursor once per batch. A slot is claimed again only after the respond stage has passed it,
+ * and a full ring rejects the request instead of waiting, so that the caller can score it inline.
+ */
+@Component
+public final class ScoringPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(ScoringPipeline.class);
+
+    private static final int SPINS_BEFORE_PARKING = 64;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long STOP_TIMEOUT_MILLIS = 10_000;
+    // Counters sit 16 longs (two cache lines) apart, so that the threads writing them do not share a line.
+    private static final int COUNTER_SPACING = 16;
+    private static final int CLAIMED = 0;
+
+    private final PipelineEvent[] events;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final int batchSize;
+    // The last claimed sequence, then the cursor of each stage: the last sequence it has finished.
+    private final AtomicLongArray counters = new AtomicLongArray(4 * COUNTER_SPACING);
+    private final Stage enrich = new Stage("enrich", 1);
+    private final Stage score = new Stage("score", 2);
+    private final Stage respond = new Stage("respond", 3);
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile boolean stopping;
+    private volatile Stages stages;
+
+    /**
+     * The scoring work, supplied by the service that owns the pipeline. Both stages receive the {@code permit}
+     * the request was submitted with; a request that fails in {@link #enrich} never reaches {@link #score}.
+     */
+    public interface Stages {
+
+        /**
+         * Converts the request and updates the user's state. Runs on the enrich thread.
+         */
+        ScoringContext enrich(FraudCheckRequest request, long permit);
+
+        /**
+         * Scores an enriched request. Runs on the score thread; {@code startNanos} is when enrichment began.
+         */
+        FraudCheckResponse score(ScoringContext context, long startNanos, long permit);
+    }
+
+    public ScoringPipeline(FraudRulesProperties fraudRulesProperties, MeterRegistry meterRegistry) {
+        FraudRulesProperties.Pipeline pipeline = fraudRulesProperties.getPipeline();
+        if (!pipeline.isEnabled()) {
+            this.events = null;
+            this.published = null;
+            this.mask = 0;
+            this.batchSize = 0;
+            return;
+        }
+        if (pipeline.getBufferSize() < 2 || pipeline.getBufferSize() > 1 << 30) {
+            throw new IllegalArgumentException("fraud.pipeline.buffer-size must be between 2 and 2^30");
+        }
+        if (pipeline.getBatchSize() < 1) {
+            throw new IllegalArgumentException("fraud.pipeline.batch-size must be positive");
+        }
+        int size = Integer.highestOneBit(pipeline.getBufferSize());
+        if (size < pipeline.getBufferSize()) {
+            size <<= 1;
+        }
+        this.events = new PipelineEvent[size];
+        this.published = new AtomicLongArray(size);
+        for (int slot = 0; slot < size; slot++) {
+            events[slot] = new PipelineEvent();
+            published.set(slot, -1);
+        }
+        this.mask = size - 1;
+        this.batchSize = pipeline.getBatchSize();
+        for (int counter = 0; counter < 4; counter++) {
+            counters.set(counter * COUNTER_SPACING, -1);
+        }
+
+        register(meterRegistry, "queued", queued);
+        register(meterRegistry, "rejected", rejected);
+        Gauge.builder("fraud.pipeline.pending", this, ScoringPipeline::pending)
+            .description("Requests in the scoring pipeline that have not been answered yet")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Pipeline that rejects every request.
+     */
+    public static ScoringPipeline disabled() {
+        return new ScoringPipeline(new FraudRulesProperties(), null);
+    }
+
+    public boolean isEnabled() {
+        return events != null;
+    }
+
+    /**
+     * Starts the stage threads. Does nothing when the pipeline is disabled.
+     *
+     * @throws IllegalStateException when the pipeline was already started
+     */
+    public synchronized void start(Stages stages) {
+        if (events == null) {
+            return;
+        }
+        if (this.stages != null) {
+            throw new IllegalStateException("Scoring pipeline is already started");
+        }
+        this.stages = stages;
+        enrich.wire(this::enrich, null, score);
+        score.wire(this::score, enrich, respond);
+        respond.wire(this::respond, score, null);
+        for (Stage stage : new Stage[] {enrich, score, respond}) {
+            stage.thread.start();
+        }
+        log.info("Scoring pipeline started with {} slots and batches of up to {}", events.length, batchSize);
+    }
+
+    /**
+     * Queues {@code request} and returns the future of its response, or {@code null} when the pipeline is full,
+     * stopped or disabled. The request must not change afterwards; {@code permit} is passed on to the stages.
+     */
+    public CompletableFuture<FraudCheckResponse> submit(FraudCheckRequest request, long permit) {
+        if (stages == null || stopping) {
+            rejected.increment();
+            return null;
+        }
+        long sequence;
+        do {
+            sequence = counters.get(CLAIMED) + 1;
+            if (sequence - events.length > respond.cursor()) {
+                rejected.increment();
+                return null;
+            }
+        } while (!counters.compareAndSet(CLAIMED, sequence - 1, sequence));
+
+        int slot = (int) sequence & mask;
+        PipelineEvent event = events[slot];
+        CompletableFuture<FraudCheckResponse> result = new CompletableFuture<>();
+        event.request = request;
+        event.permit = permit;
+        event.result = result;
+        published.set(slot, sequence);
+        queued.increment();
+        enrich.wake();
+        return result;
+    }
+
+    /**
+     * Stops taking requests and answers the ones already queued.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (stages == null) {
+            return;
+        }
+        stopping = true;
+        for (Stage stage : new Stage[] {enrich, score, respond}) {
+            LockSupport.unpark(stage.thread);
+            stage.thread.join(STOP_TIMEOUT_MILLIS);
+            if (stage.thread.isAlive()) {
+                log.warn("Scoring pipeline {} stage did not finish within {} ms", stage.name, STOP_TIMEOUT_MILLIS);
+            }
+        }
+    }
+
+    int capacity() {
+        return events.length;
+    }
+
+    private long pending() {
+        return counters.get(CLAIMED) - respond.cursor();
+    }
+
+    /**
+     * Exclusive end of the batch the enrich stage can take from {@code next}: the run of consecutive published
+     * sequences, since request threads may publish out of claim order.
+     */
+    private long enrichable(long next) {
+        long end = next;
+        while (end - next < batchSize && published.get((int) end & mask) == end) {
+            end++;
+        }
+        return end;
+    }
+
+    private void enrich(PipelineEvent event) {
+        event.startNanos = System.nanoTime();
+        try {
+            event.context = stages.enrich(event.request, event.permit);
+        } catch (RuntimeException | Error exception) {
+            event.failure = exception;
+        }
+    }
+
+    private void score(PipelineEvent event) {
+        if (event.failure != null) {
+            return;
+        }
+        try {
+            event.response = stages.score(event.context, event.startNanos, event.permit);
+        } catch (RuntimeException | Error exception) {
+            event.failure = exception;
+        }
+    }
+
+    private void respond(PipelineEvent event) {
+        CompletableFuture<FraudCheckResponse> result = event.result;
+        Throwable failure = event.failure;
+        FraudCheckResponse response = event.response;
+        event.clear();
+        if (failure != null) {
+            result.completeExceptionally(failure);
+        } else {
+            result.complete(response);
+        }
+    }
+
+    private void run(Stage stage) {
+        long next = 0;
+        int spins = 0;
+        while (true) {
+            long end = stage.upstream == null
+                ? enrichable(next)
+                : Math.min(stage.upstream.cursor() + 1, next + batchSize);
+            if (end > next) {
+                for (long sequence = next; sequence < end; sequence++) {
+                    stage.handler.handle(events[(int) sequence & mask]);
+                }
+                counters.set(stage.counter, end - 1);
+                if (stage.downstream != null) {
+                    stage.downstream.wake();
+                }
+                next = end;
+                spins = 0;
+                continue;
+            }
+            if (stopping && drained(stage, next)) {
+                break;
+            }
+            if (spins++ < SPINS_BEFORE_PARKING) {
+                Thread.onSpinWait();
+                continue;
+            }
+            stage.idle = true;
+            long available = stage.upstream == null ? enrichable(next) : stage.upstream.cursor() + 1;
+            if (available == next && !stopping) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+            stage.idle = false;
+        }
+        stage.finished = true;
+        if (stage.downstream != null) {
+            LockSupport.unpark(stage.downstream.thread);
+        }
+    }
+
+    /**
+     * Whether nothing more will reach {@code stage} once it has taken everything before {@code next}. Request
+     * threads check {@link #stopping} before they claim, and a stage finishes only after its last cursor move.
+     */
+    private boolean drained(Stage stage, long next) {
+        if (stage.upstream == null) {
+            return counters.get(CLAIMED) < next;
+        }
+        return stage.upstream.finished && stage.upstream.cursor() < next;
+    }
+
+    private static void register(MeterRegistry meterRegistry, String outcome, LongAdder count) {
+        FunctionCounter.builder("fraud.pipeline.requests", count, LongAdder::sum)
+            .description("Requests offered to the scoring pipeline")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    private interface Handler {
+
+        void handle(PipelineEvent event);
+    }
+
+    private final class Stage {
+
+        private final String name;
+        // Index of the stage's cursor in counters; written by the stage's own thread only.
+        private final int counter;
+        private Handler handler;
+        private Stage upstream;
+        private Stage downstream;
+        private Thread thread;
+        private volatile boolean idle;
+        private volatile boolean finished;
+
+        private Stage(String name, int position) {
+            this.name = name;
+            this.counter = position * COUNTER_SPACING;
+        }
+
+        private long cursor() {
+            return counters.get(counter);
+        }
+
+        private void wire(Handler handler, Stage upstream, Stage downstream) {
+            this.handler = handler;
+            this.upstream = upstream;
+            this.downstream = downstream;
+            this.thread = Thread.ofPlatform().name("pipeline-" + name).daemon(true).unstarted(() -> run(this));
+        }
+
+        private void wake() {
+            if (idle) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+}
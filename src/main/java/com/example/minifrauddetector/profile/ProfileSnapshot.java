@@ -0,0 +1,176 @@
+package com.example.minifrauddetector.profile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary snapshot of the profile store. A header (magic number, format version, time of the snapshot) is
+ * followed by one record per user: the id as a 2-byte length and UTF-8 bytes, then the last-seen second,
+ * the transaction count, the amount mean and sum of squared deviations, the packed countries and the
+ * {@value ProfileStore#HOURS} hour counters. A zero id length ends the records; the trailer holds the number of
+ * records and a CRC-32C of everything before it.
+ *
+ * <p>Both directions go through one reusable buffer over a {@link FileChannel}, so loading costs little more
+ * than reading the file and creating the id strings.
+ */
+final class ProfileSnapshot {
+
+    private static final int MAGIC = 0x46445052;
+    private static final int VERSION = 1;
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final int MAX_KEY_BYTES = 0xFFFF;
+    private static final int FIELD_BYTES = 4 + 4 + 8 + 8 + 8 + ProfileStore.HOURS;
+
+    private ProfileSnapshot() {
+    }
+
+    /**
+     * Receives one record; the hour counters are {@code hours[offset]} to {@code hours[offset + 23]}.
+     */
+    @FunctionalInterface
+    interface Sink {
+
+        void accept(String key, int lastSeen, int count, double mean, double m2, long countries, byte[] hours, int offset);
+    }
+
+    /**
+     * Reads every record of {@code file} into {@code sink} and returns the number of records.
+     *
+     * @throws IOException when the file is not a complete snapshot or fails its checksum
+     */
+    static long read(Path file, Sink sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).flip();
+            CRC32C crc = new CRC32C();
+            require(channel, buffer, crc, 16);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException(file + " is not a version " + VERSION + " profile snapshot");
+            }
+            buffer.getLong();
+
+            long records = 0;
+            while (true) {
+                require(channel, buffer, crc, 2);
+                int keyLength = buffer.getShort() & 0xFFFF;
+                if (keyLength == 0) {
+                    break;
+                }
+                require(channel, buffer, crc, keyLength + FIELD_BYTES);
+                String key = new String(buffer.array(), buffer.position(), keyLength, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + keyLength);
+                int lastSeen = buffer.getInt();
+                int count = buffer.getInt();
+                double mean = buffer.getDouble();
+                double m2 = buffer.getDouble();
+                long countries = buffer.getLong();
+                sink.accept(key, lastSeen, count, mean, m2, countries, buffer.array(), buffer.position());
+                buffer.position(buffer.position() + ProfileStore.HOURS);
+                records++;
+            }
+
+            require(channel, buffer, crc, 8);
+            long expectedRecords = buffer.getLong();
+            crc.update(buffer.array(), 0, buffer.position());
+            int checksum = (int) crc.getValue();
+            require(channel, buffer, null, 4);
+            if (buffer.getInt() != checksum) {
+                throw new IOException(file + " fails its checksum");
+            }
+            if (expectedRecords != records) {
+                throw new IOException(file + " holds " + records + " records but its trailer says " + expectedRecords);
+            }
+            return records;
+        }
+    }
+
+    // Makes at least n bytes readable. Bytes consumed so far are added to the checksum before they are discarded.
+    private static void require(FileChannel channel, ByteBuffer buffer, CRC32C crc, int n) throws IOException {
+        if (buffer.remaining() >= n) {
+            return;
+        }
+        if (crc != null) {
+            crc.update(buffer.array(), 0, buffer.position());
+        }
+        buffer.compact();
+        while (buffer.position() < n) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("profile snapshot ends early");
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Writes a snapshot. The file is forced to disk on close.
+     */
+    static final class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        private final CRC32C crc = new CRC32C();
+        private long records;
+
+        private Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        static Writer open(Path file, long savedAtMillis) throws IOException {
+            Writer writer = new Writer(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+            writer.buffer.putInt(MAGIC).putInt(VERSION).putLong(savedAtMillis);
+            return writer;
+        }
+
+        void write(String key, int lastSeen, int count, double mean, double m2, long countries, byte[] hours, int offset)
+                throws IOException {
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            if (keyBytes.length == 0 || keyBytes.length > MAX_KEY_BYTES) {
+                return;
+            }
+            ensure(2 + keyBytes.length + FIELD_BYTES);
+            buffer.putShort((short) keyBytes.length).put(keyBytes)
+                .putInt(lastSeen).putInt(count).putDouble(mean).putDouble(m2).putLong(countries)
+                .put(hours, offset, ProfileStore.HOURS);
+            records++;
+        }
+
+        long records() {
+            return records;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                ensure(2 + 8 + 4);
+                buffer.putShort((short) 0).putLong(records);
+                crc.update(buffer.array(), 0, buffer.position());
+                buffer.putInt((int) crc.getValue());
+                drain();
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        }
+
+        private void ensure(int n) throws IOException {
+            if (buffer.remaining() < n) {
+                crc.update(buffer.array(), 0, buffer.position());
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
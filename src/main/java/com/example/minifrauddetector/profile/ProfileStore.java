@@ -0,0 +1,417 @@
+package com.example.minifrauddetector.profile;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.rules.ScoringContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-user behavioral profiles: a running mean and variance of the amount (Welford), the last
+ * {@value #COUNTRIES_PER_USER} distinct countries and a histogram of the UTC hour of day. {@link #observe} hands
+ * a transaction's rules the profile as it was before the transaction and then adds the transaction to it.
+ *
+ * <p>Users are spread over independently locked stripes that keep every field in flat primitive arrays indexed
+ * by slot (about 80 bytes per user besides the id string) and find slots through an open-addressing table.
+ * Countries are packed into one {@code long} as 10-bit codes, most recent first. The hour histogram is 24
+ * byte-sized counters that are all halved when one of them would overflow, so it leans towards recent behavior.
+ * When a stripe is full, roughly the least recently seen sixteenth of its users is dropped at once.
+ *
+ * <p>With {@code fraud.profile.snapshot-file} set, the profiles are loaded from the file at startup and written
+ * back every {@code fraud.profile.snapshot-interval} and at shutdown (see {@link ProfileSnapshot}).
+ */
+@Component
+public class ProfileStore {
+
+    static final int HOURS = 24;
+    static final int COUNTRIES_PER_USER = 6;
+
+    private static final Logger log = LoggerFactory.getLogger(ProfileStore.class);
+
+    // Last-seen times are seconds counted from 2020-01-01 so they fit in an int.
+    private static final long EPOCH_BASE_SECOND = 1_577_836_800L;
+    private static final int COUNTRY_BITS = 10;
+    private static final long COUNTRY_MASK = (1L << COUNTRY_BITS) - 1;
+    private static final long COUNTRIES_MASK = (1L << COUNTRY_BITS * COUNTRIES_PER_USER) - 1;
+    private static final int EVICTION_SAMPLES = 64;
+
+    private final boolean enabled;
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final Path snapshotFile;
+    private final long snapshotIntervalMillis;
+    private final LongSupplier clock;
+    private ScheduledExecutorService snapshots;
+
+    @Autowired
+    public ProfileStore(FraudRulesProperties fraudRulesProperties) {
+        this(fraudRulesProperties.getProfile(), System::currentTimeMillis);
+    }
+
+    ProfileStore(FraudRulesProperties.Profile profile, LongSupplier clock) {
+        this.enabled = profile.isEnabled();
+        this.clock = clock;
+        this.snapshotFile = profile.getSnapshotFile();
+        this.snapshotIntervalMillis = profile.getSnapshotInterval().toMillis();
+        if (!enabled) {
+            this.stripes = new Stripe[0];
+            this.stripeMask = 0;
+            return;
+        }
+        if (profile.getMaxUsers() < 1) {
+            throw new IllegalArgumentException("fraud.profile.max-users must be at least 1");
+        }
+        if (snapshotFile != null && snapshotIntervalMillis < 1) {
+            throw new IllegalArgumentException("fraud.profile.snapshot-interval must be positive");
+        }
+        int stripeCount = Integer.highestOneBit(Math.max(1, Math.min(profile.getStripes(), profile.getMaxUsers())));
+        int slotsPerStripe = Math.max(1, profile.getMaxUsers() / stripeCount);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(slotsPerStripe);
+        }
+        this.stripeMask = stripeCount - 1;
+    }
+
+    /**
+     * Store that keeps no profiles.
+     */
+    public static ProfileStore disabled() {
+        return new ProfileStore(new FraudRulesProperties().getProfile(), System::currentTimeMillis);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets the user's profile before this transaction on {@code context} and adds the transaction to it.
+     */
+    public void observe(ScoringContext context) {
+        if (!enabled) {
+            return;
+        }
+        FraudCheckRequest request = context.getRequest();
+        String userId = request.getUserId();
+        int country = countryCode(request.getCountry());
+        int hour = context.getHourUtc();
+        int now = nowSeconds();
+
+        int hash = spread(userId.hashCode());
+        Stripe stripe = stripes[hash & stripeMask];
+        synchronized (stripe) {
+            int slot = stripe.acquire(userId, hash, now);
+            int count = stripe.counts[slot];
+            double stdDev = count > 1 ? Math.sqrt(stripe.m2s[slot] / (count - 1)) : 0;
+            boolean countrySeen = country == 0 || containsCountry(stripe.countries[slot], country);
+            int hourBase = slot * HOURS;
+            int total = 0;
+            for (int h = hourBase; h < hourBase + HOURS; h++) {
+                total += stripe.hours[h] & 0xFF;
+            }
+            double hourShare = total == 0 ? 0 : (double) (stripe.hours[hourBase + hour] & 0xFF) / total;
+            context.setProfile(count, stripe.means[slot], stdDev, countrySeen, hourShare);
+
+            if (count < Integer.MAX_VALUE) {
+                stripe.counts[slot] = ++count;
+            }
+            double amount = context.getAmountCents();
+            double delta = amount - stripe.means[slot];
+            stripe.means[slot] += delta / count;
+            stripe.m2s[slot] += delta * (amount - stripe.means[slot]);
+            if (!countrySeen) {
+                stripe.countries[slot] = (stripe.countries[slot] << COUNTRY_BITS | country) & COUNTRIES_MASK;
+            }
+            if (stripe.hours[hourBase + hour] == (byte) 0xFF) {
+                for (int h = hourBase; h < hourBase + HOURS; h++) {
+                    stripe.hours[h] = (byte) ((stripe.hours[h] & 0xFF) >>> 1);
+                }
+            }
+            stripe.hours[hourBase + hour]++;
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled || snapshotFile == null) {
+            return;
+        }
+        if (Files.exists(snapshotFile)) {
+            load();
+        }
+        snapshots = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("profile-snapshot").daemon(true).factory());
+        snapshots.scheduleWithFixedDelay(this::saveQuietly, snapshotIntervalMillis, snapshotIntervalMillis,
+            TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (snapshots != null) {
+            snapshots.shutdown();
+            saveQuietly();
+        }
+    }
+
+    /**
+     * Writes every profile to {@code fraud.profile.snapshot-file}, replacing the previous snapshot only once the
+     * new one is complete. Each stripe is copied under its lock and written outside it, so scoring waits for a
+     * copy of one stripe at most.
+     *
+     * @return the number of profiles written
+     */
+    public synchronized long save() throws IOException {
+        long startNanos = System.nanoTime();
+        long written;
+        Path temporary = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (ProfileSnapshot.Writer writer = ProfileSnapshot.Writer.open(temporary, clock.getAsLong())) {
+            for (Stripe stripe : stripes) {
+                Stripe copy;
+                synchronized (stripe) {
+                    copy = stripe.copy();
+                }
+                for (int slot = 0; slot < copy.capacity; slot++) {
+                    if (copy.keys[slot] != null) {
+                        writer.write(copy.keys[slot], copy.lastSeen[slot], copy.counts[slot], copy.means[slot],
+                            copy.m2s[slot], copy.countries[slot], copy.hours, slot * HOURS);
+                    }
+                }
+            }
+            written = writer.records();
+        }
+        Files.move(temporary, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Saved {} user profiles to {} in {} ms", written, snapshotFile, (System.nanoTime() - startNanos) / 1_000_000);
+        return written;
+    }
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException | RuntimeException exception) {
+            log.error("Could not save user profiles to {}", snapshotFile, exception);
+        }
+    }
+
+    // A snapshot that cannot be read is moved aside rather than overwritten by the next save.
+    private void load() {
+        long startNanos = System.nanoTime();
+        try {
+            long loaded = ProfileSnapshot.read(snapshotFile, (key, lastSeen, count, mean, m2, countries, hours, offset) -> {
+                int hash = spread(key.hashCode());
+                Stripe stripe = stripes[hash & stripeMask];
+                synchronized (stripe) {
+                    int slot = stripe.acquire(key, hash, lastSeen);
+                    stripe.lastSeen[slot] = lastSeen;
+                    stripe.counts[slot] = count;
+                    stripe.means[slot] = mean;
+                    stripe.m2s[slot] = m2;
+                    stripe.countries[slot] = countries;
+                    System.arraycopy(hours, offset, stripe.hours, slot * HOURS, HOURS);
+                }
+            });
+            log.info("Loaded {} user profiles from {} in {} ms", loaded, snapshotFile, (System.nanoTime() - startNanos) / 1_000_000);
+        } catch (IOException | RuntimeException exception) {
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    stripe.clear();
+                }
+            }
+            Path aside = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".unreadable");
+            log.error("Could not load user profiles from {}; starting without profiles and moving it to {}",
+                snapshotFile, aside, exception);
+            try {
+                Files.move(snapshotFile, aside, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException moveException) {
+                throw new IllegalStateException("Cannot move unreadable profile snapshot " + snapshotFile, moveException);
+            }
+        }
+    }
+
+    private int nowSeconds() {
+        return (int) Math.min(Integer.MAX_VALUE, clock.getAsLong() / 1000 - EPOCH_BASE_SECOND);
+    }
+
+    // Two letters A-Z map to 1..676; anything else is 0 and never tracked.
+    static int countryCode(String country) {
+        if (country == null || country.length() != 2) {
+            return 0;
+        }
+        int first = Character.toUpperCase(country.charAt(0)) - 'A';
+        int second = Character.toUpperCase(country.charAt(1)) - 'A';
+        if (first < 0 || first >= 26 || second < 0 || second >= 26) {
+            return 0;
+        }
+        return first * 26 + second + 1;
+    }
+
+    private static boolean containsCountry(long countries, int country) {
+        for (int i = 0; i < COUNTRIES_PER_USER; i++) {
+            if ((countries >>> i * COUNTRY_BITS & COUNTRY_MASK) == country) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Stripe {
+
+        private final int capacity;
+        private final String[] keys;
+        private final int[] keyHashes;
+        private final int[] lastSeen;
+        private final int[] counts;
+        private final double[] means;
+        private final double[] m2s;
+        private final long[] countries;
+        private final byte[] hours;
+        private final int[] freeSlots;
+        private final int[] table;
+        private final int tableMask;
+        private int freeTop;
+        private int size;
+
+        private Stripe(int capacity) {
+            this(capacity, new String[capacity], new int[capacity], new int[capacity], new double[capacity],
+                new double[capacity], new long[capacity], new byte[capacity * HOURS], true);
+        }
+
+        private Stripe(int capacity, String[] keys, int[] lastSeen, int[] counts, double[] means, double[] m2s,
+                long[] countries, byte[] hours, boolean indexed) {
+            this.capacity = capacity;
+            this.keys = keys;
+            this.lastSeen = lastSeen;
+            this.counts = counts;
+            this.means = means;
+            this.m2s = m2s;
+            this.countries = countries;
+            this.hours = hours;
+            this.keyHashes = indexed ? new int[capacity] : null;
+            this.freeSlots = indexed ? new int[capacity] : null;
+            this.table = indexed ? new int[Integer.highestOneBit(capacity * 2 - 1) << 1] : null;
+            this.tableMask = indexed ? table.length - 1 : 0;
+            if (indexed) {
+                clear();
+            }
+        }
+
+        /**
+         * Unindexed copy of the profile fields, for writing a snapshot outside the lock.
+         */
+        private Stripe copy() {
+            return new Stripe(capacity, keys.clone(), lastSeen.clone(), counts.clone(), means.clone(), m2s.clone(),
+                countries.clone(), hours.clone(), false);
+        }
+
+        private void clear() {
+            Arrays.fill(keys, null);
+            Arrays.fill(table, 0);
+            for (int i = 0; i < capacity; i++) {
+                freeSlots[i] = capacity - 1 - i;
+            }
+            freeTop = capacity;
+            size = 0;
+        }
+
+        private int acquire(String key, int hash, int now) {
+            int position = (hash >>> 8) & tableMask;
+            for (int entry = table[position]; entry != 0; entry = table[position]) {
+                int slot = entry - 1;
+                if (keyHashes[slot] == hash && keys[slot].equals(key)) {
+                    lastSeen[slot] = now;
+                    return slot;
+                }
+                position = (position + 1) & tableMask;
+            }
+
+            if (freeTop == 0) {
+                evict();
+                return acquire(key, hash, now);
+            }
+
+            int slot = freeSlots[--freeTop];
+            keys[slot] = key;
+            keyHashes[slot] = hash;
+            lastSeen[slot] = now;
+            counts[slot] = 0;
+            means[slot] = 0;
+            m2s[slot] = 0;
+            countries[slot] = 0;
+            Arrays.fill(hours, slot * HOURS, (slot + 1) * HOURS, (byte) 0);
+            table[position] = slot + 1;
+            size++;
+            return slot;
+        }
+
+        // The cut-off is estimated from evenly spaced samples, so a full stripe is scanned once per ~capacity/16
+        // new users rather than once per new user.
+        private void evict() {
+            int samples = Math.min(EVICTION_SAMPLES, capacity);
+            int[] sampled = new int[samples];
+            for (int i = 0; i < samples; i++) {
+                sampled[i] = lastSeen[(int) ((long) i * capacity / samples)];
+            }
+            Arrays.sort(sampled);
+            int cutoff = sampled[samples / 16];
+            for (int slot = 0; slot < capacity; slot++) {
+                if (keys[slot] != null && lastSeen[slot] <= cutoff) {
+                    remove(slot);
+                }
+            }
+        }
+
+        private void remove(int slot) {
+            int position = (keyHashes[slot] >>> 8) & tableMask;
+            while (table[position] != slot + 1) {
+                position = (position + 1) & tableMask;
+            }
+            table[position] = 0;
+
+            // Backward-shift deletion keeps probe sequences intact without tombstones.
+            int next = (position + 1) & tableMask;
+            while (table[next] != 0) {
+                int home = (keyHashes[table[next] - 1] >>> 8) & tableMask;
+                boolean movable = position <= next
+                    ? home <= position || home > next
+                    : home <= position && home > next;
+                if (movable) {
+                    table[position] = table[next];
+                    table[next] = 0;
+                    position = next;
+                }
+                next = (next + 1) & tableMask;
+            }
+
+            keys[slot] = null;
+            freeSlots[freeTop++] = slot;
+            size--;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.minifrauddetector.replay;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.rules.ScoringContext;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers transaction fingerprints for {@code fraud.replay-detection.window} in time-sliced Bloom filters, so
+ * that a repeated payload is recognized without keeping every fingerprint. The window is cut into
+ * {@code slices}; new fingerprints go into the newest slice, and when a slice's time is up the oldest one is
+ * cleared and becomes the newest. One more slice than the window needs is kept, so a fingerprint is remembered for
+ * at least the window and at most one slice longer. A further spare slice, the next newest, is never probed: it is
+ * cleared on a background thread after each rotation, so the request that triggers a rotation does not have to
+ * clear tens of megabytes.
+ *
+ * <p>Each slice is a plain {@code long[]} bitset sized for its share of {@code expected-insertions}. A lookup
+ * probes every slice, so each one is sized for {@code false-positive-rate} divided by the number of slices. The
+ * filters are blocked: all bits of one fingerprint fall into one 512-bit block, so a slice costs one cache miss
+ * instead of one per hash. Blocks fill unevenly, which takes {@link #BLOCK_OVERHEAD} times the bits of a classic
+ * Bloom filter to make up for; a rate below {@link #MIN_FALSE_POSITIVE_RATE} is not reached with that overhead and
+ * is rejected.
+ *
+ * <p>Bits are set with an atomic OR through a {@link VarHandle}, and only when a plain read shows them clear.
+ * Whether the newest slice already held every bit is decided by those same atomic operations, so two concurrent
+ * copies of one payload are never both missed.
+ */
+@Component
+public class ReplayFilter {
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final double LN2 = Math.log(2);
+    private static final int BLOCK_WORDS = 8;
+    // Extra bits that bring the blocked layout back to the configured rate, measured at 0.001 and 0.01.
+    private static final double BLOCK_OVERHEAD = 1.7;
+    static final double MIN_FALSE_POSITIVE_RATE = 0.001;
+
+    private final boolean enabled;
+    private final long[][] slices;
+    private final long blocks;
+    private final int hashes;
+    private final long sliceMillis;
+    private final long bucketSeconds;
+    private final LongSupplier clock;
+    private final ExecutorService clearer;
+    private final LongAdder fresh = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private volatile int newest;
+    private volatile long newestEpoch;
+    // Clearing of the spare slice after the last rotation; guarded by this.
+    private CompletableFuture<Void> clearing = CompletableFuture.completedFuture(null);
+
+    @Autowired
+    public ReplayFilter(FraudRulesProperties fraudRulesProperties, MeterRegistry meterRegistry) {
+        this(fraudRulesProperties.getReplayDetection(), System::currentTimeMillis);
+        if (enabled) {
+            register(meterRegistry, "new", fresh);
+            register(meterRegistry, "replayed", replayed);
+        }
+    }
+
+    public ReplayFilter(FraudRulesProperties.ReplayDetection replayDetection, LongSupplier clock) {
+        this.enabled = replayDetection.isEnabled();
+        this.clock = clock;
+        if (!enabled) {
+            this.slices = new long[0][];
+            this.blocks = 0;
+            this.hashes = 0;
+            this.sliceMillis = 0;
+            this.bucketSeconds = 0;
+            this.clearer = null;
+            return;
+        }
+        int sliceCount = replayDetection.getSlices();
+        double falsePositiveRate = replayDetection.getFalsePositiveRate();
+        if (sliceCount < 1 || replayDetection.getExpectedInsertions() < 1) {
+            throw new IllegalArgumentException(
+                "fraud.replay-detection.slices and fraud.replay-detection.expected-insertions must be positive");
+        }
+        if (!(falsePositiveRate >= MIN_FALSE_POSITIVE_RATE && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("fraud.replay-detection.false-positive-rate must be at least "
+                + MIN_FALSE_POSITIVE_RATE + " and below 1");
+        }
+        this.sliceMillis = replayDetection.getWindow().toMillis() / sliceCount;
+        this.bucketSeconds = replayDetection.getTimeBucket().toSeconds();
+        if (sliceMillis < 1 || bucketSeconds < 1) {
+            throw new IllegalArgumentException(
+                "fraud.replay-detection.window must cover the slices and time-bucket must be at least a second");
+        }
+
+        double insertionsPerSlice = Math.ceil((double) replayDetection.getExpectedInsertions() / sliceCount);
+        double bitsPerInsertion = -Math.log(falsePositiveRate / (sliceCount + 1)) / (LN2 * LN2);
+        double bitsPerSlice = insertionsPerSlice * bitsPerInsertion * BLOCK_OVERHEAD;
+        this.blocks = (long) Math.ceil(bitsPerSlice / (BLOCK_WORDS * Long.SIZE));
+        if (blocks * BLOCK_WORDS > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("fraud.replay-detection needs more than 16GB per slice; add slices");
+        }
+        this.hashes = Math.max(1, (int) Math.round(bitsPerInsertion * LN2));
+        this.slices = new long[sliceCount + 2][];
+        for (int i = 0; i < slices.length; i++) {
+            slices[i] = new long[(int) blocks * BLOCK_WORDS];
+        }
+        this.newestEpoch = Math.floorDiv(clock.getAsLong(), sliceMillis);
+        this.clearer = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("replay-filter-clear").daemon(true).factory());
+    }
+
+    /**
+     * Filter that never reports a replay.
+     */
+    public static ReplayFilter disabled() {
+        return new ReplayFilter(new FraudRulesProperties().getReplayDetection(), System::currentTimeMillis);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PreDestroy
+    void stop() {
+        if (clearer != null) {
+            clearer.shutdownNow();
+        }
+    }
+
+    /**
+     * Records the transaction's fingerprint and marks the context as replayed when it was seen before.
+     */
+    public void observe(ScoringContext context) {
+        if (!enabled) {
+            return;
+        }
+        boolean seen = checkAndRecord(fingerprint(context.getRequest(), context.getAmountCents(), bucketSeconds));
+        context.setReplayed(seen);
+        (seen ? replayed : fresh).increment();
+    }
+
+    /**
+     * Adds {@code fingerprint} to the newest slice and returns whether any slice may already have held it.
+     */
+    public boolean checkAndRecord(long fingerprint) {
+        rotateIfDue();
+        int head = newest;
+        long[] words = slices[head];
+        int base = blockOf(fingerprint);
+        long probe = fmix64(fingerprint ^ 0x9e3779b97f4a7c15L);
+        long step = fmix64(probe) | 1L;
+        boolean present = true;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (int) (probe >>> 55);
+            int word = base + (bit >>> 6);
+            long mask = 1L << bit;
+            if ((words[word] & mask) == 0 && ((long) WORDS.getAndBitwiseOr(words, word, mask) & mask) == 0) {
+                present = false;
+            }
+            probe += step;
+        }
+        if (present) {
+            return true;
+        }
+        int spare = head + 1 == slices.length ? 0 : head + 1;
+        for (int i = 0; i < slices.length; i++) {
+            if (i != head && i != spare && contains(slices[i], fingerprint)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Bytes held by the bitsets.
+     */
+    public long memoryBytes() {
+        return (long) slices.length * blocks * BLOCK_WORDS * Long.BYTES;
+    }
+
+    public int getHashes() {
+        return hashes;
+    }
+
+    private boolean contains(long[] words, long fingerprint) {
+        int base = blockOf(fingerprint);
+        long probe = fmix64(fingerprint ^ 0x9e3779b97f4a7c15L);
+        long step = fmix64(probe) | 1L;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (int) (probe >>> 55);
+            if ((words[base + (bit >>> 6)] & 1L << bit) == 0) {
+                return false;
+            }
+            probe += step;
+        }
+        return true;
+    }
+
+    // First word of the fingerprint's block; every probe of one fingerprint lands in the same 512 bits.
+    private int blockOf(long fingerprint) {
+        return (int) Math.unsignedMultiplyHigh(fingerprint, blocks) * BLOCK_WORDS;
+    }
+
+    private void rotateIfDue() {
+        long epoch = Math.floorDiv(clock.getAsLong(), sliceMillis);
+        if (epoch > newestEpoch) {
+            rotate(epoch);
+        }
+    }
+
+    // Makes the spare slice the head and the oldest slice the spare, once per elapsed slice period. The spare is
+    // already clear unless its background clearing is still running, which is waited for; after a long pause the
+    // slices skipped over are cleared here. Writers still holding the previous head keep adding to it, which is
+    // where their fingerprints belong anyway.
+    private synchronized void rotate(long epoch) {
+        long elapsed = epoch - newestEpoch;
+        if (elapsed <= 0) {
+            return;
+        }
+        clearing.join();
+        int head = newest;
+        for (long i = 0; i < Math.min(elapsed, slices.length - 1); i++) {
+            head = (head + 1) % slices.length;
+            if (i > 0) {
+                Arrays.fill(slices[head], 0L);
+            }
+        }
+        newest = head;
+        newestEpoch = epoch;
+        long[] spare = slices[(head + 1) % slices.length];
+        clearing = CompletableFuture.runAsync(() -> Arrays.fill(spare, 0L), clearer);
+    }
+
+    /**
+     * 64-bit fingerprint of the user, amount, currency, country, IP address and the {@code bucketSeconds} bucket of
+     * the transaction time. Codes and the IP address are compared case-insensitively. Nothing is allocated.
+     */
+    public static long fingerprint(FraudCheckRequest request, long amountCents, long bucketSeconds) {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, request.getUserId(), false);
+        hash = mix(hash, request.getCurrency(), true);
+        hash = mix(hash, request.getCountry(), true);
+        hash = mix(hash, request.getIpAddress(), true);
+        hash = (hash ^ amountCents) * 0x100000001b3L;
+        hash = (hash ^ Math.floorDiv(request.getTimestamp().getEpochSecond(), bucketSeconds)) * 0x100000001b3L;
+        return fmix64(hash);
+    }
+
+    // FNV-1a over the characters, then the length, so that field boundaries cannot shift between fingerprints.
+    private static long mix(long hash, String value, boolean ignoreCase) {
+        if (value == null) {
+            return (hash ^ -1L) * 0x100000001b3L;
+        }
+        int from = 0;
+        int to = value.length();
+        while (from < to && value.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && value.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            hash = (hash ^ (ignoreCase ? Character.toUpperCase(c) : c)) * 0x100000001b3L;
+        }
+        return (hash ^ (to - from)) * 0x100000001b3L;
+    }
+
+    private static long fmix64(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static void register(MeterRegistry meterRegistry, String outcome, LongAdder count) {
+        FunctionCounter.builder("fraud.replay.checks", count, LongAdder::sum)
+            .description("Transactions checked against the replay filter, by outcome")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.minifrauddetector.rules;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public final class AmountRule implements Rule {
+
+    private static final String[] OUTCOMES = {"amountModerate", "amountHigh", "amountVeryHigh"};
+    private static final String[] THRESHOLD_KEYS = {"moderateMin", "highMin", "veryHighMin"};
+    private static final String[] LABELS = {"Moderate amount", "High amount", "High amount"};
+
+    private final long[] thresholds;
+    private final long[] thresholdCents;
+    private final int[] points;
+
+    /**
+     * @param thresholds whole-unit minimums in the base currency, in ascending order, one per tier
+     * @param points points per tier
+     */
+    public AmountRule(long[] thresholds, int[] points) {
+        if (thresholds.length != OUTCOMES.length || points.length != OUTCOMES.length) {
+            throw new IllegalArgumentException("Amount rule expects " + OUTCOMES.length + " tiers");
+        }
+        this.thresholds = thresholds.clone();
+        this.thresholdCents = new long[thresholds.length];
+        for (int i = 0; i < thresholds.length; i++) {
+            thresholdCents[i] = Math.multiplyExact(thresholds[i], ScoringContext.CENTS_PER_UNIT);
+        }
+        this.points = points.clone();
+    }
+
+    @Override
+    public String getId() {
+        return "amount";
+    }
+
+    @Override
+    public String[] getOutcomes() {
+        return OUTCOMES.clone();
+    }
+
+    @Override
+    public int[] getPoints() {
+        return points.clone();
+    }
+
+    @Override
+    public int match(ScoringContext context) {
+        // Thresholds are whole units, so comparing cents is exact for an amount that was only truncated:
+        // floor(100a) >= 100t <=> a >= t. A converted amount is rounded to the nearest cent first, so one less
+        // than half a cent below a threshold reaches it.
+        long amountCents = context.getAmountCents();
+        for (int tier = thresholdCents.length - 1; tier >= 0; tier--) {
+            if (amountCents >= thresholdCents[tier]) {
+                return tier;
+            }
+        }
+        return NO_MATCH;
+    }
+
+    @Override
+    public String describe(ScoringContext context, int outcome) {
+        return LABELS[outcome] + " (>= " + thresholds[outcome] + ")";
+    }
+
+    @Override
+    public Map<String, Integer> getThresholds() {
+        Map<String, Integer> view = new LinkedHashMap<>();
+        for (int i = 0; i < thresholds.length; i++) {
+            view.put(THRESHOLD_KEYS[i], (int) thresholds[i]);
+        }
+        return view;
+    }
+}
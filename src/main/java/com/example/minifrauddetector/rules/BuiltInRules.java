@@ -0,0 +1,49 @@
+package com.example.minifrauddetector.rules;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class BuiltInRules {
+
+    private static final long[] AMOUNT_THRESHOLDS = {300, 1000, 2000};
+    private static final int[] AMOUNT_POINTS = {10, 25, 35};
+    private static final int UNTRUSTED_DEVICE_POINTS = 20;
+    private static final int HIGH_RISK_COUNTRY_POINTS = 25;
+    private static final int NIGHT_WINDOW_POINTS = 10;
+
+    private BuiltInRules() {
+    }
+
+    public static List<Rule> create(FraudRulesProperties properties) {
+        FraudRulesProperties.NightWindow nightWindow = properties.getNightWindow();
+        List<Rule> rules = new ArrayList<>(List.of(
+            new AmountRule(AMOUNT_THRESHOLDS, AMOUNT_POINTS),
+            new UntrustedDeviceRule(UNTRUSTED_DEVICE_POINTS),
+            new HighRiskCountryRule(properties.getHighRiskCountries(), HIGH_RISK_COUNTRY_POINTS),
+            new NightWindowRule(nightWindow.getStartHourUtc(), nightWindow.getEndHourUtc(), NIGHT_WINDOW_POINTS)
+        ));
+        if (!properties.getMerchantCategories().isEmpty()) {
+            rules.add(new MerchantCategoryRule(properties.getMerchantCategories()));
+        }
+
+        List<FraudRulesProperties.VelocityWindow> windows = properties.getVelocity().getWindows();
+        for (int i = 0; i < windows.size(); i++) {
+            rules.add(VelocityRule.count(i, windows.get(i)));
+            rules.add(VelocityRule.amount(i, windows.get(i)));
+        }
+
+        FraudRulesProperties.Profile profile = properties.getProfile();
+        if (profile.isEnabled()) {
+            rules.add(ProfileRule.amountDeviation(profile));
+            rules.add(ProfileRule.newCountry(profile));
+            rules.add(ProfileRule.unusualHour(profile));
+        }
+
+        FraudRulesProperties.ReplayDetection replayDetection = properties.getReplayDetection();
+        if (replayDetection.isEnabled()) {
+            rules.add(new ReplayRule(replayDetection.getPoints()));
+        }
+        return rules;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.minifrauddetector.rules;
+
+import java.util.Collection;
+
+/**
+ * Immutable set of ISO 3166-1 alpha-2 codes stored as a 676-bit bitset indexed by the two letters,
+ * so membership is a constant-time bit test regardless of how many countries are configured.
+ */
+public final class CountrySet {
+
+    public static final int SIZE = 26 * 26;
+
+    private final long[] bits = new long[(SIZE + Long.SIZE - 1) / Long.SIZE];
+
+    private CountrySet(Collection<String> codes) {
+        for (String code : codes) {
+            int index = index(code);
+            if (index < 0) {
+                throw new IllegalArgumentException("Invalid country code '" + code + "', expected two uppercase letters");
+            }
+            bits[index >>> 6] |= 1L << index;
+        }
+    }
+
+    public static CountrySet of(Collection<String> codes) {
+        return new CountrySet(codes);
+    }
+
+    /**
+     * Returns the bit index of a two-letter uppercase code, or {@code -1} if the code is malformed.
+     */
+    public static int index(String code) {
+        if (code == null || code.length() != 2) {
+            return -1;
+        }
+        int first = code.charAt(0) - 'A';
+        int second = code.charAt(1) - 'A';
+        if (first < 0 || first >= 26 || second < 0 || second >= 26) {
+            return -1;
+        }
+        return first * 26 + second;
+    }
+
+    public boolean contains(String code) {
+        int index = index(code);
+        return index >= 0 && (bits[index >>> 6] & (1L << index)) != 0;
+    }
+}
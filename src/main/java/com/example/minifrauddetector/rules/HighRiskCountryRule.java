@@ -0,0 +1,39 @@
+package com.example.minifrauddetector.rules;
+
+import java.util.Collection;
+
+public final class HighRiskCountryRule implements Rule {
+
+    private final CountrySet countries;
+    private final int points;
+
+    public HighRiskCountryRule(Collection<String> countries, int points) {
+        this.countries = CountrySet.of(countries);
+        this.points = points;
+    }
+
+    @Override
+    public String getId() {
+        return "highRiskCountry";
+    }
+
+    @Override
+    public String[] getOutcomes() {
+        return new String[] {"highRiskCountry"};
+    }
+
+    @Override
+    public int[] getPoints() {
+        return new int[] {points};
+    }
+
+    @Override
+    public int match(ScoringContext context) {
+        return countries.contains(context.getRequest().getCountry()) ? 0 : NO_MATCH;
+    }
+
+    @Override
+    public String describe(ScoringContext context, int outcome) {
+        return "High-risk country: " + context.getRequest().getCountry();
+    }
+}
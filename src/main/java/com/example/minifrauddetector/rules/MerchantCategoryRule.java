@@ -0,0 +1,124 @@
+package com.example.minifrauddetector.rules;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scores risky merchant category codes. Each configured tier is one outcome with its own points and an optional
+ * minimum amount. The tiers are compiled into a 10,000-entry table indexed by the 4-digit MCC, so a match is a
+ * digit parse, one array read and one amount comparison.
+ */
+public final class MerchantCategoryRule implements Rule {
+
+    public static final int CODE_COUNT = 10_000;
+
+    private static final int NO_TIER = -1;
+
+    private final byte[] tierByCode = new byte[CODE_COUNT];
+    private final String[] tierNames;
+    private final String[] outcomes;
+    private final int[] points;
+    private final long[] minAmounts;
+    private final long[] minAmountCents;
+
+    public MerchantCategoryRule(List<FraudRulesProperties.MerchantCategoryTier> tiers) {
+        if (tiers.size() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("At most " + Byte.MAX_VALUE + " merchant category tiers are supported");
+        }
+        Arrays.fill(tierByCode, (byte) NO_TIER);
+        this.tierNames = new String[tiers.size()];
+        this.outcomes = new String[tiers.size()];
+        this.points = new int[tiers.size()];
+        this.minAmounts = new long[tiers.size()];
+        this.minAmountCents = new long[tiers.size()];
+
+        for (int tier = 0; tier < tiers.size(); tier++) {
+            FraudRulesProperties.MerchantCategoryTier config = tiers.get(tier);
+            if (config.getName() == null || config.getName().isBlank()) {
+                throw new IllegalArgumentException("Merchant category tiers need a name");
+            }
+            tierNames[tier] = config.getName();
+            outcomes[tier] = "merchantCategory" + Character.toUpperCase(config.getName().charAt(0))
+                + config.getName().substring(1);
+            points[tier] = config.getPoints();
+            minAmounts[tier] = config.getMinAmount();
+            minAmountCents[tier] = Math.multiplyExact(config.getMinAmount(), ScoringContext.CENTS_PER_UNIT);
+
+            for (String code : config.getCodes()) {
+                int index = code(code);
+                if (index < 0) {
+                    throw new IllegalArgumentException("Invalid merchant category code '" + code + "', expected 4 digits");
+                }
+                if (tierByCode[index] != NO_TIER) {
+                    throw new IllegalArgumentException("Merchant category code " + code + " is listed in tiers '"
+                        + tierNames[tierByCode[index]] + "' and '" + tierNames[tier] + "'");
+                }
+                tierByCode[index] = (byte) tier;
+            }
+        }
+    }
+
+    /**
+     * Returns the MCC as an int, or {@code -1} unless {@code code} is exactly four ASCII digits.
+     */
+    public static int code(String code) {
+        if (code == null || code.length() != 4) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = code.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    @Override
+    public String getId() {
+        return "merchantCategory";
+    }
+
+    @Override
+    public String[] getOutcomes() {
+        return outcomes.clone();
+    }
+
+    @Override
+    public int[] getPoints() {
+        return points.clone();
+    }
+
+    @Override
+    public int match(ScoringContext context) {
+        int code = code(context.getRequest().getMerchantCategory());
+        if (code < 0) {
+            return NO_MATCH;
+        }
+        int tier = tierByCode[code];
+        return tier != NO_TIER && context.getAmountCents() >= minAmountCents[tier] ? tier : NO_MATCH;
+    }
+
+    @Override
+    public String describe(ScoringContext context, int outcome) {
+        String reason = "High-risk merchant category: " + context.getRequest().getMerchantCategory()
+            + " (" + tierNames[outcome] + ")";
+        return minAmounts[outcome] > 0 ? reason + " with amount >= " + minAmounts[outcome] : reason;
+    }
+
+    @Override
+    public Map<String, Integer> getThresholds() {
+        Map<String, Integer> view = new LinkedHashMap<>();
+        for (int tier = 0; tier < outcomes.length; tier++) {
+            if (minAmounts[tier] > 0) {
+                view.put(outcomes[tier] + "Min", (int) minAmounts[tier]);
+            }
+        }
+        return view;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.minifrauddetector.rules;
+
+public final class NightWindowRule implements Rule {
+
+    private final int startHourUtc;
+    private final int endHourUtc;
+    private final int hourMask;
+    private final int points;
+
+    public NightWindowRule(int startHourUtc, int endHourUtc, int points) {
+        this.startHourUtc = startHourUtc;
+        this.endHourUtc = endHourUtc;
+        this.hourMask = hourMask(startHourUtc, endHourUtc);
+        this.points = points;
+    }
+
+    /**
+     * Bit {@code h} is set when hour {@code h} falls inside the inclusive, possibly wrapping, window.
+     */
+    public static int hourMask(int startHourUtc, int endHourUtc) {
+        if (startHourUtc < 0 || startHourUtc > 23 || endHourUtc < 0 || endHourUtc > 23) {
+            throw new IllegalArgumentException(
+                "Night window hours must be between 0 and 23, got " + startHourUtc + "-" + endHourUtc);
+        }
+        int mask = 0;
+        for (int hour = startHourUtc; ; hour = (hour + 1) % 24) {
+            mask |= 1 << hour;
+            if (hour == endHourUtc) {
+                return mask;
+            }
+        }
+    }
+
+    @Override
+    public String getId() {
+        return "nightWindow";
+    }
+
+    @Override
+    public String[] getOutcomes() {
+        return new String[] {"nightWindow"};
+    }
+
+    @Override
+    public int[] getPoints() {
+        return new int[] {points};
+    }
+
+    @Override
+    public int match(ScoringContext context) {
+        return (hourMask >>> context.getHourUtc() & 1) != 0 ? 0 : NO_MATCH;
+    }
+
+    @Override
+    public String describe(ScoringContext context, int outcome) {
+        return "Transaction time is unusual (" + hour(context.getHourUtc()) + " UTC in " + hour(startHourUtc)
+            + "–" + hour(endHourUtc) + " UTC)";
+    }
+
+    private static String hour(int hourUtc) {
+        return hourUtc < 10 ? "0" + hourUtc + ":00" : hourUtc + ":00";
+    }
+}
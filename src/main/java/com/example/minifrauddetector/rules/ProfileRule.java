@@ -0,0 +1,103 @@
+package com.example.minifrauddetector.rules;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+
+/**
+ * Fires when a transaction departs from the user's behavioral profile: an amount far above the user's mean,
+ * a country the user has not transacted from, or an hour of the day in which the user rarely transacts. The
+ * profile is filled into the {@link ScoringContext} by the profile store before the plan runs and describes the
+ * user before this transaction.
+ */
+public final class ProfileRule implements Rule {
+
+    public enum Measure {
+        AMOUNT_DEVIATION,
+        NEW_COUNTRY,
+        UNUSUAL_HOUR
+    }
+
+    private final Measure measure;
+    private final int minHistory;
+    private final double limit;
+    private final double minStdDevCents;
+    private final int points;
+
+    private ProfileRule(Measure measure, int minHistory, double limit, double minStdDevCents, int points) {
+        this.measure = measure;
+        this.minHistory = minHistory;
+        this.limit = limit;
+        this.minStdDevCents = minStdDevCents;
+        this.points = points;
+    }
+
+    /**
+     * Fires when the amount is more than {@code amountDeviations} standard deviations above the user's mean.
+     * The standard deviation is taken as at least {@code minAmountStdDev}, so that a user who always pays the
+     * same amount is not flagged for a few cents more.
+     */
+    public static ProfileRule amountDeviation(FraudRulesProperties.Profile profile) {
+        return new ProfileRule(Measure.AMOUNT_DEVIATION, profile.getMinHistory(), profile.getAmountDeviations(),
+            Math.multiplyExact(profile.getMinAmountStdDev(), ScoringContext.CENTS_PER_UNIT), profile.getAmountDeviationPoints());
+    }
+
+    public static ProfileRule newCountry(FraudRulesProperties.Profile profile) {
+        return new ProfileRule(Measure.NEW_COUNTRY, profile.getMinHistory(), 0, 0, profile.getNewCountryPoints());
+    }
+
+    /**
+     * Fires when fewer than {@code unusualHourShare} of the user's earlier transactions fell into this hour.
+     */
+    public static ProfileRule unusualHour(FraudRulesProperties.Profile profile) {
+        return new ProfileRule(Measure.UNUSUAL_HOUR, profile.getMinHistory(), profile.getUnusualHourShare(), 0,
+            profile.getUnusualHourPoints());
+    }
+
+    @Override
+    public String getId() {
+        return switch (measure) {
+            case AMOUNT_DEVIATION -> "profileAmount";
+            case NEW_COUNTRY -> "profileNewCountry";
+            case UNUSUAL_HOUR -> "profileUnusualHour";
+        };
+    }
+
+    @Override
+    public String[] getOutcomes() {
+        return new String[] {getId()};
+    }
+
+    @Override
+    public int[] getPoints() {
+        return new int[] {points};
+    }
+
+    @Override
+    public int match(ScoringContext context) {
+        if (!context.hasProfile() || context.getProfileCount() < minHistory) {
+            return NO_MATCH;
+        }
+        boolean matched = switch (measure) {
+            case AMOUNT_DEVIATION -> deviations(context) > limit;
+            case NEW_COUNTRY -> !context.isProfileCountrySeen();
+            case UNUSUAL_HOUR -> context.getProfileHourShare() < limit;
+        };
+        return matched ? 0 : NO_MATCH;
+    }
+
+    @Override
+    public String describe(ScoringContext context, int outcome) {
+        return switch (measure) {
+            case AMOUNT_DEVIATION -> String.format("Amount %d is %.1f standard deviations above this user's mean of %d",
+                context.getAmountCents() / ScoringContext.CENTS_PER_UNIT, deviations(context),
+                Math.round(context.getProfileMeanCents() / ScoringContext.CENTS_PER_UNIT));
+            case NEW_COUNTRY -> "First transaction of this user from " + context.getRequest().getCountry();
+            case UNUSUAL_HOUR -> String.format("Unusual hour for this user: %02d:00 UTC (%.0f%% of earlier transactions)",
+                context.getHourUtc(), 100 * context.getProfileHourShare());
+        };
+    }
+
+    private double deviations(ScoringContext context) {
+        double stdDev = Math.max(context.getProfileStdDevCents(), minStdDevCents);
+        return (context.getAmountCents() - context.getProfileMeanCents()) / stdDev;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.minifrauddetector.rules;
+
+/**
+ * Fires when the transaction repeats an earlier one of the same user, as reported by the replay filter: the
+ * pattern of a card-testing bot that resends one payload under new transaction ids. The filter answers from Bloom
+ * filters, so a small share of first-time transactions also fires.
+ */
+public final class ReplayRule implements Rule {
+
+    private final int points;
+
+    public ReplayRule(int points) {
+        this.points = points;
+    }
+
+    @Override
+    public String getId() {
+        return "replay";
+    }
+
+    @Override
+    public String[] getOutcomes() {
+        return new String[] {"replay"};
+    }
+
+    @Override
+    public int[] getPoints() {
+        return new int[] {points};
+    }
+
+    @Override
+    public int match(ScoringContext context) {
+        return context.isReplayed() ? 0 : NO_MATCH;
+    }
+
+    @Override
+    public String describe(ScoringContext context, int outcome) {
+        return "Repeats an earlier transaction of this user with the same amount, country and IP address";
+    }
+}
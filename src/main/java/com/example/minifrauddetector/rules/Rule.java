@@ -0,0 +1,49 @@
+package com.example.minifrauddetector.rules;
+
+import java.util.Map;
+
+/**
+ * A scoring rule. A rule has one or more mutually exclusive outcomes (for example the amount tiers),
+ * each worth a fixed number of points. Implementations must be immutable and thread-safe; they are
+ * compiled into a {@link RulePlan} once and then shared by all requests.
+ *
+ * <p>Additional rules can be plugged in by exposing them as Spring beans; they are appended to the
+ * built-in rules in {@link org.springframework.core.annotation.Order} order.
+ */
+public interface Rule {
+
+    int NO_MATCH = -1;
+
+    /**
+     * Stable identifier, used for metrics and diagnostics.
+     */
+    String getId();
+
+    /**
+     * Keys of the outcomes as published on {@code /rules}, one per entry of {@link #getPoints()}.
+     */
+    String[] getOutcomes();
+
+    /**
+     * Points awarded for each outcome.
+     */
+    int[] getPoints();
+
+    /**
+     * Returns the index of the matched outcome or {@link #NO_MATCH}. Called for every request, so it
+     * must not allocate.
+     */
+    int match(ScoringContext context);
+
+    /**
+     * Human-readable reason for a matched outcome.
+     */
+    String describe(ScoringContext context, int outcome);
+
+    /**
+     * Thresholds published on {@code /rules}.
+     */
+    default Map<String, Integer> getThresholds() {
+        return Map.of();
+    }
+}
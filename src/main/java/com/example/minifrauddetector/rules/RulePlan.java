@@ -0,0 +1,120 @@
+package com.example.minifrauddetector.rules;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, array-backed form of the active rule set. Outcome points of all rules are flattened
+ * into a single {@code int[]} so that {@link #score(ScoringContext)} is a tight loop over arrays.
+ */
+public final class RulePlan {
+
+    public static final int MAX_RULES = Long.SIZE;
+
+    private final Rule[] rules;
+    private final String[] ruleIds;
+    private final int[] pointOffsets;
+    private final int[] points;
+    private final String[] outcomeKeys;
+    private final int[] outcomeRules;
+    private final Map<String, Integer> pointsView;
+    private final Map<String, Integer> thresholdsView;
+
+    private RulePlan(List<? extends Rule> rules) {
+        if (rules.size() > MAX_RULES) {
+            throw new IllegalArgumentException("At most " + MAX_RULES + " rules are supported, got " + rules.size());
+        }
+
+        this.rules = rules.toArray(new Rule[0]);
+        this.ruleIds = new String[this.rules.length];
+        this.pointOffsets = new int[this.rules.length];
+
+        Map<String, Integer> pointsByOutcome = new LinkedHashMap<>();
+        Map<String, Integer> thresholds = new LinkedHashMap<>();
+        for (int i = 0; i < this.rules.length; i++) {
+            Rule rule = this.rules[i];
+            String[] outcomes = rule.getOutcomes();
+            int[] outcomePoints = rule.getPoints();
+            if (outcomes.length == 0 || outcomes.length != outcomePoints.length) {
+                throw new IllegalArgumentException("Rule '" + rule.getId() + "' must declare one point value per outcome");
+            }
+
+            ruleIds[i] = rule.getId();
+            pointOffsets[i] = pointsByOutcome.size();
+            for (int outcome = 0; outcome < outcomes.length; outcome++) {
+                if (pointsByOutcome.putIfAbsent(outcomes[outcome], outcomePoints[outcome]) != null) {
+                    throw new IllegalArgumentException("Duplicate rule outcome '" + outcomes[outcome] + "'");
+                }
+            }
+            thresholds.putAll(rule.getThresholds());
+        }
+
+        this.points = pointsByOutcome.values().stream().mapToInt(Integer::intValue).toArray();
+        this.outcomeKeys = pointsByOutcome.keySet().toArray(new String[0]);
+        this.outcomeRules = new int[outcomeKeys.length];
+        for (int i = 0; i < this.rules.length; i++) {
+            int end = i + 1 < this.rules.length ? pointOffsets[i + 1] : outcomeKeys.length;
+            Arrays.fill(outcomeRules, pointOffsets[i], end, i);
+        }
+        this.pointsView = Collections.unmodifiableMap(pointsByOutcome);
+        this.thresholdsView = Collections.unmodifiableMap(thresholds);
+    }
+
+    public static RulePlan compile(List<? extends Rule> rules) {
+        return new RulePlan(rules);
+    }
+
+    /**
+     * Runs every rule against the context, records matched outcomes and fired rules on it, and returns the
+     * uncapped score. Reasons are not rendered here; see {@link ScoringContext#getReasons()}.
+     */
+    public int score(ScoringContext context) {
+        Rule[] rules = this.rules;
+        int[] pointOffsets = this.pointOffsets;
+        int[] points = this.points;
+
+        int score = 0;
+        long firedMask = 0L;
+        for (int i = 0; i < rules.length; i++) {
+            int outcome = rules[i].match(context);
+            if (outcome != Rule.NO_MATCH) {
+                score += points[pointOffsets[i] + outcome];
+                firedMask |= 1L << i;
+                context.addOutcome(this, pointOffsets[i] + outcome);
+            }
+        }
+        context.setFiredMask(firedMask);
+        return score;
+    }
+
+    public int size() {
+        return rules.length;
+    }
+
+    public String getRuleId(int index) {
+        return ruleIds[index];
+    }
+
+    /**
+     * Key of an outcome, by its position across all rules of this plan.
+     */
+    public String getOutcomeKey(int outcome) {
+        return outcomeKeys[outcome];
+    }
+
+    String describe(ScoringContext context, int outcome) {
+        int rule = outcomeRules[outcome];
+        return rules[rule].describe(context, outcome - pointOffsets[rule]);
+    }
+
+    public Map<String, Integer> getPoints() {
+        return pointsView;
+    }
+
+    public Map<String, Integer> getThresholds() {
+        return thresholdsView;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.minifrauddetector.rules;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.expression.ExpressionCompiler;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable, versioned rule configuration. A request reads the current snapshot once and uses it for
+ * its whole evaluation, so a concurrent reload never exposes a half-updated rule set.
+ */
+public final class RuleSnapshot {
+
+    private final long version;
+    private final Instant loadedAt;
+    private final RulePlan plan;
+    private final RulePlan degradedPlan;
+    private final List<String> highRiskCountries;
+    private final int nightStartHourUtc;
+    private final int nightEndHourUtc;
+    private final List<FraudRulesProperties.VelocityWindow> velocityWindows;
+    private final List<FraudRulesProperties.MerchantCategoryTier> merchantCategories;
+
+    private RuleSnapshot(long version, FraudRulesProperties properties, List<? extends Rule> customRules) {
+        List<Rule> rules = new ArrayList<>(BuiltInRules.create(properties));
+        rules.addAll(ExpressionCompiler.compileAll(properties.getCustomRules()));
+        rules.addAll(customRules);
+
+        this.version = version;
+        this.loadedAt = Instant.now();
+        this.plan = RulePlan.compile(rules);
+        this.degradedPlan = RulePlan.compile(select(rules, properties.getOverload().getDegradedRules()));
+        this.highRiskCountries = List.copyOf(properties.getHighRiskCountries());
+        this.nightStartHourUtc = properties.getNightWindow().getStartHourUtc();
+        this.nightEndHourUtc = properties.getNightWindow().getEndHourUtc();
+        this.velocityWindows = List.copyOf(properties.getVelocity().getWindows());
+        this.merchantCategories = List.copyOf(properties.getMerchantCategories());
+    }
+
+    public static RuleSnapshot build(long version, FraudRulesProperties properties, List<? extends Rule> customRules) {
+        return new RuleSnapshot(version, properties, customRules);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    public RulePlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * Plan of the rules listed in {@code fraud.overload.degraded-rules}, for transactions scored while the
+     * service is over its concurrency limit.
+     */
+    public RulePlan getDegradedPlan() {
+        return degradedPlan;
+    }
+
+    public List<String> getHighRiskCountries() {
+        return highRiskCountries;
+    }
+
+    public int getNightStartHourUtc() {
+        return nightStartHourUtc;
+    }
+
+    public int getNightEndHourUtc() {
+        return nightEndHourUtc;
+    }
+
+    /**
+     * Velocity limits of this snapshot. The window beans were bound for this snapshot only and must be
+     * treated as read-only.
+     */
+    public List<FraudRulesProperties.VelocityWindow> getVelocityWindows() {
+        return velocityWindows;
+    }
+
+    public List<FraudRulesProperties.MerchantCategoryTier> getMerchantCategories() {
+        return merchantCategories;
+    }
+
+    private static List<Rule> select(List<Rule> rules, List<String> ids) {
+        List<Rule> selected = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Rule rule = rules.stream()
+                .filter(candidate -> candidate.getId().equals(id))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("fraud.overload.degraded-rules names unknown rule '" + id + "'"));
+            selected.add(rule);
+        }
+        return selected;
+    }
+}
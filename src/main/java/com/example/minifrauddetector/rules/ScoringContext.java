@@ -0,0 +1,232 @@
+package com.example.minifrauddetector.rules;
+
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-request view handed to every {@link Rule}. Derived values are computed once here so that
+ * rules only read primitives on the hot path.
+ */
+public final class ScoringContext {
+
+    public static final long CENTS_PER_UNIT = 100;
+
+    private static final int SECONDS_PER_DAY = 86_400;
+    private static final int SECONDS_PER_HOUR = 3_600;
+    private static final int MAX_CENT_DIGITS = 17;
+    private static final int[] NO_OUTCOMES = new int[0];
+
+    private final FraudCheckRequest request;
+    private final int hourUtc;
+    private final long amountCents;
+    private RulePlan plan;
+    private int[] firedOutcomes = NO_OUTCOMES;
+    private int firedCount;
+    private volatile String[] renderedReasons;
+    private long firedMask;
+    private long[] velocityCounts;
+    private long[] velocityAmounts;
+    private boolean hasProfile;
+    private int profileCount;
+    private double profileMeanCents;
+    private double profileStdDevCents;
+    private boolean profileCountrySeen;
+    private double profileHourShare;
+    private boolean replayed;
+
+    /**
+     * Context for a request whose amount is already in the base currency.
+     */
+    public ScoringContext(FraudCheckRequest request) {
+        this(request, toCents(request.getAmount()));
+    }
+
+    /**
+     * Context for a request whose amount was converted to {@code amountCents}, hundredths of the base currency.
+     */
+    public ScoringContext(FraudCheckRequest request, long amountCents) {
+        this.request = request;
+        this.hourUtc = Math.floorMod(request.getTimestamp().getEpochSecond(), SECONDS_PER_DAY) / SECONDS_PER_HOUR;
+        this.amountCents = amountCents;
+    }
+
+    /**
+     * New context with the same request, amount, velocity, profile and replay figures but no scoring results, for evaluating
+     * the same transaction against another {@link RulePlan}.
+     */
+    public ScoringContext copyInputs() {
+        ScoringContext copy = new ScoringContext(request, amountCents);
+        copy.setVelocity(velocityCounts, velocityAmounts);
+        if (hasProfile) {
+            copy.setProfile(profileCount, profileMeanCents, profileStdDevCents, profileCountrySeen, profileHourShare);
+        }
+        copy.setReplayed(replayed);
+        return copy;
+    }
+
+    public FraudCheckRequest getRequest() {
+        return request;
+    }
+
+    public int getHourUtc() {
+        return hourUtc;
+    }
+
+    /**
+     * Amount in hundredths of the base currency, truncated; absurdly large amounts saturate instead of
+     * overflowing.
+     */
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    public boolean hasVelocity() {
+        return velocityCounts != null;
+    }
+
+    public long getVelocityCount(int window) {
+        return velocityCounts[window];
+    }
+
+    public long getVelocityAmount(int window) {
+        return velocityAmounts[window];
+    }
+
+    public void setVelocity(long[] counts, long[] amounts) {
+        this.velocityCounts = counts;
+        this.velocityAmounts = amounts;
+    }
+
+    public boolean hasProfile() {
+        return hasProfile;
+    }
+
+    /**
+     * Number of the user's transactions the profile has seen before this one.
+     */
+    public int getProfileCount() {
+        return profileCount;
+    }
+
+    public double getProfileMeanCents() {
+        return profileMeanCents;
+    }
+
+    public double getProfileStdDevCents() {
+        return profileStdDevCents;
+    }
+
+    /**
+     * Whether the user transacted from this request's country before.
+     */
+    public boolean isProfileCountrySeen() {
+        return profileCountrySeen;
+    }
+
+    /**
+     * Share of the user's earlier transactions that fell into this request's UTC hour, between 0 and 1.
+     */
+    public double getProfileHourShare() {
+        return profileHourShare;
+    }
+
+    /**
+     * Sets the user's profile as it was before this transaction.
+     */
+    public void setProfile(int count, double meanCents, double stdDevCents, boolean countrySeen, double hourShare) {
+        this.hasProfile = true;
+        this.profileCount = count;
+        this.profileMeanCents = meanCents;
+        this.profileStdDevCents = stdDevCents;
+        this.profileCountrySeen = countrySeen;
+        this.profileHourShare = hourShare;
+    }
+
+    /**
+     * Whether the replay filter has seen the same fingerprint before this transaction.
+     */
+    public boolean isReplayed() {
+        return replayed;
+    }
+
+    public void setReplayed(boolean replayed) {
+        this.replayed = replayed;
+    }
+
+    /**
+     * Human-readable reasons of the matched outcomes, in rule order. The text is rendered by
+     * {@link Rule#describe} on first access, so callers that never read it never pay for it.
+     */
+    public List<String> getReasons() {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return renderReasons()[index];
+            }
+
+            @Override
+            public int size() {
+                return firedCount;
+            }
+        };
+    }
+
+    /**
+     * Outcome keys of the matched outcomes, in rule order, as published on {@code /rules}.
+     */
+    public List<String> getReasonCodes() {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return plan.getOutcomeKey(firedOutcomes[index]);
+            }
+
+            @Override
+            public int size() {
+                return firedCount;
+            }
+        };
+    }
+
+    /**
+     * Bit {@code i} is set when the rule at position {@code i} of the evaluated {@link RulePlan} matched.
+     */
+    public long getFiredMask() {
+        return firedMask;
+    }
+
+    void addOutcome(RulePlan plan, int outcome) {
+        this.plan = plan;
+        if (firedCount == firedOutcomes.length) {
+            firedOutcomes = Arrays.copyOf(firedOutcomes, Math.max(4, 2 * firedCount));
+        }
+        firedOutcomes[firedCount++] = outcome;
+    }
+
+    // The context is read-only once scored, so concurrent first reads render the same text and either copy wins.
+    private String[] renderReasons() {
+        String[] rendered = renderedReasons;
+        if (rendered == null) {
+            rendered = new String[firedCount];
+            for (int i = 0; i < firedCount; i++) {
+                rendered[i] = plan.describe(this, firedOutcomes[i]);
+            }
+            renderedReasons = rendered;
+        }
+        return rendered;
+    }
+
+    void setFiredMask(long firedMask) {
+        this.firedMask = firedMask;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        if (amount.precision() - amount.scale() > MAX_CENT_DIGITS - 2) {
+            return (long) Math.pow(10, MAX_CENT_DIGITS);
+        }
+        return amount.movePointRight(2).longValue();
+    }
+}
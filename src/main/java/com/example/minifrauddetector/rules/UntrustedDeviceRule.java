@@ -0,0 +1,35 @@
+package com.example.minifrauddetector.rules;
+
+public final class UntrustedDeviceRule implements Rule {
+
+    private final int points;
+
+    public UntrustedDeviceRule(int points) {
+        this.points = points;
+    }
+
+    @Override
+    public String getId() {
+        return "untrustedDevice";
+    }
+
+    @Override
+    public String[] getOutcomes() {
+        return new String[] {"untrustedDevice"};
+    }
+
+    @Override
+    public int[] getPoints() {
+        return new int[] {points};
+    }
+
+    @Override
+    public int match(ScoringContext context) {
+        return context.getRequest().getDeviceTrusted() ? NO_MATCH : 0;
+    }
+
+    @Override
+    public String describe(ScoringContext context, int outcome) {
+        return "Untrusted device";
+    }
+}
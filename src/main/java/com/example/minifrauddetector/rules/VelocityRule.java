@@ -0,0 +1,80 @@
+package com.example.minifrauddetector.rules;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+
+/**
+ * Fires when a user's transaction count or amount sum within one velocity window exceeds its limit.
+ * Totals are filled into the {@link ScoringContext} by the velocity tracker before the plan runs. The count
+ * includes the current transaction; the amount sum does not, so that a single large payment is scored by the
+ * amount rule alone and not again as spend velocity.
+ */
+public final class VelocityRule implements Rule {
+
+    public enum Measure {
+        COUNT,
+        AMOUNT
+    }
+
+    private final int windowIndex;
+    private final String windowName;
+    private final Measure measure;
+    private final long limit;
+    private final int points;
+
+    public VelocityRule(int windowIndex, String windowName, Measure measure, long limit, int points) {
+        this.windowIndex = windowIndex;
+        this.windowName = windowName;
+        this.measure = measure;
+        this.limit = limit;
+        this.points = points;
+    }
+
+    public static VelocityRule count(int windowIndex, FraudRulesProperties.VelocityWindow window) {
+        return new VelocityRule(windowIndex, window.getName(), Measure.COUNT, window.getMaxCount(), window.getCountPoints());
+    }
+
+    public static VelocityRule amount(int windowIndex, FraudRulesProperties.VelocityWindow window) {
+        return new VelocityRule(windowIndex, window.getName(), Measure.AMOUNT,
+            Math.multiplyExact(window.getMaxAmount(), ScoringContext.CENTS_PER_UNIT), window.getAmountPoints());
+    }
+
+    @Override
+    public String getId() {
+        return measure == Measure.COUNT ? "velocityCount" + windowName : "velocityAmount" + windowName;
+    }
+
+    @Override
+    public String[] getOutcomes() {
+        return new String[] {getId()};
+    }
+
+    @Override
+    public int[] getPoints() {
+        return new int[] {points};
+    }
+
+    @Override
+    public int match(ScoringContext context) {
+        if (!context.hasVelocity()) {
+            return NO_MATCH;
+        }
+        long value = measure == Measure.COUNT
+            ? context.getVelocityCount(windowIndex)
+            : earlierAmount(context);
+        return value > limit ? 0 : NO_MATCH;
+    }
+
+    @Override
+    public String describe(ScoringContext context, int outcome) {
+        if (measure == Measure.COUNT) {
+            return "High transaction velocity: " + context.getVelocityCount(windowIndex)
+                + " transactions in " + windowName + " (limit " + limit + ")";
+        }
+        return "High spend velocity: " + (earlierAmount(context) / ScoringContext.CENTS_PER_UNIT) + " in " + windowName
+            + " before this transaction (limit " + (limit / ScoringContext.CENTS_PER_UNIT) + ")";
+    }
+
+    private long earlierAmount(ScoringContext context) {
+        return Math.max(0, context.getVelocityAmount(windowIndex) - context.getAmountCents());
+    }
+}
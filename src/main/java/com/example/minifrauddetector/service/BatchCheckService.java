@@ -0,0 +1,97 @@
+package com.example.minifrauddetector.service;
+
+import com.example.minifrauddetector.dto.BatchCheckItemResponse;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.dto.FraudCheckResponse;
+import com.example.minifrauddetector.exception.ApiErrorResponse;
+import com.example.minifrauddetector.exception.UnsupportedCurrencyException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import org.springframework.stereotype.Service;
+
+/**
+ * Validates a group of requests item by item and scores the valid ones together, so that one invalid
+ * transaction never rejects the others.
+ */
+@Service
+public class BatchCheckService {
+
+    private final FraudScoringService fraudScoringService;
+    private final Validator validator;
+
+    public BatchCheckService(FraudScoringService fraudScoringService, Validator validator) {
+        this.fraudScoringService = fraudScoringService;
+        this.validator = validator;
+    }
+
+    /**
+     * Returns one item per request, in request order, numbered from {@code firstIndex}. Without
+     * {@code verbose} the results carry reason codes only. With {@code forwarded} every request is scored on this
+     * node, because another cluster node has already routed the batch here. Without {@code cached} the requests
+     * bypass the idempotency cache, see {@link FraudScoringService#evaluateAll}.
+     */
+    public List<BatchCheckItemResponse> process(List<FraudCheckRequest> requests, int firstIndex, boolean verbose,
+            boolean forwarded, boolean cached) {
+        List<BatchCheckItemResponse> items = new ArrayList<>(requests.size());
+        List<FraudCheckRequest> validRequests = new ArrayList<>(requests.size());
+        List<BatchCheckItemResponse> validItems = new ArrayList<>(requests.size());
+
+        for (int i = 0; i < requests.size(); i++) {
+            BatchCheckItemResponse item = new BatchCheckItemResponse();
+            item.setIndex(firstIndex + i);
+            items.add(item);
+
+            FraudCheckRequest request = requests.get(i);
+            if (request == null) {
+                item.setError("Transaction must not be null");
+                continue;
+            }
+
+            Set<ConstraintViolation<FraudCheckRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                item.setError("Validation failed");
+                item.setFieldErrors(violations.stream()
+                    .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                    .map(this::mapViolation)
+                    .toList());
+                continue;
+            }
+            if (!fraudScoringService.supportsCurrency(request.getCurrency())) {
+                item.setError("Validation failed");
+                item.setFieldErrors(List.of(UnsupportedCurrencyException.fieldError()));
+                continue;
+            }
+
+            validRequests.add(request);
+            validItems.add(item);
+        }
+
+        List<BatchCheckItemResponse> outcomes = forwarded
+            ? fraudScoringService.evaluateAllHere(validRequests, cached)
+            : fraudScoringService.evaluateAll(validRequests, cached);
+        for (int i = 0; i < outcomes.size(); i++) {
+            BatchCheckItemResponse outcome = outcomes.get(i);
+            BatchCheckItemResponse item = validItems.get(i);
+            FraudCheckResponse response = outcome.getResult();
+            if (response != null) {
+                item.setResult(verbose ? response : response.withoutReasonTexts());
+            } else {
+                item.setError(outcome.getError());
+                item.setFieldErrors(outcome.getFieldErrors());
+            }
+        }
+
+        return items;
+    }
+
+    private ApiErrorResponse.FieldErrorItem mapViolation(ConstraintViolation<FraudCheckRequest> violation) {
+        return ApiErrorResponse.FieldErrorItem.builder()
+            .field(violation.getPropertyPath().toString())
+            .message(violation.getMessage())
+            .build();
+    }
+}
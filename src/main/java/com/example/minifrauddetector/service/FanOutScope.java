@@ -0,0 +1,83 @@
+package com.example.minifrauddetector.service;
+
+import com.example.minifrauddetector.exception.ScoringTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Structured fan-out with a deadline: every subtask forked in the scope has completed, failed or been
+ * cancelled by the time the scope is closed. This is the shape of {@code StructuredTaskScope.ShutdownOnFailure},
+ * which is still a preview API on Java 21.
+ */
+final class FanOutScope<T> implements AutoCloseable {
+
+    private final Executor executor;
+    private final Duration timeout;
+    private long deadlineNanos;
+    private final List<FutureTask<T>> subtasks = new ArrayList<>();
+
+    FanOutScope(Executor executor, Duration timeout) {
+        this.executor = executor;
+        this.timeout = timeout;
+        this.deadlineNanos = System.nanoTime() + timeout.toNanos();
+    }
+
+    void fork(Callable<T> task) {
+        FutureTask<T> subtask = new FutureTask<>(task);
+        subtasks.add(subtask);
+        executor.execute(subtask);
+    }
+
+    /**
+     * Starts the deadline again from now, for a caller that did its own work on the calling thread after forking:
+     * that time does not count against the subtasks.
+     */
+    void restartDeadline() {
+        deadlineNanos = System.nanoTime() + timeout.toNanos();
+    }
+
+    /**
+     * Returns the subtask results in fork order. The first failure or the deadline cancels everything
+     * still running.
+     */
+    List<T> join() {
+        List<T> results = new ArrayList<>(subtasks.size());
+        try {
+            for (FutureTask<T> subtask : subtasks) {
+                long remaining = deadlineNanos - System.nanoTime();
+                results.add(subtask.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS));
+            }
+            return results;
+        } catch (TimeoutException exception) {
+            throw new ScoringTimeoutException("Scoring did not complete within " + timeout.toMillis() + " ms");
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new ScoringTimeoutException("Scoring was interrupted");
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            close();
+        }
+    }
+
+    @Override
+    public void close() {
+        for (FutureTask<T> subtask : subtasks) {
+            subtask.cancel(true);
+        }
+    }
+}
@@ -1,97 +1,428 @@
 package com.example.minifrauddetector.service;
 
+import com.example.minifrauddetector.audit.AuditLog;
+import com.example.minifrauddetector.cluster.ClusterRouter;
 import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.config.RuleSnapshotHolder;
+import com.example.minifrauddetector.dto.BatchCheckItemResponse;
 import com.example.minifrauddetector.dto.FraudCheckRequest;
 import com.example.minifrauddetector.dto.FraudCheckResponse;
 import com.example.minifrauddetector.dto.RiskLevel;
-import java.math.BigDecimal;
+import com.example.minifrauddetector.exception.IdempotencyConflictException;
+import com.example.minifrauddetector.exception.UnsupportedCurrencyException;
+import com.example.minifrauddetector.fx.FxRateHolder;
+import com.example.minifrauddetector.fx.FxRateTable;
+import com.example.minifrauddetector.idempotency.IdempotencyCache;
+import com.example.minifrauddetector.metrics.ScoringMetrics;
+import com.example.minifrauddetector.model.ModelHolder;
+import com.example.minifrauddetector.model.ScoringModel;
+import com.example.minifrauddetector.overload.ConcurrencyLimiter;
+import com.example.minifrauddetector.pipeline.ScoringPipeline;
+import com.example.minifrauddetector.profile.ProfileStore;
+import com.example.minifrauddetector.replay.ReplayFilter;
+import com.example.minifrauddetector.rules.RuleSnapshot;
+import com.example.minifrauddetector.rules.ScoringContext;
+import com.example.minifrauddetector.shadow.ShadowScorer;
+import com.example.minifrauddetector.velocity.VelocityTracker;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
 import java.time.Instant;
-import java.time.ZoneOffset;
-import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 @Service
 public class FraudScoringService {
 
-    private static final BigDecimal AMOUNT_MODERATE = new BigDecimal("300");
-    private static final BigDecimal AMOUNT_HIGH = new BigDecimal("1000");
-    private static final BigDecimal AMOUNT_VERY_HIGH = new BigDecimal("2000");
+    private final RuleSnapshotHolder ruleSnapshotHolder;
+    private final VelocityTracker velocityTracker;
+    private final ProfileStore profileStore;
+    private final ReplayFilter replayFilter;
+    private final FxRateHolder fxRateHolder;
+    private final ScoringMetrics scoringMetrics;
+    private final IdempotencyCache idempotencyCache;
+    private final ShadowScorer shadowScorer;
+    private final ModelHolder modelHolder;
+    private final AuditLog auditLog;
+    private final ClusterRouter clusterRouter;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final ScoringPipeline scoringPipeline;
+    private final Executor scoringExecutor;
+    private final Duration deadline;
+    private final int groupSize;
 
-    private final FraudRulesProperties fraudRulesProperties;
+    @Autowired
+    public FraudScoringService(
+            RuleSnapshotHolder ruleSnapshotHolder,
+            VelocityTracker velocityTracker,
+            ProfileStore profileStore,
+            ReplayFilter replayFilter,
+            FxRateHolder fxRateHolder,
+            ScoringMetrics scoringMetrics,
+            IdempotencyCache idempotencyCache,
+            ShadowScorer shadowScorer,
+            ModelHolder modelHolder,
+            AuditLog auditLog,
+            ClusterRouter clusterRouter,
+            ConcurrencyLimiter concurrencyLimiter,
+            ScoringPipeline scoringPipeline,
+            @Qualifier("scoringExecutor") Executor scoringExecutor,
+            FraudRulesProperties fraudRulesProperties) {
+        FraudRulesProperties.Execution execution = fraudRulesProperties.getExecution();
+        if (execution.getGroupSize() < 1) {
+            throw new IllegalArgumentException("fraud.execution.group-size must be positive");
+        }
+        this.ruleSnapshotHolder = ruleSnapshotHolder;
+        this.velocityTracker = velocityTracker;
+        this.profileStore = profileStore;
+        this.replayFilter = replayFilter;
+        this.fxRateHolder = fxRateHolder;
+        this.scoringMetrics = scoringMetrics;
+        this.idempotencyCache = idempotencyCache;
+        this.shadowScorer = shadowScorer;
+        this.modelHolder = modelHolder;
+        this.auditLog = auditLog;
+        this.clusterRouter = clusterRouter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.scoringPipeline = scoringPipeline;
+        this.scoringExecutor = scoringExecutor;
+        this.deadline = execution.getDeadline();
+        this.groupSize = execution.getGroupSize();
+    }
 
-    public FraudScoringService(FraudRulesProperties fraudRulesProperties) {
-        this.fraudRulesProperties = fraudRulesProperties;
+    /**
+     * Starts the scoring pipeline threads, once the service is fully built. Does nothing when the pipeline is
+     * disabled.
+     */
+    @PostConstruct
+    public void start() {
+        scoringPipeline.start(new PipelineStages());
     }
 
+    /**
+     * Scores {@code request} on the cluster node that owns its user, or returns the earlier response when the
+     * same transaction was already scored.
+     *
+     * @throws UnsupportedCurrencyException when there is no FX rate for the request currency
+     */
     public FraudCheckResponse evaluate(FraudCheckRequest request) {
-        int score = 0;
-        List<String> reasons = new ArrayList<>();
+        FraudCheckResponse forwarded = forwardToOwner(request);
+        return forwarded != null ? forwarded : evaluateHere(request);
+    }
+
+    /**
+     * Like {@link #evaluate} but always on this node, for requests another node has already routed here.
+     */
+    public FraudCheckResponse evaluateHere(FraudCheckRequest request) {
+        return idempotencyCache.get(request, this::score);
+    }
+
+    /**
+     * Like {@link #evaluate}, but with {@code fraud.pipeline.enabled} a request scored on this node is handed to
+     * the scoring pipeline and the future completes on its respond thread. Otherwise, or when the pipeline is
+     * full, the request is scored on the calling thread and the future is already complete.
+     *
+     * @throws UnsupportedCurrencyException when there is no FX rate for the request currency and the request was
+     *     scored on the calling thread; from the pipeline the future completes with it instead
+     */
+    public CompletableFuture<FraudCheckResponse> evaluateAsync(FraudCheckRequest request) {
+        if (!scoringPipeline.isEnabled()) {
+            return CompletableFuture.completedFuture(evaluate(request));
+        }
+        FraudCheckResponse forwarded = forwardToOwner(request);
+        return forwarded != null ? CompletableFuture.completedFuture(forwarded) : evaluateHereAsync(request);
+    }
 
-        BigDecimal amount = request.getAmount();
-        if (amount.compareTo(AMOUNT_VERY_HIGH) >= 0) {
-            score += 35;
-            reasons.add("High amount (>= 2000)");
-        } else if (amount.compareTo(AMOUNT_HIGH) >= 0) {
-            score += 25;
-            reasons.add("High amount (>= 1000)");
-        } else if (amount.compareTo(AMOUNT_MODERATE) >= 0) {
-            score += 10;
-            reasons.add("Moderate amount (>= 300)");
+    /**
+     * Like {@link #evaluateAsync} but always on this node.
+     */
+    public CompletableFuture<FraudCheckResponse> evaluateHereAsync(FraudCheckRequest request) {
+        if (!scoringPipeline.isEnabled()) {
+            return CompletableFuture.completedFuture(evaluateHere(request));
         }
+        return idempotencyCache.getAsync(request, this::submit);
+    }
+
+    /**
+     * Response of the cluster node that owns the user of {@code request}, or {@code null} when this node owns it
+     * or the owner could not answer.
+     */
+    private FraudCheckResponse forwardToOwner(FraudCheckRequest request) {
+        String owner = clusterRouter.remoteOwner(request.getUserId());
+        return owner == null ? null : clusterRouter.forward(owner, request);
+    }
 
-        if (!request.getDeviceTrusted()) {
-            score += 20;
-            reasons.add("Untrusted device");
+    /**
+     * Queues {@code request} in the pipeline under a concurrency permit, which the score stage gives back. Shed
+     * requests and those the pipeline rejects are scored on the calling thread instead.
+     */
+    private CompletableFuture<FraudCheckResponse> submit(FraudCheckRequest request) {
+        long permit = concurrencyLimiter.acquire();
+        if (permit == ConcurrencyLimiter.SHED) {
+            return CompletableFuture.completedFuture(scoreDegraded(request));
         }
+        CompletableFuture<FraudCheckResponse> queued = scoringPipeline.submit(request, permit);
+        return queued != null ? queued : CompletableFuture.completedFuture(scoreFully(request, permit));
+    }
+
+    private FraudCheckResponse score(FraudCheckRequest request) {
+        long permit = concurrencyLimiter.acquire();
+        return permit == ConcurrencyLimiter.SHED ? scoreDegraded(request) : scoreFully(request, permit);
+    }
 
-        String country = request.getCountry();
-        if (fraudRulesProperties.getHighRiskCountries().contains(country)) {
-            score += 25;
-            reasons.add("High-risk country: " + country);
+    /**
+     * Scores {@code request} with every stage and gives {@code permit} back to the concurrency limiter.
+     */
+    private FraudCheckResponse scoreFully(FraudCheckRequest request, long permit) {
+        try {
+            boolean timed = scoringMetrics.sampleLatency();
+            long startNanos = timed ? System.nanoTime() : 0L;
+            return decide(enrich(request), timed, startNanos);
+        } finally {
+            concurrencyLimiter.release(permit);
         }
+    }
+
+    /**
+     * Converts the amount and records the transaction in the user's velocity windows, profile and replay filter.
+     */
+    private ScoringContext enrich(FraudCheckRequest request) {
+        ScoringContext context = context(request);
+        recordVelocity(context);
+        profileStore.observe(context);
+        replayFilter.observe(context);
+        return context;
+    }
 
-        int hourUtc = ZonedDateTime.ofInstant(request.getTimestamp(), ZoneOffset.UTC).getHour();
-        FraudRulesProperties.NightWindow nightWindow = fraudRulesProperties.getNightWindow();
-        int startHourUtc = nightWindow.getStartHourUtc();
-        int endHourUtc = nightWindow.getEndHourUtc();
+    private FraudCheckResponse decide(ScoringContext context, boolean timed, long startNanos) {
+        RuleSnapshot snapshot = ruleSnapshotHolder.current();
+        int cappedScore = Math.min(snapshot.getPlan().score(context), 100);
+        int riskScore = cappedScore;
+        Integer modelScore = null;
+        ScoringModel model = modelHolder.current();
+        if (model != null) {
+            modelScore = model.score(context);
+            riskScore = modelHolder.blend(cappedScore, modelScore);
+        }
+        FraudCheckResponse response = decision(snapshot, context, riskScore, modelScore);
 
-        if (isWithinWindow(hourUtc, startHourUtc, endHourUtc)) {
-            score += 10;
-            reasons.add(String.format(
-                "Transaction time is unusual (%02d:00 UTC in %02d:00–%02d:00 UTC)",
-                hourUtc,
-                startHourUtc,
-                endHourUtc
-            ));
+        scoringMetrics.record(snapshot, context.getFiredMask(), response.getRiskLevel());
+        if (timed) {
+            scoringMetrics.recordLatency(System.nanoTime() - startNanos);
         }
+        shadowScorer.submit(snapshot, context, cappedScore);
+        auditLog.append(context.getRequest(), response);
+        return response;
+    }
+
+    /**
+     * Scores with the degraded plan only: no velocity, profile, model or shadow evaluation, and the transaction
+     * is not added to the user's velocity windows or profile. Rule hits are not counted, since the fired mask
+     * indexes the degraded plan.
+     */
+    private FraudCheckResponse scoreDegraded(FraudCheckRequest request) {
+        RuleSnapshot snapshot = ruleSnapshotHolder.current();
+        ScoringContext context = context(request);
+        int riskScore = Math.min(snapshot.getDegradedPlan().score(context), 100);
+        FraudCheckResponse response = decision(snapshot, context, riskScore, null);
+        response.setDegraded(true);
 
-        int cappedScore = Math.min(score, 100);
+        scoringMetrics.record(snapshot, 0L, response.getRiskLevel());
+        auditLog.append(request, response);
+        return response;
+    }
 
+    private ScoringContext context(FraudCheckRequest request) {
+        long amountCents = fxRateHolder.current().toBaseCents(request.getAmount(), request.getCurrency());
+        if (amountCents == FxRateTable.UNSUPPORTED) {
+            throw new UnsupportedCurrencyException(request.getCurrency());
+        }
+        return new ScoringContext(request, amountCents);
+    }
+
+    private static FraudCheckResponse decision(RuleSnapshot snapshot, ScoringContext context, int riskScore,
+            Integer modelScore) {
         FraudCheckResponse response = new FraudCheckResponse();
-        response.setTransactionId(request.getTransactionId());
-        response.setRiskScore(cappedScore);
-        response.setRiskLevel(resolveRiskLevel(cappedScore));
-        response.setReasons(reasons);
+        response.setTransactionId(context.getRequest().getTransactionId());
+        response.setRiskScore(riskScore);
+        response.setModelScore(modelScore);
+        response.setRiskLevel(RiskLevel.forScore(riskScore));
+        response.setReasons(context.getReasons());
+        response.setReasonCodes(context.getReasonCodes());
+        response.setRuleVersion(snapshot.getVersion());
         response.setEvaluatedAt(Instant.now());
         return response;
     }
 
-    private boolean isWithinWindow(int hour, int start, int end) {
-        if (start <= end) {
-            return hour >= start && hour <= end;
+    /**
+     * Scores requests, keeping request order. In cluster mode the requests of users owned by other nodes are sent
+     * to their owners as one batch per node, while this node scores its own. Each item holds either the result or
+     * the error of its request, such as a transaction id reused with another payload; its index is not set. An
+     * error reported by the owner is passed on, and only the requests the owner did not answer are scored here.
+     * The deadline for the owners' answers starts once this node has scored its own share.
+     * Without {@code cached} the idempotency cache is neither read nor filled, here or on the owners, so that a
+     * backfill neither evicts the entries of live retries nor gets responses scored under older rules.
+     */
+    public List<BatchCheckItemResponse> evaluateAll(List<FraudCheckRequest> requests, boolean cached) {
+        if (!clusterRouter.isEnabled()) {
+            return evaluateAllHere(requests, cached);
+        }
+
+        Map<String, List<Integer>> remote = new LinkedHashMap<>();
+        List<Integer> local = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            String owner = clusterRouter.remoteOwner(requests.get(i).getUserId());
+            if (owner == null) {
+                local.add(i);
+            } else {
+                remote.computeIfAbsent(owner, key -> new ArrayList<>()).add(i);
+            }
+        }
+        if (remote.isEmpty()) {
+            return evaluateAllHere(requests, cached);
+        }
+
+        BatchCheckItemResponse[] items = new BatchCheckItemResponse[requests.size()];
+        try (FanOutScope<List<BatchCheckItemResponse>> scope = new FanOutScope<>(scoringExecutor, deadline)) {
+            for (Map.Entry<String, List<Integer>> partition : remote.entrySet()) {
+                List<FraudCheckRequest> batch = select(requests, partition.getValue());
+                scope.fork(() -> clusterRouter.forwardAll(partition.getKey(), batch, cached));
+            }
+            place(items, local, evaluateAllHere(select(requests, local), cached));
+            scope.restartDeadline();
+
+            List<Integer> unanswered = new ArrayList<>();
+            List<List<BatchCheckItemResponse>> forwarded = scope.join();
+            int next = 0;
+            for (List<Integer> indexes : remote.values()) {
+                List<BatchCheckItemResponse> answers = forwarded.get(next++);
+                for (int i = 0; i < indexes.size(); i++) {
+                    BatchCheckItemResponse answer = answers == null ? null : answers.get(i);
+                    if (answer == null) {
+                        unanswered.add(indexes.get(i));
+                    } else {
+                        items[indexes.get(i)] = answer;
+                    }
+                }
+            }
+            if (!unanswered.isEmpty()) {
+                place(items, unanswered, evaluateAllHere(select(requests, unanswered), cached));
+            }
+        }
+        return List.of(items);
+    }
+
+    /**
+     * Scores requests on this node in groups of {@code fraud.execution.group-size} on the scoring executor,
+     * keeping request order. Small inputs are scored on the calling thread. {@code cached} is as for
+     * {@link #evaluateAll}.
+     */
+    public List<BatchCheckItemResponse> evaluateAllHere(List<FraudCheckRequest> requests, boolean cached) {
+        int size = requests.size();
+        if (size <= groupSize) {
+            return evaluateGroup(requests, cached);
+        }
+
+        try (FanOutScope<List<BatchCheckItemResponse>> scope = new FanOutScope<>(scoringExecutor, deadline)) {
+            for (int from = 0; from < size; from += groupSize) {
+                List<FraudCheckRequest> group = requests.subList(from, Math.min(from + groupSize, size));
+                scope.fork(() -> evaluateGroup(group, cached));
+            }
+
+            List<BatchCheckItemResponse> items = new ArrayList<>(size);
+            for (List<BatchCheckItemResponse> group : scope.join()) {
+                items.addAll(group);
+            }
+            return items;
+        }
+    }
+
+    /**
+     * Whether {@code currency} has an FX rate, so that callers can reject single items of a batch up front.
+     */
+    public boolean supportsCurrency(String currency) {
+        return fxRateHolder.current().supports(currency);
+    }
+
+    private List<BatchCheckItemResponse> evaluateGroup(List<FraudCheckRequest> requests, boolean cached) {
+        List<BatchCheckItemResponse> items = new ArrayList<>(requests.size());
+        for (FraudCheckRequest request : requests) {
+            BatchCheckItemResponse item;
+            try {
+                item = scored(cached ? evaluateHere(request) : score(request));
+            } catch (IdempotencyConflictException exception) {
+                item = new BatchCheckItemResponse();
+                item.setError(exception.getMessage());
+            }
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static BatchCheckItemResponse scored(FraudCheckResponse response) {
+        BatchCheckItemResponse item = new BatchCheckItemResponse();
+        item.setResult(response);
+        return item;
+    }
+
+    private static List<FraudCheckRequest> select(List<FraudCheckRequest> requests, List<Integer> indexes) {
+        List<FraudCheckRequest> selected = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            selected.add(requests.get(index));
+        }
+        return selected;
+    }
+
+    private static void place(
+            BatchCheckItemResponse[] items, List<Integer> indexes, List<BatchCheckItemResponse> scored) {
+        for (int i = 0; i < indexes.size(); i++) {
+            items[indexes.get(i)] = scored.get(i);
         }
-        return hour >= start || hour <= end;
     }
 
-    private RiskLevel resolveRiskLevel(int score) {
-        if (score >= 70) {
-            return RiskLevel.HIGH;
+    private void recordVelocity(ScoringContext context) {
+        int windows = velocityTracker.getWindowCount();
+        if (windows == 0) {
+            return;
         }
-        if (score >= 30) {
-            return RiskLevel.MEDIUM;
+        long[] counts = new long[windows];
+        long[] amounts = new long[windows];
+        FraudCheckRequest request = context.getRequest();
+        velocityTracker.record(
+            request.getUserId(),
+            request.getTimestamp().getEpochSecond(),
+            context.getAmountCents(),
+            counts,
+            amounts
+        );
+        context.setVelocity(counts, amounts);
+    }
+
+    private final class PipelineStages implements ScoringPipeline.Stages {
+
+        @Override
+        public ScoringContext enrich(FraudCheckRequest request, long permit) {
+            try {
+                return FraudScoringService.this.enrich(request);
+            } catch (RuntimeException | Error exception) {
+                concurrencyLimiter.release(permit);
+                throw exception;
+            }
+        }
+
+        @Override
+        public FraudCheckResponse score(ScoringContext context, long startNanos, long permit) {
+            try {
+                return decide(context, scoringMetrics.sampleLatency(), startNanos);
+            } finally {
+                concurrencyLimiter.release(permit);
+            }
         }
-        return RiskLevel.LOW;
     }
 }
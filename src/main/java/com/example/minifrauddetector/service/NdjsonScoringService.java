@@ -0,0 +1,239 @@
+package com.example.minifrauddetector.service;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.BatchCheckItemResponse;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.stereotype.Service;
+
+/**
+ * Scores newline-delimited JSON requests from a stream and writes one result per line as soon as its
+ * chunk is scored.
+ *
+ * <p>Only one chunk of parsed requests and one line buffer are held at a time, so memory does not
+ * depend on the input size. Reads and writes are blocking: when the client stops reading the
+ * responses, writes block and the input stops being consumed, which pushes back on the sender.
+ *
+ * <p>Streams are meant for backfills, so their requests bypass the idempotency cache: a large export would
+ * otherwise evict the entries kept for gateway retries, and scoring it again after a rule reload would return the
+ * responses of the old rules.
+ */
+@Service
+public class NdjsonScoringService {
+
+    private static final byte NEWLINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    private final BatchCheckService batchCheckService;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader requestReader;
+    private final ObjectWriter itemWriter;
+    private final int chunkSize;
+    private final int maxLineBytes;
+
+    public NdjsonScoringService(
+            BatchCheckService batchCheckService,
+            ObjectMapper objectMapper,
+            FraudRulesProperties fraudRulesProperties) {
+        this.batchCheckService = batchCheckService;
+        this.objectMapper = objectMapper;
+        this.requestReader = objectMapper.readerFor(FraudCheckRequest.class)
+            .with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+        this.itemWriter = objectMapper.writerFor(BatchCheckItemResponse.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.chunkSize = fraudRulesProperties.getStream().getChunkSize();
+        this.maxLineBytes = fraudRulesProperties.getStream().getMaxLineBytes();
+    }
+
+    /**
+     * Reads requests until end of input. Each non-blank input line produces exactly one output line whose
+     * {@code index} is the zero-based input line number. Without {@code verbose} the results carry reason codes
+     * only. Returns the number of lines written.
+     */
+    public long score(InputStream input, OutputStream output, boolean verbose) throws IOException {
+        LineReader lines = new LineReader(input, maxLineBytes);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+        generator.setRootValueSeparator(null);
+
+        Chunk chunk = new Chunk(chunkSize);
+        long written = 0;
+        long lineIndex = -1;
+        while (lines.next()) {
+            lineIndex++;
+            if (lines.isBlank()) {
+                continue;
+            }
+
+            if (lines.isTruncated()) {
+                chunk.addError(lineIndex, "Line exceeds " + maxLineBytes + " bytes");
+            } else {
+                try {
+                    chunk.addRequest(lineIndex, requestReader.readValue(lines.buffer(), 0, lines.length()));
+                } catch (IOException exception) {
+                    chunk.addError(lineIndex, "Malformed JSON request");
+                }
+            }
+
+            if (chunk.isFull()) {
+                written += flush(chunk, generator, verbose);
+            }
+        }
+        written += flush(chunk, generator, verbose);
+        generator.flush();
+        return written;
+    }
+
+    private int flush(Chunk chunk, JsonGenerator generator, boolean verbose) throws IOException {
+        if (chunk.size() == 0) {
+            return 0;
+        }
+
+        List<BatchCheckItemResponse> scored = batchCheckService.process(chunk.requests, 0, verbose, false, false);
+        int next = 0;
+        for (int i = 0; i < chunk.size(); i++) {
+            BatchCheckItemResponse item = chunk.errors.get(i);
+            if (item == null) {
+                item = scored.get(next++);
+            }
+            item.setIndex(chunk.lineIndexes[i]);
+            itemWriter.writeValue(generator, item);
+            generator.writeRaw((char) NEWLINE);
+        }
+        generator.flush();
+
+        int flushed = chunk.size();
+        chunk.clear();
+        return flushed;
+    }
+
+    private static final class Chunk {
+
+        private final long[] lineIndexes;
+        private final List<BatchCheckItemResponse> errors;
+        private final List<FraudCheckRequest> requests;
+
+        private Chunk(int capacity) {
+            this.lineIndexes = new long[capacity];
+            this.errors = new ArrayList<>(capacity);
+            this.requests = new ArrayList<>(capacity);
+        }
+
+        private void addRequest(long lineIndex, FraudCheckRequest request) {
+            lineIndexes[errors.size()] = lineIndex;
+            errors.add(null);
+            requests.add(request);
+        }
+
+        private void addError(long lineIndex, String message) {
+            BatchCheckItemResponse item = new BatchCheckItemResponse();
+            item.setError(message);
+            lineIndexes[errors.size()] = lineIndex;
+            errors.add(item);
+        }
+
+        private int size() {
+            return errors.size();
+        }
+
+        private boolean isFull() {
+            return errors.size() == lineIndexes.length;
+        }
+
+        private void clear() {
+            errors.clear();
+            requests.clear();
+        }
+    }
+
+    /**
+     * Splits a byte stream on {@code \n} (tolerating {@code \r\n}) into a single reusable buffer. Lines
+     * longer than the limit are consumed to their end but reported as truncated.
+     */
+    private static final class LineReader {
+
+        private final InputStream input;
+        private final byte[] readBuffer = new byte[8192];
+        private final byte[] line;
+        private int readPosition;
+        private int readLimit;
+        private int length;
+        private boolean truncated;
+        private boolean eof;
+
+        private LineReader(InputStream input, int maxLineBytes) {
+            this.input = input;
+            this.line = new byte[maxLineBytes];
+        }
+
+        private boolean next() throws IOException {
+            length = 0;
+            truncated = false;
+            boolean sawByte = false;
+            while (true) {
+                if (readPosition == readLimit) {
+                    if (eof || !fill()) {
+                        return sawByte;
+                    }
+                }
+                byte b = readBuffer[readPosition++];
+                sawByte = true;
+                if (b == NEWLINE) {
+                    if (length > 0 && line[length - 1] == CARRIAGE_RETURN) {
+                        length--;
+                    }
+                    return true;
+                }
+                if (length < line.length) {
+                    line[length++] = b;
+                } else {
+                    truncated = true;
+                }
+            }
+        }
+
+        private boolean fill() throws IOException {
+            int read = input.read(readBuffer);
+            if (read < 0) {
+                eof = true;
+                return false;
+            }
+            readPosition = 0;
+            readLimit = read;
+            return true;
+        }
+
+        private boolean isBlank() {
+            if (truncated) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (!Character.isWhitespace(line[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isTruncated() {
+            return truncated;
+        }
+
+        private byte[] buffer() {
+            return line;
+        }
+
+        private int length() {
+            return length;
+        }
+    }
+}
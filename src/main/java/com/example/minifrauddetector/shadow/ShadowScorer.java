@@ -0,0 +1,140 @@
+package com.example.minifrauddetector.shadow;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.config.RuleSnapshotHolder;
+import com.example.minifrauddetector.dto.ShadowStatsResponse;
+import com.example.minifrauddetector.rules.RuleSnapshot;
+import com.example.minifrauddetector.rules.ScoringContext;
+import jakarta.annotation.PreDestroy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scores live transactions a second time against a candidate rule set and records where it disagrees with the
+ * active one. The candidate binds {@code fraud.*} from {@code fraud.shadow.rules-file} layered over the
+ * application environment.
+ *
+ * <p>Work is handed to a small pool with a bounded queue. When the queue is full the transaction is dropped
+ * and counted, so the request thread never waits for the candidate.
+ */
+@Component
+public class ShadowScorer {
+
+    private static final Logger log = LoggerFactory.getLogger(ShadowScorer.class);
+
+    private final RuleSnapshotHolder candidate;
+    private final Executor executor;
+    private final ShadowStats stats = new ShadowStats();
+
+    @Autowired
+    public ShadowScorer(RuleSnapshotHolder ruleSnapshotHolder, FraudRulesProperties fraudRulesProperties) {
+        FraudRulesProperties.Shadow shadow = fraudRulesProperties.getShadow();
+        if (!shadow.isEnabled()) {
+            this.candidate = null;
+            this.executor = null;
+            return;
+        }
+        if (shadow.getRulesFile() == null || !Files.isRegularFile(Path.of(shadow.getRulesFile()))) {
+            throw new IllegalArgumentException("fraud.shadow.rules-file must name an existing file when shadow scoring is enabled");
+        }
+        if (shadow.getThreads() < 1 || shadow.getQueueCapacity() < 1) {
+            throw new IllegalArgumentException("fraud.shadow.threads and fraud.shadow.queue-capacity must be positive");
+        }
+        this.candidate = ruleSnapshotHolder.withRulesFile(shadow.getRulesFile());
+        this.executor = boundedExecutor(shadow.getThreads(), shadow.getQueueCapacity());
+        log.info("Shadow scoring enabled with candidate rules from {}", shadow.getRulesFile());
+    }
+
+    ShadowScorer(RuleSnapshotHolder candidate, Executor executor) {
+        this.candidate = candidate;
+        this.executor = executor;
+    }
+
+    /**
+     * Scorer that ignores every submission.
+     */
+    public static ShadowScorer disabled() {
+        return new ShadowScorer(null, (Executor) null);
+    }
+
+    public boolean isEnabled() {
+        return candidate != null;
+    }
+
+    /**
+     * Queues the candidate evaluation of a transaction the active rule set scored. Returns immediately; the
+     * context must not change afterwards.
+     */
+    public void submit(RuleSnapshot active, ScoringContext context, int activeScore) {
+        if (candidate == null) {
+            return;
+        }
+        try {
+            executor.execute(() -> compare(active, context, activeScore));
+        } catch (RejectedExecutionException exception) {
+            stats.recordDropped();
+        }
+    }
+
+    /**
+     * Rebinds the candidate rule set and starts new statistics.
+     */
+    public RuleSnapshot reload() {
+        if (candidate == null) {
+            throw new IllegalStateException("Shadow scoring is disabled");
+        }
+        RuleSnapshot snapshot = candidate.reload();
+        stats.reset();
+        return snapshot;
+    }
+
+    public ShadowStatsResponse stats() {
+        ShadowStatsResponse response = stats.toResponse();
+        response.setEnabled(candidate != null);
+        response.setCandidateVersion(candidate == null ? 0 : candidate.current().getVersion());
+        return response;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor instanceof ExecutorService service) {
+            service.shutdownNow();
+        }
+    }
+
+    private void compare(RuleSnapshot active, ScoringContext activeContext, int activeScore) {
+        try {
+            RuleSnapshot snapshot = candidate.current();
+            ScoringContext context = activeContext.copyInputs();
+            int candidateScore = Math.min(snapshot.getPlan().score(context), 100);
+            stats.record(active.getPlan(), activeContext.getFiredMask(), activeScore,
+                snapshot.getPlan(), context.getFiredMask(), candidateScore);
+        } catch (RuntimeException exception) {
+            stats.recordFailure();
+            log.debug("Candidate rules failed on transaction {}", activeContext.getRequest().getTransactionId(), exception);
+        }
+    }
+
+    // A full queue drops the task in the rejection handler, which only bumps a counter on the request thread.
+    private ExecutorService boundedExecutor(int threads, int queueCapacity) {
+        return new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            Thread.ofPlatform().name("shadow-scoring-", 0).daemon(true).factory(),
+            (task, pool) -> stats.recordDropped()
+        );
+    }
+}
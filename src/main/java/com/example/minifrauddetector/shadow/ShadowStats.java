@@ -0,0 +1,130 @@
+package com.example.minifrauddetector.shadow;
+
+import com.example.minifrauddetector.dto.RiskLevel;
+import com.example.minifrauddetector.dto.ShadowStatsResponse;
+import com.example.minifrauddetector.rules.RulePlan;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Disagreement counters between the active and the candidate rule set. Only shadow workers record
+ * comparisons, so a plain lock is enough; drops are counted on request threads and use an adder instead.
+ */
+final class ShadowStats {
+
+    private static final RiskLevel[] LEVELS = RiskLevel.values();
+
+    private final LongAdder dropped = new LongAdder();
+    private final long[][] levels = new long[LEVELS.length][LEVELS.length];
+    private final Map<String, long[]> rules = new TreeMap<>();
+    private Instant since = Instant.now();
+    private long evaluated;
+    private long failed;
+    private long scoreChanged;
+    private long deltaSum;
+    private long absoluteDeltaSum;
+    private int minDelta;
+    private int maxDelta;
+
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    synchronized void recordFailure() {
+        failed++;
+    }
+
+    synchronized void record(RulePlan activePlan, long activeMask, int activeScore,
+                             RulePlan candidatePlan, long candidateMask, int candidateScore) {
+        evaluated++;
+        levels[RiskLevel.forScore(activeScore).ordinal()][RiskLevel.forScore(candidateScore).ordinal()]++;
+
+        int delta = candidateScore - activeScore;
+        if (delta != 0) {
+            scoreChanged++;
+            deltaSum += delta;
+            absoluteDeltaSum += Math.abs(delta);
+            minDelta = Math.min(minDelta, delta);
+            maxDelta = Math.max(maxDelta, delta);
+        }
+
+        recordOneSided(activePlan, activeMask, candidatePlan, candidateMask, 0);
+        recordOneSided(candidatePlan, candidateMask, activePlan, activeMask, 1);
+    }
+
+    synchronized void reset() {
+        dropped.reset();
+        for (long[] row : levels) {
+            Arrays.fill(row, 0);
+        }
+        rules.clear();
+        since = Instant.now();
+        evaluated = 0;
+        failed = 0;
+        scoreChanged = 0;
+        deltaSum = 0;
+        absoluteDeltaSum = 0;
+        minDelta = 0;
+        maxDelta = 0;
+    }
+
+    synchronized ShadowStatsResponse toResponse() {
+        ShadowStatsResponse response = new ShadowStatsResponse();
+        response.setSince(since);
+        response.setEvaluated(evaluated);
+        response.setDropped(dropped.sum());
+        response.setFailed(failed);
+        response.setScoreChanged(scoreChanged);
+        response.setMeanScoreDelta(evaluated == 0 ? 0 : (double) deltaSum / evaluated);
+        response.setMeanAbsoluteScoreDelta(evaluated == 0 ? 0 : (double) absoluteDeltaSum / evaluated);
+        response.setMinScoreDelta(minDelta);
+        response.setMaxScoreDelta(maxDelta);
+
+        long levelChanged = 0;
+        Map<String, Long> flips = new LinkedHashMap<>();
+        for (RiskLevel active : LEVELS) {
+            for (RiskLevel candidate : LEVELS) {
+                long count = levels[active.ordinal()][candidate.ordinal()];
+                if (active != candidate && count > 0) {
+                    flips.put(active + "->" + candidate, count);
+                    levelChanged += count;
+                }
+            }
+        }
+        response.setLevelChanged(levelChanged);
+        response.setLevelFlips(flips);
+
+        Map<String, ShadowStatsResponse.RuleDifferenceDto> differences = new LinkedHashMap<>();
+        rules.forEach((ruleId, counts) -> {
+            ShadowStatsResponse.RuleDifferenceDto dto = new ShadowStatsResponse.RuleDifferenceDto();
+            dto.setActiveOnly(counts[0]);
+            dto.setCandidateOnly(counts[1]);
+            differences.put(ruleId, dto);
+        });
+        response.setRules(differences);
+        return response;
+    }
+
+    // Counts rules that fired in one plan but not in the other; rules are matched by id since the plans may differ.
+    private void recordOneSided(RulePlan plan, long mask, RulePlan otherPlan, long otherMask, int side) {
+        for (long bits = mask; bits != 0; bits &= bits - 1) {
+            String ruleId = plan.getRuleId(Long.numberOfTrailingZeros(bits));
+            if (!fired(otherPlan, otherMask, ruleId)) {
+                rules.computeIfAbsent(ruleId, id -> new long[2])[side]++;
+            }
+        }
+    }
+
+    private static boolean fired(RulePlan plan, long mask, String ruleId) {
+        for (long bits = mask; bits != 0; bits &= bits - 1) {
+            if (plan.getRuleId(Long.numberOfTrailingZeros(bits)).equals(ruleId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.minifrauddetector.velocity;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-user transaction count and amount sum over the configured windows.
+ *
+ * <p>Each window is a ring of {@code bucketsPerWindow} buckets, so a window total covers between
+ * {@code duration - bucketWidth} and {@code duration} of history. Buckets are keyed by the transaction
+ * timestamp, which keeps replays of historic traffic consistent with live scoring; a timestamp ahead of the
+ * tracker clock counts as now, so one future-dated request cannot move a user's ring past the live traffic.
+ *
+ * <p>Users are spread over independently locked stripes. Each stripe keeps its users in flat primitive
+ * arrays indexed by slot and finds slots through an open-addressing table, so recording a transaction
+ * for a known user does not allocate. When a stripe is full, users idle for longer than the widest
+ * window are evicted together with roughly the least recently seen sixteenth of the stripe.
+ *
+ * <p>A full tracker takes {@code windows × bucketsPerWindow × 16} bytes per user, about 72 MB for the default
+ * 250 000 users and three windows of six buckets. The arrays of a stripe therefore start small and double as
+ * users arrive, so a tracker that never sees that many users never allocates that much.
+ */
+@Component
+public class VelocityTracker {
+
+    // Bucket numbers are counted from 2020-01-01 so they fit in an int for any bucket width >= 1s.
+    private static final long EPOCH_BASE_SECOND = 1_577_836_800L;
+    private static final int EMPTY_STAMP = Integer.MIN_VALUE;
+    private static final int EVICTION_SAMPLES = 64;
+    private static final int INITIAL_SLOTS = 16;
+
+    private final int windowCount;
+    private final int buckets;
+    private final long[] bucketWidthSeconds;
+    private final long idleAfterMillis;
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final LongSupplier clock;
+
+    @Autowired
+    public VelocityTracker(FraudRulesProperties fraudRulesProperties) {
+        this(fraudRulesProperties.getVelocity(), System::currentTimeMillis);
+    }
+
+    VelocityTracker(FraudRulesProperties.Velocity velocity, LongSupplier clock) {
+        List<FraudRulesProperties.VelocityWindow> windows = velocity.getWindows();
+        if (velocity.getBucketsPerWindow() < 1) {
+            throw new IllegalArgumentException("fraud.velocity.buckets-per-window must be at least 1");
+        }
+        if (velocity.getMaxUsers() < 1) {
+            throw new IllegalArgumentException("fraud.velocity.max-users must be at least 1");
+        }
+
+        this.windowCount = windows.size();
+        this.buckets = velocity.getBucketsPerWindow();
+        this.bucketWidthSeconds = new long[windowCount];
+        long widestWindowSeconds = 0;
+        for (int w = 0; w < windowCount; w++) {
+            FraudRulesProperties.VelocityWindow window = windows.get(w);
+            long seconds = window.getDuration() == null ? 0 : window.getDuration().toSeconds();
+            if (seconds < 1) {
+                throw new IllegalArgumentException("Velocity window '" + window.getName() + "' needs a duration of at least 1s");
+            }
+            bucketWidthSeconds[w] = Math.max(1, seconds / buckets);
+            widestWindowSeconds = Math.max(widestWindowSeconds, bucketWidthSeconds[w] * buckets);
+        }
+        this.idleAfterMillis = widestWindowSeconds * 1000;
+        this.clock = clock;
+
+        int stripeCount = Integer.highestOneBit(Math.max(1, Math.min(velocity.getStripes(), velocity.getMaxUsers())));
+        int slotsPerStripe = Math.max(1, velocity.getMaxUsers() / stripeCount);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(slotsPerStripe, windowCount * buckets);
+        }
+        this.stripeMask = stripeCount - 1;
+    }
+
+    public int getWindowCount() {
+        return windowCount;
+    }
+
+    /**
+     * Adds a transaction to the user's windows and writes the resulting per-window totals, including
+     * this transaction, into {@code counts} and {@code sums}.
+     */
+    public void record(String userId, long epochSecond, long amount, long[] counts, long[] sums) {
+        if (windowCount == 0) {
+            return;
+        }
+
+        int hash = spread(userId.hashCode());
+        Stripe stripe = stripes[hash & stripeMask];
+        long nowMillis = clock.getAsLong();
+        long second = Math.min(epochSecond, Math.floorDiv(nowMillis, 1000));
+        synchronized (stripe) {
+            int slot = stripe.acquire(userId, hash, nowMillis, idleAfterMillis);
+            int slotBase = slot * stripe.cellsPerSlot;
+            for (int w = 0; w < windowCount; w++) {
+                int base = slotBase + w * buckets;
+                int bucket = (int) Math.floorDiv(second - EPOCH_BASE_SECOND, bucketWidthSeconds[w]);
+                int cell = base + Math.floorMod(bucket, buckets);
+
+                if (stripe.stamps[cell] < bucket) {
+                    stripe.stamps[cell] = bucket;
+                    stripe.counts[cell] = 0;
+                    stripe.sums[cell] = 0;
+                }
+                // A bucket already reused for a later period means this transaction is older than the ring.
+                if (stripe.stamps[cell] == bucket) {
+                    stripe.counts[cell]++;
+                    stripe.sums[cell] = saturatedAdd(stripe.sums[cell], amount);
+                }
+
+                long count = 0;
+                long sum = 0;
+                for (int b = base; b < base + buckets; b++) {
+                    int stamp = stripe.stamps[b];
+                    if (stamp <= bucket && stamp > bucket - buckets) {
+                        count += stripe.counts[b];
+                        sum = saturatedAdd(sum, stripe.sums[b]);
+                    }
+                }
+                counts[w] = count;
+                sums[w] = sum;
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return ((a ^ sum) & (b ^ sum)) < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Stripe {
+
+        private final int capacity;
+        private final int cellsPerSlot;
+        private String[] keys = new String[0];
+        private int[] keyHashes = new int[0];
+        private long[] lastAccessMillis = new long[0];
+        private int[] stamps = new int[0];
+        private int[] counts = new int[0];
+        private long[] sums = new long[0];
+        private int[] freeSlots = new int[0];
+        private int[] table;
+        private int tableMask;
+        private int slots;
+        private int freeTop;
+        private int size;
+
+        private Stripe(int capacity, int cellsPerSlot) {
+            this.capacity = capacity;
+            this.cellsPerSlot = cellsPerSlot;
+            grow(Math.min(capacity, INITIAL_SLOTS));
+        }
+
+        // Only called when every slot is taken: new slots are added to the free list and the table is rebuilt.
+        private void grow(int newSlots) {
+            keys = Arrays.copyOf(keys, newSlots);
+            keyHashes = Arrays.copyOf(keyHashes, newSlots);
+            lastAccessMillis = Arrays.copyOf(lastAccessMillis, newSlots);
+            stamps = Arrays.copyOf(stamps, newSlots * cellsPerSlot);
+            counts = Arrays.copyOf(counts, newSlots * cellsPerSlot);
+            sums = Arrays.copyOf(sums, newSlots * cellsPerSlot);
+            freeSlots = Arrays.copyOf(freeSlots, newSlots);
+            for (int slot = newSlots - 1; slot >= slots; slot--) {
+                freeSlots[freeTop++] = slot;
+            }
+
+            table = new int[Integer.highestOneBit(newSlots * 2 - 1) << 1];
+            tableMask = table.length - 1;
+            for (int slot = 0; slot < slots; slot++) {
+                if (keys[slot] != null) {
+                    int position = (keyHashes[slot] >>> 8) & tableMask;
+                    while (table[position] != 0) {
+                        position = (position + 1) & tableMask;
+                    }
+                    table[position] = slot + 1;
+                }
+            }
+            slots = newSlots;
+        }
+
+        private int acquire(String key, int hash, long nowMillis, long idleAfterMillis) {
+            int position = (hash >>> 8) & tableMask;
+            for (int entry = table[position]; entry != 0; entry = table[position]) {
+                int slot = entry - 1;
+                if (keyHashes[slot] == hash && keys[slot].equals(key)) {
+                    lastAccessMillis[slot] = nowMillis;
+                    return slot;
+                }
+                position = (position + 1) & tableMask;
+            }
+
+            if (freeTop == 0) {
+                if (slots < capacity) {
+                    grow((int) Math.min(capacity, 2L * slots));
+                } else {
+                    evict(nowMillis, idleAfterMillis);
+                }
+                return acquire(key, hash, nowMillis, idleAfterMillis);
+            }
+
+            int slot = freeSlots[--freeTop];
+            keys[slot] = key;
+            keyHashes[slot] = hash;
+            lastAccessMillis[slot] = nowMillis;
+            Arrays.fill(stamps, slot * cellsPerSlot, (slot + 1) * cellsPerSlot, EMPTY_STAMP);
+            table[position] = slot + 1;
+            size++;
+            return slot;
+        }
+
+        // Only called on a stripe grown to its capacity and full. The cut-off is estimated from evenly spaced samples, so the stripe is
+        // scanned once per ~capacity/16 new users rather than once per new user.
+        private void evict(long nowMillis, long idleAfterMillis) {
+            int samples = Math.min(EVICTION_SAMPLES, capacity);
+            long[] sampled = new long[samples];
+            for (int i = 0; i < samples; i++) {
+                sampled[i] = lastAccessMillis[(int) ((long) i * capacity / samples)];
+            }
+            Arrays.sort(sampled);
+            long cutoff = sampled[samples / 16];
+
+            int oldestSlot = -1;
+            for (int slot = 0; slot < capacity; slot++) {
+                long lastAccess = lastAccessMillis[slot];
+                if (nowMillis - lastAccess > idleAfterMillis || lastAccess < cutoff) {
+                    remove(slot);
+                } else if (oldestSlot < 0 || lastAccess < lastAccessMillis[oldestSlot]) {
+                    oldestSlot = slot;
+                }
+            }
+            if (freeTop == 0) {
+                remove(oldestSlot);
+            }
+        }
+
+        private void remove(int slot) {
+            int position = (keyHashes[slot] >>> 8) & tableMask;
+            while (table[position] != slot + 1) {
+                position = (position + 1) & tableMask;
+            }
+            table[position] = 0;
+
+            // Backward-shift deletion keeps probe sequences intact without tombstones.
+            int next = (position + 1) & tableMask;
+            while (table[next] != 0) {
+                int home = (keyHashes[table[next] - 1] >>> 8) & tableMask;
+                boolean movable = position <= next
+                    ? home <= position || home > next
+                    : home <= position && home > next;
+                if (movable) {
+                    table[position] = table[next];
+                    table[next] = 0;
+                    position = next;
+                }
+                next = (next + 1) & tableMask;
+            }
+
+            keys[slot] = null;
+            freeSlots[freeTop++] = slot;
+            size--;
+        }
+    }
+}
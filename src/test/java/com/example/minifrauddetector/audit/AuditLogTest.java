@@ -0,0 +1,146 @@
+package com.example.minifrauddetector.audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.dto.FraudCheckResponse;
+import com.example.minifrauddetector.dto.RiskLevel;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+class AuditLogTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldWriteDecisionsAcrossSegmentsAndContinueTheSequenceAfterARestart() throws Exception {
+        AuditLog auditLog = auditLog(FraudRulesProperties.Audit.Overflow.BLOCK, 1024, new SimpleMeterRegistry());
+        auditLog.start();
+        for (int i = 1; i <= 300; i++) {
+            auditLog.append(request("tx-" + i), decision(i));
+        }
+        auditLog.stop();
+
+        auditLog = auditLog(FraudRulesProperties.Audit.Overflow.BLOCK, 1024, new SimpleMeterRegistry());
+        auditLog.start();
+        auditLog.append(request("tx-301"), decision(301));
+        auditLog.stop();
+
+        List<Path> segments = AuditSegmentReader.segments(tempDir);
+        assertTrue(segments.size() > 2, "records should roll over into several segments");
+        List<JsonNode> records = new ArrayList<>();
+        long next = 1;
+        for (Path segment : segments) {
+            AuditSegmentReader.Scan scan = AuditSegmentReader.scan(segment, entry -> {
+                try {
+                    records.add(objectMapper.readTree(entry.payload()));
+                } catch (Exception exception) {
+                    throw new IllegalStateException(exception);
+                }
+            });
+            assertTrue(scan.isClean(), scan.error());
+            assertEquals(next, scan.firstSequence());
+            next = scan.nextSequence();
+        }
+
+        assertEquals(301, records.size());
+        JsonNode last = records.get(300);
+        assertEquals(301, last.get("sequence").asLong());
+        assertEquals("tx-301", last.get("request").get("transactionId").asText());
+        assertEquals("2026-01-05T12:00:00Z", last.get("request").get("timestamp").asText());
+        assertEquals(301 % 100, last.get("riskScore").asInt());
+        assertEquals("[\"UNTRUSTED_DEVICE\"]", last.get("reasonCodes").toString());
+        assertEquals(7, last.get("ruleVersion").asLong());
+    }
+
+    @Test
+    void shouldDropAndCountDecisionsWhenTheQueueIsFull() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        // Not started, so nothing drains the queue.
+        AuditLog auditLog = auditLog(FraudRulesProperties.Audit.Overflow.DROP, 4, registry);
+        for (int i = 1; i <= 10; i++) {
+            auditLog.append(request("tx-" + i), decision(i));
+        }
+
+        assertEquals(6, registry.get("fraud.audit.records").tag("outcome", "dropped").functionCounter().count());
+        assertEquals(4, registry.get("fraud.audit.queue").gauge().value());
+        assertFalse(AuditLog.disabled().isEnabled());
+    }
+
+    @Test
+    void shouldStopReadingASegmentAtACorruptRecord() throws Exception {
+        AuditLog auditLog = auditLog(FraudRulesProperties.Audit.Overflow.BLOCK, 1024, new SimpleMeterRegistry());
+        auditLog.start();
+        for (int i = 1; i <= 3; i++) {
+            auditLog.append(request("tx-" + i), decision(i));
+        }
+        auditLog.stop();
+        Path segment = AuditSegmentReader.segments(tempDir).getFirst();
+        int secondRecord;
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(AuditSegmentReader.HEADER_BYTES);
+            secondRecord = AuditSegmentReader.HEADER_BYTES + AuditSegmentReader.RECORD_HEADER_BYTES + file.readInt();
+            file.seek(secondRecord + AuditSegmentReader.RECORD_HEADER_BYTES + 2);
+            file.write('X');
+        }
+
+        AuditSegmentReader.Scan scan = AuditSegmentReader.scan(segment, entry -> { });
+
+        assertEquals(1, scan.records());
+        assertEquals("checksum mismatch at offset " + secondRecord, scan.error());
+    }
+
+    private AuditLog auditLog(FraudRulesProperties.Audit.Overflow overflow, int queueCapacity, SimpleMeterRegistry registry) {
+        FraudRulesProperties properties = new FraudRulesProperties();
+        FraudRulesProperties.Audit audit = properties.getAudit();
+        audit.setEnabled(true);
+        audit.setDirectory(tempDir);
+        audit.setSegmentSize(DataSize.ofKilobytes(64));
+        audit.setQueueCapacity(queueCapacity);
+        audit.setOverflow(overflow);
+        return new AuditLog(properties, objectMapper, registry);
+    }
+
+    private static FraudCheckRequest request(String transactionId) {
+        FraudCheckRequest request = new FraudCheckRequest();
+        request.setTransactionId(transactionId);
+        request.setUserId("user-1");
+        request.setAmount(new BigDecimal("125.50"));
+        request.setCurrency("USD");
+        request.setCountry("US");
+        request.setTimestamp(Instant.parse("2026-01-05T12:00:00Z"));
+        request.setDeviceTrusted(false);
+        // Padding, so that a few hundred records fill more than one 64KB segment.
+        request.setMerchantCategory("5411".repeat(100));
+        return request;
+    }
+
+    private static FraudCheckResponse decision(int i) {
+        FraudCheckResponse response = new FraudCheckResponse();
+        response.setTransactionId("tx-" + i);
+        response.setRiskScore(i % 100);
+        response.setRiskLevel(RiskLevel.forScore(i % 100));
+        response.setReasonCodes(List.of("UNTRUSTED_DEVICE"));
+        response.setRuleVersion(7);
+        response.setEvaluatedAt(Instant.parse("2026-01-05T12:00:01Z"));
+        return response;
+    }
+}
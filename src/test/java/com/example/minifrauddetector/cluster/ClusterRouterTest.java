@@ -0,0 +1,203 @@
+package com.example.minifrauddetector.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.BatchCheckItemResponse;
+import com.example.minifrauddetector.dto.ClusterStatusResponse;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.dto.FraudCheckResponse;
+import com.example.minifrauddetector.exception.ClusterMembershipException;
+import com.example.minifrauddetector.exception.PeerRejectedException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ClusterRouterTest {
+
+    private static final String SELF = "http://127.0.0.1:1";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final Queue<String> forwardedBy = new ConcurrentLinkedQueue<>();
+    private final Queue<String> batchQueries = new ConcurrentLinkedQueue<>();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private HttpServer peer;
+    private String peerUrl;
+
+    @BeforeEach
+    void startPeer() throws IOException {
+        peer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        peer.createContext("/api/v1/fraud/check", exchange -> {
+            forwardedBy.add(exchange.getRequestHeaders().getFirst(ClusterRouter.FORWARDED_HEADER));
+            FraudCheckRequest request = objectMapper.readValue(exchange.getRequestBody(), FraudCheckRequest.class);
+            if (request.getCurrency().equals("XXX")) {
+                respond(exchange, 409, "{\"status\":409,\"message\":\"Transaction tx-1 was already scored\"}");
+            } else {
+                respond(exchange, 200, objectMapper.writeValueAsString(decision(request, 42)));
+            }
+        });
+        peer.createContext("/api/v1/fraud/check/batch", exchange -> {
+            batchQueries.add(String.valueOf(exchange.getRequestURI().getQuery()));
+            FraudCheckRequest[] requests = objectMapper.readValue(exchange.getRequestBody(), FraudCheckRequest[].class);
+            StringBuilder items = new StringBuilder("[");
+            for (int i = 0; i < requests.length; i++) {
+                items.append(i == 0 ? "" : ",").append("{\"index\":").append(i);
+                if (i % 2 == 0) {
+                    items.append(",\"result\":").append(objectMapper.writeValueAsString(decision(requests[i], i)));
+                } else {
+                    items.append(",\"error\":\"Validation failed\"");
+                }
+                items.append('}');
+            }
+            respond(exchange, 200, items.append(']').toString());
+        });
+        peer.start();
+        peerUrl = "http://127.0.0.1:" + peer.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopPeer() {
+        peer.stop(0);
+    }
+
+    @Test
+    void shouldForwardToTheOwnerAndPassOnItsClientErrors() {
+        ClusterRouter router = router(List.of(SELF, peerUrl + "/"));
+        String user = userOwnedBy(router, peerUrl);
+
+        FraudCheckResponse response = router.forward(router.remoteOwner(user), request(user, "USD"));
+        PeerRejectedException rejected = assertThrows(PeerRejectedException.class,
+            () -> router.forward(peerUrl, request(user, "XXX")));
+
+        assertEquals(42, response.getRiskScore());
+        assertEquals(List.of("NIGHT_TIME"), response.getReasonCodes());
+        assertEquals(List.of(SELF, SELF), List.copyOf(forwardedBy));
+        assertEquals(409, rejected.getStatus());
+        assertEquals("Transaction tx-1 was already scored", rejected.getMessage());
+        assertEquals(1, registry.get("fraud.cluster.forwards").tag("outcome", "ok").functionCounter().count());
+        assertEquals(1, registry.get("fraud.cluster.forwards").tag("outcome", "rejected").functionCounter().count());
+    }
+
+    @Test
+    void shouldPassOnItemErrorsAndLeaveUnansweredRequestsToTheCaller() {
+        ClusterRouter router = router(List.of(SELF, peerUrl));
+        String user = userOwnedBy(router, peerUrl);
+
+        List<BatchCheckItemResponse> batch = router.forwardAll(peerUrl,
+            List.of(request(user, "USD"), request(user, "USD"), request(user, "USD")), true);
+        router.forwardAll(peerUrl, List.of(request(user, "USD")), false);
+        peer.stop(0);
+        FraudCheckResponse unreachable = router.forward(peerUrl, request(user, "USD"));
+        List<BatchCheckItemResponse> unreachableBatch = router.forwardAll(peerUrl, List.of(request(user, "USD")), true);
+
+        assertNotNull(batch.get(0).getResult());
+        assertNull(batch.get(1).getResult());
+        assertEquals("Validation failed", batch.get(1).getError());
+        assertEquals(2, batch.get(2).getResult().getRiskScore());
+        assertNull(unreachable);
+        assertNull(unreachableBatch);
+        assertEquals(List.of("null", "cache=false"), List.copyOf(batchQueries));
+        assertEquals(3, registry.get("fraud.cluster.forwards").tag("outcome", "ok").functionCounter().count());
+        assertEquals(1, registry.get("fraud.cluster.forwards").tag("outcome", "rejected").functionCounter().count());
+        assertEquals(2, registry.get("fraud.cluster.forwards").tag("outcome", "failed").functionCounter().count());
+    }
+
+    @Test
+    void shouldTrustTheForwardedHeaderOnlyFromAnotherMember() {
+        ClusterRouter router = router(List.of(SELF, peerUrl));
+
+        assertTrue(router.isForwardedByPeer(peerUrl + "/", "127.0.0.1"));
+        assertFalse(router.isForwardedByPeer(peerUrl, "10.1.2.3"));
+        assertFalse(router.isForwardedByPeer("http://127.0.0.1:9", "127.0.0.1"));
+        assertFalse(router.isForwardedByPeer(SELF, "127.0.0.1"));
+        assertFalse(router.isForwardedByPeer(null, "127.0.0.1"));
+        assertFalse(ClusterRouter.disabled().isForwardedByPeer(peerUrl, "127.0.0.1"));
+    }
+
+    @Test
+    void shouldOwnEveryUserAloneAndRejectMembersWithoutItself() {
+        ClusterRouter router = router(List.of(SELF, peerUrl));
+        String user = userOwnedBy(router, peerUrl);
+
+        double peerShare = router.status().getMembers().get(peerUrl);
+
+        assertThrows(ClusterMembershipException.class, () -> router.updateMembers(List.of(peerUrl)));
+        assertEquals("cluster member http://10.0.0.9:8080 is not in fraud.cluster.members",
+            assertThrows(ClusterMembershipException.class,
+                () -> router.updateMembers(List.of(SELF, "http://10.0.0.9:8080"))).getMessage());
+        assertEquals(peerUrl, router.remoteOwner(user));
+        ClusterStatusResponse status = router.updateMembers(List.of(SELF));
+
+        assertNull(router.remoteOwner(user));
+        assertEquals(Map.of(SELF, 1.0), status.getMembers());
+        assertEquals(peerShare, status.getMovedShare(), 1e-9);
+        assertNull(ClusterRouter.disabled().remoteOwner(user));
+    }
+
+    private ClusterRouter router(List<String> members) {
+        FraudRulesProperties properties = new FraudRulesProperties();
+        properties.getCluster().setEnabled(true);
+        properties.getCluster().setSelf(SELF);
+        properties.getCluster().setMembers(members);
+        return new ClusterRouter(properties, objectMapper, registry);
+    }
+
+    private static String userOwnedBy(ClusterRouter router, String owner) {
+        for (int user = 0; ; user++) {
+            if (owner.equals(router.remoteOwner("user-" + user))) {
+                return "user-" + user;
+            }
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static FraudCheckRequest request(String userId, String currency) {
+        FraudCheckRequest request = new FraudCheckRequest();
+        request.setTransactionId("tx-1");
+        request.setUserId(userId);
+        request.setAmount(new BigDecimal("125.50"));
+        request.setCurrency(currency);
+        request.setCountry("US");
+        request.setTimestamp(Instant.parse("2026-01-05T02:00:00Z"));
+        request.setDeviceTrusted(true);
+        return request;
+    }
+
+    private static FraudCheckResponse decision(FraudCheckRequest request, int score) {
+        FraudCheckResponse response = new FraudCheckResponse();
+        response.setTransactionId(request.getTransactionId());
+        response.setRiskScore(score);
+        response.setReasonCodes(List.of("NIGHT_TIME"));
+        response.setEvaluatedAt(Instant.parse("2026-01-05T02:00:01Z"));
+        return response;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.minifrauddetector.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class HashRingTest {
+
+    private static final List<String> THREE = List.of("http://a:8080", "http://b:8080", "http://c:8080");
+    private static final int USERS = 100_000;
+
+    @Test
+    void shouldSpreadUsersEvenlyAndAgreeAcrossMemberOrder() {
+        HashRing ring = HashRing.of(THREE, 128);
+        HashRing reordered = HashRing.of(List.of("http://c:8080", "http://a:8080", "http://b:8080"), 128);
+
+        int[] owned = new int[THREE.size()];
+        for (int user = 0; user < USERS; user++) {
+            String owner = ring.ownerOf("user-" + user);
+            assertEquals(owner, reordered.ownerOf("user-" + user));
+            owned[THREE.indexOf(owner)]++;
+        }
+
+        double shares = 0;
+        for (int member = 0; member < THREE.size(); member++) {
+            double share = ring.share(THREE.get(member));
+            shares += share;
+            assertEquals(share, owned[member] / (double) USERS, 0.01);
+            assertTrue(share > 0.25 && share < 0.42, THREE.get(member) + " owns " + share);
+        }
+        assertEquals(1.0, shares, 1e-9);
+        assertEquals(0.0, ring.movedShare(reordered));
+    }
+
+    @Test
+    void shouldMoveOnlyTheUsersOfTheChangedMember() {
+        HashRing three = HashRing.of(THREE, 128);
+        HashRing four = HashRing.of(List.of("http://a:8080", "http://b:8080", "http://c:8080", "http://d:8080"), 128);
+        HashRing two = HashRing.of(List.of("http://a:8080", "http://c:8080"), 128);
+
+        int movedToNewMember = 0;
+        int movedOnRemoval = 0;
+        for (int user = 0; user < USERS; user++) {
+            String key = "user-" + user;
+            String before = three.ownerOf(key);
+            String grown = four.ownerOf(key);
+            if (!grown.equals(before)) {
+                assertEquals("http://d:8080", grown, "a user may only move to the new member");
+                movedToNewMember++;
+            }
+            if (!two.ownerOf(key).equals(before)) {
+                assertEquals("http://b:8080", before, "only the users of the removed member may move");
+                movedOnRemoval++;
+            }
+        }
+
+        assertEquals(four.share("http://d:8080"), three.movedShare(four), 1e-9);
+        assertEquals(movedToNewMember / (double) USERS, three.movedShare(four), 0.01);
+        assertEquals(three.share("http://b:8080"), three.movedShare(two), 1e-9);
+        assertEquals(movedOnRemoval / (double) USERS, three.movedShare(two), 0.01);
+        assertTrue(three.movedShare(four) < 0.35);
+    }
+}
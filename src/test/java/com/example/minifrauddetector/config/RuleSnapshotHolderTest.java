@@ -0,0 +1,106 @@
+package com.example.minifrauddetector.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.minifrauddetector.exception.RuleReloadException;
+import com.example.minifrauddetector.rules.RuleSnapshot;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.StandardEnvironment;
+
+class RuleSnapshotHolderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldActivateNewVersionFromRulesFile() throws Exception {
+        Path rulesFile = tempDir.resolve("rules.yml");
+        Files.writeString(rulesFile, """
+            fraud:
+              high-risk-countries: ["MM"]
+            """);
+        RuleSnapshotHolder holder = holder(rulesFile);
+        assertEquals(List.of("MM"), holder.current().getHighRiskCountries());
+
+        Files.writeString(rulesFile, """
+            fraud:
+              high-risk-countries: ["GH", "KE"]
+              night-window:
+                start-hour-utc: 22
+                end-hour-utc: 4
+            """);
+        RuleSnapshot reloaded = holder.reload();
+
+        assertEquals(2, reloaded.getVersion());
+        assertEquals(List.of("GH", "KE"), reloaded.getHighRiskCountries());
+        assertEquals(22, reloaded.getNightStartHourUtc());
+        assertEquals(reloaded, holder.current());
+    }
+
+    @Test
+    void shouldKeepPreviousSnapshotWhenReloadIsInvalid() throws Exception {
+        Path rulesFile = tempDir.resolve("rules.yml");
+        Files.writeString(rulesFile, """
+            fraud:
+              high-risk-countries: ["MM"]
+            """);
+        RuleSnapshotHolder holder = holder(rulesFile);
+
+        Files.writeString(rulesFile, """
+            fraud:
+              high-risk-countries: ["Ghana"]
+            """);
+        RuleReloadException exception = assertThrows(RuleReloadException.class, holder::reload);
+
+        assertTrue(exception.getMessage().contains("Ghana"));
+        assertEquals(1, holder.current().getVersion());
+        assertEquals(List.of("MM"), holder.current().getHighRiskCountries());
+    }
+
+    @Test
+    void shouldCompileCustomRulesOnReload() throws Exception {
+        Path rulesFile = tempDir.resolve("rules.yml");
+        Files.writeString(rulesFile, """
+            fraud:
+              high-risk-countries: ["MM"]
+            """);
+        RuleSnapshotHolder holder = holder(rulesFile);
+
+        Files.writeString(rulesFile, """
+            fraud:
+              high-risk-countries: ["MM"]
+              custom-rules:
+                - name: watchlist
+                  expression: "amount > 500 && country in [NG, PK] && !deviceTrusted"
+                  points: 30
+            """);
+        assertEquals(30, holder.reload().getPlan().getPoints().get("watchlist"));
+
+        Files.writeString(rulesFile, """
+            fraud:
+              custom-rules:
+                - name: watchlist
+                  expression: "amount > 500 && country in [NG, PK && !deviceTrusted"
+                  points: 30
+            """);
+        RuleReloadException exception = assertThrows(RuleReloadException.class, holder::reload);
+
+        assertEquals("Rule reload rejected: fraud.custom-rules 'watchlist': column 36 of "
+            + "\"amount > 500 && country in [NG, PK && !deviceTrusted\": expected ',' or ']' but found '&&'",
+            exception.getMessage());
+        assertEquals(2, holder.current().getVersion());
+    }
+
+    private RuleSnapshotHolder holder(Path rulesFile) {
+        FraudRulesProperties properties = new FraudRulesProperties();
+        properties.setRulesFile(rulesFile.toString());
+        properties.setWatchRulesFile(false);
+        return new RuleSnapshotHolder(properties, List.of(), new StandardEnvironment());
+    }
+}
@@ -2,27 +2,49 @@ package com.example.minifrauddetector.controller;
 
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.example.minifrauddetector.cluster.ClusterRouter;
 import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.config.RuleSnapshotHolder;
+import com.example.minifrauddetector.config.WireFormatConfig;
+import com.example.minifrauddetector.dto.BatchCheckItemResponse;
 import com.example.minifrauddetector.dto.FraudCheckResponse;
 import com.example.minifrauddetector.dto.RiskLevel;
+import com.example.minifrauddetector.exception.IdempotencyConflictException;
+import com.example.minifrauddetector.exception.UnsupportedCurrencyException;
+import com.example.minifrauddetector.rules.RuleSnapshot;
+import com.example.minifrauddetector.service.BatchCheckService;
 import com.example.minifrauddetector.service.FraudScoringService;
+import com.example.minifrauddetector.service.NdjsonScoringService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(FraudController.class)
+@Import({BatchCheckService.class, WireFormatConfig.class})
 class FraudControllerTest {
 
     @Autowired
@@ -34,6 +56,15 @@ class FraudControllerTest {
     @MockBean
     private FraudRulesProperties fraudRulesProperties;
 
+    @MockBean
+    private RuleSnapshotHolder ruleSnapshotHolder;
+
+    @MockBean
+    private NdjsonScoringService ndjsonScoringService;
+
+    @MockBean
+    private ClusterRouter clusterRouter;
+
     @Test
     void shouldReturnFraudCheckResponseForValidRequest() throws Exception {
         FraudCheckResponse response = new FraudCheckResponse();
@@ -43,7 +74,7 @@ class FraudControllerTest {
         response.setReasons(List.of("Untrusted device"));
         response.setEvaluatedAt(Instant.parse("2026-01-01T12:00:00Z"));
 
-        when(fraudScoringService.evaluate(any())).thenReturn(response);
+        when(fraudScoringService.evaluateAsync(any())).thenReturn(CompletableFuture.completedFuture(response));
 
         mockMvc.perform(post("/api/v1/fraud/check")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -70,17 +101,87 @@ class FraudControllerTest {
     }
 
     @Test
-    void shouldReturnRulesResponse() throws Exception {
-        FraudRulesProperties.NightWindow nightWindow = new FraudRulesProperties.NightWindow();
-        nightWindow.setStartHourUtc(0);
-        nightWindow.setEndHourUtc(5);
+    void shouldRouteAgainWhenTheForwardingNodeIsNotAPeer() throws Exception {
+        FraudCheckResponse response = new FraudCheckResponse();
+        response.setTransactionId("tx-123");
+        response.setRiskLevel(RiskLevel.LOW);
+        when(fraudScoringService.evaluateAsync(any())).thenReturn(CompletableFuture.completedFuture(response));
+        when(clusterRouter.isForwardedByPeer("http://10.0.0.9:8080", "127.0.0.1")).thenReturn(false);
+
+        mockMvc.perform(post("/api/v1/fraud/check")
+                .header("X-Fraud-Forwarded-By", "http://10.0.0.9:8080")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {
+                      "transactionId": "tx-123",
+                      "userId": "user-1",
+                      "amount": 10.00,
+                      "currency": "USD",
+                      "merchantCategory": "grocery",
+                      "country": "US",
+                      "timestamp": "2026-01-01T12:00:00Z",
+                      "deviceTrusted": true,
+                      "paymentMethod": "card"
+                    }
+                    """))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.transactionId").value("tx-123"));
+    }
+
+    @Test
+    void shouldReturnReasonCodesOnlyWhenNotVerbose() throws Exception {
+        FraudCheckResponse response = new FraudCheckResponse();
+        response.setTransactionId("tx-123");
+        response.setRiskScore(20);
+        response.setRiskLevel(RiskLevel.LOW);
+        response.setReasons(List.of("Untrusted device"));
+        response.setReasonCodes(List.of("untrustedDevice"));
+        response.setEvaluatedAt(Instant.parse("2026-01-01T12:00:00Z"));
+
+        when(fraudScoringService.evaluateAsync(any())).thenReturn(CompletableFuture.completedFuture(response));
+
+        mockMvc.perform(post("/api/v1/fraud/check")
+                .param("verbose", "false")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {
+                      "transactionId": "tx-123",
+                      "userId": "user-1",
+                      "amount": 50.00,
+                      "currency": "USD",
+                      "country": "US",
+                      "timestamp": "2026-01-01T12:00:00Z",
+                      "deviceTrusted": false
+                    }
+                    """))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.reasonCodes[0]").value("untrustedDevice"))
+            .andExpect(jsonPath("$.reasons").doesNotExist())
+            .andExpect(jsonPath("$.riskScore").value(20));
+    }
 
-        when(fraudRulesProperties.getHighRiskCountries()).thenReturn(List.of("MM", "GH"));
-        when(fraudRulesProperties.getNightWindow()).thenReturn(nightWindow);
+    @Test
+    void shouldReturnRulesResponse() throws Exception {
+        FraudRulesProperties properties = new FraudRulesProperties();
+        properties.setHighRiskCountries(List.of("MM", "GH"));
+        FraudRulesProperties.MerchantCategoryTier tier = new FraudRulesProperties.MerchantCategoryTier();
+        tier.setName("elevated");
+        tier.setCodes(List.of("5732"));
+        tier.setPoints(10);
+        tier.setMinAmount(500);
+        properties.setMerchantCategories(List.of(tier));
+        when(ruleSnapshotHolder.current()).thenReturn(RuleSnapshot.build(7, properties, List.of()));
 
         mockMvc.perform(get("/api/v1/fraud/rules"))
             .andExpect(status().isOk())
+            .andExpect(jsonPath("$.version").value(7))
+            .andExpect(jsonPath("$.nightWindow.endHourUtc").value(5))
+            .andExpect(jsonPath("$.amountThresholds.veryHighMin").value(2000))
+            .andExpect(jsonPath("$.points.untrustedDevice").value(20))
             .andExpect(jsonPath("$.highRiskCountries", hasItem("MM")))
+            .andExpect(jsonPath("$.points.merchantCategoryElevated").value(10))
+            .andExpect(jsonPath("$.amountThresholds.merchantCategoryElevatedMin").value(500))
+            .andExpect(jsonPath("$.merchantCategories[0].codes[0]").value("5732"))
             .andExpect(jsonPath("$.riskBands.LOW").value("0-29"))
             .andExpect(jsonPath("$.riskBands.MEDIUM").value("30-69"))
             .andExpect(jsonPath("$.riskBands.HIGH").value("70-100"));
@@ -108,6 +209,79 @@ class FraudControllerTest {
             .andExpect(jsonPath("$.fieldErrors[*].field", hasItem("timestamp")));
     }
 
+    @Test
+    void shouldScoreValidBatchItemsAndReportInvalidOnesInOrder() throws Exception {
+        FraudCheckResponse response = new FraudCheckResponse();
+        response.setTransactionId("tx-2");
+        response.setRiskScore(20);
+        response.setRiskLevel(RiskLevel.LOW);
+        response.setReasons(List.of("Untrusted device"));
+        response.setEvaluatedAt(Instant.parse("2026-01-01T12:00:00Z"));
+
+        FraudRulesProperties.Batch batch = new FraudRulesProperties.Batch();
+        when(fraudRulesProperties.getBatch()).thenReturn(batch);
+        BatchCheckItemResponse scored = new BatchCheckItemResponse();
+        scored.setResult(response);
+        when(fraudScoringService.evaluateAll(any(), eq(true))).thenReturn(List.of(scored));
+        when(fraudScoringService.supportsCurrency("USD")).thenReturn(true);
+
+        mockMvc.perform(post("/api/v1/fraud/check/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    [
+                      {
+                        "transactionId": "tx-1",
+                        "userId": "user-1",
+                        "amount": -1,
+                        "currency": "USD",
+                        "country": "US",
+                        "timestamp": "2026-01-01T12:00:00Z",
+                        "deviceTrusted": false
+                      },
+                      {
+                        "transactionId": "tx-2",
+                        "userId": "user-1",
+                        "amount": 25.00,
+                        "currency": "USD",
+                        "country": "US",
+                        "timestamp": "2026-01-01T12:00:00Z",
+                        "deviceTrusted": false
+                      },
+                      {
+                        "transactionId": "tx-3",
+                        "userId": "user-1",
+                        "amount": 2500,
+                        "currency": "XXX",
+                        "country": "US",
+                        "timestamp": "2026-01-01T12:00:00Z",
+                        "deviceTrusted": false
+                      }
+                    ]
+                    """))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(3)))
+            .andExpect(jsonPath("$[0].index").value(0))
+            .andExpect(jsonPath("$[0].error").value("Validation failed"))
+            .andExpect(jsonPath("$[0].fieldErrors[0].field").value("amount"))
+            .andExpect(jsonPath("$[1].index").value(1))
+            .andExpect(jsonPath("$[1].result.transactionId").value("tx-2"))
+            .andExpect(jsonPath("$[1].result.riskScore").value(20))
+            .andExpect(jsonPath("$[2].fieldErrors[0].field").value("currency"));
+    }
+
+    @Test
+    void shouldRejectBatchLargerThanConfiguredMaximum() throws Exception {
+        FraudRulesProperties.Batch batch = new FraudRulesProperties.Batch();
+        batch.setMaxSize(1);
+        when(fraudRulesProperties.getBatch()).thenReturn(batch);
+
+        mockMvc.perform(post("/api/v1/fraud/check/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{}, {}]"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("Batch size 2 exceeds maximum of 1"));
+    }
+
     @Test
     void shouldReturnBadRequestForMalformedJson() throws Exception {
         mockMvc.perform(post("/api/v1/fraud/check")
@@ -121,4 +295,151 @@ class FraudControllerTest {
             .andExpect(status().isBadRequest())
             .andExpect(jsonPath("$.message").value("Malformed JSON request"));
     }
+
+    @Test
+    void shouldReturnConflictForReusedTransactionIdWithDifferentPayload() throws Exception {
+        when(fraudScoringService.evaluateAsync(any())).thenThrow(
+            new IdempotencyConflictException("Transaction tx-123 was already submitted with a different payload"));
+
+        mockMvc.perform(post("/api/v1/fraud/check")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {
+                      "transactionId": "tx-123",
+                      "userId": "user-1",
+                      "amount": 50.00,
+                      "currency": "USD",
+                      "country": "US",
+                      "timestamp": "2026-01-01T12:00:00Z",
+                      "deviceTrusted": true
+                    }
+                    """))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.message").value("Transaction tx-123 was already submitted with a different payload"));
+    }
+
+    @Test
+    void shouldReturnBadRequestForCurrencyWithoutFxRate() throws Exception {
+        when(fraudScoringService.evaluateAsync(any())).thenThrow(new UnsupportedCurrencyException("XXX"));
+
+        mockMvc.perform(post("/api/v1/fraud/check")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {
+                      "transactionId": "tx-123",
+                      "userId": "user-1",
+                      "amount": 50.00,
+                      "currency": "XXX",
+                      "country": "US",
+                      "timestamp": "2026-01-01T12:00:00Z",
+                      "deviceTrusted": true
+                    }
+                    """))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("Unsupported currency 'XXX'"))
+            .andExpect(jsonPath("$.fieldErrors[0].field").value("currency"));
+    }
+
+    @Test
+    void shouldMapFailuresCompletedByThePipeline() throws Exception {
+        when(fraudScoringService.evaluateAsync(any()))
+            .thenReturn(CompletableFuture.failedFuture(new UnsupportedCurrencyException("XXX")));
+
+        MvcResult pending = mockMvc.perform(post("/api/v1/fraud/check")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {
+                      "transactionId": "tx-123",
+                      "userId": "user-1",
+                      "amount": 50.00,
+                      "currency": "XXX",
+                      "country": "US",
+                      "timestamp": "2026-01-01T12:00:00Z",
+                      "deviceTrusted": true
+                    }
+                    """))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("Unsupported currency 'XXX'"));
+    }
+
+    @Test
+    void shouldAcceptAndReturnCborWhenNegotiated() throws Exception {
+        FraudCheckResponse response = new FraudCheckResponse();
+        response.setTransactionId("tx-123");
+        response.setRiskScore(45);
+        response.setRiskLevel(RiskLevel.MEDIUM);
+        response.setReasons(List.of("Untrusted device"));
+        response.setEvaluatedAt(Instant.parse("2026-01-01T12:00:00Z"));
+
+        CompletableFuture<FraudCheckResponse> scored = new CompletableFuture<>();
+        when(fraudScoringService.evaluateAsync(any())).thenReturn(scored);
+
+        ObjectMapper cborMapper = cborMapper();
+        MvcResult pending = mockMvc.perform(post("/api/v1/fraud/check")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_CBOR)
+                .content(cborMapper.writeValueAsBytes(Map.of(
+                    "transactionId", "tx-123",
+                    "userId", "user-1",
+                    "amount", 1200.00,
+                    "currency", "USD",
+                    "country", "US",
+                    "timestamp", "2026-01-01T12:00:00Z",
+                    "deviceTrusted", false
+                ))))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        scored.complete(response);
+
+        MvcResult result = mockMvc.perform(asyncDispatch(pending))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andReturn();
+
+        FraudCheckResponse decoded = cborMapper.readValue(result.getResponse().getContentAsByteArray(), FraudCheckResponse.class);
+        assertEquals("tx-123", decoded.getTransactionId());
+        assertEquals(45, decoded.getRiskScore());
+        assertEquals(Instant.parse("2026-01-01T12:00:00Z"), decoded.getEvaluatedAt());
+    }
+
+    @Test
+    void shouldValidateCborRequestsLikeJson() throws Exception {
+        mockMvc.perform(post("/api/v1/fraud/check")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(cborMapper().writeValueAsBytes(Map.of(
+                    "transactionId", "tx-123",
+                    "userId", "user-1",
+                    "amount", -1,
+                    "currency", "USD",
+                    "country", "US",
+                    "deviceTrusted", false
+                ))))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("Validation failed"))
+            .andExpect(jsonPath("$.fieldErrors", hasSize(2)))
+            .andExpect(jsonPath("$.fieldErrors[*].field", hasItem("amount")))
+            .andExpect(jsonPath("$.fieldErrors[*].field", hasItem("timestamp")));
+    }
+
+    @Test
+    void shouldReturnBadRequestForMalformedCbor() throws Exception {
+        mockMvc.perform(post("/api/v1/fraud/check")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(new byte[] {(byte) 0xBF, 0x61}))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("Malformed CBOR request"));
+    }
+
+    private ObjectMapper cborMapper() {
+        return CBORMapper.builder()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build()
+            .findAndRegisterModules();
+    }
 }
@@ -0,0 +1,112 @@
+package com.example.minifrauddetector.expression;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.rules.Rule;
+import com.example.minifrauddetector.rules.ScoringContext;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class ExpressionCompilerTest {
+
+    private static final String[] COUNTRIES = {"NG", "PK", "US", "DE"};
+    private static final String[] METHODS = {"CARD", "WALLET", "BANK_TRANSFER", null};
+
+    @Test
+    void shouldMatchTheExampleRule() {
+        Rule rule = ExpressionCompiler.compile("watchlist", 30,
+            "amount > 500 && country in [NG, PK] && !deviceTrusted");
+
+        assertEquals(0, rule.match(context("500.01", "NG", false, "CARD", "5732", "2026-01-05T12:00:00Z")));
+        assertEquals(Rule.NO_MATCH, rule.match(context("500.00", "NG", false, "CARD", "5732", "2026-01-05T12:00:00Z")));
+        assertEquals(Rule.NO_MATCH, rule.match(context("900.00", "US", false, "CARD", "5732", "2026-01-05T12:00:00Z")));
+        assertEquals(Rule.NO_MATCH, rule.match(context("900.00", "PK", true, "CARD", "5732", "2026-01-05T12:00:00Z")));
+        assertEquals("watchlist", rule.getId());
+        assertEquals(30, rule.getPoints()[0]);
+        assertEquals("Matches custom rule watchlist: amount > 500 && country in [NG, PK] && !deviceTrusted",
+            rule.describe(null, 0));
+    }
+
+    @Test
+    void shouldAgreeWithTheInterpreter() {
+        List<String> expressions = List.of(
+            "amount >= 250.5 || hour < 6",
+            "!(country == US || country == DE) && paymentMethod != WALLET",
+            "paymentMethod in [CARD, 'BANK_TRANSFER'] && merchantCategory not in [5732, 7995, 4829]",
+            "deviceTrusted == false || amount == 100 && hour >= 22",
+            "(amount < 50 || amount > 1000) && !(hour > 8 && hour <= 18) && country not in [NG, PK, US]",
+            "ipAddress == '10.0.0.1' || true && !false && paymentMethod == CARD");
+        SplittableRandom random = new SplittableRandom(3);
+        List<ScoringContext> contexts = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            contexts.add(context(
+                random.nextInt(150_000) / 100 + "." + random.nextInt(10) + "0",
+                COUNTRIES[random.nextInt(COUNTRIES.length)],
+                random.nextBoolean(),
+                METHODS[random.nextInt(METHODS.length)],
+                random.nextBoolean() ? "5732" : null,
+                Instant.parse("2026-01-05T00:00:00Z").plusSeconds(random.nextInt(86_400)).toString()));
+        }
+
+        for (String expression : expressions) {
+            Rule compiled = ExpressionCompiler.compile("rule", 10, expression);
+            Rule interpreted = ExpressionCompiler.interpret("rule", 10, expression);
+            for (ScoringContext context : contexts) {
+                assertEquals(interpreted.match(context), compiled.match(context), expression);
+            }
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidExpressionsWithTheirColumn() {
+        assertEquals("fraud.custom-rules 'r': column 1 of \"amout > 500\": unknown field 'amout'; fields are "
+                + "amount, hour, deviceTrusted, country, currency, merchantCategory, paymentMethod, userId, ipAddress",
+            error("amout > 500"));
+        assertEquals("fraud.custom-rules 'r': column 36 of \"amount > 500 && country in [NG, PK && !deviceTrusted\": "
+                + "expected ',' or ']' but found '&&'",
+            error("amount > 500 && country in [NG, PK && !deviceTrusted"));
+        assertEquals("fraud.custom-rules 'r': column 9 of \"country > NG\": country can only be compared with "
+                + "'==', '!=', 'in' or 'not in'",
+            error("country > NG"));
+        assertEquals("fraud.custom-rules 'r': column 10 of \"amount > 10.005\": amount 10.005 has more than two "
+                + "decimals",
+            error("amount > 10.005"));
+        assertEquals("fraud.custom-rules 'r': column 13 of \"country in [ng]\": invalid country code 'ng', expected "
+                + "two uppercase letters",
+            error("country in [ng]"));
+        assertEquals("fraud.custom-rules 'r': column 8 of \"amount = 5\": expected '=='", error("amount = 5"));
+        assertEquals("fraud.custom-rules 'r': column 14 of \"deviceTrusted)\": unexpected ')'; expected '&&', '||' "
+                + "or the end",
+            error("deviceTrusted)"));
+        assertEquals("fraud.custom-rules 'r': column 9 of \"hour >= \": expected a number but found the end of the "
+                + "expression",
+            error("hour >= "));
+    }
+
+    private static String error(String expression) {
+        return assertThrows(IllegalArgumentException.class, () -> ExpressionCompiler.compile("r", 1, expression))
+            .getMessage();
+    }
+
+    private static ScoringContext context(String amount, String country, boolean deviceTrusted, String paymentMethod,
+            String merchantCategory, String timestamp) {
+        FraudCheckRequest request = new FraudCheckRequest();
+        request.setTransactionId("tx");
+        request.setUserId("u1");
+        request.setAmount(new BigDecimal(amount));
+        request.setCurrency("USD");
+        request.setCountry(country);
+        request.setDeviceTrusted(deviceTrusted);
+        request.setPaymentMethod(paymentMethod);
+        request.setMerchantCategory(merchantCategory);
+        request.setIpAddress("10.0.0.1");
+        request.setTimestamp(Instant.parse(timestamp));
+        return new ScoringContext(request);
+    }
+}
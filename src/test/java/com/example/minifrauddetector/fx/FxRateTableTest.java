@@ -0,0 +1,97 @@
+package com.example.minifrauddetector.fx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FxRateTableTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldConvertIntoHundredthsOfTheBaseCurrency() throws Exception {
+        FxRateTable table = FxRateTable.load(1, "USD", Files.writeString(tempDir.resolve("fx-rates.txt"), """
+            # one unit in USD
+            EUR 1.08
+            JPY 0.0067   # yen have no minor unit
+            BHD 2.65
+            USD 1
+            """));
+
+        assertEquals(12_345, table.toBaseCents(new BigDecimal("123.45"), "USD"));
+        assertEquals(12_345, table.toBaseCents(new BigDecimal("123.459"), "USD"));
+        assertEquals(216_000, table.toBaseCents(new BigDecimal("2000"), "EUR"));
+        assertEquals(1_340, table.toBaseCents(new BigDecimal("2000"), "JPY"));
+        assertEquals(1_340, table.toBaseCents(new BigDecimal("2000.99"), "JPY"));
+        assertEquals(265, table.toBaseCents(new BigDecimal("1.000"), "BHD"));
+        assertEquals(FxRateTable.MAX_AMOUNT_CENTS, table.toBaseCents(new BigDecimal("1e30"), "EUR"));
+        assertEquals(4, table.getCurrencyCount());
+    }
+
+    @Test
+    void shouldRejectCurrenciesWithoutARate() {
+        FxRateTable table = FxRateTable.baseOnly(1, "USD");
+
+        assertEquals(FxRateTable.UNSUPPORTED, table.toBaseCents(BigDecimal.TEN, "EUR"));
+        assertEquals(FxRateTable.UNSUPPORTED, table.toBaseCents(BigDecimal.TEN, "usd"));
+        assertEquals(FxRateTable.UNSUPPORTED, table.toBaseCents(BigDecimal.TEN, null));
+        assertFalse(table.supports("EU"));
+    }
+
+    @Test
+    void shouldTakeAmountsAsTheyAreWithoutRates() {
+        FxRateTable table = FxRateTable.passThrough(1, "USD");
+
+        assertEquals(200_000, table.toBaseCents(new BigDecimal("2000"), "JPY"));
+        assertEquals(12_345, table.toBaseCents(new BigDecimal("123.459"), "EUR"));
+        assertEquals(FxRateTable.MAX_AMOUNT_CENTS, table.toBaseCents(new BigDecimal("1e30"), "EUR"));
+        assertTrue(table.supports("XXX"));
+    }
+
+    @Test
+    void shouldRejectInvalidRateFiles() throws Exception {
+        Path file = tempDir.resolve("fx-rates.txt");
+
+        Files.writeString(file, "EUR 1.08\nEUR 1.09\n");
+        assertEquals(file + ":2: EUR is listed twice",
+            assertThrows(IllegalArgumentException.class, () -> FxRateTable.load(1, "USD", file)).getMessage());
+
+        Files.writeString(file, "ABC 1.08\n");
+        assertEquals(file + ":1: 'ABC' is not an ISO 4217 currency code",
+            assertThrows(IllegalArgumentException.class, () -> FxRateTable.load(1, "USD", file)).getMessage());
+
+        Files.writeString(file, "EUR -1\n");
+        assertEquals(file + ":1: rate for EUR must be positive",
+            assertThrows(IllegalArgumentException.class, () -> FxRateTable.load(1, "USD", file)).getMessage());
+    }
+
+    @Test
+    void shouldKeepThePreviousTableWhenTheReloadFails() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("fx-rates.txt"), "EUR 1.08\n");
+        FraudRulesProperties properties = new FraudRulesProperties();
+        properties.getFx().setRatesFile(file);
+        properties.getFx().setWatchFile(false);
+        FxRateHolder holder = new FxRateHolder(properties);
+        FxRateTable first = holder.current();
+
+        Files.writeString(file, "EUR 1.10\nGBP 1.27\n");
+        FxRateTable reloaded = holder.reload();
+        Files.writeString(file, "EUR one\n");
+
+        assertEquals(2, reloaded.getVersion());
+        assertEquals(110, reloaded.toBaseCents(BigDecimal.ONE, "EUR"));
+        assertEquals(108, first.toBaseCents(BigDecimal.ONE, "EUR"));
+        assertThrows(IllegalArgumentException.class, holder::reload);
+        assertSame(reloaded, holder.current());
+    }
+}
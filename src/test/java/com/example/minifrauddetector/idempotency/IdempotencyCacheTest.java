@@ -0,0 +1,200 @@
+package com.example.minifrauddetector.idempotency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.dto.FraudCheckResponse;
+import com.example.minifrauddetector.exception.IdempotencyConflictException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+class IdempotencyCacheTest {
+
+    private final AtomicLong clockNanos = new AtomicLong();
+    private final AtomicInteger scored = new AtomicInteger();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Function<FraudCheckRequest, FraudCheckResponse> scorer = request -> {
+        scored.incrementAndGet();
+        FraudCheckResponse response = new FraudCheckResponse();
+        response.setTransactionId(request.getTransactionId());
+        return response;
+    };
+
+    @Test
+    void shouldReturnTheFirstResponseForARetry() {
+        IdempotencyCache cache = cache(10);
+
+        FraudCheckResponse first = cache.get(request("tx-1", "10.00"), scorer);
+        FraudCheckResponse retry = cache.get(request("tx-1", "10.00"), scorer);
+
+        assertSame(first, retry);
+        assertEquals(1, scored.get());
+        assertEquals(1.0, lookups("miss"));
+        assertEquals(1.0, lookups("hit"));
+    }
+
+    @Test
+    void shouldRejectTheSameIdWithADifferentPayload() {
+        IdempotencyCache cache = cache(10);
+        cache.get(request("tx-1", "10.00"), scorer);
+
+        assertThrows(IdempotencyConflictException.class, () -> cache.get(request("tx-1", "99.00"), scorer));
+        assertEquals(1.0, lookups("conflict"));
+    }
+
+    @Test
+    void shouldTreatAnAmountWithAnotherScaleAsTheSamePayload() {
+        IdempotencyCache cache = cache(10);
+
+        FraudCheckResponse first = cache.get(request("tx-1", "100.00"), scorer);
+        FraudCheckResponse retry = cache.get(request("tx-1", "100.0"), scorer);
+
+        assertSame(first, retry);
+        assertEquals(1, scored.get());
+        assertEquals(0.0, lookups("conflict"));
+    }
+
+    @Test
+    void shouldScoreAgainOnceTheEntryHasExpired() {
+        IdempotencyCache cache = cache(10);
+        cache.get(request("tx-1", "10.00"), scorer);
+
+        clockNanos.addAndGet(Duration.ofMinutes(10).toNanos());
+        cache.get(request("tx-1", "99.00"), scorer);
+
+        assertEquals(2, scored.get());
+    }
+
+    @Test
+    void shouldDropTheOldestEntriesBeyondMaxEntries() {
+        IdempotencyCache cache = cache(2);
+
+        cache.get(request("tx-1", "10.00"), scorer);
+        cache.get(request("tx-2", "10.00"), scorer);
+        cache.get(request("tx-3", "10.00"), scorer);
+        cache.get(request("tx-1", "10.00"), scorer);
+
+        assertEquals(2, cache.size());
+        assertEquals(4, scored.get());
+    }
+
+    @Test
+    void shouldNotCacheAFailedEvaluation() {
+        IdempotencyCache cache = cache(10);
+
+        assertThrows(IllegalStateException.class, () -> cache.get(request("tx-1", "10.00"), request -> {
+            throw new IllegalStateException("boom");
+        }));
+        cache.get(request("tx-1", "10.00"), scorer);
+
+        assertEquals(1, scored.get());
+    }
+
+    @Test
+    void shouldScoreAgainAfterADegradedEvaluation() {
+        IdempotencyCache cache = cache(10);
+
+        FraudCheckResponse degraded = cache.get(request("tx-1", "10.00"), request -> {
+            FraudCheckResponse response = scorer.apply(request);
+            response.setDegraded(true);
+            return response;
+        });
+        FraudCheckResponse retry = cache.get(request("tx-1", "10.00"), scorer);
+
+        assertTrue(degraded.isDegraded());
+        assertFalse(retry.isDegraded());
+        assertEquals(2, scored.get());
+        assertSame(retry, cache.get(request("tx-1", "10.00"), scorer));
+    }
+
+    @Test
+    void shouldScoreConcurrentDuplicatesOnce() throws Exception {
+        IdempotencyCache cache = cache(10);
+        CountDownLatch scoring = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Function<FraudCheckRequest, FraudCheckResponse> slowScorer = request -> {
+            scoring.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            return scorer.apply(request);
+        };
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<FraudCheckResponse> first = executor.submit(() -> cache.get(request("tx-1", "10.00"), slowScorer));
+            scoring.await(5, TimeUnit.SECONDS);
+            Future<FraudCheckResponse> duplicate = executor.submit(() -> cache.get(request("tx-1", "10.00"), slowScorer));
+            while (lookups("coalesced") == 0) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertSame(first.get(5, TimeUnit.SECONDS), duplicate.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, scored.get());
+    }
+
+    @Test
+    void shouldShareAPendingAsyncResultWithDuplicatesAndForgetAFailure() throws Exception {
+        IdempotencyCache cache = cache(10);
+        CompletableFuture<FraudCheckResponse> pending = new CompletableFuture<>();
+        Function<FraudCheckRequest, CompletableFuture<FraudCheckResponse>> asyncScorer = request -> {
+            scored.incrementAndGet();
+            return pending;
+        };
+
+        CompletableFuture<FraudCheckResponse> first = cache.getAsync(request("tx-1", "10.00"), asyncScorer);
+        CompletableFuture<FraudCheckResponse> duplicate = cache.getAsync(request("tx-1", "10.00"), asyncScorer);
+        assertFalse(duplicate.isDone());
+        pending.completeExceptionally(new IllegalStateException("boom"));
+
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(duplicate.isCompletedExceptionally());
+        assertEquals(1.0, lookups("coalesced"));
+        FraudCheckResponse retried = cache.getAsync(request("tx-1", "10.00"),
+            request -> CompletableFuture.completedFuture(scorer.apply(request))).get(5, TimeUnit.SECONDS);
+        assertSame(retried, cache.get(request("tx-1", "10.00"), scorer));
+        assertEquals(2, scored.get());
+    }
+
+    private IdempotencyCache cache(int maxEntries) {
+        FraudRulesProperties properties = new FraudRulesProperties();
+        properties.getIdempotency().setMaxEntries(maxEntries);
+        properties.getIdempotency().setTtl(Duration.ofMinutes(10));
+        return new IdempotencyCache(properties, registry, clockNanos::get);
+    }
+
+    private double lookups(String outcome) {
+        return registry.get("fraud.idempotency.lookups").tag("outcome", outcome).functionCounter().count();
+    }
+
+    private static FraudCheckRequest request(String transactionId, String amount) {
+        FraudCheckRequest request = new FraudCheckRequest();
+        request.setTransactionId(transactionId);
+        request.setUserId("user-1");
+        request.setAmount(new BigDecimal(amount));
+        request.setCurrency("USD");
+        request.setCountry("US");
+        request.setTimestamp(Instant.parse("2026-01-01T12:00:00Z"));
+        return request;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.minifrauddetector.ipreputation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.rules.RuleSnapshot;
+import com.example.minifrauddetector.rules.ScoringContext;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class IpReputationHolderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldMatchTheMostSpecificRangeAcrossLists() throws Exception {
+        IpReputationHolder holder = holder("""
+            # known bad ranges
+            203.0.113.0/24
+            2001:db8:bad::/48   # test range
+            """, """
+            203.0.0.0/16
+            198.51.100.7
+            """);
+        IpReputationTable table = holder.current();
+
+        assertEquals(0, table.lookup("203.0.113.9"));
+        assertEquals(1, table.lookup("203.0.7.1"));
+        assertEquals(1, table.lookup("198.51.100.7"));
+        assertEquals(0, table.lookup("2001:db8:bad::1"));
+        assertEquals(0, table.lookup("::ffff:203.0.113.9"));
+        assertEquals(PrefixTrie.NO_VALUE, table.lookup("198.51.100.8"));
+        assertEquals(PrefixTrie.NO_VALUE, table.lookup("not-an-ip"));
+        assertEquals(PrefixTrie.NO_VALUE, table.lookup(null));
+        assertEquals(4, table.getPrefixCount());
+    }
+
+    @Test
+    void shouldSwapInTheReloadedTable() throws Exception {
+        IpReputationHolder holder = holder("203.0.113.0/24\n", "198.51.100.0/24\n");
+        IpReputationTable first = holder.current();
+
+        Files.writeString(tempDir.resolve("blocklist.txt"), "192.0.2.0/24\n");
+        IpReputationTable reloaded = holder.reload();
+
+        assertEquals(2, reloaded.getVersion());
+        assertSame(reloaded, holder.current());
+        assertEquals(0, reloaded.lookup("192.0.2.1"));
+        assertEquals(PrefixTrie.NO_VALUE, reloaded.lookup("203.0.113.9"));
+        assertEquals(0, first.lookup("203.0.113.9"));
+    }
+
+    @Test
+    void shouldKeepThePreviousTableWhenAListIsInvalid() throws Exception {
+        IpReputationHolder holder = holder("203.0.113.0/24\n", "198.51.100.0/24\n");
+        IpReputationTable first = holder.current();
+
+        Files.writeString(tempDir.resolve("risky-asn.txt"), "198.51.100.0/33\n");
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, holder::reload);
+
+        assertEquals(tempDir.resolve("risky-asn.txt") + ":1: '198.51.100.0/33' is not an IP address or CIDR range",
+            exception.getMessage());
+        assertSame(first, holder.current());
+    }
+
+    @Test
+    void shouldScoreOneOutcomePerList() throws Exception {
+        IpReputationRule rule = new IpReputationRule(holder("203.0.113.0/24\n", "198.51.100.0/24\n"));
+        FraudRulesProperties properties = new FraudRulesProperties();
+        RuleSnapshot snapshot = RuleSnapshot.build(1, properties, List.of(rule));
+
+        ScoringContext context = new ScoringContext(request("198.51.100.20"));
+        int score = snapshot.getPlan().score(context);
+
+        assertArrayEquals(new String[] {"ipBlocklist", "ipRiskyAsn"}, rule.getOutcomes());
+        assertEquals(15, score);
+        assertEquals(List.of("IP address 198.51.100.20 is on the risky-asn list"), context.getReasons());
+    }
+
+    private IpReputationHolder holder(String blocklist, String riskyAsn) throws Exception {
+        FraudRulesProperties properties = new FraudRulesProperties();
+        properties.getIpReputation().setEnabled(true);
+        properties.getIpReputation().setWatchFiles(false);
+        properties.getIpReputation().setLists(List.of(
+            list("blocklist", Files.writeString(tempDir.resolve("blocklist.txt"), blocklist), 40),
+            list("risky-asn", Files.writeString(tempDir.resolve("risky-asn.txt"), riskyAsn), 15)
+        ));
+        return new IpReputationHolder(properties);
+    }
+
+    private static FraudRulesProperties.IpList list(String name, Path file, int points) {
+        FraudRulesProperties.IpList list = new FraudRulesProperties.IpList();
+        list.setName(name);
+        list.setFile(file);
+        list.setPoints(points);
+        return list;
+    }
+
+    private static FraudCheckRequest request(String ipAddress) {
+        FraudCheckRequest request = new FraudCheckRequest();
+        request.setTransactionId("tx-1");
+        request.setUserId("user-1");
+        request.setAmount(new BigDecimal("10.00"));
+        request.setCurrency("USD");
+        request.setCountry("US");
+        request.setTimestamp(Instant.parse("2026-01-01T12:00:00Z"));
+        request.setDeviceTrusted(true);
+        request.setIpAddress(ipAddress);
+        return request;
+    }
+}
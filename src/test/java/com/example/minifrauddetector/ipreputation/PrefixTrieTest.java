@@ -0,0 +1,125 @@
+package com.example.minifrauddetector.ipreputation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class PrefixTrieTest {
+
+    @Test
+    void shouldReturnTheMostSpecificIpv4Prefix() {
+        PrefixTrie trie = PrefixTrie.ipv4()
+            .add(ipv4("10.0.0.0"), 0, 8, 1)
+            .add(ipv4("10.1.0.0"), 0, 16, 2)
+            .add(ipv4("10.1.2.3"), 0, 32, 3)
+            .build();
+
+        assertEquals(1, trie.lookup(ipv4("10.200.0.1"), 0));
+        assertEquals(2, trie.lookup(ipv4("10.1.9.9"), 0));
+        assertEquals(3, trie.lookup(ipv4("10.1.2.3"), 0));
+        assertEquals(PrefixTrie.NO_VALUE, trie.lookup(ipv4("11.0.0.1"), 0));
+        assertEquals(3, trie.getPrefixCount());
+    }
+
+    @Test
+    void shouldKeepTheFirstValueForADuplicatePrefixAndIgnoreHostBits() {
+        PrefixTrie trie = PrefixTrie.ipv4()
+            .add(ipv4("192.0.2.0"), 0, 24, 4)
+            .add(ipv4("192.0.2.77"), 0, 24, 5)
+            .build();
+
+        assertEquals(4, trie.lookup(ipv4("192.0.2.200"), 0));
+        assertEquals(1, trie.getPrefixCount());
+    }
+
+    @Test
+    void shouldMatchIpv6PrefixesAcrossTheWordBoundary() throws Exception {
+        PrefixTrie trie = PrefixTrie.ipv6()
+            .add(high("2001:db8::"), low("2001:db8::"), 32, 1)
+            .add(high("2001:db8:0:0:ff00::"), low("2001:db8:0:0:ff00::"), 72, 2)
+            .build();
+
+        assertEquals(1, trie.lookup(high("2001:db8::1"), low("2001:db8::1")));
+        assertEquals(2, trie.lookup(high("2001:db8::ff12:0:0:1"), low("2001:db8::ff12:0:0:1")));
+        assertEquals(PrefixTrie.NO_VALUE, trie.lookup(high("2001:db9::1"), low("2001:db9::1")));
+    }
+
+    @Test
+    void shouldAgreeWithALinearScan() {
+        SplittableRandom random = new SplittableRandom(7);
+        long[] prefixes = new long[2_000];
+        int[] lengths = new int[prefixes.length];
+        PrefixTrie.Builder builder = PrefixTrie.ipv4();
+        for (int i = 0; i < prefixes.length; i++) {
+            lengths[i] = 8 + random.nextInt(25);
+            prefixes[i] = (random.nextLong() & 0x0F0F_FFFF_0000_0000L) & (-1L << (64 - lengths[i]));
+            builder.add(prefixes[i], 0, lengths[i], i % 100);
+        }
+        PrefixTrie trie = builder.build();
+
+        for (int probe = 0; probe < 20_000; probe++) {
+            long address = random.nextLong() & 0x0F0F_FFFF_0000_0000L;
+            int expected = PrefixTrie.NO_VALUE;
+            int expectedLength = -1;
+            for (int i = 0; i < prefixes.length; i++) {
+                boolean contains = ((address ^ prefixes[i]) & (-1L << (64 - lengths[i]))) == 0;
+                if (contains && lengths[i] > expectedLength) {
+                    expected = i % 100;
+                    expectedLength = lengths[i];
+                }
+            }
+            assertEquals(expected, trie.lookup(address, 0));
+        }
+    }
+
+    @Test
+    void shouldParseAddressesLikeInetAddress() throws Exception {
+        for (String address : new String[] {
+            "::", "::1", "1::", "2001:db8::8a2e:370:7334", "2001:0db8:0000:0000:0000:ff00:0042:8329",
+            "fe80::1:2:3:4:5", "::ffff:192.0.2.1", "1:2:3:4:5:6:7:8", "1:2:3:4:5:6::"}) {
+            long[] parsed = new long[2];
+            IpAddresses.parseIpv6(address, 0, address.length(), (high, low) -> {
+                parsed[0] = high;
+                parsed[1] = low;
+                return 0;
+            }, -1);
+            assertEquals(high(address), parsed[0], address);
+            assertEquals(low(address), parsed[1], address);
+        }
+        for (String malformed : new String[] {":", ":1", "1:", "1:::2", "1::2::3", "1:2:3:4:5:6:7:8:9", "12345::",
+            "1:2:3:4:5:6:7", "g::1", "::1.2.3", "fe80::1%eth0"}) {
+            assertEquals(-1, IpAddresses.parseIpv6(malformed, 0, malformed.length(), (high, low) -> 0, -1), malformed);
+        }
+        for (String malformed : new String[] {"1.2.3", "1.2.3.4.5", "256.1.1.1", "1..2.3", "1.2.3.4.", "01234.1.1.1"}) {
+            assertEquals(IpAddresses.INVALID, IpAddresses.parseIpv4(malformed, 0, malformed.length()), malformed);
+        }
+    }
+
+    private static long ipv4(String address) {
+        return IpAddresses.parseIpv4(address, 0, address.length()) << 32;
+    }
+
+    private static long high(String address) throws Exception {
+        return ByteBuffer.wrap(ipv6Bytes(address)).getLong(0);
+    }
+
+    private static long low(String address) throws Exception {
+        return ByteBuffer.wrap(ipv6Bytes(address)).getLong(8);
+    }
+
+    // InetAddress turns "::ffff:a.b.c.d" into an Inet4Address, so map it back.
+    private static byte[] ipv6Bytes(String address) throws Exception {
+        byte[] bytes = InetAddress.getByName(address).getAddress();
+        if (bytes.length == 16) {
+            return bytes;
+        }
+        byte[] mapped = new byte[16];
+        mapped[10] = (byte) 0xFF;
+        mapped[11] = (byte) 0xFF;
+        System.arraycopy(bytes, 0, mapped, 12, 4);
+        return mapped;
+    }
+}
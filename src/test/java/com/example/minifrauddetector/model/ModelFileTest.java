@@ -0,0 +1,95 @@
+package com.example.minifrauddetector.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.rules.ScoringContext;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ModelFileTest {
+
+    private static final String TREES = """
+        # two boosters from an XGBoost text dump
+        model gbtree
+        features logAmount deviceTrusted merchantCategory velocityCount.1m
+        booster[0]:
+        0:[f1<0.5] yes=1,no=2,missing=1,gain=12.5,cover=100
+        \t1:[merchantCategory<5000] yes=3,no=4,missing=4
+        \t\t3:leaf=0.5
+        \t\t4:leaf=1
+        \t2:leaf=-1
+        booster[1]:
+        0:[velocityCount.1m<3] yes=1,no=2,missing=1
+        \t1:leaf=-0.5
+        \t2:leaf=0.5
+        """;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldWalkTheTreesAndSendMissingValuesTheConfiguredWay() throws Exception {
+        ScoringModel model = ModelFile.load(1, Files.writeString(tempDir.resolve("model.txt"), TREES), List.of("1m"));
+
+        assertEquals(50, model.score(new float[] {3, 0, 4829, 1}));
+        assertEquals(82, model.score(new float[] {3, 0, Float.NaN, 5}));
+        assertEquals(18, model.score(new float[] {3, 1, 4829, Float.NaN}));
+        assertEquals("gbtree with 2 trees, 8 nodes over 4 features", model.describe());
+    }
+
+    @Test
+    void shouldBuildTheFeatureVectorFromTheRequest() throws Exception {
+        ScoringModel model = ModelFile.load(1, Files.writeString(tempDir.resolve("model.txt"), TREES), List.of("1m"));
+        FraudCheckRequest request = new FraudCheckRequest();
+        request.setAmount(new BigDecimal("250.00"));
+        request.setCurrency("USD");
+        request.setCountry("US");
+        request.setTimestamp(Instant.parse("2026-01-05T12:00:00Z"));
+        request.setDeviceTrusted(false);
+        request.setMerchantCategory("7995");
+        ScoringContext context = new ScoringContext(request);
+        context.setVelocity(new long[] {4}, new long[] {90_000});
+
+        float[] vector = new float[4];
+        model.getFeatures().extract(context, vector);
+
+        assertEquals((float) Math.log1p(250), vector[0]);
+        assertEquals(0, vector[1]);
+        assertEquals(7995, vector[2]);
+        assertEquals(4, vector[3]);
+        assertEquals(82, model.score(context));
+
+        FeatureLayout calendar = FeatureLayout.of(List.of("dayOfWeekUtc", "hourUtc", "country=US", "ipAddressPresent"), List.of());
+        float[] calendarVector = new float[4];
+        calendar.extract(context, calendarVector);
+        assertEquals(List.of(0f, 12f, 1f, 0f), List.of(calendarVector[0], calendarVector[1], calendarVector[2], calendarVector[3]));
+    }
+
+    @Test
+    void shouldRejectInvalidModelFiles() throws Exception {
+        Path file = tempDir.resolve("model.txt");
+
+        Files.writeString(file, TREES.replace("\t2:leaf=-1\n", ""));
+        assertEquals(file + ":9: booster[0]: node 2 is referenced but not defined",
+            assertThrows(IllegalArgumentException.class, () -> ModelFile.load(1, file, List.of("1m"))).getMessage());
+
+        Files.writeString(file, TREES.replace("\t2:leaf=-1\n", "\t2:leaf=-1\n\t7:leaf=3\n"));
+        assertEquals(file + ":11: booster[0]: 1 node(s) cannot be reached from node 0",
+            assertThrows(IllegalArgumentException.class, () -> ModelFile.load(1, file, List.of("1m"))).getMessage());
+
+        Files.writeString(file, TREES.replace("[f1<0.5]", "[f7<0.5]"));
+        assertEquals(file + ":5: 'f7' is not one of the listed features",
+            assertThrows(IllegalArgumentException.class, () -> ModelFile.load(1, file, List.of("1m"))).getMessage());
+
+        Files.writeString(file, TREES);
+        assertEquals(file + ":3: feature velocityCount.1m refers to velocity window '1m', which is not configured",
+            assertThrows(IllegalArgumentException.class, () -> ModelFile.load(1, file, List.of("1h"))).getMessage());
+    }
+}
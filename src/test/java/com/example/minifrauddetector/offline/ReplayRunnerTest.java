@@ -0,0 +1,140 @@
+package com.example.minifrauddetector.offline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.config.RuleSnapshotHolder;
+import com.example.minifrauddetector.dto.RiskLevel;
+import com.example.minifrauddetector.metrics.ScoringMetrics;
+import com.example.minifrauddetector.service.FraudScoringService;
+import com.example.minifrauddetector.service.FraudScoringServiceBuilder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+class ReplayRunnerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void shouldScoreNdjsonChunksInParallelAndKeepInputOrder() throws Exception {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            if (i == 10) {
+                input.append("{\"transactionId\": broken\n");
+            } else {
+                input.append("{\"transactionId\":\"tx-").append(i).append("\",\"userId\":\"user-").append(i)
+                    .append("\",\"amount\":25.00,\"currency\":\"USD\",\"country\":\"").append(i % 5 == 0 ? "GH" : "US")
+                    .append("\",\"timestamp\":\"2026-01-01T12:00:00Z\",\"deviceTrusted\":true}\r\n");
+            }
+        }
+        Path inputFile = Files.writeString(directory.resolve("transactions.ndjson"), input);
+        Path outputFile = directory.resolve("scored.ndjson");
+
+        ReplaySummary summary = createRunner().replay(replay(inputFile, outputFile));
+
+        List<String> lines = Files.readAllLines(outputFile);
+        assertEquals(50, lines.size());
+        assertEquals("tx-0", objectMapper.readTree(lines.get(0)).get("transactionId").asText());
+        assertEquals("Malformed record", objectMapper.readTree(lines.get(10)).get("error").asText());
+        assertEquals("tx-49", objectMapper.readTree(lines.get(49)).get("transactionId").asText());
+        assertEquals(50, summary.getRecords());
+        assertEquals(49, summary.getScored());
+        assertEquals(1, summary.getInvalid());
+        assertEquals(49L, summary.getRiskLevels().get(RiskLevel.LOW));
+        assertEquals(9L, summary.getRuleHits().get("highRiskCountry"));
+        assertFalse(Files.exists(directory.resolve("scored.ndjson.part0")));
+    }
+
+    @Test
+    void shouldScoreCsvByHeaderColumns() throws Exception {
+        Path inputFile = Files.writeString(directory.resolve("transactions.csv"), """
+            userId,transactionId,amount,currency,country,timestamp,deviceTrusted
+            user-1,tx-1,2500.00,USD,GH,2026-01-01T12:00:00Z,false
+            user-2,tx-2,-5,USD,US,2026-01-01T12:00:00Z,true
+            user-3,tx-3,not-a-number,USD,US,2026-01-01T12:00:00Z,true
+            """);
+        Path outputFile = directory.resolve("scored.ndjson");
+
+        ReplaySummary summary = createRunner().replay(replay(inputFile, outputFile));
+
+        List<String> lines = Files.readAllLines(outputFile);
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertEquals("tx-1", first.get("transactionId").asText());
+        assertEquals(80, first.get("riskScore").asInt());
+        assertEquals("amount", objectMapper.readTree(lines.get(1)).get("fieldErrors").get(0).get("field").asText());
+        assertEquals("Malformed record", objectMapper.readTree(lines.get(2)).get("error").asText());
+        assertEquals(3, summary.getRecords());
+        assertEquals(1L, summary.getRiskLevels().get(RiskLevel.HIGH));
+    }
+
+    @Test
+    void shouldScoreEachUsersTransactionsInInputOrder() throws Exception {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 60; i++) {
+            String userId = i % 3 == 0 ? "user-repeat" : "user-" + i;
+            input.append("{\"transactionId\":\"tx-").append(i).append("\",\"userId\":\"").append(userId)
+                .append("\",\"amount\":25.00,\"currency\":\"USD\",\"country\":\"US\",\"timestamp\":\"2026-01-01T12:00:")
+                .append(String.format("%02d", i)).append("Z\",\"deviceTrusted\":true}\n");
+        }
+        Path inputFile = Files.writeString(directory.resolve("transactions.ndjson"), input);
+        Path outputFile = directory.resolve("scored.ndjson");
+
+        createRunner().replay(replay(inputFile, outputFile));
+
+        List<String> lines = Files.readAllLines(outputFile);
+        for (int i = 0; i < 60; i += 3) {
+            JsonNode reasonCodes = objectMapper.readTree(lines.get(i)).get("reasonCodes");
+            boolean velocity = reasonCodes.toString().contains("velocityCount1m");
+            assertEquals(i / 3 >= 5, velocity, "transaction " + (i / 3 + 1) + " of user-repeat");
+        }
+    }
+
+    private FraudRulesProperties.Replay replay(Path input, Path output) {
+        FraudRulesProperties.Replay replay = new FraudRulesProperties.Replay();
+        replay.setInput(input);
+        replay.setOutput(output);
+        replay.setChunkSize(DataSize.ofBytes(512));
+        replay.setThreads(4);
+        return replay;
+    }
+
+    private ReplayRunner createRunner() {
+        FraudRulesProperties properties = new FraudRulesProperties();
+        properties.setHighRiskCountries(List.of("GH"));
+        properties.getIdempotency().setEnabled(false);
+        FraudRulesProperties.VelocityWindow window = new FraudRulesProperties.VelocityWindow();
+        window.setName("1m");
+        window.setDuration(Duration.ofMinutes(1));
+        window.setMaxCount(5);
+        window.setMaxAmount(1_000_000);
+        window.setCountPoints(15);
+        properties.getVelocity().setWindows(List.of(window));
+        ScoringMetrics scoringMetrics = new ScoringMetrics(new SimpleMeterRegistry(), properties);
+        RuleSnapshotHolder ruleSnapshotHolder = new RuleSnapshotHolder(properties);
+        FraudScoringService scoringService = new FraudScoringServiceBuilder(properties)
+            .ruleSnapshotHolder(ruleSnapshotHolder)
+            .scoringMetrics(scoringMetrics)
+            .build();
+        return new ReplayRunner(
+            scoringService,
+            ruleSnapshotHolder,
+            scoringMetrics,
+            Validation.buildDefaultValidatorFactory().getValidator(),
+            objectMapper,
+            properties
+        );
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.minifrauddetector.overload;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyLimiterTest {
+
+    private static final long SLOW_MILLIS = 50;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldShedOverTheLimitAndCutItOnSlowScoring() throws InterruptedException {
+        ConcurrencyLimiter limiter = limiter(10);
+        long[] permits = new long[10];
+        for (int i = 0; i < permits.length; i++) {
+            permits[i] = limiter.acquire();
+            assertNotEquals(ConcurrencyLimiter.SHED, permits[i]);
+        }
+
+        assertEquals(ConcurrencyLimiter.SHED, limiter.acquire());
+        assertEquals(10, registry.get("fraud.limiter.in-flight").gauge().value());
+
+        // The permits that were all in flight when scoring got slow cut the limit by a tenth once.
+        Thread.sleep(SLOW_MILLIS);
+        for (long permit : permits) {
+            limiter.release(permit);
+        }
+        assertEquals(9, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+
+        // A permit taken after that cut cuts it again.
+        long permit = limiter.acquire();
+        Thread.sleep(SLOW_MILLIS);
+        limiter.release(permit);
+        assertEquals(8, limiter.getLimit());
+        assertEquals(1.0, registry.get("fraud.limiter.requests").tag("outcome", "shed").functionCounter().count());
+        assertEquals(11.0, registry.get("fraud.limiter.requests").tag("outcome", "accepted").functionCounter().count());
+    }
+
+    @Test
+    void shouldRaiseTheLimitOnlyWhileItIsInUse() {
+        ConcurrencyLimiter limiter = limiter(10);
+
+        for (int i = 0; i < 20; i++) {
+            limiter.release(limiter.acquire());
+        }
+        assertEquals(10, limiter.getLimit());
+
+        long[] permits = new long[6];
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < permits.length; i++) {
+                permits[i] = limiter.acquire();
+            }
+            for (long permit : permits) {
+                limiter.release(permit);
+            }
+        }
+        assertEquals(13, limiter.getLimit());
+        assertEquals(13, registry.get("fraud.limiter.limit").gauge().value());
+    }
+
+    private ConcurrencyLimiter limiter(int initialLimit) {
+        FraudRulesProperties properties = new FraudRulesProperties();
+        FraudRulesProperties.Overload overload = properties.getOverload();
+        overload.setEnabled(true);
+        overload.setInitialLimit(initialLimit);
+        overload.setMinLimit(4);
+        overload.setMaxLimit(100);
+        overload.setLatencyThreshold(Duration.ofMillis(20));
+        return new ConcurrencyLimiter(properties, registry);
+    }
+}
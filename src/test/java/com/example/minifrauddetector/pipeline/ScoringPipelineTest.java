@@ -0,0 +1,183 @@
+package com.example.minifrauddetector.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.dto.FraudCheckResponse;
+import com.example.minifrauddetector.rules.ScoringContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ScoringPipelineTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Set<String> stageThreads = ConcurrentHashMap.newKeySet();
+
+    @Test
+    void shouldAnswerEveryRequestFromConcurrentSubmitters() throws Exception {
+        ScoringPipeline pipeline = pipeline(64, 8);
+        pipeline.start(stages(null));
+
+        List<Future<List<CompletableFuture<FraudCheckResponse>>>> submitters = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                submitters.add(executor.submit(() -> {
+                    List<CompletableFuture<FraudCheckResponse>> results = new ArrayList<>();
+                    for (int i = 0; i < 2000; i++) {
+                        FraudCheckRequest request = request("tx-" + thread + "-" + i, "USD");
+                        CompletableFuture<FraudCheckResponse> result;
+                        while ((result = pipeline.submit(request, 0)) == null) {
+                            Thread.onSpinWait();
+                        }
+                        results.add(result);
+                    }
+                    return results;
+                }));
+            }
+            for (int t = 0; t < 4; t++) {
+                List<CompletableFuture<FraudCheckResponse>> results = submitters.get(t).get(30, TimeUnit.SECONDS);
+                for (int i = 0; i < results.size(); i++) {
+                    assertEquals("tx-" + t + "-" + i, results.get(i).get(5, TimeUnit.SECONDS).getTransactionId());
+                }
+            }
+        }
+        pipeline.stop();
+
+        assertEquals(Set.of("pipeline-enrich", "pipeline-score"), stageThreads);
+        assertEquals(8000.0,
+            registry.get("fraud.pipeline.requests").tag("outcome", "queued").functionCounter().count());
+        assertEquals(0.0, registry.get("fraud.pipeline.pending").gauge().value());
+    }
+
+    @Test
+    void shouldRejectRequestsWhileTheRingIsFull() throws Exception {
+        ScoringPipeline pipeline = pipeline(3, 64);
+        CountDownLatch release = new CountDownLatch(1);
+        pipeline.start(stages(release));
+        assertEquals(4, pipeline.capacity());
+
+        List<CompletableFuture<FraudCheckResponse>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(pipeline.submit(request("tx-" + i, "USD"), 0));
+        }
+        assertNull(pipeline.submit(request("tx-4", "USD"), 0));
+        assertFalse(results.get(3).isDone());
+        release.countDown();
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals("tx-" + i, results.get(i).get(5, TimeUnit.SECONDS).getTransactionId());
+        }
+        // The futures complete just before the respond stage moves its cursor past their slots.
+        while (registry.get("fraud.pipeline.pending").gauge().value() > 0) {
+            Thread.onSpinWait();
+        }
+        assertNotNull(pipeline.submit(request("tx-5", "USD"), 0).get(5, TimeUnit.SECONDS));
+        pipeline.stop();
+        assertNull(pipeline.submit(request("tx-6", "USD"), 0));
+        assertEquals(2.0, registry.get("fraud.pipeline.requests").tag("outcome", "rejected").functionCounter().count());
+    }
+
+    @Test
+    void shouldCompleteWithTheFailureOfAStageAndKeepGoing() throws Exception {
+        ScoringPipeline pipeline = pipeline(16, 4);
+        pipeline.start(stages(null));
+
+        CompletableFuture<FraudCheckResponse> failed = pipeline.submit(request("tx-1", "XXX"), 0);
+        CompletableFuture<FraudCheckResponse> scored = pipeline.submit(request("tx-2", "USD"), 0);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertEquals("Unsupported currency XXX", exception.getCause().getMessage());
+        assertEquals("tx-2", scored.get(5, TimeUnit.SECONDS).getTransactionId());
+        pipeline.stop();
+    }
+
+    @Test
+    void shouldRejectEverythingWhenDisabled() {
+        ScoringPipeline pipeline = ScoringPipeline.disabled();
+        pipeline.start(stages(null));
+
+        assertFalse(pipeline.isEnabled());
+        assertNull(pipeline.submit(request("tx-1", "USD"), 0));
+    }
+
+    @Test
+    void shouldNotStartTwice() throws Exception {
+        ScoringPipeline pipeline = pipeline(16, 4);
+        ScoringPipeline.Stages stages = stages(null);
+        pipeline.start(stages);
+
+        assertThrows(IllegalStateException.class, () -> pipeline.start(stages));
+        assertEquals("tx-1", pipeline.submit(request("tx-1", "USD"), 0).get(5, TimeUnit.SECONDS).getTransactionId());
+        pipeline.stop();
+    }
+
+    private ScoringPipeline pipeline(int bufferSize, int batchSize) {
+        FraudRulesProperties properties = new FraudRulesProperties();
+        properties.getPipeline().setEnabled(true);
+        properties.getPipeline().setBufferSize(bufferSize);
+        properties.getPipeline().setBatchSize(batchSize);
+        return new ScoringPipeline(properties, registry);
+    }
+
+    /**
+     * Stages that fail for currency XXX and, given a latch, hold the enrich stage until it opens.
+     */
+    private ScoringPipeline.Stages stages(CountDownLatch release) {
+        return new ScoringPipeline.Stages() {
+
+            @Override
+            public ScoringContext enrich(FraudCheckRequest request, long permit) {
+                stageThreads.add(Thread.currentThread().getName());
+                if (release != null) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                if (request.getCurrency().equals("XXX")) {
+                    throw new IllegalArgumentException("Unsupported currency XXX");
+                }
+                return new ScoringContext(request);
+            }
+
+            @Override
+            public FraudCheckResponse score(ScoringContext context, long startNanos, long permit) {
+                stageThreads.add(Thread.currentThread().getName());
+                FraudCheckResponse response = new FraudCheckResponse();
+                response.setTransactionId(context.getRequest().getTransactionId());
+                return response;
+            }
+        };
+    }
+
+    private static FraudCheckRequest request(String transactionId, String currency) {
+        FraudCheckRequest request = new FraudCheckRequest();
+        request.setTransactionId(transactionId);
+        request.setUserId("user-1");
+        request.setAmount(new BigDecimal("10.00"));
+        request.setCurrency(currency);
+        request.setCountry("US");
+        request.setTimestamp(Instant.parse("2026-01-01T12:00:00Z"));
+        return request;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.minifrauddetector.profile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.rules.ProfileRule;
+import com.example.minifrauddetector.rules.Rule;
+import com.example.minifrauddetector.rules.ScoringContext;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProfileStoreTest {
+
+    private final AtomicLong clockMillis = new AtomicLong(Instant.parse("2026-01-05T12:00:00Z").toEpochMilli());
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldHandRulesTheProfileBeforeTheTransaction() {
+        FraudRulesProperties.Profile profile = profile();
+        ProfileStore store = new ProfileStore(profile, clockMillis::get);
+        for (int i = 0; i < 20; i++) {
+            store.observe(context("u1", i % 2 == 0 ? "90.00" : "110.00", "US", "2026-01-05T12:00:00Z"));
+        }
+
+        ScoringContext usual = context("u1", "105.00", "us", "2026-01-06T12:30:00Z");
+        store.observe(usual);
+        ScoringContext unusual = context("u1", "5000.00", "FR", "2026-01-07T03:00:00Z");
+        store.observe(unusual);
+        ScoringContext later = context("u1", "100.00", "FR", "2026-01-07T03:10:00Z");
+        store.observe(later);
+
+        assertEquals(20, usual.getProfileCount());
+        assertEquals(10_000, usual.getProfileMeanCents(), 1e-6);
+        assertEquals(1026, usual.getProfileStdDevCents(), 1);
+        assertTrue(usual.isProfileCountrySeen());
+        assertEquals(1.0, usual.getProfileHourShare());
+        assertEquals(21, unusual.getProfileCount());
+        assertFalse(unusual.isProfileCountrySeen());
+        assertEquals(0.0, unusual.getProfileHourShare());
+        assertTrue(later.isProfileCountrySeen());
+
+        Rule amount = ProfileRule.amountDeviation(profile);
+        Rule country = ProfileRule.newCountry(profile);
+        Rule hour = ProfileRule.unusualHour(profile);
+        assertEquals(Rule.NO_MATCH, amount.match(usual));
+        assertEquals(Rule.NO_MATCH, country.match(usual));
+        assertEquals(Rule.NO_MATCH, hour.match(usual));
+        assertEquals(0, amount.match(unusual));
+        assertEquals(0, country.match(unusual));
+        assertEquals(0, hour.match(unusual));
+        assertEquals("First transaction of this user from FR", country.describe(unusual, 0));
+
+        ScoringContext newcomer = context("u2", "5000.00", "FR", "2026-01-07T03:00:00Z");
+        store.observe(newcomer);
+        assertEquals(Rule.NO_MATCH, country.match(newcomer));
+    }
+
+    @Test
+    void shouldRestoreProfilesFromASnapshot() throws Exception {
+        FraudRulesProperties.Profile profile = profile();
+        profile.setSnapshotFile(tempDir.resolve("profiles.bin"));
+        ProfileStore store = new ProfileStore(profile, clockMillis::get);
+        for (int user = 0; user < 500; user++) {
+            for (int i = 0; i < 3; i++) {
+                store.observe(context("user-" + user, (100 + user + i) + ".00", "DE", "2026-01-05T0" + i + ":00:00Z"));
+            }
+        }
+        assertEquals(500, store.save());
+
+        ProfileStore restored = new ProfileStore(profile, clockMillis::get);
+        restored.start();
+        restored.stop();
+        assertEquals(500, restored.size());
+        ScoringContext context = context("user-42", "1.00", "DE", "2026-01-05T01:00:00Z");
+        restored.observe(context);
+        assertEquals(3, context.getProfileCount());
+        assertEquals(14_300, context.getProfileMeanCents(), 1e-6);
+        assertTrue(context.isProfileCountrySeen());
+        assertEquals(1.0 / 3, context.getProfileHourShare(), 1e-9);
+
+        try (RandomAccessFile file = new RandomAccessFile(profile.getSnapshotFile().toFile(), "rw")) {
+            file.seek(100);
+            file.write(file.read() ^ 1);
+        }
+        ProfileStore fromCorrupt = new ProfileStore(profile, clockMillis::get);
+        fromCorrupt.start();
+        assertEquals(0, fromCorrupt.size());
+        assertTrue(Files.exists(tempDir.resolve("profiles.bin.unreadable")));
+    }
+
+    @Test
+    void shouldDropTheLeastRecentlySeenUsersWhenFull() {
+        FraudRulesProperties.Profile profile = profile();
+        profile.setMaxUsers(64);
+        profile.setStripes(1);
+        ProfileStore store = new ProfileStore(profile, clockMillis::get);
+        for (int user = 0; user < 64; user++) {
+            clockMillis.addAndGet(1000);
+            store.observe(context("user-" + user, "10.00", "US", "2026-01-05T12:00:00Z"));
+        }
+        assertEquals(64, store.size());
+
+        store.observe(context("newcomer", "10.00", "US", "2026-01-05T12:00:00Z"));
+
+        assertTrue(store.size() < 64);
+        ScoringContext oldest = context("user-0", "10.00", "US", "2026-01-05T12:00:00Z");
+        ScoringContext recent = context("user-63", "10.00", "US", "2026-01-05T12:00:00Z");
+        store.observe(oldest);
+        store.observe(recent);
+        assertEquals(0, oldest.getProfileCount());
+        assertEquals(1, recent.getProfileCount());
+    }
+
+    private static FraudRulesProperties.Profile profile() {
+        FraudRulesProperties.Profile profile = new FraudRulesProperties().getProfile();
+        profile.setEnabled(true);
+        profile.setMaxUsers(10_000);
+        return profile;
+    }
+
+    private static ScoringContext context(String userId, String amount, String country, String timestamp) {
+        FraudCheckRequest request = new FraudCheckRequest();
+        request.setTransactionId("tx");
+        request.setUserId(userId);
+        request.setAmount(new BigDecimal(amount));
+        request.setCurrency("USD");
+        request.setCountry(country);
+        request.setTimestamp(Instant.parse(timestamp));
+        request.setDeviceTrusted(true);
+        return new ScoringContext(request);
+    }
+}
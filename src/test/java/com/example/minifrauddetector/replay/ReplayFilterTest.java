@@ -0,0 +1,135 @@
+package com.example.minifrauddetector.replay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.rules.ReplayRule;
+import com.example.minifrauddetector.rules.Rule;
+import com.example.minifrauddetector.rules.ScoringContext;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class ReplayFilterTest {
+
+    private final AtomicLong clockMillis = new AtomicLong(Instant.parse("2026-01-05T12:00:00Z").toEpochMilli());
+
+    @Test
+    void shouldFlagARepeatedPayloadUnderANewTransactionId() {
+        ReplayFilter filter = new ReplayFilter(replayDetection(10_000, 0.001), clockMillis::get);
+
+        ScoringContext first = context("tx-1", "u1", "49.99", "1.2.3.4", "2026-01-05T12:05:00Z");
+        filter.observe(first);
+        ScoringContext repeat = context("tx-2", "u1", "49.990", " 1.2.3.4 ", "2026-01-05T12:40:00Z");
+        filter.observe(repeat);
+        ScoringContext otherIp = context("tx-3", "u1", "49.99", "1.2.3.5", "2026-01-05T12:40:00Z");
+        filter.observe(otherIp);
+        ScoringContext nextBucket = context("tx-4", "u1", "49.99", "1.2.3.4", "2026-01-05T13:05:00Z");
+        filter.observe(nextBucket);
+        ScoringContext otherUser = context("tx-5", "u2", "49.99", "1.2.3.4", "2026-01-05T12:05:00Z");
+        filter.observe(otherUser);
+
+        assertFalse(first.isReplayed());
+        assertTrue(repeat.isReplayed());
+        assertFalse(otherIp.isReplayed());
+        assertFalse(nextBucket.isReplayed());
+        assertFalse(otherUser.isReplayed());
+
+        Rule rule = new ReplayRule(20);
+        assertEquals(0, rule.match(repeat));
+        assertEquals(Rule.NO_MATCH, rule.match(first));
+    }
+
+    @Test
+    void shouldForgetFingerprintsOnlyAfterTheWindow() {
+        FraudRulesProperties.ReplayDetection replayDetection = replayDetection(10_000, 0.001);
+        ReplayFilter filter = new ReplayFilter(replayDetection, clockMillis::get);
+        filter.checkAndRecord(42L);
+
+        clockMillis.addAndGet(replayDetection.getWindow().toMillis());
+        assertTrue(filter.checkAndRecord(42L));
+
+        clockMillis.addAndGet(replayDetection.getWindow().toMillis() + Duration.ofHours(3).toMillis());
+        assertFalse(filter.checkAndRecord(42L));
+    }
+
+    @Test
+    void shouldRememberAFingerprintForEverySliceOfTheWindowWhenRotatingOneSliceAtATime() {
+        FraudRulesProperties.ReplayDetection replayDetection = replayDetection(10_000, 0.001);
+        long sliceMillis = replayDetection.getWindow().toMillis() / replayDetection.getSlices();
+        for (int rotations = 1; rotations <= replayDetection.getSlices() + 1; rotations++) {
+            ReplayFilter filter = new ReplayFilter(replayDetection, clockMillis::get);
+            filter.checkAndRecord(42L);
+            for (int i = 0; i < rotations; i++) {
+                clockMillis.addAndGet(sliceMillis);
+                filter.checkAndRecord(1000L + i);
+            }
+
+            boolean remembered = rotations <= replayDetection.getSlices();
+            assertEquals(remembered, filter.checkAndRecord(42L), "after " + rotations + " rotations");
+            filter.stop();
+        }
+    }
+
+    @Test
+    void shouldKeepTheFalsePositiveRateNearTheConfiguredOne() {
+        int insertions = 200_000;
+        ReplayFilter filter = new ReplayFilter(replayDetection(insertions, 0.01), clockMillis::get);
+        long sliceMillis = Duration.ofHours(24).toMillis() / 8;
+        SplittableRandom random = new SplittableRandom(7);
+        for (int slice = 0; slice < 8; slice++) {
+            for (int i = 0; i < insertions / 8; i++) {
+                filter.checkAndRecord(random.nextLong());
+            }
+            clockMillis.addAndGet(sliceMillis);
+        }
+
+        int falsePositives = 0;
+        int probes = insertions / 8;
+        for (int i = 0; i < probes; i++) {
+            if (filter.checkAndRecord(random.nextLong())) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < probes * 0.015, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void shouldRejectARateTheBlockedFiltersDoNotReach() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> new ReplayFilter(replayDetection(10_000, 0.0001), clockMillis::get));
+
+        assertEquals("fraud.replay-detection.false-positive-rate must be at least 0.001 and below 1",
+            exception.getMessage());
+    }
+
+    private static FraudRulesProperties.ReplayDetection replayDetection(long expectedInsertions,
+            double falsePositiveRate) {
+        FraudRulesProperties.ReplayDetection replayDetection = new FraudRulesProperties().getReplayDetection();
+        replayDetection.setEnabled(true);
+        replayDetection.setExpectedInsertions(expectedInsertions);
+        replayDetection.setFalsePositiveRate(falsePositiveRate);
+        return replayDetection;
+    }
+
+    private static ScoringContext context(String transactionId, String userId, String amount, String ipAddress,
+            String timestamp) {
+        FraudCheckRequest request = new FraudCheckRequest();
+        request.setTransactionId(transactionId);
+        request.setUserId(userId);
+        request.setAmount(new BigDecimal(amount));
+        request.setCurrency("USD");
+        request.setCountry("US");
+        request.setIpAddress(ipAddress);
+        request.setTimestamp(Instant.parse(timestamp));
+        request.setDeviceTrusted(true);
+        return new ScoringContext(request);
+    }
+}
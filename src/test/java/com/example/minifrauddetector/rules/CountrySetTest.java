@@ -0,0 +1,36 @@
+package com.example.minifrauddetector.rules;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CountrySetTest {
+
+    @Test
+    void shouldTestMembershipByLetters() {
+        CountrySet countries = CountrySet.of(List.of("AA", "GH", "ZZ"));
+
+        assertTrue(countries.contains("AA"));
+        assertTrue(countries.contains("GH"));
+        assertTrue(countries.contains("ZZ"));
+        assertFalse(countries.contains("GB"));
+        assertFalse(countries.contains("gh"));
+        assertFalse(countries.contains("GHA"));
+        assertEquals(CountrySet.SIZE - 1, CountrySet.index("ZZ"));
+    }
+
+    @Test
+    void shouldRejectMalformedCodes() {
+        assertThrows(IllegalArgumentException.class, () -> CountrySet.of(List.of("G1")));
+    }
+
+    @Test
+    void shouldBuildWrappingHourMask() {
+        assertEquals(0b111111, NightWindowRule.hourMask(0, 5));
+        assertEquals((1 << 23) | (1 << 22) | 0b11, NightWindowRule.hourMask(22, 1));
+    }
+}
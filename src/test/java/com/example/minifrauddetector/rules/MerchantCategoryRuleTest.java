@@ -0,0 +1,71 @@
+package com.example.minifrauddetector.rules;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MerchantCategoryRuleTest {
+
+    private final MerchantCategoryRule rule = new MerchantCategoryRule(List.of(
+        tier("high", 25, 0, "7995", "6051"),
+        tier("elevated", 10, 500, "5732")
+    ));
+
+    @Test
+    void shouldMatchTheTierOfTheCode() {
+        assertEquals(0, rule.match(context("7995", "1.00")));
+        assertEquals(0, rule.match(context("6051", "1.00")));
+        assertEquals(Rule.NO_MATCH, rule.match(context("5411", "5000.00")));
+        assertEquals(Rule.NO_MATCH, rule.match(context("electronics", "5000.00")));
+        assertEquals(Rule.NO_MATCH, rule.match(context(null, "5000.00")));
+    }
+
+    @Test
+    void shouldApplyTheTierMinimumAmount() {
+        assertEquals(Rule.NO_MATCH, rule.match(context("5732", "499.99")));
+        assertEquals(1, rule.match(context("5732", "500.00")));
+        assertEquals("High-risk merchant category: 5732 (elevated) with amount >= 500",
+            rule.describe(context("5732", "500.00"), 1));
+        assertEquals(List.of("merchantCategoryElevatedMin"), List.copyOf(rule.getThresholds().keySet()));
+    }
+
+    @Test
+    void shouldRejectInvalidAndDuplicateCodes() {
+        IllegalArgumentException invalid = assertThrows(IllegalArgumentException.class,
+            () -> new MerchantCategoryRule(List.of(tier("high", 25, 0, "799"))));
+        IllegalArgumentException duplicate = assertThrows(IllegalArgumentException.class,
+            () -> new MerchantCategoryRule(List.of(tier("high", 25, 0, "7995"), tier("elevated", 10, 0, "7995"))));
+
+        assertEquals("Invalid merchant category code '799', expected 4 digits", invalid.getMessage());
+        assertEquals("Merchant category code 7995 is listed in tiers 'high' and 'elevated'", duplicate.getMessage());
+    }
+
+    private static FraudRulesProperties.MerchantCategoryTier tier(String name, int points, long minAmount,
+                                                                  String... codes) {
+        FraudRulesProperties.MerchantCategoryTier tier = new FraudRulesProperties.MerchantCategoryTier();
+        tier.setName(name);
+        tier.setPoints(points);
+        tier.setMinAmount(minAmount);
+        tier.setCodes(List.of(codes));
+        return tier;
+    }
+
+    private static ScoringContext context(String merchantCategory, String amount) {
+        FraudCheckRequest request = new FraudCheckRequest();
+        request.setTransactionId("tx-1");
+        request.setUserId("user-1");
+        request.setAmount(new BigDecimal(amount));
+        request.setCurrency("USD");
+        request.setCountry("US");
+        request.setTimestamp(Instant.parse("2026-01-01T12:00:00Z"));
+        request.setDeviceTrusted(true);
+        request.setMerchantCategory(merchantCategory);
+        return new ScoringContext(request);
+    }
+}
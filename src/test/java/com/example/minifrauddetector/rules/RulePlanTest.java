@@ -0,0 +1,108 @@
+package com.example.minifrauddetector.rules;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RulePlanTest {
+
+    @Test
+    void shouldScoreCustomRuleAlongsideBuiltIns() {
+        List<Rule> rules = new ArrayList<>(BuiltInRules.create(new FraudRulesProperties()));
+        rules.add(new CardPaymentRule());
+        RulePlan plan = RulePlan.compile(rules);
+
+        ScoringContext context = new ScoringContext(request("CARD", false));
+
+        assertEquals(35, plan.score(context));
+        assertEquals(List.of("Untrusted device", "Card payment"), context.getReasons());
+        assertEquals(List.of("untrustedDevice", "cardPayment"), context.getReasonCodes());
+        assertEquals(0b10010L, context.getFiredMask());
+        assertEquals("cardPayment", plan.getRuleId(4));
+        assertEquals(15, plan.getPoints().get("cardPayment"));
+    }
+
+    @Test
+    void shouldExposePointsAndThresholdsFromRules() {
+        RulePlan plan = RulePlan.compile(BuiltInRules.create(new FraudRulesProperties()));
+
+        assertEquals(List.of("amountModerate", "amountHigh", "amountVeryHigh", "untrustedDevice",
+            "highRiskCountry", "nightWindow"), new ArrayList<>(plan.getPoints().keySet()));
+        assertEquals(1000, plan.getThresholds().get("highMin"));
+    }
+
+    @Test
+    void shouldRenderReasonsOnlyWhenRead() {
+        CardPaymentRule cardPayment = new CardPaymentRule();
+        RulePlan plan = RulePlan.compile(List.of(new UntrustedDeviceRule(20), cardPayment));
+
+        ScoringContext context = new ScoringContext(request("CARD", true));
+        plan.score(context);
+
+        assertEquals(List.of("cardPayment"), context.getReasonCodes());
+        assertEquals(0, cardPayment.described);
+        assertEquals("Card payment", context.getReasons().get(0));
+        assertEquals(List.of("Card payment"), context.getReasons());
+        assertEquals(1, cardPayment.described);
+    }
+
+    @Test
+    void shouldRejectDuplicateOutcomes() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> RulePlan.compile(List.of(new UntrustedDeviceRule(20), new UntrustedDeviceRule(5))));
+
+        assertTrue(exception.getMessage().contains("untrustedDevice"));
+    }
+
+    private FraudCheckRequest request(String paymentMethod, boolean deviceTrusted) {
+        FraudCheckRequest request = new FraudCheckRequest();
+        request.setTransactionId("tx-1");
+        request.setUserId("user-1");
+        request.setAmount(new BigDecimal("1"));
+        request.setCurrency("USD");
+        request.setCountry("US");
+        request.setTimestamp(Instant.parse("2026-01-01T12:00:00Z"));
+        request.setDeviceTrusted(deviceTrusted);
+        request.setPaymentMethod(paymentMethod);
+        return request;
+    }
+
+    private static final class CardPaymentRule implements Rule {
+
+        private int described;
+
+        @Override
+        public String getId() {
+            return "cardPayment";
+        }
+
+        @Override
+        public String[] getOutcomes() {
+            return new String[] {"cardPayment"};
+        }
+
+        @Override
+        public int[] getPoints() {
+            return new int[] {15};
+        }
+
+        @Override
+        public int match(ScoringContext context) {
+            return "CARD".equals(context.getRequest().getPaymentMethod()) ? 0 : NO_MATCH;
+        }
+
+        @Override
+        public String describe(ScoringContext context, int outcome) {
+            described++;
+            return "Card payment";
+        }
+    }
+}
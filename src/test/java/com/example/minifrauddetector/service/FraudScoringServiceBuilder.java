@@ -0,0 +1,142 @@
+package com.example.minifrauddetector.service;
+
+import com.example.minifrauddetector.audit.AuditLog;
+import com.example.minifrauddetector.cluster.ClusterRouter;
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.config.RuleSnapshotHolder;
+import com.example.minifrauddetector.fx.FxRateHolder;
+import com.example.minifrauddetector.idempotency.IdempotencyCache;
+import com.example.minifrauddetector.metrics.ScoringMetrics;
+import com.example.minifrauddetector.model.ModelHolder;
+import com.example.minifrauddetector.overload.ConcurrencyLimiter;
+import com.example.minifrauddetector.pipeline.ScoringPipeline;
+import com.example.minifrauddetector.profile.ProfileStore;
+import com.example.minifrauddetector.replay.ReplayFilter;
+import com.example.minifrauddetector.shadow.ShadowScorer;
+import com.example.minifrauddetector.velocity.VelocityTracker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.Executor;
+
+/**
+ * Builds a {@link FraudScoringService} for tests and benchmarks. The rules, velocity tracker, FX rates, metrics
+ * and idempotency cache that are not set are built from the properties and the meter registry; every other
+ * collaborator that is not set is the disabled one. Subtasks run on the calling thread unless an executor is set.
+ */
+public class FraudScoringServiceBuilder {
+
+    private final FraudRulesProperties properties;
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RuleSnapshotHolder ruleSnapshotHolder;
+    private VelocityTracker velocityTracker;
+    private ProfileStore profileStore = ProfileStore.disabled();
+    private ReplayFilter replayFilter = ReplayFilter.disabled();
+    private FxRateHolder fxRateHolder;
+    private ScoringMetrics scoringMetrics;
+    private IdempotencyCache idempotencyCache;
+    private ShadowScorer shadowScorer = ShadowScorer.disabled();
+    private ModelHolder modelHolder = ModelHolder.disabled();
+    private AuditLog auditLog = AuditLog.disabled();
+    private ClusterRouter clusterRouter = ClusterRouter.disabled();
+    private ConcurrencyLimiter concurrencyLimiter = ConcurrencyLimiter.disabled();
+    private ScoringPipeline scoringPipeline = ScoringPipeline.disabled();
+    private Executor scoringExecutor = Runnable::run;
+
+    public FraudScoringServiceBuilder(FraudRulesProperties properties) {
+        this.properties = properties;
+    }
+
+    public FraudScoringServiceBuilder meterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        return this;
+    }
+
+    public FraudScoringServiceBuilder ruleSnapshotHolder(RuleSnapshotHolder ruleSnapshotHolder) {
+        this.ruleSnapshotHolder = ruleSnapshotHolder;
+        return this;
+    }
+
+    public FraudScoringServiceBuilder velocityTracker(VelocityTracker velocityTracker) {
+        this.velocityTracker = velocityTracker;
+        return this;
+    }
+
+    public FraudScoringServiceBuilder profileStore(ProfileStore profileStore) {
+        this.profileStore = profileStore;
+        return this;
+    }
+
+    public FraudScoringServiceBuilder replayFilter(ReplayFilter replayFilter) {
+        this.replayFilter = replayFilter;
+        return this;
+    }
+
+    public FraudScoringServiceBuilder fxRateHolder(FxRateHolder fxRateHolder) {
+        this.fxRateHolder = fxRateHolder;
+        return this;
+    }
+
+    public FraudScoringServiceBuilder scoringMetrics(ScoringMetrics scoringMetrics) {
+        this.scoringMetrics = scoringMetrics;
+        return this;
+    }
+
+    public FraudScoringServiceBuilder idempotencyCache(IdempotencyCache idempotencyCache) {
+        this.idempotencyCache = idempotencyCache;
+        return this;
+    }
+
+    public FraudScoringServiceBuilder shadowScorer(ShadowScorer shadowScorer) {
+        this.shadowScorer = shadowScorer;
+        return this;
+    }
+
+    public FraudScoringServiceBuilder modelHolder(ModelHolder modelHolder) {
+        this.modelHolder = modelHolder;
+        return this;
+    }
+
+    public FraudScoringServiceBuilder auditLog(AuditLog auditLog) {
+        this.auditLog = auditLog;
+        return this;
+    }
+
+    public FraudScoringServiceBuilder clusterRouter(ClusterRouter clusterRouter) {
+        this.clusterRouter = clusterRouter;
+        return this;
+    }
+
+    public FraudScoringServiceBuilder concurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+        return this;
+    }
+
+    public FraudScoringServiceBuilder scoringPipeline(ScoringPipeline scoringPipeline) {
+        this.scoringPipeline = scoringPipeline;
+        return this;
+    }
+
+    public FraudScoringServiceBuilder scoringExecutor(Executor scoringExecutor) {
+        this.scoringExecutor = scoringExecutor;
+        return this;
+    }
+
+    public FraudScoringService build() {
+        return new FraudScoringService(
+            ruleSnapshotHolder != null ? ruleSnapshotHolder : new RuleSnapshotHolder(properties),
+            velocityTracker != null ? velocityTracker : new VelocityTracker(properties),
+            profileStore,
+            replayFilter,
+            fxRateHolder != null ? fxRateHolder : new FxRateHolder(properties),
+            scoringMetrics != null ? scoringMetrics : new ScoringMetrics(meterRegistry, properties),
+            idempotencyCache != null ? idempotencyCache : new IdempotencyCache(properties, meterRegistry),
+            shadowScorer,
+            modelHolder,
+            auditLog,
+            clusterRouter,
+            concurrencyLimiter,
+            scoringPipeline,
+            scoringExecutor,
+            properties);
+    }
+}
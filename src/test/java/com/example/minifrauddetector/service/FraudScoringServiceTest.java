@@ -1,20 +1,51 @@
 package com.example.minifrauddetector.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
+import com.example.minifrauddetector.cluster.ClusterRouter;
 import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.dto.BatchCheckItemResponse;
 import com.example.minifrauddetector.dto.FraudCheckRequest;
 import com.example.minifrauddetector.dto.FraudCheckResponse;
 import com.example.minifrauddetector.dto.RiskLevel;
+import com.example.minifrauddetector.exception.ScoringTimeoutException;
+import com.example.minifrauddetector.exception.UnsupportedCurrencyException;
+import com.example.minifrauddetector.idempotency.IdempotencyCache;
+import com.example.minifrauddetector.model.ModelHolder;
+import com.example.minifrauddetector.overload.ConcurrencyLimiter;
+import com.example.minifrauddetector.pipeline.ScoringPipeline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class FraudScoringServiceTest {
 
+    @TempDir
+    Path tempDir;
+
     private FraudScoringService service;
 
     @BeforeEach
@@ -27,7 +58,7 @@ class FraudScoringServiceTest {
         nightWindow.setEndHourUtc(5);
         properties.setNightWindow(nightWindow);
 
-        service = new FraudScoringService(properties);
+        service = createService(properties);
     }
 
     @Test
@@ -98,6 +129,353 @@ class FraudScoringServiceTest {
         assertTrue(response.getRiskScore() <= 100);
         assertEquals(90, response.getRiskScore());
         assertEquals(RiskLevel.HIGH, response.getRiskLevel());
+        assertEquals(1, response.getRuleVersion());
+    }
+
+    @Test
+    void shouldEvaluateAllInRequestOrder() {
+        List<FraudCheckRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            FraudCheckRequest request = baseRequestBuilder()
+                .amount(new BigDecimal(i % 2 == 0 ? "2500" : "1"))
+                .build();
+            request.setTransactionId("tx-" + i);
+            requests.add(request);
+        }
+
+        List<BatchCheckItemResponse> items = service.evaluateAll(requests, true);
+
+        assertEquals(200, items.size());
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals("tx-" + i, items.get(i).getResult().getTransactionId());
+            assertEquals(i % 2 == 0 ? 35 : 0, items.get(i).getResult().getRiskScore());
+        }
+    }
+
+    @Test
+    void shouldReportAReusedTransactionIdAsTheErrorOfItsItemOnly() {
+        FraudRulesProperties properties = new FraudRulesProperties();
+        FraudScoringService cachedService = new FraudScoringServiceBuilder(properties).build();
+        FraudCheckRequest second = baseRequestBuilder().build();
+        second.setTransactionId("tx-2");
+
+        List<BatchCheckItemResponse> items = cachedService.evaluateAll(List.of(
+            baseRequestBuilder().build(),
+            baseRequestBuilder().amount(new BigDecimal("2")).build(),
+            second), true);
+
+        assertEquals("tx-1", items.get(0).getResult().getTransactionId());
+        assertNull(items.get(1).getResult());
+        assertEquals("Transaction tx-1 was already submitted with a different payload", items.get(1).getError());
+        assertEquals("tx-2", items.get(2).getResult().getTransactionId());
+    }
+
+    @Test
+    void shouldPassOnTheErrorsOfTheOwnerAndScoreOnlyUnansweredRequestsHere() {
+        FraudRulesProperties properties = new FraudRulesProperties();
+        ClusterRouter clusterRouter = mock(ClusterRouter.class);
+        when(clusterRouter.isEnabled()).thenReturn(true);
+        when(clusterRouter.remoteOwner("user-2")).thenReturn("http://10.0.0.2:8080");
+        when(clusterRouter.remoteOwner("user-3")).thenReturn("http://10.0.0.3:8080");
+        BatchCheckItemResponse rejected = new BatchCheckItemResponse();
+        rejected.setError("Transaction tx-2 was already submitted with a different payload");
+        when(clusterRouter.forwardAll(eq("http://10.0.0.2:8080"), any(), eq(true))).thenReturn(List.of(rejected));
+        when(clusterRouter.forwardAll(eq("http://10.0.0.3:8080"), any(), eq(true))).thenReturn(null);
+        FraudScoringService clusteredService = new FraudScoringServiceBuilder(properties)
+            .clusterRouter(clusterRouter)
+            .build();
+        List<FraudCheckRequest> requests = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            FraudCheckRequest request = baseRequestBuilder().build();
+            request.setTransactionId("tx-" + i);
+            request.setUserId("user-" + i);
+            requests.add(request);
+        }
+
+        List<BatchCheckItemResponse> items = clusteredService.evaluateAll(requests, true);
+
+        assertEquals("tx-1", items.get(0).getResult().getTransactionId());
+        assertNull(items.get(1).getResult());
+        assertEquals("Transaction tx-2 was already submitted with a different payload", items.get(1).getError());
+        assertEquals("tx-3", items.get(2).getResult().getTransactionId());
+    }
+
+    @Test
+    void shouldFanOutGroupsOnVirtualThreadsInRequestOrder() {
+        FraudRulesProperties properties = new FraudRulesProperties();
+        properties.getExecution().setGroupSize(3);
+        List<FraudCheckRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            FraudCheckRequest request = baseRequestBuilder().build();
+            request.setTransactionId("tx-" + i);
+            requests.add(request);
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            FraudScoringService virtualService = new FraudScoringServiceBuilder(properties)
+                .scoringExecutor(executor)
+                .build();
+
+            List<BatchCheckItemResponse> items = virtualService.evaluateAll(requests, true);
+
+            assertEquals(10, items.size());
+            for (int i = 0; i < 10; i++) {
+                assertEquals("tx-" + i, items.get(i).getResult().getTransactionId());
+            }
+        }
+    }
+
+    @Test
+    void shouldFailBatchThatMissesTheDeadline() {
+        FraudRulesProperties properties = new FraudRulesProperties();
+        properties.getExecution().setGroupSize(1);
+        properties.getExecution().setDeadline(Duration.ofMillis(20));
+        Executor stalledExecutor = command -> { };
+        FraudScoringService stalledService = new FraudScoringServiceBuilder(properties)
+            .scoringExecutor(stalledExecutor)
+            .build();
+
+        assertThrows(ScoringTimeoutException.class,
+            () -> stalledService.evaluateAll(List.of(baseRequestBuilder().build(), baseRequestBuilder().build()), true));
+    }
+
+    @Test
+    void shouldRecordRuleHitsRiskLevelsAndLatency() {
+        FraudRulesProperties properties = new FraudRulesProperties();
+        properties.setHighRiskCountries(List.of("GH"));
+        properties.getMetrics().setLatencySampleEvery(1);
+        properties.getIdempotency().setEnabled(false);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        FraudScoringService meteredService = new FraudScoringServiceBuilder(properties)
+            .meterRegistry(registry)
+            .build();
+
+        meteredService.evaluate(baseRequestBuilder().deviceTrusted(false).country("GH").build());
+        meteredService.evaluate(baseRequestBuilder().deviceTrusted(false).build());
+        meteredService.evaluate(baseRequestBuilder().build());
+
+        assertEquals(2.0, registry.get("fraud.rule.hits").tag("rule", "untrustedDevice").functionCounter().count());
+        assertEquals(1.0, registry.get("fraud.rule.hits").tag("rule", "highRiskCountry").functionCounter().count());
+        assertEquals(1.0, registry.get("fraud.risk.level").tag("level", "MEDIUM").functionCounter().count());
+        assertEquals(2.0, registry.get("fraud.risk.level").tag("level", "LOW").functionCounter().count());
+        assertEquals(3, registry.get("fraud.evaluate").timer().count());
+    }
+
+    @Test
+    void shouldApplyVelocityRulesPerUser() {
+        FraudRulesProperties properties = new FraudRulesProperties();
+        FraudRulesProperties.VelocityWindow window = new FraudRulesProperties.VelocityWindow();
+        window.setName("1m");
+        window.setDuration(Duration.ofMinutes(1));
+        window.setMaxCount(2);
+        window.setMaxAmount(100);
+        window.setCountPoints(15);
+        window.setAmountPoints(5);
+        properties.getVelocity().setWindows(List.of(window));
+        FraudScoringService velocityService = createService(properties);
+
+        FraudCheckResponse first = velocityService.evaluate(baseRequestBuilder().amount(new BigDecimal("60")).build());
+        FraudCheckResponse second = velocityService.evaluate(baseRequestBuilder().amount(new BigDecimal("60")).build());
+        FraudCheckResponse third = velocityService.evaluate(baseRequestBuilder().amount(new BigDecimal("1")).build());
+        FraudCheckRequest otherUser = baseRequestBuilder().build();
+        otherUser.setUserId("user-2");
+
+        assertEquals(0, first.getRiskScore());
+        assertEquals(0, second.getRiskScore());
+        assertEquals(20, third.getRiskScore());
+        assertTrue(third.getReasons().contains("High transaction velocity: 3 transactions in 1m (limit 2)"));
+        assertTrue(third.getReasons().contains("High spend velocity: 120 in 1m before this transaction (limit 100)"));
+        assertEquals(0, velocityService.evaluate(otherUser).getRiskScore());
+    }
+
+    @Test
+    void shouldScoreWithTheDegradedRulesOnlyWhenOverTheConcurrencyLimit() {
+        FraudRulesProperties properties = new FraudRulesProperties();
+        FraudRulesProperties.VelocityWindow window = new FraudRulesProperties.VelocityWindow();
+        window.setName("1m");
+        window.setDuration(Duration.ofMinutes(1));
+        window.setMaxCount(2);
+        window.setMaxAmount(1_000_000);
+        window.setCountPoints(15);
+        properties.getVelocity().setWindows(List.of(window));
+        properties.getIdempotency().setEnabled(false);
+        properties.getOverload().setEnabled(true);
+        properties.getOverload().setInitialLimit(1);
+        properties.getOverload().setMinLimit(1);
+        properties.getOverload().setMaxLimit(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(properties, registry);
+        FraudScoringService limitedService = new FraudScoringServiceBuilder(properties)
+            .meterRegistry(registry)
+            .concurrencyLimiter(limiter)
+            .build();
+
+        FraudCheckResponse first = limitedService.evaluate(baseRequestBuilder().deviceTrusted(false).build());
+        long permit = limiter.acquire();
+        FraudCheckResponse shed = limitedService.evaluate(baseRequestBuilder().deviceTrusted(false).build());
+        limiter.release(permit);
+        FraudCheckResponse second = limitedService.evaluate(baseRequestBuilder().deviceTrusted(false).build());
+        FraudCheckResponse third = limitedService.evaluate(baseRequestBuilder().deviceTrusted(false).build());
+
+        assertFalse(first.isDegraded());
+        assertTrue(shed.isDegraded());
+        assertEquals(20, shed.getRiskScore());
+        assertEquals(List.of("untrustedDevice"), shed.getReasonCodes());
+        assertTrue(shed.withoutReasonTexts().isDegraded());
+        // The degraded evaluation did not count towards the velocity window.
+        assertEquals(20, second.getRiskScore());
+        assertEquals(35, third.getRiskScore());
+        assertEquals(1.0, registry.get("fraud.limiter.requests").tag("outcome", "shed").functionCounter().count());
+        assertEquals(4.0, registry.get("fraud.limiter.requests").tag("outcome", "accepted").functionCounter().count());
+    }
+
+    @Test
+    void shouldScoreThroughThePipelineLikeOnTheCallingThread() throws Exception {
+        FraudRulesProperties properties = new FraudRulesProperties();
+        FraudRulesProperties.VelocityWindow window = new FraudRulesProperties.VelocityWindow();
+        window.setName("1m");
+        window.setDuration(Duration.ofMinutes(1));
+        window.setMaxCount(2);
+        window.setMaxAmount(1_000_000);
+        window.setCountPoints(15);
+        properties.getVelocity().setWindows(List.of(window));
+        properties.getPipeline().setEnabled(true);
+        properties.getFx().setRatesFile(Files.writeString(tempDir.resolve("fx-rates.txt"), "EUR 1.08\n"));
+        properties.getFx().setWatchFile(false);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        FraudScoringService pipelinedService = new FraudScoringServiceBuilder(properties)
+            .meterRegistry(registry)
+            .scoringPipeline(new ScoringPipeline(properties, registry))
+            .build();
+        pipelinedService.start();
+
+        List<Integer> scores = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            FraudCheckRequest request = baseRequestBuilder().deviceTrusted(false).build();
+            request.setTransactionId("tx-" + i);
+            scores.add(pipelinedService.evaluateAsync(request).get(5, TimeUnit.SECONDS).getRiskScore());
+        }
+        FraudCheckRequest retry = baseRequestBuilder().deviceTrusted(false).build();
+        retry.setTransactionId("tx-3");
+        FraudCheckRequest francs = baseRequestBuilder().build();
+        francs.setTransactionId("tx-4");
+        francs.setCurrency("CHF");
+
+        assertEquals(List.of(20, 20, 35), scores);
+        assertEquals(35, pipelinedService.evaluateAsync(retry).get(5, TimeUnit.SECONDS).getRiskScore());
+        ExecutionException failure = assertThrows(ExecutionException.class,
+            () -> pipelinedService.evaluateAsync(francs).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(UnsupportedCurrencyException.class, failure.getCause());
+        assertEquals(4.0, registry.get("fraud.pipeline.requests").tag("outcome", "queued").functionCounter().count());
+    }
+
+    @Test
+    void shouldHoldAConcurrencyPermitWhileInThePipeline() throws Exception {
+        FraudRulesProperties properties = new FraudRulesProperties();
+        properties.getIdempotency().setEnabled(false);
+        properties.getPipeline().setEnabled(true);
+        properties.getOverload().setEnabled(true);
+        properties.getOverload().setInitialLimit(1);
+        properties.getOverload().setMinLimit(1);
+        properties.getOverload().setMaxLimit(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(properties, registry);
+        FraudScoringService pipelinedService = new FraudScoringServiceBuilder(properties)
+            .meterRegistry(registry)
+            .concurrencyLimiter(limiter)
+            .scoringPipeline(new ScoringPipeline(properties, registry))
+            .build();
+        pipelinedService.start();
+
+        FraudCheckRequest request = baseRequestBuilder().deviceTrusted(false).build();
+        request.setTransactionId("tx-1");
+        FraudCheckResponse first = pipelinedService.evaluateAsync(request).get(5, TimeUnit.SECONDS);
+        long permit = limiter.acquire();
+        request.setTransactionId("tx-2");
+        CompletableFuture<FraudCheckResponse> shed = pipelinedService.evaluateAsync(request);
+        limiter.release(permit);
+        request.setTransactionId("tx-3");
+        FraudCheckResponse second = pipelinedService.evaluateAsync(request).get(5, TimeUnit.SECONDS);
+
+        assertFalse(first.isDegraded());
+        assertTrue(shed.isDone());
+        assertTrue(shed.get().isDegraded());
+        assertFalse(second.isDegraded());
+        assertEquals(1.0, registry.get("fraud.limiter.requests").tag("outcome", "shed").functionCounter().count());
+        assertEquals(3.0, registry.get("fraud.limiter.requests").tag("outcome", "accepted").functionCounter().count());
+        assertEquals(2.0, registry.get("fraud.pipeline.requests").tag("outcome", "queued").functionCounter().count());
+    }
+
+    @Test
+    void shouldScoreAmountsAsGivenWithoutARatesFile() {
+        FraudCheckRequest yen = baseRequestBuilder().amount(new BigDecimal("2000")).build();
+        yen.setCurrency("JPY");
+
+        assertEquals(35, service.evaluate(yen).getRiskScore());
+    }
+
+    @Test
+    void shouldScoreAmountsInTheBaseCurrency() throws Exception {
+        Path ratesFile = Files.createTempFile("fx-rates", ".txt");
+        try {
+            Files.writeString(ratesFile, "JPY 0.0067\nEUR 1.08\n");
+            FraudRulesProperties properties = new FraudRulesProperties();
+            properties.getFx().setRatesFile(ratesFile);
+            properties.getFx().setWatchFile(false);
+            properties.getIdempotency().setEnabled(false);
+            FraudScoringService fxService = new FraudScoringServiceBuilder(properties).build();
+
+            FraudCheckRequest yen = baseRequestBuilder().amount(new BigDecimal("2000")).build();
+            yen.setCurrency("JPY");
+            FraudCheckRequest euros = baseRequestBuilder().amount(new BigDecimal("950")).build();
+            euros.setCurrency("EUR");
+            FraudCheckRequest francs = baseRequestBuilder().build();
+            francs.setCurrency("CHF");
+
+            assertEquals(0, fxService.evaluate(yen).getRiskScore());
+            assertEquals(25, fxService.evaluate(euros).getRiskScore());
+            assertThrows(UnsupportedCurrencyException.class, () -> fxService.evaluate(francs));
+        } finally {
+            Files.delete(ratesFile);
+        }
+    }
+
+    @Test
+    void shouldBlendTheModelScoreWithRulePoints() throws Exception {
+        Path modelFile = Files.createTempFile("model", ".txt");
+        try {
+            Files.writeString(modelFile, """
+                model logistic
+                features deviceTrusted
+                intercept 0
+                weight deviceTrusted -2.1972246
+                """);
+            FraudRulesProperties properties = new FraudRulesProperties();
+            properties.getModel().setEnabled(true);
+            properties.getModel().setFile(modelFile);
+            properties.getModel().setWatchFile(false);
+            properties.getModel().setWeight(0.5);
+            properties.getIdempotency().setEnabled(false);
+            FraudScoringService modelService = new FraudScoringServiceBuilder(properties)
+                .modelHolder(new ModelHolder(properties))
+                .build();
+
+            FraudCheckResponse trusted = modelService.evaluate(baseRequestBuilder().build());
+            FraudCheckResponse untrusted = modelService.evaluate(baseRequestBuilder().deviceTrusted(false).build());
+
+            assertEquals(10, trusted.getModelScore());
+            assertEquals(5, trusted.getRiskScore());
+            assertEquals(50, untrusted.getModelScore());
+            assertEquals(35, untrusted.getRiskScore());
+            assertEquals(RiskLevel.MEDIUM, untrusted.getRiskLevel());
+            assertEquals(List.of("untrustedDevice"), untrusted.getReasonCodes());
+        } finally {
+            Files.delete(modelFile);
+        }
+    }
+
+    private FraudScoringService createService(FraudRulesProperties properties) {
+        return new FraudScoringServiceBuilder(properties).idempotencyCache(IdempotencyCache.disabled()).build();
     }
 
     private FraudCheckResponse evaluateAmount(String amount) {
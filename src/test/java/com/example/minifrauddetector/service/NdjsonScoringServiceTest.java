@@ -0,0 +1,110 @@
+package com.example.minifrauddetector.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.idempotency.IdempotencyCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class NdjsonScoringServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private NdjsonScoringService service;
+
+    @BeforeEach
+    void setUp() {
+        FraudRulesProperties properties = new FraudRulesProperties();
+        properties.setHighRiskCountries(List.of("MM"));
+        properties.getStream().setChunkSize(2);
+        properties.getStream().setMaxLineBytes(512);
+
+        FraudScoringService scoringService = new FraudScoringServiceBuilder(properties)
+            .idempotencyCache(IdempotencyCache.disabled())
+            .build();
+        BatchCheckService batchCheckService =
+            new BatchCheckService(scoringService, Validation.buildDefaultValidatorFactory().getValidator());
+        service = new NdjsonScoringService(batchCheckService, objectMapper, properties);
+    }
+
+    @Test
+    void shouldScoreEachLineAndReportBadLinesInline() throws Exception {
+        String input = line("tx-0", "US") + "\n"
+            + "{\"transactionId\": broken\n"
+            + "\n"
+            + "{\"transactionId\":\"tx-3\"}\r\n"
+            + line("tx-4", "MM");
+
+        List<JsonNode> items = score(input);
+
+        assertEquals(4, items.size());
+        assertEquals(0, items.get(0).get("index").asInt());
+        assertEquals("tx-0", items.get(0).get("result").get("transactionId").asText());
+        assertEquals(1, items.get(1).get("index").asInt());
+        assertEquals("Malformed JSON request", items.get(1).get("error").asText());
+        assertEquals(3, items.get(2).get("index").asInt());
+        assertEquals("Validation failed", items.get(2).get("error").asText());
+        assertTrue(items.get(2).get("fieldErrors").size() > 0);
+        assertEquals(4, items.get(3).get("index").asInt());
+        assertEquals(25, items.get(3).get("result").get("riskScore").asInt());
+    }
+
+    @Test
+    void shouldRejectOverlongLineWithoutStoppingTheStream() throws Exception {
+        String input = "{\"transactionId\":\"" + "x".repeat(600) + "\"}\n" + line("tx-1", "US") + "\n";
+
+        List<JsonNode> items = score(input);
+
+        assertEquals(2, items.size());
+        assertEquals("Line exceeds 512 bytes", items.get(0).get("error").asText());
+        assertEquals("tx-1", items.get(1).get("result").get("transactionId").asText());
+    }
+
+    @Test
+    void shouldScoreEveryLineWithoutTheIdempotencyCache() throws Exception {
+        FraudRulesProperties properties = new FraudRulesProperties();
+        properties.setHighRiskCountries(List.of("MM"));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        FraudScoringService cachedService = new FraudScoringServiceBuilder(properties)
+            .meterRegistry(registry)
+            .build();
+        service = new NdjsonScoringService(
+            new BatchCheckService(cachedService, Validation.buildDefaultValidatorFactory().getValidator()),
+            objectMapper,
+            properties);
+
+        List<JsonNode> items = score(line("tx-1", "US") + "\n" + line("tx-1", "MM") + "\n");
+
+        assertEquals(0, items.get(0).get("result").get("riskScore").asInt());
+        assertEquals(25, items.get(1).get("result").get("riskScore").asInt());
+        assertEquals(0.0, registry.get("fraud.idempotency.entries").gauge().value());
+    }
+
+    private List<JsonNode> score(String input) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        service.score(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), output, true);
+
+        List<JsonNode> items = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            items.add(objectMapper.readTree(line));
+        }
+        return items;
+    }
+
+    private static String line(String transactionId, String country) {
+        return "{\"transactionId\":\"" + transactionId + "\",\"userId\":\"user-1\",\"amount\":25.00,"
+            + "\"currency\":\"USD\",\"country\":\"" + country + "\","
+            + "\"timestamp\":\"2026-01-01T12:00:00Z\",\"deviceTrusted\":true}";
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.minifrauddetector.shadow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import com.example.minifrauddetector.config.RuleSnapshotHolder;
+import com.example.minifrauddetector.dto.FraudCheckRequest;
+import com.example.minifrauddetector.dto.ShadowStatsResponse;
+import com.example.minifrauddetector.rules.RuleSnapshot;
+import com.example.minifrauddetector.rules.ScoringContext;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.jupiter.api.Test;
+
+class ShadowScorerTest {
+
+    @Test
+    void shouldRecordWhereTheCandidateDisagrees() {
+        RuleSnapshotHolder active = holder("GH");
+        ShadowScorer scorer = new ShadowScorer(holder("KE"), Runnable::run);
+
+        score(scorer, active, request("GH", false));
+        score(scorer, active, request("KE", false));
+        score(scorer, active, request("US", false));
+        score(scorer, active, request("KE", true));
+
+        ShadowStatsResponse stats = scorer.stats();
+        assertEquals(4, stats.getEvaluated());
+        assertEquals(3, stats.getScoreChanged());
+        assertEquals(2, stats.getLevelChanged());
+        assertEquals(Map.of("MEDIUM->LOW", 1L, "LOW->MEDIUM", 1L), stats.getLevelFlips());
+        assertEquals(25.0 / 4, stats.getMeanScoreDelta());
+        assertEquals(75.0 / 4, stats.getMeanAbsoluteScoreDelta());
+        assertEquals(-25, stats.getMinScoreDelta());
+        assertEquals(25, stats.getMaxScoreDelta());
+        assertEquals(1, stats.getRules().get("highRiskCountry").getActiveOnly());
+        assertEquals(2, stats.getRules().get("highRiskCountry").getCandidateOnly());
+        assertFalse(stats.getRules().containsKey("untrustedDevice"));
+    }
+
+    @Test
+    void shouldCountDroppedWorkAndIgnoreSubmissionsWhenDisabled() {
+        RuleSnapshotHolder active = holder("GH");
+        ShadowScorer saturated = new ShadowScorer(holder("KE"), task -> {
+            throw new RejectedExecutionException("queue full");
+        });
+        ShadowScorer disabled = ShadowScorer.disabled();
+
+        score(saturated, active, request("GH", false));
+        score(disabled, active, request("GH", false));
+
+        assertEquals(1, saturated.stats().getDropped());
+        assertEquals(0, saturated.stats().getEvaluated());
+        assertFalse(disabled.stats().isEnabled());
+        assertEquals(0, disabled.stats().getDropped());
+    }
+
+    private static void score(ShadowScorer scorer, RuleSnapshotHolder active, FraudCheckRequest request) {
+        RuleSnapshot snapshot = active.current();
+        ScoringContext context = new ScoringContext(request);
+        int score = Math.min(snapshot.getPlan().score(context), 100);
+        scorer.submit(snapshot, context, score);
+    }
+
+    private static RuleSnapshotHolder holder(String highRiskCountry) {
+        FraudRulesProperties properties = new FraudRulesProperties();
+        properties.setHighRiskCountries(List.of(highRiskCountry));
+        return new RuleSnapshotHolder(properties);
+    }
+
+    private static FraudCheckRequest request(String country, boolean deviceTrusted) {
+        FraudCheckRequest request = new FraudCheckRequest();
+        request.setTransactionId("tx-1");
+        request.setUserId("user-1");
+        request.setAmount(new BigDecimal("10.00"));
+        request.setCurrency("USD");
+        request.setCountry(country);
+        request.setTimestamp(Instant.parse("2026-01-01T12:00:00Z"));
+        request.setDeviceTrusted(deviceTrusted);
+        return request;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.minifrauddetector.velocity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.minifrauddetector.config.FraudRulesProperties;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class VelocityTrackerTest {
+
+    private static final long T0 = 1_767_225_600L;
+
+    private final AtomicLong clockMillis = new AtomicLong(T0 * 1000);
+    private final long[] counts = new long[2];
+    private final long[] sums = new long[2];
+
+    @Test
+    void shouldSumCountsAndAmountsPerWindow() {
+        VelocityTracker tracker = tracker(1000);
+
+        tracker.record("user-1", T0, 500, counts, sums);
+        tracker.record("user-1", T0 + 30, 700, counts, sums);
+
+        assertEquals(2, counts[0]);
+        assertEquals(1200, sums[0]);
+        assertEquals(2, counts[1]);
+        assertEquals(1200, sums[1]);
+    }
+
+    @Test
+    void shouldDropBucketsThatSlideOutOfTheWindow() {
+        VelocityTracker tracker = tracker(1000);
+
+        tracker.record("user-1", T0, 500, counts, sums);
+        clockMillis.set((T0 + 120) * 1000);
+        tracker.record("user-1", T0 + 120, 100, counts, sums);
+
+        assertEquals(1, counts[0]);
+        assertEquals(100, sums[0]);
+        assertEquals(2, counts[1]);
+        assertEquals(600, sums[1]);
+    }
+
+    @Test
+    void shouldKeepUsersSeparate() {
+        VelocityTracker tracker = tracker(1000);
+
+        tracker.record("user-1", T0, 500, counts, sums);
+        tracker.record("user-2", T0, 100, counts, sums);
+
+        assertEquals(1, counts[0]);
+        assertEquals(100, sums[0]);
+    }
+
+    @Test
+    void shouldEvictIdleAndThenLeastRecentUsersWhenFull() {
+        VelocityTracker tracker = tracker(2);
+
+        tracker.record("user-1", T0, 100, counts, sums);
+        clockMillis.addAndGet(1000);
+        tracker.record("user-2", T0, 100, counts, sums);
+        clockMillis.addAndGet(1000);
+        tracker.record("user-3", T0, 100, counts, sums);
+
+        assertEquals(2, tracker.size());
+        tracker.record("user-2", T0, 100, counts, sums);
+        assertEquals(2, counts[0]);
+        tracker.record("user-1", T0, 100, counts, sums);
+        assertEquals(1, counts[0]);
+
+        clockMillis.addAndGet(Duration.ofHours(2).toMillis());
+        tracker.record("user-4", T0, 100, counts, sums);
+        assertEquals(1, tracker.size());
+    }
+
+    @Test
+    void shouldCountAFutureDatedTransactionAsNow() {
+        VelocityTracker tracker = tracker(1000);
+
+        tracker.record("user-1", T0 + Duration.ofDays(1).toSeconds(), 500, counts, sums);
+        tracker.record("user-1", T0, 700, counts, sums);
+
+        assertEquals(2, counts[0]);
+        assertEquals(1200, sums[0]);
+        assertEquals(2, counts[1]);
+    }
+
+    @Test
+    void shouldEvictTheLeastRecentUsersInBulk() {
+        VelocityTracker tracker = tracker(1024);
+        for (int i = 0; i < 1024; i++) {
+            clockMillis.incrementAndGet();
+            tracker.record("user-" + i, T0, 100, counts, sums);
+        }
+
+        clockMillis.incrementAndGet();
+        tracker.record("user-new", T0, 100, counts, sums);
+        int afterEviction = tracker.size();
+        assertTrue(afterEviction < 1000, "evicted " + (1025 - afterEviction) + " users");
+
+        tracker.record("user-1023", T0, 100, counts, sums);
+        assertEquals(2, counts[0]);
+        tracker.record("user-0", T0, 100, counts, sums);
+        assertEquals(1, counts[0]);
+    }
+
+    @Test
+    void shouldKeepEveryUserWhileTheStripeGrows() {
+        VelocityTracker tracker = tracker(1024);
+        for (int i = 0; i < 100; i++) {
+            tracker.record("user-" + i, T0, 100, counts, sums);
+        }
+        for (int i = 0; i < 100; i++) {
+            tracker.record("user-" + i, T0, 100, counts, sums);
+            assertEquals(2, counts[0]);
+            assertEquals(200, sums[0]);
+        }
+        assertEquals(100, tracker.size());
+    }
+
+    private VelocityTracker tracker(int maxUsers) {
+        FraudRulesProperties.Velocity velocity = new FraudRulesProperties.Velocity();
+        velocity.setMaxUsers(maxUsers);
+        velocity.setStripes(1);
+        velocity.setWindows(List.of(window("1m", Duration.ofMinutes(1)), window("1h", Duration.ofHours(1))));
+        return new VelocityTracker(velocity, clockMillis::get);
+    }
+
+    private FraudRulesProperties.VelocityWindow window(String name, Duration duration) {
+        FraudRulesProperties.VelocityWindow window = new FraudRulesProperties.VelocityWindow();
+        window.setName(name);
+        window.setDuration(duration);
+        return window;
+    }
+}